@@ -1,28 +1,345 @@
+import ast.FragmentCache;
+import ast.Program;
 import environment.Environment;
+import optimizer.Profile;
 import parser.Parser;
-import scanner.*;
+import scanner.ScanErrorException;
+import scanner.Scanner;
+import server.CompileServer;
+import server.LiveReloader;
+import server.Request;
+import server.Response;
+import server.StreamingInterpreter;
+import target.Target;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
 
 /**
- * testers
+ * Compiles or runs many programs at once. Every file named on the command
+ * line, and every .txt file under every directory named, is a job; the jobs
+ * run on a bounded pool of worker threads, each with an Emitter and an
+ * Environment of its own. What the programs print comes out in the order the
+ * files were given, and a summary of the time each file took and of the
+ * files that failed goes to standard error at the end.
+ *
+ * With -w, Main instead interprets a single file and keeps watching it:
+ * procedures edited while the program runs are swapped into it without
+ * losing the values of its variables. With -m stream, Main interprets a
+ * single file, or standard input if the file is -, while it is being parsed,
+ * so that a long script starts printing right away. With -p, Main handles a
+ * single file with a profile: interpreting it records how often each branch,
+ * loop and call ran into the profile file, and compiling it reads the profile
+ * back to guide the code generator; both does one and then the other.
+ * With -O ir, files are compiled through the SSA intermediate representation
+ * rather than straight from the AST; -O ast, the default, is usually faster.
+ *
+ * Usage: java Main [-m interpret|compile|both] [-t target] [-O ast|ir]
+ * [-j threads] [-o outdir] [-c cachedir] file-or-directory...
+ * or: java Main -w file
+ * or: java Main -m stream file
+ * or: java Main -p profile [-m interpret|compile|both] [-t target] [-o outdir] file
  *
  * @author  Vivek Nayyar
- * @version March 22 2024
+ * @version October 19, 2026
  */
 public class Main {
     /**
-     * Tests the scanner and parser
+     * One file to compile or run, and how it went.
+     */
+    private static class Job {
+        private Path source;
+        private Response response;
+        private long nanos;
+    }
+
+    /**
+     * Runs the files given on the command line and exits with status 1 if
+     * any of them failed.
+     *
+     * @param args the options, files and directories
+     * @throws IOException if a directory cannot be listed
+     * @throws InterruptedException if interrupted while waiting for the jobs
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String mode = Request.COMPILE;
+        String target = "mips";
+        String backEnd = Request.AST;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path outdir = null;
+        FragmentCache cache = FragmentCache.shared();
+        boolean watch = false;
+        Path profile = null;
+        List<Path> sources = new ArrayList<Path>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-w")) {
+                watch = true;
+            } else if (args[i].equals("-p") && i + 1 < args.length) {
+                profile = Paths.get(args[++i]);
+            } else if (args[i].equals("-m") && i + 1 < args.length) {
+                mode = args[++i];
+            } else if (args[i].equals("-t") && i + 1 < args.length) {
+                target = args[++i];
+            } else if (args[i].equals("-O") && i + 1 < args.length) {
+                backEnd = args[++i];
+            } else if (args[i].equals("-j") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-o") && i + 1 < args.length) {
+                outdir = Paths.get(args[++i]);
+                Files.createDirectories(outdir);
+            } else if (args[i].equals("-c") && i + 1 < args.length) {
+                cache = new FragmentCache(new File(args[++i]), FragmentCache.DEFAULT_CAPACITY);
+            } else {
+                addSources(Paths.get(args[i]), sources);
+            }
+        }
+        boolean stream = mode.equals("stream");
+        boolean single = watch || stream || profile != null;
+        if (sources.isEmpty() || single && sources.size() != 1
+                || single && !backEnd.equals(Request.AST)) {
+            System.err.println("usage: java Main [-m interpret|compile|both] [-t target]"
+                    + " [-O ast|ir] [-j threads] [-o outdir] [-c cachedir] file-or-directory...");
+            System.err.println("   or: java Main -w file");
+            System.err.println("   or: java Main -m stream file");
+            System.err.println("   or: java Main -p profile [-m interpret|compile|both]"
+                    + " [-t target] [-o outdir] file");
+            System.exit(2);
+        }
+        if (profile != null) {
+            System.exit(profile(sources.get(0), profile, mode, target, outdir));
+        }
+        if (watch) {
+            System.exit(watch(sources.get(0)));
+        }
+        if (stream) {
+            System.exit(stream(sources.get(0)));
+        }
+
+        long start = System.nanoTime();
+        List<Job> jobs = run(sources, mode, target, backEnd, outdir, cache, threads);
+        long wall = System.nanoTime() - start;
+
+        for (Job job : jobs) {
+            if (jobs.size() > 1 && job.response.getOutput().length > 0) {
+                System.out.println("== " + job.source + " ==");
+            }
+            System.out.write(job.response.getOutput());
+        }
+        System.out.flush();
+        System.exit(summarize(jobs, wall) == 0 ? 0 : 1);
+    }
+
+    /**
+     * Interprets a file while a LiveReloader swaps in the procedures that
+     * are edited in it.
+     *
+     * @param source the file
+     * @return 0 if the program ran to the end, 1 if it failed
+     * @throws IOException if the file cannot be read or watched
+     */
+    private static int watch(Path source) throws IOException {
+        String text = new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+        try {
+            Program program = new Parser(new Scanner(text)).parseProgram();
+            Environment env = new Environment();
+            try (LiveReloader reloader = new LiveReloader(source, env, program)) {
+                reloader.start();
+                program.exec(env);
+            }
+            return 0;
+        } catch (ScanErrorException | RuntimeException | StackOverflowError ex) {
+            return report(source, ex);
+        }
+    }
+
+    /**
+     * Interprets a file, or standard input for -, while it is being parsed.
      *
-     * @param args info from command line
-     * @throws IOException if FileIO dies
+     * @param source the file
+     * @return 0 if the program ran to the end, 1 if it failed
+     * @throws IOException if the file cannot be opened
+     * @throws InterruptedException if interrupted while waiting for the parser
      */
-    public static void main(String[] args) throws IOException, ScanErrorException {
-        FileInputStream fileInputStream = new FileInputStream(new File(
-                "/Users/viveknayyar/Downloads/parserTest9 (1).txt"));
-        Scanner scanner = new Scanner(fileInputStream);
-        Parser parser = new Parser(scanner);
+    private static int stream(Path source) throws IOException, InterruptedException {
+        boolean stdin = source.toString().equals("-");
+        try (InputStream in = stdin ? System.in : Files.newInputStream(source)) {
+            StreamingInterpreter.run(in, new Environment());
+            return 0;
+        } catch (ScanErrorException | RuntimeException | StackOverflowError ex) {
+            return report(source, ex);
+        }
+    }
+
+    /**
+     * Interprets a file while recording a profile of it, compiles it with
+     * the guidance of a profile, or does both. Parts of the program edited
+     * since the profile was recorded are compiled without it, with a warning.
+     *
+     * @param source the file
+     * @param profile the profile file to write or read
+     * @param mode Request.INTERPRET, Request.COMPILE or Request.BOTH
+     * @param target the name of the target to compile for
+     * @param outdir the directory for the assembly file, or null to put it
+     *               next to its source
+     * @return 0 if the program ran or compiled, 1 if it or the profile failed
+     * @throws IOException if the file cannot be read
+     */
+    private static int profile(Path source, Path profile, String mode, String target,
+                               Path outdir) throws IOException {
+        String text = new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+        try {
+            boolean compile = mode.equals(Request.COMPILE) || mode.equals(Request.BOTH);
+            boolean interpret = mode.equals(Request.INTERPRET) || mode.equals(Request.BOTH);
+            if (!compile && !interpret) {
+                throw new IllegalArgumentException("unknown mode " + mode);
+            }
+            Program program = new Parser(new Scanner(text)).parseProgram();
+            if (interpret) {
+                Profile counts = new Profile();
+                Environment env = new Environment();
+                env.setRecorder(counts);
+                program.exec(env);
+                counts.save(program, profile);
+            }
+            if (compile) {
+                for (String part : Profile.load(program, profile)) {
+                    System.err.println(profile + ": " + part + " has changed, compiled without"
+                            + " its profile");
+                }
+                program.compile(output(source, outdir), Target.forName(target), null);
+            }
+            return 0;
+        } catch (IOException | ScanErrorException | RuntimeException | StackOverflowError ex) {
+            return report(source, ex);
+        }
+    }
 
-        parser.parseProgram().compile("output.asm");
+    /**
+     * Returns the name of the assembly file for a source: its name with the
+     * extension .asm, in the output directory or else next to the source.
+     *
+     * @param source the file
+     * @param outdir the directory for the assembly files, or null
+     * @return the name of the assembly file
+     */
+    private static String output(Path source, Path outdir) {
+        String name = source.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+        Path dir = outdir != null ? outdir : source.toAbsolutePath().getParent();
+        return dir.resolve(name + ".asm").toString();
+    }
+
+    /**
+     * Prints why a program failed to standard error.
+     *
+     * @param source the file of the program
+     * @param ex what went wrong
+     * @return 1, the exit status for a failure
+     */
+    private static int report(Path source, Throwable ex) {
+        System.err.println(source + ": " + (ex.getMessage() != null ? ex.getMessage()
+                : ex.toString()));
+        return 1;
+    }
+
+    /**
+     * Adds a file, or the .txt files under a directory in name order, to
+     * the list of sources.
+     *
+     * @param path a file or directory
+     * @param sources receives the files
+     * @throws IOException if the directory cannot be listed
+     */
+    private static void addSources(Path path, List<Path> sources) throws IOException {
+        if (!Files.isDirectory(path)) {
+            sources.add(path);
+            return;
+        }
+        List<Path> found = new ArrayList<Path>();
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Iterator<Path> it = files.iterator(); it.hasNext(); ) {
+                Path file = it.next();
+                if (Files.isRegularFile(file) && file.toString().endsWith(".txt")) {
+                    found.add(file);
+                }
+            }
+        }
+        Collections.sort(found);
+        sources.addAll(found);
+    }
+
+    /**
+     * Compiles or runs every source on a pool of worker threads.
+     *
+     * @param sources the files
+     * @param mode Request.COMPILE, Request.INTERPRET or Request.BOTH
+     * @param target the name of the target to compile for
+     * @param backEnd Request.AST or Request.IR
+     * @param outdir the directory for the assembly files, or null to put
+     *               each next to its source
+     * @param cache the cache compiles share
+     * @param threads the number of files handled at once
+     * @return the finished jobs, in the order of the sources
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private static List<Job> run(List<Path> sources, final String mode, final String target,
+                                 final String backEnd, final Path outdir, final FragmentCache cache, int threads)
+            throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        List<Job> jobs = new ArrayList<Job>();
+        for (final Path source : sources) {
+            final Job job = new Job();
+            job.source = source;
+            jobs.add(job);
+            workers.execute(new Runnable() {
+                public void run() {
+                    String output = output(source, outdir);
+                    long t = System.nanoTime();
+                    try {
+                        job.response = CompileServer.execute(new Request(mode, target, backEnd,
+                                output, source.toAbsolutePath().toString(), null), cache);
+                    } catch (Error err) {
+                        job.response = new Response(false, err.toString(), new byte[0]);
+                    }
+                    job.nanos = System.nanoTime() - t;
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        return jobs;
+    }
+
+    /**
+     * Prints the time each file took, the failures and the totals to
+     * standard error.
+     *
+     * @param jobs the finished jobs
+     * @param wall the time the whole batch took, in nanoseconds
+     * @return the number of files that failed
+     */
+    private static int summarize(List<Job> jobs, long wall) {
+        long total = 0;
+        List<Job> failed = new ArrayList<Job>();
+        for (Job job : jobs) {
+            total += job.nanos;
+            System.err.printf("%10.2f ms  %s  %s%n", job.nanos / 1e6,
+                    job.response.isOk() ? "ok  " : "FAIL", job.source);
+            if (!job.response.isOk()) {
+                failed.add(job);
+            }
+        }
+        if (!failed.isEmpty()) {
+            System.err.println("failures:");
+            for (Job job : failed) {
+                System.err.println("  " + job.source + ": " + job.response.getMessage());
+            }
+        }
+        System.err.printf("%d files, %d failed, %.2f ms of work in %.2f ms%n",
+                jobs.size(), failed.size(), total / 1e6, wall / 1e6);
+        return failed.size();
     }
-}
\ No newline at end of file
+}
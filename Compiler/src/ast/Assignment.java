@@ -1,5 +1,7 @@
 package ast;
 import environment.Environment;
+import optimizer.InductionVariables;
+import java.util.Map;
 
 /**
  * Represents a subclass of statement in which a variable
@@ -39,7 +41,11 @@ public class Assignment extends Statement
     }
 
     /**
-     * Emits code to handle the assignment of an expresssion to a variable.
+     * Emits code to handle the assignment of an expresssion to a variable,
+     * storing into the stack frame when the variable is local to a procedure,
+     * or only into its register while a loop keeps it in one.
+     * Registers that hold products of the variable for a loop are bumped
+     * along with it.
      *
      * @param e the emitter that emits the MIPS code
      */
@@ -47,7 +53,58 @@ public class Assignment extends Statement
     public void compile(Emitter e)
     {
         expression.compile(e);
-        e.emit("la $t1 var" + variable);
-        e.emit("sw $v0, ($t1)");
+        String local = e.getLocalAddress(variable);
+        String promoted = e.getPromotedRegister(variable);
+        if (promoted != null)
+        {
+            e.emit("move", promoted, "$v0");
+        }
+        else if (local != null)
+        {
+            e.emit("sw", "$v0", local);
+        }
+        else
+        {
+            e.emit("sw", "$v0", "var" + variable);
+        }
+        Map<Integer, String> derived = e.getInductionRegisters(variable);
+        if (!derived.isEmpty())
+        {
+            int step = InductionVariables.increment(this);
+            for (Map.Entry<Integer, String> entry : derived.entrySet())
+            {
+                String reg = entry.getValue();
+                int k = step * entry.getKey();
+                if (BinOp.fitsImmediate(k))
+                {
+                    e.emit("addiu", reg, reg, String.valueOf(k));
+                }
+                else
+                {
+                    e.emit("li", "$v1", String.valueOf(k));
+                    e.emit("addu", reg, reg, "$v1");
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the variable being assigned.
+     *
+     * @return the name of the variable being assigned
+     */
+    public String getVariable()
+    {
+        return variable;
+    }
+
+    /**
+     * Returns the expression assigned to the variable.
+     *
+     * @return the expression assigned to the variable
+     */
+    public Expression getExpression()
+    {
+        return expression;
     }
 }
@@ -1,5 +1,6 @@
 package ast;
 import environment.Environment;
+import optimizer.InductionVariables;
 
 /**
  * The BinOp class represents arithmetic expressions
@@ -37,60 +38,407 @@ public class BinOp extends Expression
      */
     @Override
     public int eval(Environment env) 
+    {
+        int val1 = left.eval(env);
+        return evaluate(operand, val1, right.eval(env));
+    }
+
+    /**
+     * Applies a binary arithmetic operator to two values. Shared by the
+     * interpreter and the passes that fold BinOps at compile time.
+     *
+     * @param operand the arithmetic operator
+     * @param val1 the value left of the operator
+     * @param val2 the value right of the operator
+     * @return the quotient, product, sum, difference, etc.
+     * @throws ArithmeticException if a division or mod is by zero
+     */
+    public static int evaluate(String operand, int val1, int val2)
     {
         if (operand.equals("*"))
         {
-            return left.eval(env) * right.eval(env);
+            return val1 * val2;
         }
         if (operand.equals("/"))
         {
-            return left.eval(env) / right.eval(env);
+            return val1 / val2;
         }
         if (operand.equals("+"))
         {
-            return left.eval(env) + right.eval(env);
+            return val1 + val2;
         }
         if (operand.equals("-"))
         {
-            return left.eval(env) - right.eval(env);
+            return val1 - val2;
         }
         else
         {
-            return left.eval(env) % right.eval(env);
+            return val1 % val2;
         }
     }
 
     /**
-     * Emits code to evaluate a BinOp by storing the values of the expressions
-     * in a stack and different registers. Then emits code to perform the arithmetic
-     * based on the operand.
+     * Emits code to evaluate a BinOp into $v0. A BinOp that calls a procedure
+     * is evaluated in a temporary register instead, since the call returns
+     * its own value in $v0.
      *
      * @param e the emitter that emits the MIPS code
      */
     @Override
     public void compile(Emitter e)
     {
-        left.compile(e);
-        e.emitPush("$v0");
-        right.compile(e);
-        e.emitPop("$t0");
+        if (hasCall() && e.hasFreeRegister())
+        {
+            String reg = e.allocateRegister();
+            compileInto(e, reg);
+            e.emit("move", "$v0", reg);
+            e.freeRegister(reg);
+        }
+        else
+        {
+            compileInto(e, "$v0");
+        }
+    }
+
+    /**
+     * Emits code to evaluate a BinOp into the given register. Both expressions
+     * are kept in registers handed out by the emitter, and the code then
+     * performs the arithmetic based on the operand. When one side is a literal
+     * the operator is strength-reduced instead: immediates for + and -,
+     * shifts for multiplying or dividing by a power of two, and a multiply by
+     * a magic number for dividing by any other constant. A product that a
+     * loop keeps in an induction register is just copied from it.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @param reg the register that receives the value
+     */
+    @Override
+    public void compileInto(Emitter e, String reg)
+    {
+        String induction = InductionVariables.productVariable(this) == null ? null
+                : e.getInductionRegister(InductionVariables.productVariable(this),
+                        InductionVariables.productFactor(this));
+        if (induction != null)
+        {
+            e.emit("move", reg, induction);
+            return;
+        }
+        Expression l = left;
+        Expression r = right;
+        if (l instanceof Number && !(r instanceof Number)
+                && (operand.equals("+") || operand.equals("*")))
+        {
+            l = right;
+            r = left;
+        }
+        if (r instanceof Number && compileLiteral(e, l, ((Number) r).getValue(), reg))
+        {
+            return;
+        }
+        String other = compileOperands(e, l, r, reg);
+        if (operand.equals("*"))
+        {
+            e.emit("mult", reg, other);
+            e.emit("mflo", reg);
+        }
+        else if (operand.equals("/"))
+        {
+            e.emit("div", reg, other);
+            e.emit("mflo", reg);
+        }
+        else if (operand.equals("+"))
+        {
+            e.emit("addu", reg, reg, other);
+        }
+        else if (operand.equals("-"))
+        {
+            e.emit("subu", reg, reg, other);
+        }
+        else
+        {
+            e.emit("div", reg, other);
+            e.emit("mfhi", reg);
+        }
+        e.freeRegister(other);
+    }
+
+    /**
+     * Emits cheaper code for an operator whose right side is a literal.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @param l the expression left of the operator
+     * @param c the literal right of the operator
+     * @param reg the register that receives the value
+     * @return true if code was emitted; false if the general code is needed,
+     *         as for dividing by zero
+     */
+    private boolean compileLiteral(Emitter e, Expression l, int c, String reg)
+    {
+        if (operand.equals("+") || operand.equals("-"))
+        {
+            int k = operand.equals("+") ? c : -c;
+            if (!fitsImmediate(k))
+            {
+                return false;
+            }
+            String source = l.getRegister(e);
+            if (source == null)
+            {
+                l.compileInto(e, reg);
+                source = reg;
+            }
+            if (k != 0)
+            {
+                e.emit("addiu", reg, source, String.valueOf(k));
+            }
+            else if (!source.equals(reg))
+            {
+                e.emit("move", reg, source);
+            }
+            return true;
+        }
         if (operand.equals("*"))
         {
-            e.emit("mult $t0 $v0");
-            e.emit("mflo $v0");
+            l.compileInto(e, reg);
+            multiply(e, reg, c);
+            return true;
+        }
+        if (c == 0 || c == Integer.MIN_VALUE)
+        {
+            return false;
         }
         if (operand.equals("/"))
         {
-            e.emit("div $t0 $v0");
-            e.emit("mflo $v0");
+            l.compileInto(e, reg);
+            divide(e, reg, Math.abs(c));
+            if (c < 0)
+            {
+                e.emit("subu", reg, "$zero", reg);
+            }
+            return true;
         }
-        if (operand.equals("+"))
+        if (Math.abs(c) == 1)
         {
-            e.emit("addu $v0 $t0 $v0");
+            l.compileInto(e, reg);
+            e.emit("li", reg, "0");
+            return true;
         }
-        if (operand.equals("-"))
+        if (!e.hasFreeRegister())
         {
-            e.emit("subu $v0 $t0 $v0");
+            return false;
         }
+        l.compileInto(e, reg);
+        String quotient = e.allocateRegister();
+        e.emit("move", quotient, reg);
+        divide(e, quotient, Math.abs(c));
+        multiply(e, quotient, Math.abs(c));
+        e.emit("subu", reg, reg, quotient);
+        e.freeRegister(quotient);
+        return true;
+    }
+
+    /**
+     * Emits code that multiplies a register by a constant in place, with a
+     * shift when the constant is a power of two. Uses $v1 as scratch.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @param reg the register
+     * @param c the constant
+     */
+    public static void multiply(Emitter e, String reg, int c)
+    {
+        int magnitude = Math.abs(c);
+        if (c == 0)
+        {
+            e.emit("li", reg, "0");
+        }
+        else if (c != Integer.MIN_VALUE && (magnitude & (magnitude - 1)) == 0)
+        {
+            int shift = Integer.numberOfTrailingZeros(magnitude);
+            if (shift > 0)
+            {
+                e.emit("sll", reg, reg, String.valueOf(shift));
+            }
+            if (c < 0)
+            {
+                e.emit("subu", reg, "$zero", reg);
+            }
+        }
+        else
+        {
+            e.emit("li", "$v1", String.valueOf(c));
+            e.emit("mult", reg, "$v1");
+            e.emit("mflo", reg);
+        }
+    }
+
+    /**
+     * Emits code that divides a register by a positive constant in place,
+     * rounding toward zero as div does. A power of two takes a biased
+     * arithmetic shift; any other divisor takes the high word of a product
+     * with a magic number, after Granlund and Montgomery, "Division by
+     * Invariant Integers using Multiplication". Uses $v1 as scratch.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @param reg the register
+     * @param d the divisor, at least 1
+     */
+    public static void divide(Emitter e, String reg, int d)
+    {
+        if (d == 1)
+        {
+            return;
+        }
+        if ((d & (d - 1)) == 0)
+        {
+            int k = Integer.numberOfTrailingZeros(d);
+            if (k == 1)
+            {
+                e.emit("srl", "$v1", reg, "31");
+            }
+            else
+            {
+                e.emit("sra", "$v1", reg, "31");
+                e.emit("srl", "$v1", "$v1", String.valueOf(32 - k));
+            }
+            e.emit("addu", reg, reg, "$v1");
+            e.emit("sra", reg, reg, String.valueOf(k));
+            return;
+        }
+        int[] magic = magic(d);
+        e.emit("li", "$v1", String.valueOf(magic[0]));
+        e.emit("mult", reg, "$v1");
+        e.emit("mfhi", "$v1");
+        if (magic[0] < 0)
+        {
+            e.emit("addu", "$v1", "$v1", reg);
+        }
+        if (magic[1] > 0)
+        {
+            e.emit("sra", "$v1", "$v1", String.valueOf(magic[1]));
+        }
+        e.emit("srl", reg, "$v1", "31");
+        e.emit("addu", reg, "$v1", reg);
+    }
+
+    /**
+     * Computes the magic number and shift for signed division by a constant,
+     * as in Warren, Hacker's Delight, section 10-4.
+     *
+     * @param d the divisor, at least 2
+     * @return the magic multiplier and the shift applied to the high word
+     */
+    static int[] magic(int d)
+    {
+        final long two31 = 0x80000000L;
+        long ad = d;
+        long anc = two31 - 1 - two31 % ad;
+        int p = 31;
+        long q1 = two31 / anc;
+        long r1 = two31 - q1 * anc;
+        long q2 = two31 / ad;
+        long r2 = two31 - q2 * ad;
+        long delta;
+        do
+        {
+            p++;
+            q1 *= 2;
+            r1 *= 2;
+            if (r1 >= anc)
+            {
+                q1++;
+                r1 -= anc;
+            }
+            q2 *= 2;
+            r2 *= 2;
+            if (r2 >= ad)
+            {
+                q2++;
+                r2 -= ad;
+            }
+            delta = ad - r2;
+        }
+        while (q1 < delta || (q1 == delta && r1 == 0));
+        return new int[] {(int) (q2 + 1), p - 32};
+    }
+
+    /**
+     * Checks whether a value fits the 16-bit immediate field of an instruction.
+     *
+     * @param value the value
+     * @return true if the value is between -32768 and 32767; otherwise, false
+     */
+    public static boolean fitsImmediate(int value)
+    {
+        return value >= Short.MIN_VALUE && value <= Short.MAX_VALUE;
+    }
+
+    /**
+     * Returns the Sethi-Ullman number of the BinOp: one more than its
+     * expressions need when they need the same, otherwise the larger need.
+     * A literal operand needs no register, since it becomes an immediate or
+     * goes to $v1.
+     *
+     * @return the number of registers needed
+     */
+    @Override
+    public int getRegisterNeed()
+    {
+        int l = left.getRegisterNeed();
+        int r = right.getRegisterNeed();
+        if (right instanceof Number)
+        {
+            return l;
+        }
+        if (left instanceof Number && (operand.equals("+") || operand.equals("*")))
+        {
+            return r;
+        }
+        if (l == r)
+        {
+            return l + 1;
+        }
+        return Math.max(l, r);
+    }
+
+    /**
+     * Checks whether either expression calls a procedure.
+     *
+     * @return true if the BinOp contains a procedure call; otherwise, false
+     */
+    @Override
+    public boolean hasCall()
+    {
+        return left.hasCall() || right.hasCall();
+    }
+
+    /**
+     * Returns the arithmetic operator of this BinOp.
+     *
+     * @return the arithmetic operator of this BinOp
+     */
+    public String getOperator()
+    {
+        return operand;
+    }
+
+    /**
+     * Returns the expression left of the operator.
+     *
+     * @return the expression left of the operator
+     */
+    public Expression getLeft()
+    {
+        return left;
+    }
+
+    /**
+     * Returns the expression right of the operator.
+     *
+     * @return the expression right of the operator
+     */
+    public Expression getRight()
+    {
+        return right;
     }
 }
@@ -24,7 +24,9 @@ public class Block extends Statement
     
     /**
      * Executes the whole block by going through
-     *  each statement in the list (block)
+     *  each statement in the list (block). Procedures reloaded
+     *  while it runs are swapped in between its statements, and a
+     *  cancelled program stops there.
      * 
      * @param env the environment in which the classes execute code
 
@@ -34,8 +36,37 @@ public class Block extends Statement
     {
         for (int i = 0; i < statements.size(); i++)
         {
+            if (env.needsAttention())
+            {
+                env.attend();
+            }
             Statement stat = statements.get(i);
             stat.exec(env);
         }
     }
+
+    /**
+     * Emits code for the whole block by compiling each
+     * statement in the list (block) in order
+     *
+     * @param e the emitter that emits the MIPS code
+     */
+    @Override
+    public void compile(Emitter e)
+    {
+        for (int i = 0; i < statements.size(); i++)
+        {
+            statements.get(i).compile(e);
+        }
+    }
+
+    /**
+     * Returns the list of statements within the block.
+     *
+     * @return the list of statements within the block
+     */
+    public ArrayList<Statement> getStatements()
+    {
+        return statements;
+    }
 }
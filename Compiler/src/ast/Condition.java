@@ -1,5 +1,6 @@
 package ast;
 import environment.Environment;
+import environment.Recorder;
 /**
  * The Condition class contains instructions on how to evaluate expressions
  * that contain a condition operand between a left and right expression.
@@ -12,6 +13,8 @@ public class Condition extends Expression
     private String op;
     private Expression left;
     private Expression right;
+    private long trueCount;
+    private long falseCount;
 
     /**
      * Constructs objects of the Condition class
@@ -27,7 +30,10 @@ public class Condition extends Expression
     }
 
     /**
-     * Evaluates expressions containing relative operators using boolean logic
+     * Evaluates expressions containing relative operators using boolean logic.
+     * When the program is being recorded, the outcome is passed on to the
+     * environment's Recorder.
+     *
      * @param env the environment in which the classes evaluate code
      * @return 0 or 1; 0 when expression is evaluated to be false, and 1 when evaluated to be true
      */
@@ -36,8 +42,62 @@ public class Condition extends Expression
     {
         int val1 = left.eval(env);
         int val2 = right.eval(env);
+        int result = evaluate(op, val1, val2);
+        Recorder recorder = env.getRecorder();
+        if (recorder != null)
+        {
+            recorder.condition(this, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns how often the condition came out true, as loaded from a
+     * profile file.
+     *
+     * @return the number of true outcomes
+     */
+    public long getTrueCount()
+    {
+        return trueCount;
+    }
+
+    /**
+     * Returns how often the condition came out false, as loaded from a
+     * profile file.
+     *
+     * @return the number of false outcomes
+     */
+    public long getFalseCount()
+    {
+        return falseCount;
+    }
+
+    /**
+     * Sets the outcome counts, as read from a profile file.
+     *
+     * @param trues the number of true outcomes
+     * @param falses the number of false outcomes
+     */
+    public void setCounts(long trues, long falses)
+    {
+        trueCount = trues;
+        falseCount = falses;
+    }
+
+    /**
+     * Applies a relative operator to two values. Shared by the interpreter
+     * and the passes that decide Conditions at compile time.
+     *
+     * @param op the relative operator
+     * @param val1 the value left of the operator
+     * @param val2 the value right of the operator
+     * @return 0 or 1; 0 when the comparison is false, and 1 when it is true
+     */
+    public static int evaluate(String op, int val1, int val2)
+    {
         int var = 0;
-        if (op.equals("=="))
+        if (op.equals("=") || op.equals("=="))
         {
             if (val1 == val2)
             {
@@ -83,43 +143,244 @@ public class Condition extends Expression
     }
 
     /**
-     * Emits code to evaluate a Condition by storing the values of the left and right
-     * expressions in a stack and different registers. Then emits code to evaluate the condition
-     * based on the relative operand.
+     * Emits code to evaluate a Condition by keeping the values of the left and
+     * right expressions in registers handed out by the emitter. Then emits code
+     * that branches to the target when the condition is false, based on the
+     * relative operand.
      *
      * @param e the emitter that emits the MIPS code
      * @param target the target label that the code branches to once the condition is evaluated
      */
     public void compile(Emitter e, String target)
     {
-        left.compile(e);
-        e.emitPush("$v0");
-        right.compile(e);
-        e.emitPop("$t1");
-        if (op.equals("="))
+        compileBranch(e, target, false);
+    }
+
+    /**
+     * Emits code to evaluate a Condition followed by a single branch to the
+     * target, taken when the condition has the given outcome; otherwise the
+     * code falls through. A literal is compared without a register of its
+     * own: zero through $zero, and other small literals with slti, so an
+     * ordering test takes one compare and one branch.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @param target the label the branch goes to
+     * @param when true to branch when the condition holds, false to branch when it does not
+     */
+    public void compileBranch(Emitter e, String target, boolean when)
+    {
+        String relation = op;
+        Expression l = left;
+        Expression r = right;
+        if (l instanceof Number && !(r instanceof Number))
         {
-            e.emit("bne $t1, $v0, " + target);
+            relation = mirror(op);
+            l = right;
+            r = left;
         }
-        else if (op.equals("<>"))
+        String reg = "$v0";
+        if (hasCall() && e.hasFreeRegister())
         {
-            e.emit("beq $t1, $v0, " + target);
+            reg = e.allocateRegister();
         }
-        else if (op.equals("<"))
+        if (r instanceof Number && compileLiteral(e, l, relation,
+                ((Number) r).getValue(), reg, target, when))
         {
-            e.emit("bge $t1, $v0, " + target);
+            e.freeRegister(reg);
+            return;
         }
-        else if (op.equals(">"))
+        String other = compileOperands(e, l, r, reg);
+        e.emit(branchOpcode(when ? relation : inverse(relation)), reg, other, target);
+        e.freeRegister(other);
+        e.freeRegister(reg);
+    }
+
+    /**
+     * Emits the comparison of an expression with a literal and the branch
+     * on its outcome, if it can be done without loading the literal.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @param l the expression compared
+     * @param relation the relative operator
+     * @param c the literal it is compared with
+     * @param reg the register that receives the value of l
+     * @param target the label the branch goes to
+     * @param when true to branch when the comparison holds, false to branch when it does not
+     * @return true if code was emitted; otherwise, false
+     */
+    private static boolean compileLiteral(Emitter e, Expression l, String relation, int c,
+                                          String reg, String target, boolean when)
+    {
+        boolean less = relation.equals("<") || relation.equals(">=");
+        boolean greater = relation.equals(">") || relation.equals("<=");
+        int bound = greater ? c + 1 : c;
+        if (c != 0 && (!(less || greater) || (greater && c == Integer.MAX_VALUE)
+                || !BinOp.fitsImmediate(bound)))
         {
-            e.emit("ble $t1, $v0, " + target);
+            return false;
         }
-        else if (op.equals("<="))
+        String source = l.getRegister(e);
+        if (source == null)
         {
-            e.emit("bgt $t1, $v0, " + target);
+            l.compileInto(e, reg);
+            source = reg;
         }
-        else if (op.equals(">="))
+        if (c == 0)
         {
-            e.emit("blt $t1, $v0, " + target);
+            e.emit(branchOpcode(when ? relation : inverse(relation)), source, "$zero", target);
+            return true;
         }
+        e.emit("slti", "$v1", source, String.valueOf(bound));
+        boolean below = relation.equals("<") || relation.equals("<=");
+        e.emit(below == when ? "bne" : "beq", "$v1", "$zero", target);
+        return true;
+    }
+
+    /**
+     * Returns the branch instruction that jumps when a relative operator holds.
+     *
+     * @param op the relative operator
+     * @return the MIPS branch opcode
+     */
+    private static String branchOpcode(String op)
+    {
+        if (op.equals("=") || op.equals("=="))
+        {
+            return "beq";
+        }
+        if (op.equals("<>"))
+        {
+            return "bne";
+        }
+        if (op.equals("<"))
+        {
+            return "blt";
+        }
+        if (op.equals(">"))
+        {
+            return "bgt";
+        }
+        if (op.equals("<="))
+        {
+            return "ble";
+        }
+        return "bge";
+    }
 
+    /**
+     * Returns the relative operator that holds with its operands swapped
+     * exactly when the given one holds.
+     *
+     * @param op the relative operator
+     * @return the operator for the swapped operands
+     */
+    private static String mirror(String op)
+    {
+        if (op.equals("<"))
+        {
+            return ">";
+        }
+        if (op.equals(">"))
+        {
+            return "<";
+        }
+        if (op.equals("<="))
+        {
+            return ">=";
+        }
+        if (op.equals(">="))
+        {
+            return "<=";
+        }
+        return op;
+    }
+
+    /**
+     * Returns the relative operator that holds exactly when the given one does not.
+     *
+     * @param op the relative operator
+     * @return its negation
+     */
+    public static String inverse(String op)
+    {
+        if (op.equals("=") || op.equals("=="))
+        {
+            return "<>";
+        }
+        if (op.equals("<>"))
+        {
+            return "=";
+        }
+        if (op.equals("<"))
+        {
+            return ">=";
+        }
+        if (op.equals(">"))
+        {
+            return "<=";
+        }
+        if (op.equals("<="))
+        {
+            return ">";
+        }
+        return "<";
+    }
+
+    /**
+     * Returns the Sethi-Ullman number of the Condition.
+     *
+     * @return the number of registers needed
+     */
+    @Override
+    public int getRegisterNeed()
+    {
+        int l = left.getRegisterNeed();
+        int r = right.getRegisterNeed();
+        if (l == r)
+        {
+            return l + 1;
+        }
+        return Math.max(l, r);
+    }
+
+    /**
+     * Checks whether either expression calls a procedure.
+     *
+     * @return true if the Condition contains a procedure call; otherwise, false
+     */
+    @Override
+    public boolean hasCall()
+    {
+        return left.hasCall() || right.hasCall();
+    }
+
+    /**
+     * Returns the relative operator of this Condition.
+     *
+     * @return the relative operator of this Condition
+     */
+    public String getOperator()
+    {
+        return op;
+    }
+
+    /**
+     * Returns the expression left of the operator.
+     *
+     * @return the expression left of the operator
+     */
+    public Expression getLeft()
+    {
+        return left;
+    }
+
+    /**
+     * Returns the expression right of the operator.
+     *
+     * @return the expression right of the operator
+     */
+    public Expression getRight()
+    {
+        return right;
     }
 }
\ No newline at end of file
@@ -1,11 +1,20 @@
 package ast;
 
 import java.io.*;
+import java.util.*;
+import events.Phase;
+import mips.Instruction;
+import mips.PeepholeOptimizer;
+import target.MipsTarget;
+import target.Target;
 
 /**
  * The Emitter class is responsible for writing MIPS assembly code
  * to a specified output file. It provides methods to emit lines of code,
  * handle stack operations, and generate unique label identifiers.
+ * The code is kept in memory as a list of Instructions until close(), where
+ * a peephole pass cleans it up and the Target turns it into assembly for
+ * its machine, which is written at once. The default target is MIPS.
  *
  * @author Anu Datar
  * @author Vivek Nayyar
@@ -13,44 +22,270 @@ import java.io.*;
  */
 public class Emitter
 {
-	private PrintWriter out;
+	private String outputFileName;
 	private int counter;
+	private String namespace;
+	private int clean;
+	private FragmentCache cache;
+	private boolean[] inUse;
+	private List<Instruction> code;
+	private PeepholeOptimizer optimizer;
+	private Set<String> globals;
+	private Map<String, String> frame;
+	private Target target;
+	private String[] temporaries;
+	private Map<String, Map<Integer, String>> inductions;
+	private Map<String, String> promoted;
+	private Map<String, String> promotedAddresses;
+	private Map<String, Set<String>> procedureWrites;
+	private Map<String, Set<String>> procedureAccesses;
+	private Map<String, ProcedureDeclaration> procedures;
+	private List<Instruction> outOfLine;
+	private List<Instruction> inLine;
+	private Deque<Caller> callers;
+
+	/**
+	 * What an inlined procedure body must not see of the code it is
+	 * emitted into, kept aside until the body is done.
+	 */
+	private static class Caller
+	{
+		private Map<String, String> frame;
+		private boolean[] inUse;
+		private Map<String, Map<Integer, String>> inductions;
+		private Map<String, String> promoted;
+		private Map<String, String> promotedAddresses;
+	}
 
 
 	/**
 	 * Constructs an Emitter for writing to a new file with the given name.
 	 *
 	 * @param outputFileName the name of the output file
-	 * @throws RuntimeException if an IOException occurs while opening the file
-	 */	public Emitter(String outputFileName)
+	 */
+	public Emitter(String outputFileName)
+	{
+		this(outputFileName, PeepholeOptimizer.standard());
+	}
+
+	/**
+	 * Constructs an Emitter for writing to a new file with the given name
+	 * that runs the given peephole optimizer before writing.
+	 *
+	 * @param outputFileName the name of the output file
+	 * @param optimizer the peephole optimizer, or null to write the code as emitted
+	 */
+	public Emitter(String outputFileName, PeepholeOptimizer optimizer)
+	{
+		this(outputFileName, optimizer, new MipsTarget());
+	}
+
+	/**
+	 * Constructs an Emitter for writing assembly for the given target to
+	 * a new file with the given name.
+	 *
+	 * @param outputFileName the name of the output file
+	 * @param optimizer the peephole optimizer, or null to write the code as emitted
+	 * @param target the machine to write assembly for
+	 */
+	public Emitter(String outputFileName, PeepholeOptimizer optimizer, Target target)
+	{
+		this.outputFileName = outputFileName;
+		this.target = target;
+		namespace = "";
+		temporaries = target.getTemporaries();
+		inUse = new boolean[temporaries.length];
+		code = new ArrayList<Instruction>();
+		this.optimizer = optimizer;
+		globals = new HashSet<String>();
+		inductions = new HashMap<String, Map<Integer, String>>();
+		promoted = new LinkedHashMap<String, String>();
+		promotedAddresses = new HashMap<String, String>();
+		procedureWrites = new HashMap<String, Set<String>>();
+		procedureAccesses = new HashMap<String, Set<String>>();
+		procedures = new HashMap<String, ProcedureDeclaration>();
+		outOfLine = new ArrayList<Instruction>();
+		callers = new ArrayDeque<Caller>();
+	}
+
+	/**
+	 * Adds one line of code to the output. The line is read into an
+	 * Instruction, so this is meant for directives and data; instructions
+	 * are better emitted with emit(opcode, operands).
+	 *
+	 * @param line the line of code to be emitted
+	 */
+	public void emit(String line)
+	{
+		code.add(Instruction.parse(line));
+	}
+
+	/**
+	 * Adds one instruction to the output.
+	 *
+	 * @param opcode the opcode of the instruction
+	 * @param operands the operands of the instruction
+	 */
+	public void emit(String opcode, String... operands)
+	{
+		code.add(Instruction.of(opcode, operands));
+	}
+
+	/**
+	 * Adds a label to the output.
+	 *
+	 * @param name the name of the label, without its colon
+	 */
+	public void emitLabel(String name)
+	{
+		code.add(Instruction.label(name));
+	}
+
+	/**
+	 * Returns the code emitted so far.
+	 *
+	 * @return the instructions, labels and directives in order
+	 */
+	public List<Instruction> getInstructions()
+	{
+		return Collections.unmodifiableList(code);
+	}
+
+	/**
+	 * Returns an Emitter for one part of the program, such as a procedure,
+	 * that can be filled in on another thread. The part shares this
+	 * Emitter's target, peephole optimizer, globals, procedures and their effects,
+	 * but has code, registers and a label counter of its own, and its labels
+	 * carry the given namespace so they cannot clash with those of other
+	 * parts. Its code is added back with append.
+	 *
+	 * @param namespace a prefix of letters, digits and underscores that is
+	 *                  unique to the part and ends in an underscore, or ""
+	 * @return the new Emitter
+	 */
+	public Emitter fork(String namespace)
+	{
+		Emitter part = new Emitter(null, optimizer, target);
+		part.namespace = namespace;
+		part.globals = globals;
+		part.procedureWrites = procedureWrites;
+		part.procedureAccesses = procedureAccesses;
+		part.procedures = procedures;
+		return part;
+	}
+
+	/**
+	 * Runs the peephole optimizer over the code emitted so far. Parts
+	 * returned by fork can be optimized this way on their own threads
+	 * before they are appended, and close() then leaves them alone.
+	 */
+	public void optimize()
+	{
+		if (optimizer != null)
+			code = optimizer.optimize(code);
+		clean = code.size();
+	}
+
+	/**
+	 * Adds code that has already been optimized, such as a fragment from a
+	 * FragmentCache, to the end of this Emitter's code.
+	 *
+	 * @param fragment the optimized code
+	 */
+	public void appendOptimized(List<Instruction> fragment)
+	{
+		boolean optimized = clean == code.size();
+		code.addAll(fragment);
+		if (optimized)
+			clean = code.size();
+	}
+
+	/**
+	 * Sets the cache Program.compile keeps the code of each procedure in.
+	 *
+	 * @param cache the cache, or null to generate all code every time
+	 */
+	public void setCache(FragmentCache cache)
 	{
-		try
+		this.cache = cache;
+	}
+
+	/**
+	 * Returns the cache Program.compile keeps the code of each procedure in.
+	 *
+	 * @return the cache, or null if there is none
+	 */
+	public FragmentCache getCache()
+	{
+		return cache;
+	}
+
+	/**
+	 * Adds the code of a part returned by fork to the end of this Emitter's
+	 * code.
+	 *
+	 * @param part the part, which must not be emitted to any more
+	 */
+	public void append(Emitter part)
+	{
+		boolean optimized = clean == code.size() && part.clean == part.code.size();
+		code.addAll(part.code);
+		if (optimized)
+			clean = code.size();
+	}
+
+	/**
+	 * Runs the peephole optimizer, has the target render the code and
+	 * writes it to the file in one buffered write. This method should be
+	 * called after all calls to emit. Code that has already been optimized
+	 * with optimize() is not optimized again. Commits an optimize phase event
+	 * if there was code left to optimize, and an emit phase event for the
+	 * rendering and writing, when they are being recorded.
+	 *
+	 * @throws RuntimeException if an IOException occurs while writing the file
+	 */
+	public void close()
+	{
+		if (clean < code.size())
 		{
-			out = new PrintWriter(new FileWriter(outputFileName), true);
+			Phase optimize = Phase.start(Phase.OPTIMIZE, null);
+			optimize();
+			optimize.setInstructions(code.size());
+			optimize.finish();
+		}
+		Phase emit = Phase.start(Phase.EMIT, null);
+		String text = target.render(code);
+		try (Writer out = new BufferedWriter(new FileWriter(outputFileName)))
+		{
+			out.write(text);
 		}
 		catch(IOException e)
 		{
 			throw new RuntimeException(e);
 		}
+		emit.setInstructions(code.size());
+		emit.finish();
 	}
 
 	/**
-	 * Prints one line of code to the file, with non-labels indented.
+	 * Returns the peephole optimizer run by close(), whose hit counts
+	 * show how often each rule fired.
 	 *
-	 * @param code the line of code to be emitted
+	 * @return the optimizer, or null if the code is written as emitted
 	 */
-	public void emit(String code)
+	public PeepholeOptimizer getOptimizer()
 	{
-		if (!code.endsWith(":"))
-			code = "\t" + code;
-		out.println(code);
+		return optimizer;
 	}
 
 	/**
-	 * Closes the output file. This method should be called after all calls to emit.
-	 */	public void close()
+	 * Returns the machine this Emitter writes assembly for.
+	 *
+	 * @return the target
+	 */
+	public Target getTarget()
 	{
-		out.close();
+		return target;
 	}
 
 	/**
@@ -62,8 +297,8 @@ public class Emitter
 	 */
 	public void emitPush(String reg)
 	{
-		emit("subu $sp $sp 4");
-		emit("sw " + reg + " ($sp)");
+		emit("subu", "$sp", "$sp", "4");
+		emit("sw", reg, "($sp)");
 	}
 
 	/**
@@ -75,19 +310,446 @@ public class Emitter
 	 */
 	public void emitPop(String reg)
 	{
-		emit("lw " + reg + " ($sp)");
-		emit("addu $sp $sp 4");
+		emit("lw", reg, "($sp)");
+		emit("addu", "$sp", "$sp", "4");
 	}
 
 	/**
 	 * Returns the next label ID accounted for by the accumulating
-	 * instance variable counter.
+	 * instance variable counter, prefixed with the namespace of the
+	 * part being emitted, if any.
 	 *
 	 * @return the next label ID
 	 */
-	public int nextLabelID()
+	public String nextLabelID()
 	{
 		counter++;
-		return counter;
+		return namespace + counter;
+	}
+
+	/**
+	 * Checks whether a temporary register of the target is free for an expression.
+	 *
+	 * @return true if allocateRegister can hand out a register; otherwise, false
+	 */
+	public boolean hasFreeRegister()
+	{
+		for (boolean used : inUse)
+		{
+			if (!used)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Hands out the lowest-numbered free temporary register. It stays
+	 * reserved until it is given back with freeRegister.
+	 *
+	 * @return the name of the register
+	 * @throws IllegalStateException if every temporary register is in use
+	 */
+	public String allocateRegister()
+	{
+		for (int i = 0; i < inUse.length; i++)
+		{
+			if (!inUse[i])
+			{
+				inUse[i] = true;
+				return temporaries[i];
+			}
+		}
+		throw new IllegalStateException("No free temporary register");
+	}
+
+	/**
+	 * Returns the temporary registers currently handed out, which a
+	 * procedure call has to save because the callee may overwrite them.
+	 *
+	 * @return the registers in use, lowest-numbered first
+	 */
+	public List<String> getUsedRegisters()
+	{
+		List<String> used = new ArrayList<String>();
+		for (int i = 0; i < inUse.length; i++)
+		{
+			if (inUse[i])
+				used.add(temporaries[i]);
+		}
+		return used;
+	}
+
+	/**
+	 * Records the global variables of the program, which live at the
+	 * labels var followed by their names.
+	 *
+	 * @param names the names of the global variables
+	 */
+	public void setGlobals(Collection<String> names)
+	{
+		globals = new HashSet<String>(names);
+	}
+
+	/**
+	 * Checks whether a name is one of the program's global variables.
+	 *
+	 * @param name a variable name
+	 * @return true if the name is a global variable; otherwise, false
+	 */
+	public boolean isGlobal(String name)
+	{
+		return globals.contains(name);
+	}
+
+	/**
+	 * Starts emitting the body of a procedure whose local variables live
+	 * in its stack frame at the given addresses.
+	 *
+	 * @param addresses a map from each local name to its address, such as -4($fp)
+	 */
+	public void beginFrame(Map<String, String> addresses)
+	{
+		frame = addresses;
+	}
+
+	/**
+	 * Ends the body of a procedure, so names refer to globals again.
+	 */
+	public void endFrame()
+	{
+		frame = null;
+	}
+
+	/**
+	 * Checks whether the body of a procedure is being emitted.
+	 *
+	 * @return true inside a procedure; false in the main program
+	 */
+	public boolean inFrame()
+	{
+		return frame != null;
+	}
+
+	/**
+	 * Returns where a local variable of the current procedure is stored.
+	 *
+	 * @param name a variable name
+	 * @return its address in the stack frame, or null if the name is not
+	 *         a local variable of the procedure being emitted
+	 */
+	public String getLocalAddress(String name)
+	{
+		if (frame == null)
+			return null;
+		return frame.get(name);
+	}
+
+	/**
+	 * Gives back a register handed out by allocateRegister. Other
+	 * registers are ignored.
+	 *
+	 * @param reg the name of the register
+	 */
+	public void freeRegister(String reg)
+	{
+		for (int i = 0; i < temporaries.length; i++)
+		{
+			if (temporaries[i].equals(reg))
+				inUse[i] = false;
+		}
+	}
+
+	/**
+	 * Records that a register holds the product of a variable and a literal
+	 * for as long as a loop runs, so the product can be read from it and the
+	 * register kept up to date wherever the variable is incremented.
+	 *
+	 * @param name the induction variable
+	 * @param factor the literal it is multiplied by
+	 * @param reg the register holding the product
+	 */
+	public void beginInduction(String name, int factor, String reg)
+	{
+		Map<Integer, String> registers = inductions.get(name);
+		if (registers == null)
+		{
+			registers = new TreeMap<Integer, String>();
+			inductions.put(name, registers);
+		}
+		registers.put(factor, reg);
+	}
+
+	/**
+	 * Stops keeping the product of a variable and a literal in a register.
+	 *
+	 * @param name the induction variable
+	 * @param factor the literal it is multiplied by
+	 */
+	public void endInduction(String name, int factor)
+	{
+		Map<Integer, String> registers = inductions.get(name);
+		if (registers != null)
+		{
+			registers.remove(factor);
+			if (registers.isEmpty())
+				inductions.remove(name);
+		}
+	}
+
+	/**
+	 * Returns the register holding the product of a variable and a literal.
+	 *
+	 * @param name a variable name
+	 * @param factor a literal
+	 * @return the register, or null if the product is not kept in one
+	 */
+	public String getInductionRegister(String name, int factor)
+	{
+		Map<Integer, String> registers = inductions.get(name);
+		if (registers == null)
+			return null;
+		return registers.get(factor);
+	}
+
+	/**
+	 * Returns the registers holding products of a variable, which have to
+	 * change along with it.
+	 *
+	 * @param name a variable name
+	 * @return a map from each literal to the register holding its product
+	 *         with the variable; empty if there are none
+	 */
+	public Map<Integer, String> getInductionRegisters(String name)
+	{
+		Map<Integer, String> registers = inductions.get(name);
+		if (registers == null)
+			return Collections.emptyMap();
+		return Collections.unmodifiableMap(registers);
+	}
+
+	/**
+	 * Records which global variables each procedure may assign and which it
+	 * may read or assign, so that promoted globals are only written back and
+	 * reloaded around the calls that need it.
+	 *
+	 * @param writes a map from each procedure name to the globals it may assign
+	 * @param accesses a map from each procedure name to the globals it may read or assign
+	 */
+	public void setProcedureEffects(Map<String, Set<String>> writes,
+			Map<String, Set<String>> accesses)
+	{
+		procedureWrites = writes;
+		procedureAccesses = accesses;
+	}
+
+	/**
+	 * Records the procedures of the program, whose bodies may be emitted in
+	 * place of calls to them.
+	 *
+	 * @param declarations the procedures
+	 */
+	public void setProcedures(Collection<ProcedureDeclaration> declarations)
+	{
+		procedures = new HashMap<String, ProcedureDeclaration>();
+		for (ProcedureDeclaration pd : declarations)
+			procedures.put(pd.getName(), pd);
+	}
+
+	/**
+	 * Returns one of the procedures of the program.
+	 *
+	 * @param name the name of the procedure
+	 * @return the procedure, or null if it was not recorded with setProcedures
+	 */
+	public ProcedureDeclaration getProcedure(String name)
+	{
+		return procedures.get(name);
+	}
+
+	/**
+	 * Starts emitting a procedure's body in place of a call. The frame, the
+	 * promoted variables, the induction registers and the temporary
+	 * registers in use belong to the caller, so they are put aside and the
+	 * body starts without any, as it would in a subroutine of its own. The
+	 * caller has already saved the registers in use and written back the
+	 * promoted globals the procedure may use, as for a call.
+	 */
+	public void beginInline()
+	{
+		Caller caller = new Caller();
+		caller.frame = frame;
+		caller.inUse = inUse;
+		caller.inductions = inductions;
+		caller.promoted = promoted;
+		caller.promotedAddresses = promotedAddresses;
+		callers.push(caller);
+		frame = null;
+		inUse = new boolean[temporaries.length];
+		inductions = new HashMap<String, Map<Integer, String>>();
+		promoted = new LinkedHashMap<String, String>();
+		promotedAddresses = new HashMap<String, String>();
+	}
+
+	/**
+	 * Ends an inlined procedure body and brings back what beginInline put
+	 * aside.
+	 */
+	public void endInline()
+	{
+		Caller caller = callers.pop();
+		frame = caller.frame;
+		inUse = caller.inUse;
+		inductions = caller.inductions;
+		promoted = caller.promoted;
+		promotedAddresses = caller.promotedAddresses;
+	}
+
+	/**
+	 * Starts emitting code that rarely runs, which is kept aside and placed
+	 * after the rest of the part by emitOutOfLine, so that the code around it
+	 * falls through without jumping over it. The code must begin with a label
+	 * that is branched to and end with a jump back.
+	 */
+	public void beginOutOfLine()
+	{
+		inLine = code;
+		code = outOfLine;
+	}
+
+	/**
+	 * Goes back to emitting code in line after beginOutOfLine.
+	 */
+	public void endOutOfLine()
+	{
+		outOfLine = code;
+		code = inLine;
+		inLine = null;
+	}
+
+	/**
+	 * Checks whether code is being emitted out of line.
+	 *
+	 * @return true between beginOutOfLine and endOutOfLine; otherwise, false
+	 */
+	public boolean isOutOfLine()
+	{
+		return inLine != null;
+	}
+
+	/**
+	 * Adds the code emitted out of line so far to the end of the code. It
+	 * has to come after an instruction that never falls through, such as the
+	 * return of a procedure.
+	 */
+	public void emitOutOfLine()
+	{
+		code.addAll(outOfLine);
+		outOfLine.clear();
+	}
+
+	/**
+	 * Checks whether a procedure may read or assign a global variable,
+	 * directly or through the procedures it calls.
+	 *
+	 * @param procedure the name of the procedure
+	 * @param name the name of the global
+	 * @return true unless the procedure is known to leave the global alone
+	 */
+	public boolean mayAccess(String procedure, String name)
+	{
+		Set<String> used = procedureAccesses.get(procedure);
+		return used == null || used.contains(name);
+	}
+
+	/**
+	 * Starts keeping a variable in a saved register instead of memory.
+	 *
+	 * @param name the variable
+	 * @param reg the saved register, which the caller has already loaded
+	 * @param address where the variable lives in memory, such as varx or -4($fp)
+	 */
+	public void promote(String name, String reg, String address)
+	{
+		promoted.put(name, reg);
+		promotedAddresses.put(name, address);
+	}
+
+	/**
+	 * Stops keeping a variable in a register; the caller has already written
+	 * it back if needed.
+	 *
+	 * @param name the variable
+	 */
+	public void demote(String name)
+	{
+		promoted.remove(name);
+		promotedAddresses.remove(name);
+	}
+
+	/**
+	 * Checks whether any variable is being kept in a register.
+	 *
+	 * @return true inside a region with promoted variables; otherwise, false
+	 */
+	public boolean isPromoting()
+	{
+		return !promoted.isEmpty();
+	}
+
+	/**
+	 * Returns the register a variable is being kept in.
+	 *
+	 * @param name a variable name
+	 * @return the saved register, or null if the variable lives in memory
+	 */
+	public String getPromotedRegister(String name)
+	{
+		return promoted.get(name);
+	}
+
+	/**
+	 * Emits the stores that make memory hold the promoted globals a
+	 * procedure may read or assign, before it is called.
+	 *
+	 * @param procedure the name of the procedure being called
+	 */
+	public void emitWriteBack(String procedure)
+	{
+		Set<String> used = procedureAccesses.get(procedure);
+		for (Map.Entry<String, String> entry : promoted.entrySet())
+		{
+			String address = promotedAddresses.get(entry.getKey());
+			if (isGlobalAddress(address) && (used == null || used.contains(entry.getKey())))
+				emit("sw", entry.getValue(), address);
+		}
+	}
+
+	/**
+	 * Emits the loads that bring back into their registers the promoted
+	 * globals a procedure may have assigned, after it returns.
+	 *
+	 * @param procedure the name of the procedure that was called
+	 */
+	public void emitReload(String procedure)
+	{
+		Set<String> written = procedureWrites.get(procedure);
+		for (Map.Entry<String, String> entry : promoted.entrySet())
+		{
+			String address = promotedAddresses.get(entry.getKey());
+			if (isGlobalAddress(address) && (written == null || written.contains(entry.getKey())))
+				emit("lw", entry.getValue(), address);
+		}
+	}
+
+	/**
+	 * Checks whether an address is a global variable's label rather than
+	 * a slot in a stack frame, which no other procedure can reach.
+	 *
+	 * @param address a memory address
+	 * @return true for a label; otherwise, false
+	 */
+	private static boolean isGlobalAddress(String address)
+	{
+		return !address.endsWith(")");
 	}
 }
\ No newline at end of file
@@ -32,5 +32,109 @@ public abstract class Expression
         throw new RuntimeException("Implement me!!!!!");
     }
 
+    /**
+     * Emits MIPS code that leaves the value of the expression in the given
+     * register. The code may use that register as scratch, and registers
+     * handed out by the emitter, but must leave every other register alone.
+     * By default the value is computed into $v0 and moved.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @param reg the register that receives the value
+     */
+    public void compileInto(Emitter e, String reg)
+    {
+        compile(e);
+        e.emit("move", reg, "$v0");
+    }
+
+    /**
+     * Returns a register that already holds the value of the expression, so
+     * it can be read without emitting any code. The register is never one
+     * handed out by the emitter, so it must not be given back.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @return the register, or null if the value has to be computed
+     */
+    public String getRegister(Emitter e)
+    {
+        return null;
+    }
+
+    /**
+     * Returns the Sethi-Ullman number of the expression: how many registers
+     * are needed to evaluate it without spilling to the stack.
+     *
+     * @return the number of registers needed
+     */
+    public int getRegisterNeed()
+    {
+        return 1;
+    }
+
+    /**
+     * Checks whether evaluating the expression calls a procedure, in which
+     * case its operands must be evaluated in their written order.
+     *
+     * @return true if the expression contains a procedure call; otherwise, false
+     */
+    public boolean hasCall()
+    {
+        return false;
+    }
+
+    /**
+     * Emits code that evaluates both operands of a binary expression. The
+     * operand needing more registers goes first, unless a procedure call means
+     * the left one has to. A literal on the right needs no register of its
+     * own; it is loaded into $v1 once the left value is in place, and a
+     * variable kept in a register is read from there. Only when no
+     * temporary register is left is the first value spilled to the stack.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @param left the expression left of the operator
+     * @param right the expression right of the operator
+     * @param target the register that receives the value of left
+     * @return the register holding the value of right; the caller gives it
+     *         back with e.freeRegister once the operator has been emitted
+     */
+    protected static String compileOperands(Emitter e, Expression left,
+                                            Expression right, String target)
+    {
+        String held = right.getRegister(e);
+        if (held != null)
+        {
+            left.compileInto(e, target);
+            return held;
+        }
+        if (right instanceof Number)
+        {
+            left.compileInto(e, target);
+            right.compileInto(e, "$v1");
+            return "$v1";
+        }
+        if (!e.hasFreeRegister())
+        {
+            left.compileInto(e, target);
+            e.emitPush(target);
+            right.compileInto(e, target);
+            e.emit("move", "$v1", target);
+            e.emitPop(target);
+            return "$v1";
+        }
+        String reg = e.allocateRegister();
+        if (right.getRegisterNeed() > left.getRegisterNeed()
+                && !left.hasCall() && !right.hasCall())
+        {
+            right.compileInto(e, reg);
+            left.compileInto(e, target);
+        }
+        else
+        {
+            left.compileInto(e, target);
+            right.compileInto(e, reg);
+        }
+        return reg;
+    }
+
 }
 
@@ -0,0 +1,466 @@
+package ast;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import mips.Instruction;
+
+/**
+ * A FragmentCache keeps the optimized code of the main statement and of each
+ * procedure from earlier compiles, so that Program.compile only regenerates
+ * the parts that changed. A part is filed under a hash of everything its code
+ * depends on: its tree, which of the names it uses are globals, the globals
+ * each procedure it calls may read or assign, the target and the peephole
+ * rules. Editing a procedure therefore regenerates it and, if what it does to
+ * the globals changed, the parts that call it, while every other part is
+ * reused. The labels of a part are namespaced by its procedure's name, so a
+ * cached fragment can be placed anywhere in the output.
+ *
+ * Fragments are kept in memory, the least recently used ones being dropped
+ * past a fixed number, and can also be stored in a directory so that later
+ * runs of the compiler find them.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class FragmentCache
+{
+    /**
+     * The number of fragments kept in memory by default.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final FragmentCache SHARED = new FragmentCache();
+
+    private Map<String, List<Instruction>> fragments;
+    private File directory;
+    private int hits;
+    private int misses;
+
+    /**
+     * Constructs a FragmentCache that keeps fragments in memory only.
+     */
+    public FragmentCache()
+    {
+        this(null, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a FragmentCache that also stores fragments in a directory.
+     *
+     * @param directory the directory, which is created if needed, or null
+     *                  to keep fragments in memory only
+     * @param capacity the number of fragments kept in memory
+     */
+    public FragmentCache(File directory, final int capacity)
+    {
+        this.directory = directory;
+        fragments = new LinkedHashMap<String, List<Instruction>>(16, 0.75f, true)
+        {
+            protected boolean removeEldestEntry(Map.Entry<String, List<Instruction>> eldest)
+            {
+                return size() > capacity;
+            }
+        };
+        if (directory != null)
+        {
+            directory.mkdirs();
+        }
+    }
+
+    /**
+     * Returns the in-memory cache that Program.compile(String) uses, shared
+     * by every compile in this virtual machine.
+     *
+     * @return the shared cache
+     */
+    public static FragmentCache shared()
+    {
+        return SHARED;
+    }
+
+    /**
+     * Returns the fragment filed under a key, looking in the directory if it
+     * is not in memory.
+     *
+     * @param key a key made by key
+     * @return the optimized code of the part, or null if it is not cached
+     */
+    public List<Instruction> get(String key)
+    {
+        List<Instruction> code;
+        synchronized (this)
+        {
+            code = fragments.get(key);
+        }
+        if (code == null && directory != null)
+        {
+            code = read(key);
+            if (code != null)
+            {
+                synchronized (this)
+                {
+                    fragments.put(key, code);
+                }
+            }
+        }
+        synchronized (this)
+        {
+            if (code == null)
+            {
+                misses++;
+            }
+            else
+            {
+                hits++;
+            }
+        }
+        return code;
+    }
+
+    /**
+     * Files the optimized code of a part under a key.
+     *
+     * @param key a key made by key
+     * @param code the code, which is copied
+     */
+    public void put(String key, List<Instruction> code)
+    {
+        List<Instruction> copy = Collections.unmodifiableList(new ArrayList<Instruction>(code));
+        synchronized (this)
+        {
+            fragments.put(key, copy);
+        }
+        if (directory != null)
+        {
+            write(key, copy);
+        }
+    }
+
+    /**
+     * Returns how many lookups found their fragment.
+     *
+     * @return the number of hits
+     */
+    public synchronized int getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * Returns how many lookups did not find their fragment.
+     *
+     * @return the number of misses
+     */
+    public synchronized int getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * Forgets the fragments kept in memory; those in the directory stay.
+     */
+    public synchronized void clear()
+    {
+        fragments.clear();
+    }
+
+    /**
+     * Returns the key of the main statement or of a procedure.
+     *
+     * @param e the Emitter the program is compiled with, which knows the
+     *          target, the peephole rules and the globals
+     * @param procedure the procedure, or null for the main statement
+     * @param main the main statement, used when procedure is null
+     * @param writes the result of ProcedureAnalysis.globalWrites
+     * @param accesses the result of ProcedureAnalysis.globalAccesses
+     * @return the key, a hexadecimal hash
+     */
+    public static String key(Emitter e, ProcedureDeclaration procedure, Statement main,
+                             Map<String, Set<String>> writes,
+                             Map<String, Set<String>> accesses)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(e.getTarget().getName()).append('\n');
+        if (e.getOptimizer() != null)
+        {
+            sb.append(e.getOptimizer().getHitCounts().keySet());
+        }
+        sb.append('\n');
+        Set<String> names = new TreeSet<String>();
+        Set<String> called = new TreeSet<String>();
+        if (procedure == null)
+        {
+            sb.append("main ");
+            describe(main, sb, names, called);
+        }
+        else
+        {
+            sb.append("procedure ").append(procedure.getName())
+                .append(procedure.getParameters()).append(' ');
+            describe(procedure.getBody(), sb, names, called);
+        }
+        sb.append('\n');
+        for (String name : names)
+        {
+            if (e.isGlobal(name))
+            {
+                sb.append(name).append(' ');
+            }
+        }
+        sb.append('\n');
+        for (String name : called)
+        {
+            sb.append(name).append(' ').append(sorted(writes.get(name))).append(' ')
+                .append(sorted(accesses.get(name))).append('\n');
+        }
+        return hash(sb.toString());
+    }
+
+    /**
+     * Returns a procedure as text that tells apart any two procedures with
+     * different names, parameters or bodies, but not two that differ only in
+     * spacing or layout.
+     *
+     * @param procedure the procedure
+     * @return the text
+     */
+    public static String describe(ProcedureDeclaration procedure)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(procedure.getName()).append(procedure.getParameters()).append(' ');
+        describe(procedure.getBody(), sb, new HashSet<String>(), new HashSet<String>());
+        return sb.toString();
+    }
+
+    /**
+     * Returns a statement, such as the main statement of a program, as text
+     * that tells apart any two different trees.
+     *
+     * @param statement the statement
+     * @return the text
+     */
+    public static String describe(Statement statement)
+    {
+        StringBuilder sb = new StringBuilder();
+        describe(statement, sb, new HashSet<String>(), new HashSet<String>());
+        return sb.toString();
+    }
+
+    /**
+     * Writes a statement out as text that tells apart any two different trees.
+     *
+     * @param s the statement, or null
+     * @param sb receives the text
+     * @param names receives the variable names the statement uses
+     * @param called receives the names of the procedures the statement calls
+     */
+    private static void describe(Statement s, StringBuilder sb, Set<String> names,
+                                 Set<String> called)
+    {
+        if (s == null)
+        {
+            sb.append("()");
+        }
+        else if (s instanceof Assignment)
+        {
+            Assignment a = (Assignment) s;
+            names.add(a.getVariable());
+            sb.append("(:= ").append(a.getVariable()).append(' ');
+            describe(a.getExpression(), sb, names, called);
+            sb.append(')');
+        }
+        else if (s instanceof Writeln)
+        {
+            sb.append("(writeln ");
+            describe(((Writeln) s).getExpression(), sb, names, called);
+            sb.append(')');
+        }
+        else if (s instanceof Block)
+        {
+            sb.append("(block");
+            for (Statement child : ((Block) s).getStatements())
+            {
+                sb.append(' ');
+                describe(child, sb, names, called);
+            }
+            sb.append(')');
+        }
+        else if (s instanceof If)
+        {
+            If i = (If) s;
+            sb.append("(if ");
+            describe(i.getCondition(), sb, names, called);
+            sb.append(' ');
+            describe(i.getThen(), sb, names, called);
+            sb.append(' ');
+            describe(i.getElse(), sb, names, called);
+            sb.append(')');
+        }
+        else if (s instanceof While)
+        {
+            While w = (While) s;
+            sb.append("(while ");
+            describe(w.getCondition(), sb, names, called);
+            sb.append(' ');
+            describe(w.getBody(), sb, names, called);
+            sb.append(')');
+        }
+        else
+        {
+            throw new IllegalArgumentException("cannot describe " + s.getClass().getName());
+        }
+    }
+
+    /**
+     * Writes an expression out as text that tells apart any two different trees.
+     *
+     * @param exp the expression
+     * @param sb receives the text
+     * @param names receives the variable names the expression uses
+     * @param called receives the names of the procedures the expression calls
+     */
+    private static void describe(Expression exp, StringBuilder sb, Set<String> names,
+                                 Set<String> called)
+    {
+        if (exp instanceof Number)
+        {
+            sb.append(((Number) exp).getValue());
+        }
+        else if (exp instanceof Variable)
+        {
+            names.add(((Variable) exp).getName());
+            sb.append(((Variable) exp).getName());
+        }
+        else if (exp instanceof BinOp)
+        {
+            BinOp b = (BinOp) exp;
+            sb.append('(').append(b.getOperator()).append(' ');
+            describe(b.getLeft(), sb, names, called);
+            sb.append(' ');
+            describe(b.getRight(), sb, names, called);
+            sb.append(')');
+        }
+        else if (exp instanceof Condition)
+        {
+            Condition c = (Condition) exp;
+            sb.append("(? ").append(c.getOperator()).append(' ');
+            describe(c.getLeft(), sb, names, called);
+            sb.append(' ');
+            describe(c.getRight(), sb, names, called);
+            sb.append(')');
+        }
+        else if (exp instanceof ProcedureCall)
+        {
+            ProcedureCall call = (ProcedureCall) exp;
+            called.add(call.getName());
+            sb.append("(call ").append(call.getName());
+            for (Expression arg : call.getArguments())
+            {
+                sb.append(' ');
+                describe(arg, sb, names, called);
+            }
+            sb.append(')');
+        }
+        else
+        {
+            throw new IllegalArgumentException("cannot describe " + exp.getClass().getName());
+        }
+    }
+
+    /**
+     * Returns a set of names in order, so that equal sets print alike.
+     *
+     * @param names the names, or null
+     * @return the sorted names, or null
+     */
+    private static Set<String> sorted(Set<String> names)
+    {
+        return names == null ? null : new TreeSet<String>(names);
+    }
+
+    /**
+     * Returns the SHA-256 hash of a string.
+     *
+     * @param text the string
+     * @return the hash in hexadecimal
+     */
+    private static String hash(String text)
+    {
+        try
+        {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest)
+            {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16))
+                    .append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        }
+        catch (NoSuchAlgorithmException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Reads a fragment from the directory.
+     *
+     * @param key the key of the fragment
+     * @return the code, or null if the fragment is not stored or cannot be read
+     */
+    private List<Instruction> read(String key)
+    {
+        Path path = new File(directory, key + ".s").toPath();
+        if (!Files.exists(path))
+        {
+            return null;
+        }
+        try
+        {
+            List<Instruction> code = new ArrayList<Instruction>();
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8))
+            {
+                code.add(Instruction.parse(line));
+            }
+            return Collections.unmodifiableList(code);
+        }
+        catch (IOException ex)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Stores a fragment in the directory. The file is written under another
+     * name and then renamed, so that a compile running at the same time
+     * never reads half of it. A fragment that cannot be stored is only kept
+     * in memory.
+     *
+     * @param key the key of the fragment
+     * @param code the code
+     */
+    private void write(String key, List<Instruction> code)
+    {
+        StringBuilder text = new StringBuilder();
+        for (Instruction in : code)
+        {
+            text.append(in).append('\n');
+        }
+        try
+        {
+            Path temp = Files.createTempFile(directory.toPath(), key, ".tmp");
+            Files.write(temp, text.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, new File(directory, key + ".s").toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException ex)
+        {
+            // the fragment is still kept in memory
+        }
+    }
+}
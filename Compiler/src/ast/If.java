@@ -1,5 +1,6 @@
 package ast;
 import environment.Environment;
+import optimizer.Profile;
 
 /**
  * The If class contains instructions on how the compiler should
@@ -73,23 +74,71 @@ public class If extends Statement
     /**
      * Emits code to evaluate "if" conditional statements.
      * Utilizes the label ID to keep track of which statement is
-     * being compiled. Jumps to the according conditions as each
-     * statement is compiled.
+     * being compiled. The condition branches past the then statement
+     * when it is false; only when there is an else statement does the
+     * then statement end with a jump over it. When the profile shows that the
+     * then statement rarely runs, it is moved out of line instead: the
+     * condition branches to it when true and it jumps back, so the usual path
+     * falls straight through.
      *
      * @param e the emitter that emits the MIPS code
      */
     @Override
     public void compile(Emitter e)
     {
-        int label = e.nextLabelID();
-        condition.compile(e, "elseif" + label);
-        stat1.compile(e);
-        e.emit("j endif" + label);
-        e.emit("elseif" + label+ ":");
-        if (stat2 != null)
+        String label = e.nextLabelID();
+        if (stat2 == null && !e.isOutOfLine() && Profile.isCold(condition))
         {
+            condition.compileBranch(e, "thenif" + label, true);
+            e.beginOutOfLine();
+            e.emitLabel("thenif" + label);
+            stat1.compile(e);
+            e.emit("j", "endif" + label);
+            e.endOutOfLine();
+        }
+        else if (stat2 == null)
+        {
+            condition.compileBranch(e, "endif" + label, false);
+            stat1.compile(e);
+        }
+        else
+        {
+            condition.compileBranch(e, "elseif" + label, false);
+            stat1.compile(e);
+            e.emit("j", "endif" + label);
+            e.emitLabel("elseif" + label);
             stat2.compile(e);
         }
-        e.emit("endif" + label+ ":");
+        e.emitLabel("endif" + label);
+    }
+
+    /**
+     * Returns the condition that decides which branch runs.
+     *
+     * @return the condition that decides which branch runs
+     */
+    public Condition getCondition()
+    {
+        return condition;
+    }
+
+    /**
+     * Returns the statement run when the condition is true.
+     *
+     * @return the statement run when the condition is true
+     */
+    public Statement getThen()
+    {
+        return stat1;
+    }
+
+    /**
+     * Returns the else statement, or null if there is none.
+     *
+     * @return the else statement, or null if there is none
+     */
+    public Statement getElse()
+    {
+        return stat2;
     }
 }
\ No newline at end of file
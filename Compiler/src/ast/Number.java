@@ -41,7 +41,29 @@ public class Number extends Expression
     @Override
     public void compile(Emitter e)
     {
-        e.emit("li $v0 " + value);
+        e.emit("li", "$v0", String.valueOf(value));
     }
 
+    /**
+     * Emits MIPS code that loads the value of the number
+     * into the given register.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @param reg the register that receives the value
+     */
+    @Override
+    public void compileInto(Emitter e, String reg)
+    {
+        e.emit("li", reg, String.valueOf(value));
+    }
+
+    /**
+     * Returns the value of the number.
+     *
+     * @return the value of the number
+     */
+    public int getValue()
+    {
+        return value;
+    }
 }
@@ -1,6 +1,9 @@
 package ast;
 import java.util.*;
 import environment.Environment;
+import environment.Recorder;
+import events.ProcedureCallEvent;
+import optimizer.Profile;
 
 /**
  * ProcedureCall objects have a name and AL of
@@ -14,6 +17,7 @@ public class ProcedureCall extends Expression
 {
     private String name;
     private ArrayList<Expression> plist;
+    private long calls;
 
     /**
      * Constructor for ProcedureCall objects
@@ -29,16 +33,38 @@ public class ProcedureCall extends Expression
 
     /**
      * Evaluates the environment's procedures in the child environment extending
-     * the specified environment. Runs the child's procedures' body.
+     * the specified environment. Runs the child's procedures' body. Calls
+     * longer than its threshold commit a ProcedureCallEvent when it is being
+     * recorded, and the call is passed on to the environment's Recorder when
+     * the program is being recorded. A
+     * cancelled program stops before the call, so that even a procedure
+     * whose body has no Block or While stops when its program is cancelled.
      *
      * @param env the environment whose procedures are evaled + run
      * @return the value of the name variable in the child env's HashMap
+     * @throws java.util.concurrent.CancellationException if the program has
+     *         been cancelled
      */
     public int eval(Environment env)
     {
+        ProcedureCallEvent event = null;
+        if (env.needsAttention())
+        {
+            env.attend();
+            if (env.isTraced())
+            {
+                event = new ProcedureCallEvent(name, plist.size());
+                event.begin();
+            }
+            Recorder recorder = env.getRecorder();
+            if (recorder != null)
+            {
+                recorder.call(this);
+            }
+        }
         ProcedureDeclaration pd = env.getProcedure(name);
         Environment temp = env;
-        if(temp.getParent() != null)
+        while(temp.getParent() != null)
         {
             temp = temp.getParent();
         }
@@ -50,6 +76,169 @@ public class ProcedureCall extends Expression
             child.declareVariable(parameters.get(i), plist.get(i).eval(env));
         }
         pd.getBody().exec(child);
+        if (event != null)
+        {
+            event.commit();
+        }
         return child.getVariable(name);
     }
+
+    /**
+     * Emits code that calls the procedure and leaves its result in $v0.
+     * Temporary registers in use are saved around the call. The first four
+     * arguments are passed in $a0-$a3 and the rest in a stack area, where
+     * argument i is at 4 * (i - 4)($sp) when the procedure is entered. If an
+     * argument itself calls a procedure, the register arguments are pushed
+     * as they are evaluated and only popped into $a0-$a3 at the end. Globals
+     * a loop keeps in registers are stored before the call if the procedure
+     * may use them, and loaded again after it if the procedure may assign them.
+     * A call the profile shows to be hot, to a small procedure that calls no
+     * other, has the procedure's body emitted in its place instead of the jal.
+     *
+     * @param e the emitter that emits the MIPS code
+     */
+    @Override
+    public void compile(Emitter e)
+    {
+        compileCall(e, null);
+    }
+
+    /**
+     * Emits code that calls the procedure and moves its result into the
+     * given register, which does not need saving around the call.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @param reg the register that receives the value
+     */
+    @Override
+    public void compileInto(Emitter e, String reg)
+    {
+        compileCall(e, reg);
+        e.emit("move", reg, "$v0");
+    }
+
+    /**
+     * Emits the call sequence described in compile.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @param target the register the result goes to, or null
+     */
+    private void compileCall(Emitter e, String target)
+    {
+        List<String> saved = e.getUsedRegisters();
+        saved.remove(target);
+        for (String reg : saved)
+        {
+            e.emitPush(reg);
+        }
+        int inRegisters = Math.min(plist.size(), ProcedureDeclaration.ARGUMENT_REGISTERS);
+        int overflow = 4 * (plist.size() - inRegisters);
+        if (overflow > 0)
+        {
+            e.emit("subu", "$sp", "$sp", String.valueOf(overflow));
+        }
+        boolean staged = false;
+        for (Expression arg : plist)
+        {
+            staged = staged || arg.hasCall();
+        }
+        for (int i = 0; i < plist.size(); i++)
+        {
+            Expression arg = plist.get(i);
+            if (i >= inRegisters)
+            {
+                int offset = 4 * (i - inRegisters) + (staged ? 4 * inRegisters : 0);
+                arg.compile(e);
+                e.emit("sw", "$v0", offset + "($sp)");
+            }
+            else if (staged)
+            {
+                arg.compile(e);
+                e.emitPush("$v0");
+            }
+            else
+            {
+                arg.compileInto(e, "$a" + i);
+            }
+        }
+        if (staged)
+        {
+            for (int i = inRegisters - 1; i >= 0; i--)
+            {
+                e.emitPop("$a" + i);
+            }
+        }
+        e.emitWriteBack(name);
+        ProcedureDeclaration callee = e.getProcedure(name);
+        if (callee != null && Profile.shouldInline(this, callee))
+        {
+            e.beginInline();
+            callee.compileInline(e);
+            e.endInline();
+        }
+        else
+        {
+            e.emit("jal", "proc" + name);
+        }
+        if (overflow > 0)
+        {
+            e.emit("addu", "$sp", "$sp", String.valueOf(overflow));
+        }
+        e.emitReload(name);
+        for (int i = saved.size() - 1; i >= 0; i--)
+        {
+            e.emitPop(saved.get(i));
+        }
+    }
+
+    /**
+     * Returns the name of the called procedure.
+     *
+     * @return the name of the called procedure
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Returns how often the call was made, as loaded from a profile file.
+     *
+     * @return the number of calls
+     */
+    public long getCount()
+    {
+        return calls;
+    }
+
+    /**
+     * Sets the number of calls, as read from a profile file.
+     *
+     * @param count the number of calls
+     */
+    public void setCount(long count)
+    {
+        calls = count;
+    }
+
+    /**
+     * Returns the argument expressions of the call.
+     *
+     * @return the argument expressions of the call
+     */
+    public ArrayList<Expression> getArguments()
+    {
+        return plist;
+    }
+
+    /**
+     * Marks the expression as one that calls a procedure.
+     *
+     * @return true
+     */
+    @Override
+    public boolean hasCall()
+    {
+        return true;
+    }
 }
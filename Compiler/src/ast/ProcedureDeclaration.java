@@ -1,5 +1,10 @@
 package ast;
 import environment.Environment;
+import events.Phase;
+import optimizer.ProcedureAnalysis;
+import parser.Parser;
+import scanner.Scanner;
+import scanner.ScanErrorException;
 import java.util.*;
 
 /**
@@ -13,9 +18,17 @@ import java.util.*;
  */
 public class ProcedureDeclaration extends Statement {
 
+    /**
+     * The number of arguments passed in $a0-$a3; the rest go on the stack.
+     */
+    public static final int ARGUMENT_REGISTERS = 4;
+
     private String name;
-    private Statement statement;
+    private volatile Statement statement;
     private ArrayList<String> parameters;
+    private String source;
+    private int start;
+    private int end;
 
     /**
      * Constructor for ProcedureDeclaration class
@@ -31,6 +44,27 @@ public class ProcedureDeclaration extends Statement {
         this.parameters = parameters;
     }
 
+    /**
+     * Constructor for a ProcedureDeclaration whose body has not been parsed yet.
+     * The body is parsed from the given range of the source the first time it
+     * is needed, and kept afterwards.
+     *
+     * @param name  name of prodec
+     * @param parameters the parameters for the prodec
+     * @param source the program source containing the body
+     * @param start the offset of the BEGIN of the body
+     * @param end the offset just past the semicolon after the END of the body
+     */
+    public ProcedureDeclaration(String name, ArrayList<String> parameters,
+                                String source, int start, int end)
+    {
+        this.name = name;
+        this.parameters = parameters;
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
     /**
      * Creates an object in the Procedure HashMap in the given
      * environment.
@@ -43,12 +77,157 @@ public class ProcedureDeclaration extends Statement {
     }
 
     /**
-     * Returns statement of the prodec
+     * Emits the procedure as a MIPS subroutine at the label proc followed by
+     * its name. The frame holds the saved $ra and $fp, then the result
+     * variable, the register parameters and every other non-global name the
+     * body assigns, each at a negative offset from $fp; stack parameters are
+     * read from the caller's area above the saved registers. The result is
+     * returned in $v0.
+     *
+     * @param e the emitter that emits the MIPS code
+     */
+    @Override
+    public void compile(Emitter e)
+    {
+        e.emitLabel("proc" + name);
+        compileFrame(e, false);
+        e.emit("jr", "$ra");
+    }
+
+    /**
+     * Emits the procedure's body in place of a call to it, once the caller
+     * has put the arguments where compile expects them and started an inline
+     * region of the Emitter. The frame is laid out as for a call, except that
+     * no return address is saved, and the result is left in $v0.
+     *
+     * @param e the emitter that emits the MIPS code
+     */
+    void compileInline(Emitter e)
+    {
+        compileFrame(e, true);
+    }
+
+    /**
+     * Emits the code that sets up the frame, runs the body and takes the
+     * frame down again, described in compile.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @param inline true to leave $ra alone, when the body is emitted in
+     *               place of a call
+     */
+    private void compileFrame(Emitter e, boolean inline)
+    {
+        Statement body = getBody();
+        Set<String> locals = new LinkedHashSet<String>();
+        locals.add(name);
+        int inRegisters = Math.min(parameters.size(), ARGUMENT_REGISTERS);
+        locals.addAll(parameters.subList(0, inRegisters));
+        Set<String> assigned = new LinkedHashSet<String>();
+        ProcedureAnalysis.assignedIn(body, null, assigned);
+        for (String var : assigned)
+        {
+            if (!e.isGlobal(var) && !parameters.contains(var))
+            {
+                locals.add(var);
+            }
+        }
+        Map<String, String> frame = new HashMap<String, String>();
+        int offset = 0;
+        for (String var : locals)
+        {
+            offset -= 4;
+            frame.put(var, offset + "($fp)");
+        }
+        for (int i = inRegisters; i < parameters.size(); i++)
+        {
+            frame.put(parameters.get(i), (8 + 4 * (i - inRegisters)) + "($fp)");
+        }
+
+        e.emit("subu", "$sp", "$sp", "8");
+        if (!inline)
+        {
+            e.emit("sw", "$ra", "4($sp)");
+        }
+        e.emit("sw", "$fp", "($sp)");
+        e.emit("move", "$fp", "$sp");
+        e.emit("subu", "$sp", "$sp", String.valueOf(-offset));
+        for (String var : locals)
+        {
+            int i = parameters.indexOf(var);
+            e.emit("sw", i >= 0 ? "$a" + i : "$zero", frame.get(var));
+        }
+        e.beginFrame(frame);
+        body.compile(e);
+        e.endFrame();
+        e.emit("lw", "$v0", frame.get(name));
+        e.emit("move", "$sp", "$fp");
+        e.emit("lw", "$fp", "($sp)");
+        if (!inline)
+        {
+            e.emit("lw", "$ra", "4($sp)");
+        }
+        e.emit("addu", "$sp", "$sp", "8");
+    }
+
+    /**
+     * Returns statement of the prodec, parsing it first if the
+     * prodec was declared lazily.
      *
      * @return statement of the prodec
+     * @throws RuntimeException if the lazily parsed body is invalid
      */
     public Statement getBody()
     {
+        Statement body = statement;
+        if (body == null)
+        {
+            body = parseBody();
+        }
+        return body;
+    }
+
+    /**
+     * Checks whether the body has been parsed, without parsing it.
+     *
+     * @return true if getBody would not parse; otherwise, false
+     */
+    public boolean isParsed()
+    {
+        return statement != null;
+    }
+
+    /**
+     * Parses the body from its source range and caches it, committing a
+     * parse phase event for the procedure when it is being recorded. Both
+     * fields are checked again under the lock, since another thread may have
+     * parsed the body, and dropped the source, after getBody saw no statement.
+     *
+     * @return statement of the prodec, or null if it has neither a statement
+     *         nor a source
+     */
+    private synchronized Statement parseBody()
+    {
+        if (statement == null && source != null)
+        {
+            try
+            {
+                Phase parse = Phase.start(Phase.PARSE, name);
+                Scanner scanner = new Scanner(source.substring(start, end));
+                Parser parser = new Parser(scanner);
+                statement = parser.parseStatement();
+                source = null;
+                if (parse.isRecorded())
+                {
+                    parse.setTokens(scanner.getTokenCount());
+                    parse.setNodes(ProcedureAnalysis.nodes(statement));
+                    parse.finish();
+                }
+            }
+            catch (ScanErrorException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
         return statement;
     }
 
@@ -62,4 +241,13 @@ public class ProcedureDeclaration extends Statement {
         return parameters;
     }
 
+    /**
+     * Returns the name of the prodec.
+     *
+     * @return the name of the prodec
+     */
+    public String getName()
+    {
+        return name;
+    }
 }
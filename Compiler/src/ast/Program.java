@@ -1,6 +1,13 @@
 package ast;
 import java.util.*;
+import java.util.concurrent.RecursiveAction;
 import environment.Environment;
+import events.Phase;
+import ir.Lowering;
+import mips.Instruction;
+import mips.PeepholeOptimizer;
+import optimizer.ProcedureAnalysis;
+import target.Target;
 /**
  * The Program class represents a complete program consisting of
  * a list of variable names, procedure declarations, and a main statement.
@@ -17,6 +24,7 @@ public class Program extends Statement
     private List<String> varNames;
     private List<ProcedureDeclaration> prodecs;
     private Statement statement;
+    private boolean profiled;
 
     /**
      * Constructs a Program with the specified variable names, procedure declarations,
@@ -44,6 +52,29 @@ public class Program extends Statement
         return prodecs;
     }
 
+    /**
+     * Marks the program as carrying counts from a profile, which the
+     * compiler uses to lay out, inline and unroll code. Code compiled from a
+     * profile is not kept in or taken from a FragmentCache, whose keys do not
+     * cover the counts.
+     *
+     * @param profiled true if the program's counts come from a profile
+     */
+    public void setProfiled(boolean profiled)
+    {
+        this.profiled = profiled;
+    }
+
+    /**
+     * Checks whether the program carries counts from a profile.
+     *
+     * @return true if the program's counts come from a profile; otherwise, false
+     */
+    public boolean isProfiled()
+    {
+        return profiled;
+    }
+
     /**
      * Returns the main statement of the program.
      *
@@ -58,27 +89,79 @@ public class Program extends Statement
      * Executes the program within the given environment.
      *
      * This method first executes all procedure declarations to define them in the environment,
-     * and then executes the main statement.
+     * and then executes the main statement. Commits an execute phase event
+     * when it is being recorded; its allocations are only those of the
+     * calling thread, not of loops run in parallel.
      *
      * @param env the Environment in which the program is executed
      */
     public void exec(Environment env)
     {
+        Phase execute = Phase.start(Phase.EXECUTE, null);
         for(ProcedureDeclaration p : prodecs)
         {
             p.exec(env);
         }
         statement.exec(env);
+        execute.finish();
     }
 
     /**
      * Compiles the program to MIPS assembly code and writes the output to a file with the specified name.
+     * Procedures unchanged since an earlier compile in this virtual machine are
+     * taken from the shared FragmentCache.
      *
      * @param fileName the name of the file to which the compiled code is written
      */
     public void compile(String fileName)
     {
         Emitter e = new Emitter(fileName);
+        e.setCache(FragmentCache.shared());
+        compile(e);
+    }
+
+    /**
+     * Compiles the program to assembly for the given target and writes the output
+     * to a file with the specified name, using the shared FragmentCache.
+     *
+     * @param fileName the name of the file to which the compiled code is written
+     * @param target the machine to compile for
+     */
+    public void compile(String fileName, Target target)
+    {
+        compile(fileName, target, FragmentCache.shared());
+    }
+
+    /**
+     * Compiles the program to assembly for the given target and writes the output
+     * to a file with the specified name, reusing the code of procedures found in
+     * the given cache.
+     *
+     * @param fileName the name of the file to which the compiled code is written
+     * @param target the machine to compile for
+     * @param cache the cache, or null to generate all code
+     */
+    public void compile(String fileName, Target target, FragmentCache cache)
+    {
+        Emitter e = new Emitter(fileName, PeepholeOptimizer.standard(), target);
+        e.setCache(cache);
+        compile(e);
+    }
+
+    /**
+     * Compiles the program to assembly for the given target through the SSA
+     * intermediate representation instead of straight from the AST: the IR
+     * is built, optimized by the standard passes and lowered with linear scan
+     * register allocation. No FragmentCache or profile is used. The code is
+     * correct but not yet as fast as the AST path's on most programs, so it
+     * is only used when asked for.
+     *
+     * @param fileName the name of the file to which the compiled code is written
+     * @param target the machine to compile for
+     */
+    public void compileThroughIR(String fileName, Target target)
+    {
+        Lowering.compile(this, new Emitter(fileName, PeepholeOptimizer.standard(), target));
     }
 
     /**
@@ -86,7 +169,16 @@ public class Program extends Statement
      *
      * This method generates the data and text segments of the MIPS assembly code,
      * declares global variables, and compiles the main statement. It also includes the
-     * necessary system calls to terminate the program.
+     * necessary system calls to terminate the program, followed by the code of every
+     * procedure.
+     *
+     * The main statement and each procedure are compiled and peephole-optimized
+     * in parallel, each into an Emitter of its own made by fork, whose labels
+     * are namespaced by the procedure's name. The parts are then joined in
+     * program order, so the output does not depend on how the threads ran.
+     * If the Emitter has a FragmentCache, parts whose key is in it are not
+     * generated again, and the others are added to it, unless the program
+     * is profiled. Code a part emits out of line follows the rest of it.
      *
      * @param e the Emitter used to output the compiled code
      */
@@ -98,13 +190,116 @@ public class Program extends Statement
         {
             e.emit("var" + v + ":\t .word \t 0");
         }
+        e.setGlobals(varNames);
+        Map<String, Set<String>> writes = ProcedureAnalysis.globalWrites(prodecs);
+        Map<String, Set<String>> accesses = ProcedureAnalysis.globalAccesses(prodecs);
+        e.setProcedureEffects(writes, accesses);
+        e.setProcedures(prodecs);
         e.emit(".text");
         e.emit(".globl main");
-        e.emit("main: ");
-        statement.compile(e);
-        e.emit("li $v0 10");
-        e.emit("syscall");
+        e.optimize();
+        List<Part> parts = new ArrayList<Part>();
+        parts.add(new Part(null, e, writes, accesses));
+        for (ProcedureDeclaration p : prodecs)
+        {
+            parts.add(new Part(p, e, writes, accesses));
+        }
+        RecursiveAction.invokeAll(parts);
+        for (Part part : parts)
+        {
+            e.append(part.emitter);
+        }
         e.close();
     }
 
+    /**
+     * Compiles and optimizes the main statement or one procedure into an
+     * Emitter of its own, or takes its code from the cache.
+     */
+    private class Part extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private ProcedureDeclaration procedure;
+        private Emitter parent;
+        private Emitter emitter;
+        private Map<String, Set<String>> writes;
+        private Map<String, Set<String>> accesses;
+
+        /**
+         * Constructs a Part.
+         *
+         * @param procedure the procedure to compile, or null for the main statement
+         * @param parent the Emitter of the whole program
+         * @param writes the result of ProcedureAnalysis.globalWrites
+         * @param accesses the result of ProcedureAnalysis.globalAccesses
+         */
+        Part(ProcedureDeclaration procedure, Emitter parent,
+             Map<String, Set<String>> writes, Map<String, Set<String>> accesses)
+        {
+            this.procedure = procedure;
+            this.parent = parent;
+            this.writes = writes;
+            this.accesses = accesses;
+            emitter = parent.fork(procedure == null ? "" : procedure.getName() + "_");
+        }
+
+        /**
+         * Emits the code of the part and runs the peephole optimizer over it,
+         * unless the cache already has it. Commits an emit and an optimize
+         * phase event for the part when they are being recorded.
+         */
+        @Override
+        protected void compute()
+        {
+            String unit = procedure == null ? "main" : procedure.getName();
+            Phase emit = Phase.start(Phase.EMIT, unit);
+            FragmentCache cache = profiled ? null : parent.getCache();
+            String key = null;
+            if (cache != null)
+            {
+                key = FragmentCache.key(parent, procedure, statement, writes, accesses);
+                List<Instruction> fragment = cache.get(key);
+                if (fragment != null)
+                {
+                    emitter.appendOptimized(fragment);
+                    emit.setInstructions(fragment.size());
+                    emit.finish();
+                    return;
+                }
+            }
+            if (procedure != null)
+            {
+                procedure.compile(emitter);
+            }
+            else
+            {
+                emitter.emitLabel("main");
+                statement.compile(emitter);
+                emitter.emit("li", "$v0", "10");
+                emitter.emit("syscall");
+            }
+            emitter.emitOutOfLine();
+            emit.setInstructions(emitter.getInstructions().size());
+            emit.finish();
+            Phase optimize = Phase.start(Phase.OPTIMIZE, unit);
+            emitter.optimize();
+            optimize.setInstructions(emitter.getInstructions().size());
+            optimize.finish();
+            if (cache != null)
+            {
+                cache.put(key, emitter.getInstructions());
+            }
+        }
+    }
+
+    /**
+     * Returns the list of global variable names declared by the program.
+     *
+     * @return the list of global variable names declared by the program
+     */
+    public List<String> getVariableNames()
+    {
+        return varNames;
+    }
 }
@@ -37,15 +37,76 @@ public class Variable extends Expression
     /**
      * Compiles the variable declaration to MIPS assembly code.
      *
-     * This method generates the assembly code to load the address of the variable into
-     * a register and then load the variable's value into another register.
+     * This method generates the assembly code to load the variable's value into $v0
+     * straight from its label, so no other register is touched. A local variable of
+     * a procedure is loaded from its stack frame instead, and a variable promoted
+     * to a register for a loop is copied from that register.
      *
      * @param e the {@code Emitter} used to output the compiled code
      */
     @Override
     public void compile(Emitter e)
     {
-        e.emit("la $t1 var" + name);
-        e.emit("lw $v0 ($t1)");
+        String promoted = e.getPromotedRegister(name);
+        if (promoted != null)
+        {
+            e.emit("move", "$v0", promoted);
+            return;
+        }
+        String local = e.getLocalAddress(name);
+        if (local != null)
+        {
+            e.emit("lw", "$v0", local);
+            return;
+        }
+        e.emit("lw", "$v0", "var" + name);
+    }
+
+    /**
+     * Emits MIPS code that loads the variable's value into the given
+     * register, using that register to hold the variable's address.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @param reg the register that receives the value
+     */
+    @Override
+    public void compileInto(Emitter e, String reg)
+    {
+        String promoted = e.getPromotedRegister(name);
+        if (promoted != null)
+        {
+            e.emit("move", reg, promoted);
+            return;
+        }
+        String local = e.getLocalAddress(name);
+        if (local != null)
+        {
+            e.emit("lw", reg, local);
+            return;
+        }
+        e.emit("la", reg, "var" + name);
+        e.emit("lw", reg, "(" + reg + ")");
+    }
+
+    /**
+     * Returns the saved register the variable is kept in while a loop runs.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @return the register, or null if the variable lives in memory
+     */
+    @Override
+    public String getRegister(Emitter e)
+    {
+        return e.getPromotedRegister(name);
+    }
+
+    /**
+     * Returns the name of the var.
+     *
+     * @return the name of the var
+     */
+    public String getName()
+    {
+        return name;
     }
 }
@@ -1,5 +1,11 @@
 package ast;
 import environment.Environment;
+import events.LoopEvent;
+import optimizer.InductionVariables;
+import optimizer.LoopParallelizer;
+import optimizer.ProcedureAnalysis;
+import optimizer.Profile;
+import java.util.*;
 /**
  * While class contains instructions on how to run while loops
  * 
@@ -8,8 +14,15 @@ import environment.Environment;
  */
 public class While extends Statement
 {
+    /**
+     * The number of temporary registers left free for expressions when
+     * induction registers are handed out.
+     */
+    public static final int RESERVED_REGISTERS = 4;
+
     private Condition conditional;
     private Statement stat1;
+    private volatile LoopParallelizer.Plan plan;
 
     /**
      * Constructs objects of the While class when 
@@ -27,7 +40,11 @@ public class While extends Statement
      * Executes the while loop
      * Checks if condition is true, then
      * executes the statement until the condition
-     * is false
+     * is false. Loops whose iterations are independent
+     * are handed to the LoopParallelizer instead. Loops that run longer
+     * than its threshold commit a LoopEvent when it is being recorded.
+     * Procedures reloaded while it runs are swapped in between iterations,
+     * and a cancelled program stops there.
      * 
      * @param env the environment in which the classes execute
 
@@ -35,32 +52,393 @@ public class While extends Statement
     @Override
     public void exec(Environment env) 
     {
+        LoopEvent event = null;
+        if (env.isTraced())
+        {
+            event = new LoopEvent();
+            event.begin();
+        }
+        if (LoopParallelizer.tryParallel(this, env))
+        {
+            commit(event, -1);
+            return;
+        }
+        long trips = 0;
         int ret = conditional.eval(env);
         while (ret == 1)
         {
+            if (env.needsAttention())
+            {
+                env.attend();
+            }
             if (stat1 != null)
             {
                 stat1.exec(env);
             }
+            trips++;
             ret = conditional.eval(env);
         }
+        commit(event, trips);
+    }
+
+    /**
+     * Commits a LoopEvent if it ran longer than its threshold, naming the
+     * variable the condition tests.
+     *
+     * @param event the event, or null if nothing is being recorded
+     * @param trips the number of times the body ran, or -1 if the loop ran
+     *              in parallel
+     */
+    private void commit(LoopEvent event, long trips)
+    {
+        if (event == null)
+        {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit())
+        {
+            event.setTrips(trips);
+            if (conditional.getLeft() instanceof Variable)
+            {
+                event.setVariable(((Variable) conditional.getLeft()).getName());
+            }
+            event.commit();
+        }
     }
 
     /**
      * Emits code that evaluates a conditional and runs a
-     * while loop accordingly. Re-compiles the statement everytime
-     * and jumps back or ends the while loop based on the evaluation.
+     * while loop accordingly. The loop is rotated: the condition is
+     * tested once before the loop to skip it entirely, and then at the
+     * bottom of the body, where a single branch goes back to the top
+     * while it holds. Each iteration thus runs one branch instead of a
+     * test at the top and a jump at the bottom. Products of induction
+     * variables and literals are kept in registers for the whole loop, and
+     * so are the variables the loop uses most. Writeln needs no promoted
+     * variable written back first, since its system calls never read
+     * variable memory. A loop the profile shows to be hot is unrolled once:
+     * the body is emitted twice with an exit test between the copies, so only
+     * every other iteration takes the branch back.
      *
      * @param e the emitter that emits the MIPS code
      */
     @Override
     public void compile(Emitter e)
     {
-        int label = e.nextLabelID();
-        e.emit("while" + label+ ":");
-        conditional.compile(e, "endwhile" + label);
+        String label = e.nextLabelID();
+        Map<String, String> promoted = beginPromotions(e);
+        Map<String, Set<Integer>> reduced = beginInductions(e);
+        conditional.compileBranch(e, "endwhile" + label, false);
+        e.emitLabel("while" + label);
         stat1.compile(e);
-        e.emit("j while" + label);
-        e.emit("endwhile" + label+ ":");
+        if (Profile.shouldUnroll(this))
+        {
+            conditional.compileBranch(e, "endwhile" + label, false);
+            stat1.compile(e);
+        }
+        conditional.compileBranch(e, "while" + label, true);
+        e.emitLabel("endwhile" + label);
+        endPromotions(e, promoted);
+        for (Map.Entry<String, Set<Integer>> entry : reduced.entrySet())
+        {
+            for (int factor : entry.getValue())
+            {
+                e.freeRegister(e.getInductionRegister(entry.getKey(), factor));
+                e.endInduction(entry.getKey(), factor);
+            }
+        }
+    }
+
+    /**
+     * Keeps the variables the loop uses most in saved registers for the
+     * whole loop, so that reading or assigning them inside it costs a move
+     * instead of a load or a store. Each use counts ten times more for every
+     * loop it is nested in, or, when the program is profiled, as many times
+     * more as the loop ran on average each time it was reached, and a use in
+     * the then statement of an If only as often as the condition held. A
+     * global also costs the store and load that each call to a procedure
+     * that may touch it needs, so it is only promoted when that leaves it
+     * ahead. Only the outermost loop that promotes anything does so, and
+     * inside a procedure the saved registers are kept on the stack for the
+     * procedure's caller.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @return a map from each promoted variable to where it lives in memory
+     */
+    private Map<String, String> beginPromotions(Emitter e)
+    {
+        Map<String, String> promoted = new LinkedHashMap<String, String>();
+        String[] saved = e.getTarget().getSavedRegisters();
+        if (e.isPromoting() || saved.length == 0)
+        {
+            return promoted;
+        }
+        Map<String, Double> scores = new HashMap<String, Double>();
+        Map<String, Double> calls = new HashMap<String, Double>();
+        count(this, 1, e, scores, calls);
+        for (Map.Entry<String, Double> score : scores.entrySet())
+        {
+            if (e.getLocalAddress(score.getKey()) == null)
+            {
+                for (Map.Entry<String, Double> call : calls.entrySet())
+                {
+                    if (e.mayAccess(call.getKey(), score.getKey()))
+                    {
+                        score.setValue(score.getValue() - 2 * call.getValue());
+                    }
+                }
+            }
+        }
+        List<Map.Entry<String, Double>> ranked =
+            new ArrayList<Map.Entry<String, Double>>(scores.entrySet());
+        Collections.sort(ranked, new Comparator<Map.Entry<String, Double>>()
+        {
+            public int compare(Map.Entry<String, Double> a, Map.Entry<String, Double> b)
+            {
+                int byScore = Double.compare(b.getValue(), a.getValue());
+                return byScore != 0 ? byScore : a.getKey().compareTo(b.getKey());
+            }
+        });
+        for (Map.Entry<String, Double> entry : ranked)
+        {
+            if (promoted.size() == saved.length || entry.getValue() < 2)
+            {
+                break;
+            }
+            String name = entry.getKey();
+            String address = e.getLocalAddress(name);
+            promoted.put(name, address != null ? address : "var" + name);
+        }
+        if (promoted.isEmpty())
+        {
+            return promoted;
+        }
+        if (e.inFrame())
+        {
+            e.emit("subu", "$sp", "$sp", String.valueOf(4 * promoted.size()));
+            for (int i = 0; i < promoted.size(); i++)
+            {
+                e.emit("sw", saved[i], (4 * i) + "($sp)");
+            }
+        }
+        int i = 0;
+        for (Map.Entry<String, String> entry : promoted.entrySet())
+        {
+            e.emit("lw", saved[i], entry.getValue());
+            e.promote(entry.getKey(), saved[i], entry.getValue());
+            i++;
+        }
+        return promoted;
+    }
+
+    /**
+     * Stores the promoted variables the loop may have assigned back to
+     * memory, stops promoting them and gives the caller back its saved
+     * registers.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @param promoted the result of beginPromotions
+     */
+    private void endPromotions(Emitter e, Map<String, String> promoted)
+    {
+        if (promoted.isEmpty())
+        {
+            return;
+        }
+        Set<String> assigned = new HashSet<String>();
+        ProcedureAnalysis.assignedIn(this, null, assigned);
+        for (Map.Entry<String, String> entry : promoted.entrySet())
+        {
+            if (assigned.contains(entry.getKey()))
+            {
+                e.emit("sw", e.getPromotedRegister(entry.getKey()), entry.getValue());
+            }
+            e.demote(entry.getKey());
+        }
+        if (e.inFrame())
+        {
+            String[] saved = e.getTarget().getSavedRegisters();
+            for (int i = 0; i < promoted.size(); i++)
+            {
+                e.emit("lw", saved[i], (4 * i) + "($sp)");
+            }
+            e.emit("addu", "$sp", "$sp", String.valueOf(4 * promoted.size()));
+        }
+    }
+
+    /**
+     * Counts the uses of the variables in a statement and the calls it makes.
+     *
+     * @param s the statement
+     * @param weight how often the statement is expected to run
+     * @param e the emitter, which knows the variables in scope
+     * @param uses receives the weighted number of uses of each variable
+     * @param calls receives the weighted number of calls to each procedure
+     */
+    private static void count(Statement s, double weight, Emitter e,
+                              Map<String, Double> uses, Map<String, Double> calls)
+    {
+        if (s instanceof While)
+        {
+            weight *= Profile.loopWeight(((While) s).getCondition());
+        }
+        if (s instanceof Assignment)
+        {
+            add(((Assignment) s).getVariable(), weight, e, uses);
+        }
+        for (Expression exp : ProcedureAnalysis.expressions(s))
+        {
+            count(exp, weight, e, uses, calls);
+        }
+        double inner = weight;
+        if (s instanceof If)
+        {
+            inner *= Profile.branchWeight(((If) s).getCondition());
+        }
+        for (Statement child : ProcedureAnalysis.children(s))
+        {
+            count(child, inner, e, uses, calls);
+        }
+    }
+
+    /**
+     * Counts the uses of the variables in an expression and the calls it makes.
+     *
+     * @param exp the expression
+     * @param weight how often the expression is expected to run
+     * @param e the emitter, which knows the variables in scope
+     * @param uses receives the weighted number of uses of each variable
+     * @param calls receives the weighted number of calls to each procedure
+     */
+    private static void count(Expression exp, double weight, Emitter e,
+                              Map<String, Double> uses, Map<String, Double> calls)
+    {
+        if (exp instanceof Variable)
+        {
+            add(((Variable) exp).getName(), weight, e, uses);
+        }
+        else if (exp instanceof BinOp)
+        {
+            count(((BinOp) exp).getLeft(), weight, e, uses, calls);
+            count(((BinOp) exp).getRight(), weight, e, uses, calls);
+        }
+        else if (exp instanceof Condition)
+        {
+            count(((Condition) exp).getLeft(), weight, e, uses, calls);
+            count(((Condition) exp).getRight(), weight, e, uses, calls);
+        }
+        else if (exp instanceof ProcedureCall)
+        {
+            ProcedureCall call = (ProcedureCall) exp;
+            Double before = calls.get(call.getName());
+            calls.put(call.getName(), (before == null ? 0 : before) + weight);
+            for (Expression arg : call.getArguments())
+            {
+                count(arg, weight, e, uses, calls);
+            }
+        }
+    }
+
+    /**
+     * Adds a weighted use of a variable, if it is one that can be promoted:
+     * a local of the procedure being emitted or a declared global.
+     *
+     * @param name the variable
+     * @param weight how often the use is expected to run
+     * @param e the emitter, which knows the variables in scope
+     * @param uses receives the weighted number of uses of each variable
+     */
+    private static void add(String name, double weight, Emitter e, Map<String, Double> uses)
+    {
+        if (e.getLocalAddress(name) != null || e.isGlobal(name))
+        {
+            Double before = uses.get(name);
+            uses.put(name, (before == null ? 0 : before) + weight);
+        }
+    }
+
+    /**
+     * Strength-reduces the products of induction variables and literals in
+     * the loop: each gets a register, set to the product before the loop,
+     * that Assignment keeps up to date and BinOp reads instead of
+     * multiplying. A global is only reduced when the loop calls no
+     * procedure, since a procedure could change it behind the register's back.
+     *
+     * @param e the emitter that emits the MIPS code
+     * @return a map from each reduced variable to its reduced literals
+     */
+    private Map<String, Set<Integer>> beginInductions(Emitter e)
+    {
+        Map<String, Set<Integer>> reduced = new TreeMap<String, Set<Integer>>();
+        Set<String> called = new HashSet<String>();
+        ProcedureAnalysis.calledIn(this, called);
+        int temporaries = e.getTarget().getTemporaries().length;
+        for (Map.Entry<String, Set<Integer>> entry : InductionVariables.find(this).entrySet())
+        {
+            String name = entry.getKey();
+            if (!called.isEmpty() && e.getLocalAddress(name) == null)
+            {
+                continue;
+            }
+            for (int factor : entry.getValue())
+            {
+                if (e.getInductionRegister(name, factor) != null
+                        || temporaries - e.getUsedRegisters().size() <= RESERVED_REGISTERS)
+                {
+                    continue;
+                }
+                String reg = e.allocateRegister();
+                new Variable(name).compileInto(e, reg);
+                BinOp.multiply(e, reg, factor);
+                e.beginInduction(name, factor, reg);
+                if (!reduced.containsKey(name))
+                {
+                    reduced.put(name, new TreeSet<Integer>());
+                }
+                reduced.get(name).add(factor);
+            }
+        }
+        return reduced;
+    }
+
+    /**
+     * Returns the condition checked before each iteration.
+     *
+     * @return the condition checked before each iteration
+     */
+    public Condition getCondition()
+    {
+        return conditional;
+    }
+
+    /**
+     * Returns the statement run on each iteration.
+     *
+     * @return the statement run on each iteration
+     */
+    public Statement getBody()
+    {
+        return stat1;
+    }
+
+    /**
+     * Returns the LoopParallelizer's analysis of the loop.
+     *
+     * @return the plan, or null if the loop has not been analyzed
+     */
+    public LoopParallelizer.Plan getPlan()
+    {
+        return plan;
+    }
+
+    /**
+     * Keeps the LoopParallelizer's analysis of the loop.
+     *
+     * @param plan the plan
+     */
+    public void setPlan(LoopParallelizer.Plan plan)
+    {
+        this.plan = plan;
     }
 }
\ No newline at end of file
@@ -22,13 +22,14 @@ public class Writeln extends Statement
     }
 
     /**
-     * Evaluates then prints the given expression
+     * Evaluates then prints the given expression to the
+     * output of the environment
      * @param env the environment in which the classes execute code
      */
     @Override
     public void exec(Environment env)
     {
-        System.out.println(exp.eval(env));
+        env.getOutput().println(exp.eval(env));
     }
 
     /**
@@ -41,11 +42,21 @@ public class Writeln extends Statement
     public void compile(Emitter e)
     {
         exp.compile(e);
-        e.emit("move $a0 $v0");
-        e.emit("li $v0 1");
+        e.emit("move", "$a0", "$v0");
+        e.emit("li", "$v0", "1");
         e.emit("syscall");
-        e.emit("la $a0, nL");
-        e.emit("li $v0, 4");
+        e.emit("la", "$a0", "nL");
+        e.emit("li", "$v0", "4");
         e.emit("syscall");
     }
+
+    /**
+     * Returns the expression that gets printed.
+     *
+     * @return the expression that gets printed
+     */
+    public Expression getExpression()
+    {
+        return exp;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package bench;
+import java.util.*;
+
+/**
+ * A Benchmark is one piece of work the Harness times, such as scanning a
+ * program. It declares parameters, each with the values it is run for by
+ * default, and the Harness runs it once for every combination: setup with
+ * the combination's values, then run over and over, then teardown.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public abstract class Benchmark
+{
+    private String name;
+    private Map<String, List<String>> params;
+
+    /**
+     * Constructs a Benchmark with no parameters.
+     *
+     * @param name the name results are reported under
+     */
+    protected Benchmark(String name)
+    {
+        this.name = name;
+        params = new LinkedHashMap<String, List<String>>();
+    }
+
+    /**
+     * Returns the name results are reported under.
+     *
+     * @return the name
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Declares a parameter.
+     *
+     * @param param the name of the parameter
+     * @param values the values it is run for by default
+     */
+    protected void param(String param, String... values)
+    {
+        params.put(param, Arrays.asList(values));
+    }
+
+    /**
+     * Returns the parameters and the values each is run for by default.
+     *
+     * @return a map from each parameter name to its values, in declaration order
+     */
+    public Map<String, List<String>> getParams()
+    {
+        return Collections.unmodifiableMap(params);
+    }
+
+    /**
+     * Prepares the input for one combination of parameter values; this is
+     * not timed.
+     *
+     * @param values a map from each parameter name to its value
+     * @throws Exception if the input cannot be prepared
+     */
+    public void setup(Map<String, String> values) throws Exception
+    {
+    }
+
+    /**
+     * Does the work once; this is what is timed.
+     *
+     * @param bh takes the results of the work
+     * @throws Exception if the work fails
+     */
+    public abstract void run(Blackhole bh) throws Exception;
+
+    /**
+     * Cleans up after one combination of parameter values.
+     *
+     * @throws Exception if cleaning up fails
+     */
+    public void teardown() throws Exception
+    {
+    }
+}
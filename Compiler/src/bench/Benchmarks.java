@@ -0,0 +1,311 @@
+package bench;
+import ast.Program;
+import environment.Environment;
+import parser.Parser;
+import scanner.Scanner;
+import target.MipsTarget;
+import java.io.*;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmarks holds the benchmarks of the scanner, the parser, the interpreter
+ * and the code generator, and runs them from the command line:
+ *
+ * java bench.Benchmarks [-wi n] [-i n] [-r ms] [-p param=v1,v2] [-rff file] [regex]
+ *
+ * -wi and -i set the number of warm-up and measured iterations, -r the length
+ * of an iteration, -p overrides the values of a parameter, -rff writes the
+ * results as JSON to a file, and a regex keeps only the benchmarks whose names
+ * it finds. The size parameter is the number of procedures in the scanned,
+ * parsed and compiled programs and the problem size of the interpreted ones.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class Benchmarks
+{
+    /**
+     * The sizes the scanner, parser and code generator are run for by default.
+     */
+    public static final String[] SOURCE_SIZES = {"10", "100", "1000"};
+
+    /**
+     * The sizes the interpreter is run for by default.
+     */
+    public static final String[] PROBLEM_SIZES = {"10", "100"};
+
+    /**
+     * Returns every benchmark.
+     *
+     * @return the benchmarks
+     */
+    public static List<Benchmark> all()
+    {
+        List<Benchmark> list = new ArrayList<Benchmark>();
+        list.add(new Benchmark("Scanner.nextToken")
+        {
+            private String source;
+
+            {
+                param("size", SOURCE_SIZES);
+            }
+
+            public void setup(Map<String, String> values)
+            {
+                source = procedures(Integer.parseInt(values.get("size")));
+            }
+
+            public void run(Blackhole bh) throws Exception
+            {
+                Scanner scanner = new Scanner(source);
+                String token = scanner.nextToken();
+                while (!token.equals("EOF"))
+                {
+                    bh.consume(token);
+                    token = scanner.nextToken();
+                }
+            }
+        });
+        list.add(new Benchmark("Parser.parseProgram")
+        {
+            private String source;
+
+            {
+                param("size", SOURCE_SIZES);
+            }
+
+            public void setup(Map<String, String> values)
+            {
+                source = procedures(Integer.parseInt(values.get("size")));
+            }
+
+            public void run(Blackhole bh) throws Exception
+            {
+                bh.consume(new Parser(new Scanner(source)).parseProgram());
+            }
+        });
+        list.add(new Benchmark("Program.exec")
+        {
+            private Program program;
+            private PrintStream discard;
+
+            {
+                param("program", "loops", "recursion", "arithmetic");
+                param("size", PROBLEM_SIZES);
+            }
+
+            public void setup(Map<String, String> values) throws Exception
+            {
+                String source = interpreted(values.get("program"),
+                        Integer.parseInt(values.get("size")));
+                program = new Parser(new Scanner(source)).parseProgram();
+                discard = new PrintStream(OutputStream.nullOutputStream());
+            }
+
+            public void run(Blackhole bh)
+            {
+                Environment env = new Environment();
+                env.setOutput(discard);
+                program.exec(env);
+                bh.consume(env.getVariable("s"));
+            }
+        });
+        list.add(new Benchmark("Program.compile")
+        {
+            private Program program;
+            private File output;
+
+            {
+                param("size", SOURCE_SIZES);
+            }
+
+            public void setup(Map<String, String> values) throws Exception
+            {
+                String source = procedures(Integer.parseInt(values.get("size")));
+                program = new Parser(new Scanner(source)).parseProgram();
+                output = File.createTempFile("bench", ".asm");
+            }
+
+            public void run(Blackhole bh)
+            {
+                program.compile(output.getPath(), new MipsTarget(), null);
+                bh.consume(output.length());
+            }
+
+            public void teardown()
+            {
+                output.delete();
+            }
+        });
+        return list;
+    }
+
+    /**
+     * Returns a program with the given number of procedures, each with a
+     * loop, a branch and some arithmetic, and a main statement that calls
+     * some of them.
+     *
+     * @param count the number of procedures
+     * @return the source text
+     */
+    public static String procedures(int count)
+    {
+        StringBuilder sb = new StringBuilder("VAR g, h;\n");
+        for (int k = 0; k < count; k++)
+        {
+            String name = "p" + letters(k);
+            sb.append("PROCEDURE ").append(name).append("(a, b);\n")
+                .append("BEGIN\n")
+                .append(name).append(" := 0;\n")
+                .append("WHILE a < b DO\n")
+                .append("BEGIN\n")
+                .append("IF a > 3 THEN ").append(name).append(" := ").append(name)
+                .append(" + a * 7 - b / 2;\n")
+                .append("g := g + a;\n")
+                .append("a := a + 1;\n")
+                .append("END;\n")
+                .append("END;\n");
+        }
+        sb.append("BEGIN\ng := 0;\nh := 0;\n");
+        for (int k = 0; k < count; k += 10)
+        {
+            sb.append("h := h + p").append(letters(k)).append("(1, 20);\n");
+        }
+        sb.append("WRITELN(g);\nWRITELN(h);\nEND;\n.\n");
+        return sb.toString();
+    }
+
+    /**
+     * Returns one of the representative interpreted programs. Each leaves its
+     * result in the variable s.
+     *
+     * @param kind "loops" for nested loops of n by n trips, "recursion" for n
+     *             calls of a procedure that recurses n deep, or "arithmetic"
+     *             for a loop of n trips over a long expression
+     * @param n the problem size
+     * @return the source text
+     * @throws IllegalArgumentException if there is no such program
+     */
+    public static String interpreted(String kind, int n)
+    {
+        if (kind.equals("loops"))
+        {
+            return "VAR i, j, s;\nBEGIN\ns := 0;\ni := 0;\n"
+                + "WHILE i < " + n + " DO\nBEGIN\nj := 0;\n"
+                + "WHILE j < " + n + " DO\nBEGIN\ns := s + i * j;\nj := j + 1;\nEND;\n"
+                + "i := i + 1;\nEND;\nWRITELN(s);\nEND;\n.\n";
+        }
+        if (kind.equals("recursion"))
+        {
+            return "VAR i, s;\nPROCEDURE f(k);\nBEGIN\nf := 0;\n"
+                + "IF k > 0 THEN f := k + f(k - 1);\nEND;\n"
+                + "BEGIN\ns := 0;\ni := 0;\n"
+                + "WHILE i < " + n + " DO\nBEGIN\ns := s + f(" + n + ");\ni := i + 1;\nEND;\n"
+                + "WRITELN(s);\nEND;\n.\n";
+        }
+        if (kind.equals("arithmetic"))
+        {
+            return "VAR i, s;\nBEGIN\ns := 1;\ni := 0;\n"
+                + "WHILE i < " + n + " DO\nBEGIN\n"
+                + "s := (s * 31 + i * 7 - i / 3) - (s / 2) * 2 + (i + 5) * (i - 3) / 4;\n"
+                + "i := i + 1;\nEND;\nWRITELN(s);\nEND;\n.\n";
+        }
+        throw new IllegalArgumentException("unknown program " + kind);
+    }
+
+    /**
+     * Spells a number in letters, since names cannot hold digits.
+     *
+     * @param k a number at least 0
+     * @return the number in base 26 with a for 0
+     */
+    static String letters(int k)
+    {
+        StringBuilder sb = new StringBuilder();
+        do
+        {
+            sb.append((char) ('a' + k % 26));
+            k /= 26;
+        }
+        while (k > 0);
+        return sb.reverse().toString();
+    }
+
+    /**
+     * Runs the benchmarks chosen on the command line, printing each result
+     * and writing them all as JSON if asked to.
+     *
+     * @param args the options
+     * @throws Exception if a benchmark fails or the results cannot be written
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int warmup = 3;
+        int iterations = 5;
+        long millis = 1000;
+        String json = null;
+        Pattern filter = Pattern.compile("");
+        Map<String, List<String>> overrides = new HashMap<String, List<String>>();
+        for (int i = 0; i < args.length; i++)
+        {
+            if (args[i].equals("-wi") && i + 1 < args.length)
+            {
+                warmup = Integer.parseInt(args[++i]);
+            }
+            else if (args[i].equals("-i") && i + 1 < args.length)
+            {
+                iterations = Integer.parseInt(args[++i]);
+            }
+            else if (args[i].equals("-r") && i + 1 < args.length)
+            {
+                millis = Long.parseLong(args[++i]);
+            }
+            else if (args[i].equals("-p") && i + 1 < args.length)
+            {
+                String[] param = args[++i].split("=", 2);
+                overrides.put(param[0], Arrays.asList(param[1].split(",")));
+            }
+            else if (args[i].equals("-rff") && i + 1 < args.length)
+            {
+                json = args[++i];
+            }
+            else
+            {
+                filter = Pattern.compile(args[i]);
+            }
+        }
+
+        Harness harness = new Harness(warmup, iterations, millis);
+        List<Harness.Result> results = new ArrayList<Harness.Result>();
+        for (Benchmark b : all())
+        {
+            if (!filter.matcher(b.getName()).find())
+            {
+                continue;
+            }
+            Map<String, List<String>> params =
+                new LinkedHashMap<String, List<String>>(b.getParams());
+            for (String name : params.keySet())
+            {
+                if (overrides.containsKey(name))
+                {
+                    params.put(name, overrides.get(name));
+                }
+            }
+            for (Map<String, String> values : Harness.combinations(params))
+            {
+                Harness.Result result = harness.run(b, values);
+                System.out.println(result);
+                results.add(result);
+            }
+        }
+        if (json != null)
+        {
+            try (Writer out = new BufferedWriter(new FileWriter(json)))
+            {
+                harness.writeJson(results, out);
+            }
+        }
+    }
+}
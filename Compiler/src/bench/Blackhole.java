@@ -0,0 +1,44 @@
+package bench;
+
+/**
+ * A Blackhole takes the results of benchmarked code so that the JIT cannot
+ * prove them unused and optimize the work away. Each value is mixed into a
+ * field that is published through a volatile write once per iteration.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class Blackhole
+{
+    private int sink;
+    private volatile int published;
+
+    /**
+     * Takes an object.
+     *
+     * @param o the object
+     */
+    public void consume(Object o)
+    {
+        sink += System.identityHashCode(o);
+    }
+
+    /**
+     * Takes an int.
+     *
+     * @param value the int
+     */
+    public void consume(int value)
+    {
+        sink += value;
+    }
+
+    /**
+     * Publishes what was consumed so far, which the harness does at the end
+     * of every iteration.
+     */
+    public void flush()
+    {
+        published = sink;
+    }
+}
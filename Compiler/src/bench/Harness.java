@@ -0,0 +1,295 @@
+package bench;
+import java.io.*;
+import java.util.*;
+
+/**
+ * The Harness measures the throughput of Benchmarks the way JMH does in its
+ * throughput mode: a number of warm-up iterations whose results are thrown
+ * away, then measurement iterations, each calling the benchmark for a fixed
+ * time and counting the calls. The score is the mean number of calls per
+ * second, and its error is the half-width of the 99.9% confidence interval.
+ * Results are written in the JSON layout of JMH's -rf json, so tools that
+ * compare JMH runs across commits can read them.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class Harness
+{
+    private static final double[] STUDENT_T = {
+        636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+        4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850,
+        3.819, 3.792, 3.768, 3.745, 3.725, 3.707, 3.690, 3.674, 3.659, 3.646};
+    private static final double NORMAL = 3.291;
+
+    private int warmupIterations;
+    private int iterations;
+    private long iterationMillis;
+
+    /**
+     * The scores of one benchmark for one combination of parameter values.
+     */
+    public static class Result
+    {
+        private String benchmark;
+        private Map<String, String> params;
+        private double[] scores;
+
+        /**
+         * Constructs a Result.
+         *
+         * @param benchmark the name of the benchmark
+         * @param params the parameter values
+         * @param scores the calls per second of each measurement iteration
+         */
+        Result(String benchmark, Map<String, String> params, double[] scores)
+        {
+            this.benchmark = benchmark;
+            this.params = params;
+            this.scores = scores;
+        }
+
+        /**
+         * Returns the mean calls per second.
+         *
+         * @return the score
+         */
+        public double getScore()
+        {
+            double sum = 0;
+            for (double s : scores)
+            {
+                sum += s;
+            }
+            return sum / scores.length;
+        }
+
+        /**
+         * Returns the half-width of the 99.9% confidence interval of the score.
+         *
+         * @return the error, or NaN for a single iteration
+         */
+        public double getScoreError()
+        {
+            int n = scores.length;
+            if (n < 2)
+            {
+                return Double.NaN;
+            }
+            double mean = getScore();
+            double squares = 0;
+            for (double s : scores)
+            {
+                squares += (s - mean) * (s - mean);
+            }
+            double t = n - 1 <= STUDENT_T.length ? STUDENT_T[n - 2] : NORMAL;
+            return t * Math.sqrt(squares / (n - 1)) / Math.sqrt(n);
+        }
+
+        /**
+         * Returns a line describing the result, as JMH prints it.
+         *
+         * @return the line
+         */
+        @Override
+        public String toString()
+        {
+            return String.format("%-32s %-24s %14.3f +- %12.3f ops/s", benchmark, params,
+                    getScore(), getScoreError());
+        }
+    }
+
+    /**
+     * Constructs a Harness.
+     *
+     * @param warmupIterations the number of iterations thrown away
+     * @param iterations the number of iterations measured
+     * @param iterationMillis how long each iteration lasts
+     */
+    public Harness(int warmupIterations, int iterations, long iterationMillis)
+    {
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.iterationMillis = iterationMillis;
+    }
+
+    /**
+     * Runs a benchmark for one combination of parameter values.
+     *
+     * @param b the benchmark
+     * @param values the parameter values
+     * @return the result
+     * @throws Exception if the benchmark fails
+     */
+    public Result run(Benchmark b, Map<String, String> values) throws Exception
+    {
+        Blackhole bh = new Blackhole();
+        b.setup(values);
+        try
+        {
+            for (int i = 0; i < warmupIterations; i++)
+            {
+                iterate(b, bh);
+            }
+            double[] scores = new double[iterations];
+            for (int i = 0; i < iterations; i++)
+            {
+                scores[i] = iterate(b, bh);
+            }
+            return new Result(b.getName(), new LinkedHashMap<String, String>(values), scores);
+        }
+        finally
+        {
+            b.teardown();
+        }
+    }
+
+    /**
+     * Calls a benchmark until the iteration time is up.
+     *
+     * @param b the benchmark
+     * @param bh the blackhole
+     * @return the calls per second
+     * @throws Exception if the benchmark fails
+     */
+    private double iterate(Benchmark b, Blackhole bh) throws Exception
+    {
+        long start = System.nanoTime();
+        long deadline = start + iterationMillis * 1000000L;
+        long calls = 0;
+        long now;
+        do
+        {
+            b.run(bh);
+            calls++;
+            now = System.nanoTime();
+        }
+        while (now < deadline);
+        bh.flush();
+        return calls * 1e9 / (now - start);
+    }
+
+    /**
+     * Returns every combination of parameter values.
+     *
+     * @param params a map from each parameter name to its values
+     * @return the combinations, the last parameter varying fastest
+     */
+    public static List<Map<String, String>> combinations(Map<String, List<String>> params)
+    {
+        List<Map<String, String>> result = new ArrayList<Map<String, String>>();
+        result.add(new LinkedHashMap<String, String>());
+        for (Map.Entry<String, List<String>> param : params.entrySet())
+        {
+            List<Map<String, String>> next = new ArrayList<Map<String, String>>();
+            for (Map<String, String> partial : result)
+            {
+                for (String value : param.getValue())
+                {
+                    Map<String, String> combination = new LinkedHashMap<String, String>(partial);
+                    combination.put(param.getKey(), value);
+                    next.add(combination);
+                }
+            }
+            result = next;
+        }
+        return result;
+    }
+
+    /**
+     * Writes results in the JSON layout of JMH.
+     *
+     * @param results the results
+     * @param out where to write them
+     * @throws IOException if writing fails
+     */
+    public void writeJson(List<Result> results, Writer out) throws IOException
+    {
+        StringBuilder sb = new StringBuilder("[\n");
+        for (int r = 0; r < results.size(); r++)
+        {
+            Result result = results.get(r);
+            double score = result.getScore();
+            double error = result.getScoreError();
+            sb.append("    {\n");
+            sb.append("        \"jmhVersion\" : \"none\",\n");
+            sb.append("        \"benchmark\" : ").append(quote(result.benchmark)).append(",\n");
+            sb.append("        \"mode\" : \"thrpt\",\n");
+            sb.append("        \"threads\" : 1,\n");
+            sb.append("        \"forks\" : 0,\n");
+            sb.append("        \"jvm\" : ").append(quote(System.getProperty("java.home")))
+                .append(",\n");
+            sb.append("        \"jdkVersion\" : ").append(quote(System.getProperty("java.version")))
+                .append(",\n");
+            sb.append("        \"warmupIterations\" : ").append(warmupIterations).append(",\n");
+            sb.append("        \"warmupTime\" : \"").append(iterationMillis).append(" ms\",\n");
+            sb.append("        \"measurementIterations\" : ").append(iterations).append(",\n");
+            sb.append("        \"measurementTime\" : \"").append(iterationMillis).append(" ms\",\n");
+            sb.append("        \"params\" : {");
+            int p = 0;
+            for (Map.Entry<String, String> param : result.params.entrySet())
+            {
+                sb.append(p++ == 0 ? "\n" : ",\n");
+                sb.append("            ").append(quote(param.getKey())).append(" : ")
+                    .append(quote(param.getValue()));
+            }
+            sb.append("\n        },\n");
+            sb.append("        \"primaryMetric\" : {\n");
+            sb.append("            \"score\" : ").append(number(score)).append(",\n");
+            sb.append("            \"scoreError\" : ").append(number(error)).append(",\n");
+            sb.append("            \"scoreConfidence\" : [ ").append(number(score - error))
+                .append(", ").append(number(score + error)).append(" ],\n");
+            sb.append("            \"scoreUnit\" : \"ops/s\",\n");
+            sb.append("            \"rawData\" : [ [ ");
+            for (int i = 0; i < result.scores.length; i++)
+            {
+                sb.append(i == 0 ? "" : ", ").append(number(result.scores[i]));
+            }
+            sb.append(" ] ]\n");
+            sb.append("        },\n");
+            sb.append("        \"secondaryMetrics\" : {}\n");
+            sb.append(r == results.size() - 1 ? "    }\n" : "    },\n");
+        }
+        sb.append("]\n");
+        out.write(sb.toString());
+        out.flush();
+    }
+
+    /**
+     * Returns a string as a JSON string literal.
+     *
+     * @param s the string
+     * @return the literal
+     */
+    private static String quote(String s)
+    {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray())
+        {
+            if (c == '"' || c == '\\')
+            {
+                sb.append('\\').append(c);
+            }
+            else if (c < ' ')
+            {
+                sb.append(String.format("\\u%04x", (int) c));
+            }
+            else
+            {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Returns a number as JSON, which has no NaN.
+     *
+     * @param d the number
+     * @return the number, or "NaN" quoted as JMH writes it
+     */
+    private static String number(double d)
+    {
+        return Double.isNaN(d) || Double.isInfinite(d) ? "\"NaN\"" : String.valueOf(d);
+    }
+}
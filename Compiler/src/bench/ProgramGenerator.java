@@ -0,0 +1,441 @@
+package bench;
+import java.io.*;
+import java.util.*;
+
+/**
+ * The ProgramGenerator writes random programs of a chosen size and shape for
+ * load and scaling tests of the scanner, parser, interpreter and code
+ * generator. The same knobs and seed always give the same program.
+ *
+ * Every program it writes is valid and runs to completion in the interpreter
+ * and when compiled, with the same output. It only reads a variable after
+ * assigning it, only divides by positive literals, and gives each WHILE a
+ * counter of its own that runs from 0 to the trip count. Calls cannot make
+ * the running time explode: procedures come in two tiers, the upper tier
+ * only calls the lower one, and calls are never made inside loops. When a
+ * recursion depth is set, one more procedure, rec, calls itself that many
+ * levels deep.
+ *
+ * Names tell their kind apart by their first letter: g for globals, c for the
+ * loop counters of the main statement, p for procedures, x for parameters, l
+ * for locals and k for the loop counters of procedures.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class ProgramGenerator
+{
+    private static final int GLOBALS = 8;
+    private static final int LOCALS = 3;
+    private static final String[] RELATIONS = {"=", "<>", "<", ">", "<=", ">="};
+
+    private long size;
+    private int procedures;
+    private int depth;
+    private int trips;
+    private int recursion;
+    private Random random;
+
+    /**
+     * What a statement being generated may use.
+     */
+    private static class Scope
+    {
+        private List<String> readable = new ArrayList<String>();
+        private List<String> assignable = new ArrayList<String>();
+        private List<String> callable = new ArrayList<String>();
+        private Map<String, Integer> arities;
+        private String counterPrefix;
+        private int loops;
+    }
+
+    /**
+     * Constructs a ProgramGenerator.
+     *
+     * @param size about how many bytes the program should have
+     * @param procedures how many procedures to declare, besides rec
+     * @param depth how deeply statements and expressions may nest
+     * @param trips how many times each loop runs
+     * @param recursion how deep rec recurses, or 0 for no rec
+     * @param seed the seed of the random choices
+     */
+    public ProgramGenerator(long size, int procedures, int depth, int trips, int recursion,
+                            long seed)
+    {
+        this.size = size;
+        this.procedures = procedures;
+        this.depth = depth;
+        this.trips = trips;
+        this.recursion = recursion;
+        random = new Random(seed);
+    }
+
+    /**
+     * Returns the program as a string.
+     *
+     * @return the source text
+     */
+    public String generate()
+    {
+        StringBuilder sb = new StringBuilder();
+        try
+        {
+            generate(sb);
+        }
+        catch (IOException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the program a statement at a time, so that programs larger than
+     * memory can go straight to a file.
+     *
+     * @param out where to write the program
+     * @throws IOException if writing fails
+     */
+    public void generate(Appendable out) throws IOException
+    {
+        List<String> globals = new ArrayList<String>();
+        for (int i = 0; i < GLOBALS; i++)
+        {
+            globals.add("g" + Benchmarks.letters(i));
+        }
+        StringBuilder vars = new StringBuilder("VAR ");
+        for (String g : globals)
+        {
+            vars.append(g).append(", ");
+        }
+        for (int d = 0; d < depth; d++)
+        {
+            vars.append("c").append(Benchmarks.letters(d)).append(", ");
+        }
+        vars.setLength(vars.length() - 2);
+        out.append(vars).append(";\n");
+
+        Map<String, Integer> arities = new LinkedHashMap<String, Integer>();
+        List<String> lower = new ArrayList<String>();
+        List<String> upper = new ArrayList<String>();
+        for (int i = 0; i < procedures; i++)
+        {
+            String name = "p" + Benchmarks.letters(i);
+            arities.put(name, 1 + random.nextInt(3));
+            (i % 2 == 0 ? lower : upper).add(name);
+        }
+        long budget = size / (procedures + (recursion > 0 ? 2 : 1));
+        if (recursion > 0)
+        {
+            arities.put("rec", 2);
+            writeRecursive(out, globals, budget);
+        }
+        for (String name : lower)
+        {
+            writeProcedure(out, name, arities, globals, Collections.<String>emptyList(), budget);
+        }
+        for (String name : upper)
+        {
+            writeProcedure(out, name, arities, globals, lower, budget);
+        }
+
+        Scope main = new Scope();
+        main.arities = arities;
+        main.counterPrefix = "c";
+        main.readable.addAll(globals);
+        main.assignable.addAll(globals);
+        main.callable.addAll(upper.isEmpty() ? lower : upper);
+        if (recursion > 0)
+        {
+            main.callable.add("rec");
+        }
+        out.append("BEGIN\n");
+        for (String g : globals)
+        {
+            out.append(g).append(" := ").append(String.valueOf(random.nextInt(100))).append(";\n");
+        }
+        writeStatements(out, main, budget);
+        for (String g : globals)
+        {
+            out.append("WRITELN(").append(g).append(");\n");
+        }
+        out.append("END;\n.\n");
+    }
+
+    /**
+     * Writes a procedure whose body assigns its locals and then runs random
+     * statements.
+     *
+     * @param out where to write
+     * @param name the name of the procedure
+     * @param arities the number of parameters of every procedure
+     * @param globals the globals
+     * @param callees the procedures the body may call
+     * @param budget about how many bytes the body should have
+     * @throws IOException if writing fails
+     */
+    private void writeProcedure(Appendable out, String name, Map<String, Integer> arities,
+                                List<String> globals, List<String> callees, long budget)
+        throws IOException
+    {
+        Scope scope = new Scope();
+        scope.arities = arities;
+        scope.counterPrefix = "k";
+        scope.callable.addAll(callees);
+        StringBuilder params = new StringBuilder();
+        for (int i = 0; i < arities.get(name); i++)
+        {
+            String param = "x" + Benchmarks.letters(i);
+            params.append(i == 0 ? "" : ", ").append(param);
+            scope.readable.add(param);
+        }
+        out.append("PROCEDURE ").append(name).append("(").append(params).append(");\n");
+        out.append("BEGIN\n");
+        out.append(name).append(" := ").append(expression(scope, 1)).append(";\n");
+        scope.readable.add(name);
+        scope.assignable.add(name);
+        for (int i = 0; i < LOCALS; i++)
+        {
+            String local = "l" + Benchmarks.letters(i);
+            out.append(local).append(" := ").append(expression(scope, 1)).append(";\n");
+            scope.readable.add(local);
+            scope.assignable.add(local);
+        }
+        scope.readable.addAll(globals);
+        scope.assignable.addAll(globals);
+        writeStatements(out, scope, budget);
+        out.append("END;\n");
+    }
+
+    /**
+     * Writes rec, which calls itself until its first parameter reaches 0.
+     *
+     * @param out where to write
+     * @param globals the globals
+     * @param budget about how many bytes the body should have
+     * @throws IOException if writing fails
+     */
+    private void writeRecursive(Appendable out, List<String> globals, long budget)
+        throws IOException
+    {
+        Scope scope = new Scope();
+        scope.arities = Collections.singletonMap("rec", 2);
+        scope.counterPrefix = "k";
+        scope.readable.addAll(Arrays.asList("xa", "xb", "rec"));
+        scope.assignable.add("rec");
+        out.append("PROCEDURE rec(xa, xb);\nBEGIN\nrec := xb;\n");
+        out.append("IF xa > 0 THEN rec := rec + rec(xa - 1, ")
+            .append(expression(scope, 1)).append(");\n");
+        scope.readable.addAll(globals);
+        scope.assignable.addAll(globals);
+        writeStatements(out, scope, budget);
+        out.append("END;\n");
+    }
+
+    /**
+     * Writes random statements until about the given number of bytes are out.
+     *
+     * @param out where to write
+     * @param scope what the statements may use
+     * @param budget about how many bytes to write
+     * @throws IOException if writing fails
+     */
+    private void writeStatements(Appendable out, Scope scope, long budget) throws IOException
+    {
+        long written = 0;
+        while (written < budget)
+        {
+            StringBuilder sb = new StringBuilder();
+            statement(sb, scope, 0);
+            out.append(sb);
+            written += sb.length();
+        }
+    }
+
+    /**
+     * Writes one random statement.
+     *
+     * @param sb where to write
+     * @param scope what the statement may use
+     * @param level how deeply the statement is nested
+     */
+    private void statement(StringBuilder sb, Scope scope, int level)
+    {
+        int choice = level < depth ? random.nextInt(10) : 0;
+        if (choice <= 4)
+        {
+            String target = scope.assignable.get(random.nextInt(scope.assignable.size()));
+            sb.append(target).append(" := ").append(expression(scope, depth)).append(";\n");
+        }
+        else if (choice <= 6)
+        {
+            sb.append("IF ").append(condition(scope)).append(" THEN ");
+            statement(sb, scope, level + 1);
+        }
+        else if (choice == 7)
+        {
+            String counter = scope.counterPrefix + Benchmarks.letters(scope.loops);
+            sb.append("BEGIN\n").append(counter).append(" := 0;\n");
+            sb.append("WHILE ").append(counter).append(" < ").append(trips).append(" DO\nBEGIN\n");
+            scope.loops++;
+            scope.readable.add(counter);
+            statement(sb, scope, level + 1);
+            statement(sb, scope, level + 1);
+            scope.readable.remove(scope.readable.size() - 1);
+            scope.loops--;
+            sb.append(counter).append(" := ").append(counter).append(" + 1;\nEND;\nEND;\n");
+        }
+        else if (choice == 8)
+        {
+            sb.append("BEGIN\n");
+            int n = 1 + random.nextInt(3);
+            for (int i = 0; i < n; i++)
+            {
+                statement(sb, scope, level + 1);
+            }
+            sb.append("END;\n");
+        }
+        else
+        {
+            sb.append("WRITELN(").append(expression(scope, depth)).append(");\n");
+        }
+    }
+
+    /**
+     * Returns a random comparison.
+     *
+     * @param scope what the comparison may use
+     * @return the comparison
+     */
+    private String condition(Scope scope)
+    {
+        return expression(scope, depth) + " " + RELATIONS[random.nextInt(RELATIONS.length)]
+            + " " + expression(scope, depth);
+    }
+
+    /**
+     * Returns a random expression.
+     *
+     * @param scope what the expression may use
+     * @param levels how deeply it may nest
+     * @return the expression
+     */
+    private String expression(Scope scope, int levels)
+    {
+        int choice = random.nextInt(levels > 0 ? 10 : 4);
+        if (choice == 0 || scope.readable.isEmpty())
+        {
+            return String.valueOf(random.nextInt(50));
+        }
+        if (choice <= 2)
+        {
+            return scope.readable.get(random.nextInt(scope.readable.size()));
+        }
+        if (choice == 3)
+        {
+            if (scope.loops > 0 || scope.callable.isEmpty())
+            {
+                return scope.readable.get(random.nextInt(scope.readable.size()));
+            }
+            String callee = scope.callable.get(random.nextInt(scope.callable.size()));
+            StringBuilder sb = new StringBuilder(callee).append('(');
+            if (callee.equals("rec"))
+            {
+                sb.append(recursion).append(", ").append(expression(scope, 0));
+            }
+            else
+            {
+                for (int i = 0; i < scope.arities.get(callee); i++)
+                {
+                    sb.append(i == 0 ? "" : ", ").append(expression(scope, 0));
+                }
+            }
+            return sb.append(')').toString();
+        }
+        if (choice <= 5)
+        {
+            return expression(scope, levels - 1) + " + " + expression(scope, levels - 1);
+        }
+        if (choice <= 7)
+        {
+            return expression(scope, levels - 1) + " - " + expression(scope, levels - 1);
+        }
+        if (choice == 8)
+        {
+            return "(" + expression(scope, levels - 1) + ") * " + (1 + random.nextInt(9));
+        }
+        return "(" + expression(scope, levels - 1) + ") / " + (1 + random.nextInt(9));
+    }
+
+    /**
+     * Reads a size such as 4096, 64k or 200m.
+     *
+     * @param text the size
+     * @return the number of bytes
+     */
+    private static long parseSize(String text)
+    {
+        char unit = Character.toLowerCase(text.charAt(text.length() - 1));
+        long scale = unit == 'k' ? 1L << 10 : unit == 'm' ? 1L << 20 : unit == 'g' ? 1L << 30 : 1;
+        String digits = scale == 1 ? text : text.substring(0, text.length() - 1);
+        return Long.parseLong(digits) * scale;
+    }
+
+    /**
+     * Writes a program to standard output or a file.
+     *
+     * @param args -size bytes (with an optional k, m or g), -procedures n,
+     *             -depth n, -trips n, -recursion n, -seed n and -o file, all
+     *             optional
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException
+    {
+        long size = 4096;
+        int procedures = 4;
+        int depth = 3;
+        int trips = 10;
+        int recursion = 0;
+        long seed = 1;
+        String file = null;
+        for (int i = 0; i + 1 < args.length; i += 2)
+        {
+            String value = args[i + 1];
+            if (args[i].equals("-size"))
+            {
+                size = parseSize(value);
+            }
+            else if (args[i].equals("-procedures"))
+            {
+                procedures = Integer.parseInt(value);
+            }
+            else if (args[i].equals("-depth"))
+            {
+                depth = Integer.parseInt(value);
+            }
+            else if (args[i].equals("-trips"))
+            {
+                trips = Integer.parseInt(value);
+            }
+            else if (args[i].equals("-recursion"))
+            {
+                recursion = Integer.parseInt(value);
+            }
+            else if (args[i].equals("-seed"))
+            {
+                seed = Long.parseLong(value);
+            }
+            else if (args[i].equals("-o"))
+            {
+                file = value;
+            }
+        }
+        ProgramGenerator generator =
+            new ProgramGenerator(size, procedures, depth, trips, recursion, seed);
+        try (Writer out = new BufferedWriter(file == null
+                ? new OutputStreamWriter(System.out) : new FileWriter(file), 1 << 16))
+        {
+            generator.generate(out);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package environment;
 import ast.*;
+import events.Phase;
+import java.io.PrintStream;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinTask;
 import java.util.Map;
 import java.util.HashMap;
 
@@ -13,17 +17,27 @@ import java.util.HashMap;
  */
 public class Environment
 {
-    private HashMap<String, Integer> variables;
-    private HashMap<String, ProcedureDeclaration> prodec;
+    private VariableTable variables;
+    private volatile HashMap<String, ProcedureDeclaration> prodec;
     private Environment parent;
+    private Environment root;
+    private PrintStream out;
+    private volatile Map<String, ProcedureDeclaration> reloads;
+    private volatile boolean cancelled;
+    private Recorder recorder;
+    private boolean traced;
+    private volatile boolean attention;
 
     /**
      * Constructs objects of the Environment class
      */
     public Environment()
     {
-        this.variables = new HashMap<String, Integer>();
+        this.variables = new VariableTable();
         this.prodec = new HashMap<String, ProcedureDeclaration>();
+        this.root = this;
+        this.traced = Phase.isRecording();
+        this.attention = traced;
     }
 
     /**
@@ -33,63 +47,76 @@ public class Environment
      */
     public Environment(Environment parent)
     {
-        this.variables = new HashMap<String, Integer>();
+        this.variables = new VariableTable();
         this.prodec = new HashMap<String, ProcedureDeclaration>();
         this.parent = parent;
+        this.root = parent.root;
     }
 
     /**
-     * Adds variable to the environment (map) if it isn't contained
-     * already
+     * Sets the variable in the nearest environment of the parent chain
+     * that already contains it, or adds it to this environment
+     * if none does
      * @param variable the variable to be stored
      * @param value the value to be stored by the variable
      */
     public void setVariable(String variable, int value)
     {
-        if(variables.containsKey(variable))
+        Environment env = this;
+        while (env != null)
         {
-            variables.put(variable, value);
-            return;
-        }
-        else
-        {
-            if(parent != null)
+            int slot = env.variables.find(variable);
+            if (slot >= 0)
             {
-                if(parent.variables.containsKey(variable))
-                {
-                    parent.variables.put(variable, value);
-                    return;
-                }
+                env.variables.set(slot, value);
+                return;
             }
+            env = env.parent;
         }
         variables.put(variable, value);
     }
 
 
     /**
-     * Returns the value or the variable contained within the
-     * environment/map. 
+     * Returns the value of the variable contained within the
+     * nearest environment of the parent chain that has it.
      * 
      * @param variable the name of the variable that is searched for in the map
      * @return the value of the variable
+     * @throws IllegalArgumentException if no environment in the chain has the variable
      */
     public int getVariable(String variable)
     {
-        if(variables.containsKey(variable))
+        Environment env = this;
+        while (env != null)
         {
-            return variables.get(variable);
+            int slot = env.variables.find(variable);
+            if (slot >= 0)
+            {
+                return env.variables.get(slot);
+            }
+            env = env.parent;
         }
-        else
+        throw new IllegalArgumentException(variable + " was used before it was assigned.");
+    }
+
+    /**
+     * Checks whether a variable has been assigned in this environment or
+     * any environment of its parent chain.
+     *
+     * @param variable the name of the variable
+     * @return true if getVariable would return a value; otherwise, false
+     */
+    public boolean hasVariable(String variable)
+    {
+        for (Environment env = this; env != null; env = env.parent)
         {
-            if(parent != null)
+            if (env.variables.find(variable) >= 0)
             {
-                if(parent.variables.containsKey(variable))
-                {
-                    return parent.variables.get(variable);
-                }
+                return true;
             }
         }
-        return variables.get(variable);
+        return false;
     }
 
     /**
@@ -119,6 +146,161 @@ public class Environment
         return prodec.get(name);
     }
 
+    /**
+     * Queues new versions of procedures to replace those of this environment's
+     * program, for instance after its source was edited. Nothing changes until
+     * the thread running the program next reaches a statement boundary and
+     * calls attend, which swaps in all the procedures queued so far at
+     * once. Variables keep their values. May be called from any thread.
+     *
+     * @param procedures the new procedure declarations
+     */
+    public void reloadProcedures(Collection<ProcedureDeclaration> procedures)
+    {
+        synchronized (root)
+        {
+            Map<String, ProcedureDeclaration> queued =
+                new HashMap<String, ProcedureDeclaration>();
+            if (root.reloads != null)
+            {
+                queued.putAll(root.reloads);
+            }
+            for (ProcedureDeclaration pd : procedures)
+            {
+                queued.put(pd.getName(), pd);
+            }
+            root.reloads = queued;
+            root.updateAttention();
+        }
+    }
+
+    /**
+     * Drops the procedures queued by reloadProcedures that have not been
+     * swapped in yet, for instance when whatever queued them stops watching.
+     */
+    public void discardReloads()
+    {
+        synchronized (root)
+        {
+            root.reloads = null;
+            root.updateAttention();
+        }
+    }
+
+    /**
+     * Checks whether the program running in this environment needs more than
+     * its statements run: it was cancelled, has procedures queued by
+     * reloadProcedures, is being recorded, or was started during a flight
+     * recording. This reads a single volatile field, so it is cheap enough to
+     * do before every statement and on every trip around a loop, and the
+     * rest is only looked at when it returns true. Programs running in other
+     * environments are not affected.
+     *
+     * @return true if attend or the recording hooks have work to do;
+     *         otherwise, false
+     */
+    public boolean needsAttention()
+    {
+        return root.attention;
+    }
+
+    /**
+     * Does what needsAttention asked for at a statement boundary: stops the
+     * program if it was cancelled, then swaps in the procedures queued by
+     * reloadProcedures.
+     *
+     * @throws CancellationException if the program has been asked to stop
+     */
+    public void attend()
+    {
+        checkCancelled();
+        if (root.reloads != null)
+        {
+            applyReloads();
+        }
+    }
+
+    /**
+     * Recomputes whether the program needs attention. Called with the root
+     * locked, on the root, after anything it depends on changes, so that no
+     * change is lost between two threads.
+     */
+    private void updateAttention()
+    {
+        attention = cancelled || reloads != null || recorder != null || traced;
+    }
+
+    /**
+     * Swaps the procedures queued by reloadProcedures into the procedure
+     * table, replacing the whole table at once so that no statement sees some
+     * procedures old and others new. Calls already running finish with the
+     * procedure they started with. Does nothing on the worker threads of a parallel loop, whose
+     * statements all have to see the procedures the loop started with.
+     *
+     * @return true if procedures were swapped; otherwise, false
+     */
+    public boolean applyReloads()
+    {
+        if (ForkJoinTask.inForkJoinPool())
+        {
+            return false;
+        }
+        Map<String, ProcedureDeclaration> updates;
+        synchronized (root)
+        {
+            updates = root.reloads;
+            if (updates == null)
+            {
+                return false;
+            }
+            root.reloads = null;
+            root.updateAttention();
+        }
+        HashMap<String, ProcedureDeclaration> table =
+            new HashMap<String, ProcedureDeclaration>(root.prodec);
+        table.putAll(updates);
+        root.prodec = table;
+        return true;
+    }
+
+    /**
+     * Asks the program running in this environment to stop. It stops at its
+     * next statement boundary, on whichever thread reaches it first, with a
+     * CancellationException. May be called from any thread, before or while
+     * the program runs.
+     */
+    public void cancel()
+    {
+        synchronized (root)
+        {
+            root.cancelled = true;
+            root.updateAttention();
+        }
+    }
+
+    /**
+     * Checks whether cancel was called on this environment's program.
+     *
+     * @return true if the program has been asked to stop; otherwise, false
+     */
+    public boolean isCancelled()
+    {
+        return root.cancelled;
+    }
+
+    /**
+     * Stops the program if cancel was called on it.
+     *
+     * @throws CancellationException if the program has been asked to stop
+     */
+    public void checkCancelled()
+    {
+        if (root.cancelled)
+        {
+            throw new CancellationException("the program was stopped");
+        }
+    }
+
     /**
      * Declares a new variable in the current environment.
      *
@@ -130,6 +312,74 @@ public class Environment
         variables.put(variable, value);
     }
 
+    /**
+     * Sets where WRITELN prints to in this environment and the environments
+     * below it, so that programs run side by side can keep their output apart.
+     *
+     * @param out the stream to print to, or null to use the parent's
+     */
+    public void setOutput(PrintStream out)
+    {
+        this.out = out;
+    }
+
+    /**
+     * Returns where WRITELN prints to: the stream set on the nearest
+     * environment of the parent chain, or System.out if none was set.
+     *
+     * @return the output stream
+     */
+    public PrintStream getOutput()
+    {
+        for (Environment env = this; env != null; env = env.parent)
+        {
+            if (env.out != null)
+            {
+                return env.out;
+            }
+        }
+        return System.out;
+    }
+
+    /**
+     * Has a Recorder told of what the program running in this environment
+     * does. Set it before the program starts.
+     *
+     * @param recorder the recorder, or null to stop recording
+     */
+    public void setRecorder(Recorder recorder)
+    {
+        synchronized (root)
+        {
+            root.recorder = recorder;
+            root.updateAttention();
+        }
+    }
+
+    /**
+     * Returns the Recorder of the program running in this environment.
+     *
+     * @return the recorder, or null if the program is not recorded
+     */
+    public Recorder getRecorder()
+    {
+        return root.recorder;
+    }
+
+    /**
+     * Checks whether the program running in this environment was started
+     * while a flight recording was running, which is when its loops and
+     * calls are worth an event each. Checking once per run keeps the
+     * recorder's state out of the interpreter's inner loops.
+     *
+     * @return true if the program's loops and calls should commit events;
+     *         otherwise, false
+     */
+    public boolean isTraced()
+    {
+        return root.traced;
+    }
+
     /**
      * Returns the parent environment.
      *
@@ -0,0 +1,31 @@
+package environment;
+import ast.Condition;
+import ast.ProcedureCall;
+
+/**
+ * A Recorder is told what one run of a program does, for instance to build
+ * a profile of it. It is given to the root Environment of the run, so runs
+ * in other environments, even of the same program, are not recorded. Loops
+ * are not run in parallel while recording, so a Recorder is only called from
+ * the thread running the program.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public interface Recorder
+{
+    /**
+     * Records the outcome of a condition.
+     *
+     * @param c the condition
+     * @param result 1 if it held; otherwise, 0
+     */
+    void condition(Condition c, int result);
+
+    /**
+     * Records a procedure call, before the procedure runs.
+     *
+     * @param call the call
+     */
+    void call(ProcedureCall call);
+}
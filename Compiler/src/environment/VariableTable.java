@@ -0,0 +1,150 @@
+package environment;
+
+/**
+ * VariableTable maps variable names to int values with open addressing.
+ * Keys, their hashes and their values live in three parallel arrays, so a
+ * lookup hashes the name once, compares cached hashes before strings, and
+ * never boxes a value. Variables are never removed, which keeps linear
+ * probing simple.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+class VariableTable
+{
+    private static final int INITIAL_CAPACITY = 8;
+
+    private String[] keys;
+    private int[] hashes;
+    private int[] values;
+    private int size;
+
+    /**
+     * Constructs an empty VariableTable.
+     */
+    VariableTable()
+    {
+        keys = new String[INITIAL_CAPACITY];
+        hashes = new int[INITIAL_CAPACITY];
+        values = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Returns the slot holding the given name.
+     *
+     * @param name the variable name
+     * @return the slot index, or -1 if the name is not in the table
+     */
+    int find(String name)
+    {
+        int hash = hash(name);
+        int mask = keys.length - 1;
+        int i = hash & mask;
+        String key = keys[i];
+        while (key != null)
+        {
+            if (hashes[i] == hash && (key == name || key.equals(name)))
+            {
+                return i;
+            }
+            i = (i + 1) & mask;
+            key = keys[i];
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the value stored in a slot.
+     *
+     * @param slot a slot index returned by find
+     * @return the value in the slot
+     */
+    int get(int slot)
+    {
+        return values[slot];
+    }
+
+    /**
+     * Replaces the value stored in a slot.
+     *
+     * @param slot a slot index returned by find
+     * @param value the new value
+     */
+    void set(int slot, int value)
+    {
+        values[slot] = value;
+    }
+
+    /**
+     * Stores a value under a name, adding the name if it is not in the table.
+     *
+     * @param name the variable name
+     * @param value the value to store
+     */
+    void put(String name, int value)
+    {
+        int hash = hash(name);
+        int mask = keys.length - 1;
+        int i = hash & mask;
+        String key = keys[i];
+        while (key != null)
+        {
+            if (hashes[i] == hash && (key == name || key.equals(name)))
+            {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+            key = keys[i];
+        }
+        keys[i] = name;
+        hashes[i] = hash;
+        values[i] = value;
+        size++;
+        if (size * 4 > keys.length * 3)
+        {
+            grow();
+        }
+    }
+
+    /**
+     * Doubles the number of slots and re-inserts every entry.
+     */
+    private void grow()
+    {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldValues = values;
+        keys = new String[oldKeys.length * 2];
+        hashes = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++)
+        {
+            if (oldKeys[j] != null)
+            {
+                int i = oldHashes[j] & mask;
+                while (keys[i] != null)
+                {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                hashes[i] = oldHashes[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Spreads the bits of a name's hash code so that names differing only in
+     * their high bits do not all probe from the same slot.
+     *
+     * @param name the variable name
+     * @return the spread hash
+     */
+    private static int hash(String name)
+    {
+        int h = name.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
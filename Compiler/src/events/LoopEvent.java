@@ -0,0 +1,56 @@
+package events;
+import jdk.jfr.*;
+
+/**
+ * A LoopEvent is a Java Flight Recorder event for one run of a WHILE loop in
+ * the interpreter, from the first test of its condition to the last. Like
+ * ProcedureCallEvent it is off unless a recording turns it on, and then
+ * only loops that run longer than the threshold are written, 1 ms by
+ * default.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+@Name("compiler.While")
+@Label("While Loop")
+@Category({"Compiler", "Interpreter"})
+@Description("A run of a WHILE loop in the interpreter that took longer than the threshold")
+@Enabled(false)
+@Threshold("1 ms")
+@StackTrace(false)
+public class LoopEvent extends Event
+{
+    @Label("Variable")
+    @Description("The variable on the left of the loop's condition, if there is one")
+    private String variable;
+
+    @Label("Trips")
+    @Description("The number of times the body ran, or -1 if the loop ran in parallel")
+    private long trips;
+
+    @Label("Parallel")
+    private boolean parallel;
+
+    /**
+     * Sets the variable on the left of the loop's condition, which is
+     * usually its counter and tells the loops of a program apart.
+     *
+     * @param variable the name of the variable
+     */
+    public void setVariable(String variable)
+    {
+        this.variable = variable;
+    }
+
+    /**
+     * Sets the number of times the body ran.
+     *
+     * @param trips the number of trips, or -1 if the loop's iterations were
+     *              run in parallel
+     */
+    public void setTrips(long trips)
+    {
+        this.trips = trips;
+        parallel = trips < 0;
+    }
+}
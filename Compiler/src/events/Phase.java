@@ -0,0 +1,222 @@
+package events;
+import java.lang.management.ManagementFactory;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * A Phase times one phase of a compile or a run, scanning, parsing,
+ * optimizing, executing or emitting code, and commits a PhaseEvent for it to
+ * Java Flight Recorder. The event holds how long the phase took, how many
+ * bytes the thread running it allocated, and the number of tokens, AST nodes
+ * or instructions the phase handled, as far as they apply.
+ *
+ * Scanning happens a token at a time while parsing, so the scan event spans
+ * the whole parse and its time and allocated fields hold only what was spent
+ * inside the scanner; the parse event's fields hold the rest. The code of the
+ * main statement and of each procedure is emitted and optimized on a thread
+ * of its own, so those phases have an event per part, named in the unit
+ * field, and one more for rendering and writing the whole program.
+ *
+ * Loading the first event class starts up the recorder's machinery, which
+ * takes a good part of a second, so until a recording has been started no
+ * event is created and a Phase does nothing at all.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class Phase
+{
+    /**
+     * The phase that turns source text into tokens.
+     */
+    public static final String SCAN = "scan";
+
+    /**
+     * The phase that turns tokens into an AST.
+     */
+    public static final String PARSE = "parse";
+
+    /**
+     * The phase that runs the peephole optimizer.
+     */
+    public static final String OPTIMIZE = "optimize";
+
+    /**
+     * The phase that runs a program in the interpreter.
+     */
+    public static final String EXECUTE = "execute";
+
+    /**
+     * The phase that generates, renders and writes code.
+     */
+    public static final String EMIT = "emit";
+
+    private static final Phase OFF = new Phase(null);
+
+    private PhaseEvent event;
+
+    /**
+     * Holds the bean that counts allocations, so that it is only looked up,
+     * which takes a while, once an event is recorded.
+     */
+    private static class Threads
+    {
+        private static final com.sun.management.ThreadMXBean BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    /**
+     * Constructs a Phase.
+     *
+     * @param event the event it fills in, or null to record nothing
+     */
+    private Phase(PhaseEvent event)
+    {
+        this.event = event;
+    }
+
+    /**
+     * Checks whether a recording has been started in this virtual machine,
+     * which is when events are worth creating. The interpreter checks this
+     * once per run, when its root Environment is made, and only creates loop
+     * and call events for runs started during a recording.
+     *
+     * @return true if the flight recorder is running; otherwise, false
+     */
+    public static boolean isRecording()
+    {
+        return FlightRecorder.isInitialized();
+    }
+
+    /**
+     * Starts timing a phase.
+     *
+     * @param phase SCAN, PARSE, OPTIMIZE, EXECUTE or EMIT
+     * @param unit the procedure or part worked on, or null for the whole program
+     * @return the Phase, which does nothing if the event is not being recorded
+     */
+    public static Phase start(String phase, String unit)
+    {
+        if (!isRecording())
+        {
+            return OFF;
+        }
+        PhaseEvent event = new PhaseEvent();
+        if (!event.isEnabled())
+        {
+            return OFF;
+        }
+        event.phase = phase;
+        event.unit = unit;
+        event.allocated = -allocatedBytes();
+        event.time = -System.nanoTime();
+        event.begin();
+        return new Phase(event);
+    }
+
+    /**
+     * Returns the number of bytes the current thread has allocated so far.
+     *
+     * @return the bytes allocated
+     */
+    public static long allocatedBytes()
+    {
+        return Threads.BEAN.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Checks whether the phase is being recorded, so that counts that take
+     * work to gather can be skipped when it is not.
+     *
+     * @return true if finish will commit an event; otherwise, false
+     */
+    public boolean isRecorded()
+    {
+        return event != null;
+    }
+
+    /**
+     * Leaves time and allocations that belong to another phase out of this
+     * one. Must be called before finish.
+     *
+     * @param otherTime the time to leave out, in nanoseconds
+     * @param otherAllocated the bytes to leave out
+     */
+    public void exclude(long otherTime, long otherAllocated)
+    {
+        if (event != null)
+        {
+            event.time -= otherTime;
+            event.allocated -= otherAllocated;
+        }
+    }
+
+    /**
+     * Ends the phase and commits its event with the time and allocations
+     * measured since start.
+     */
+    public void finish()
+    {
+        if (event != null)
+        {
+            event.time += System.nanoTime();
+            event.allocated += allocatedBytes();
+            event.commit();
+        }
+    }
+
+    /**
+     * Ends the phase and commits its event with time and allocations that
+     * were measured elsewhere, for a phase interleaved with another.
+     *
+     * @param phaseTime the time spent in the phase, in nanoseconds
+     * @param phaseAllocated the bytes allocated in the phase
+     */
+    public void finish(long phaseTime, long phaseAllocated)
+    {
+        if (event != null)
+        {
+            event.time = phaseTime;
+            event.allocated = phaseAllocated;
+            event.commit();
+        }
+    }
+
+    /**
+     * Sets the number of tokens the phase handled.
+     *
+     * @param tokens the number of tokens
+     */
+    public void setTokens(long tokens)
+    {
+        if (event != null)
+        {
+            event.tokens = tokens;
+        }
+    }
+
+    /**
+     * Sets the number of AST nodes the phase handled.
+     *
+     * @param nodes the number of nodes
+     */
+    public void setNodes(long nodes)
+    {
+        if (event != null)
+        {
+            event.nodes = nodes;
+        }
+    }
+
+    /**
+     * Sets the number of instructions the phase produced.
+     *
+     * @param instructions the number of instructions
+     */
+    public void setInstructions(long instructions)
+    {
+        if (event != null)
+        {
+            event.instructions = instructions;
+        }
+    }
+}
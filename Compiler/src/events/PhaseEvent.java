@@ -0,0 +1,44 @@
+package events;
+import jdk.jfr.*;
+
+/**
+ * A PhaseEvent is the Java Flight Recorder event for one phase of a compile
+ * or a run. Phase creates and fills it in; see there for what each phase
+ * records.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+@Name("compiler.Phase")
+@Label("Compiler Phase")
+@Category("Compiler")
+@Description("A phase of compiling or running a program")
+@StackTrace(false)
+public class PhaseEvent extends Event
+{
+    @Label("Phase")
+    String phase;
+
+    @Label("Unit")
+    @Description("The procedure or part of the program the phase worked on")
+    String unit;
+
+    @Label("Time")
+    @Description("The time spent in the phase itself")
+    @Timespan(Timespan.NANOSECONDS)
+    long time;
+
+    @Label("Allocated")
+    @Description("The bytes the thread allocated during the phase")
+    @DataAmount
+    long allocated;
+
+    @Label("Tokens")
+    long tokens;
+
+    @Label("AST Nodes")
+    long nodes;
+
+    @Label("Instructions")
+    long instructions;
+}
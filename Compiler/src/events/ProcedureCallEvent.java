@@ -0,0 +1,42 @@
+package events;
+import jdk.jfr.*;
+
+/**
+ * A ProcedureCallEvent is a Java Flight Recorder event for one call of a
+ * procedure in the interpreter. There are far too many calls to record each
+ * one, so the event is off unless a recording turns it on, and then only
+ * calls that take longer than the threshold are written, 1 ms by default.
+ * Only programs started while a recording runs create the event at all.
+ * A recording can turn it on with
+ * -XX:StartFlightRecording:compiler.ProcedureCall#enabled=true.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+@Name("compiler.ProcedureCall")
+@Label("Procedure Call")
+@Category({"Compiler", "Interpreter"})
+@Description("A call of a procedure in the interpreter that took longer than the threshold")
+@Enabled(false)
+@Threshold("1 ms")
+@StackTrace(false)
+public class ProcedureCallEvent extends Event
+{
+    @Label("Procedure")
+    private String procedure;
+
+    @Label("Arguments")
+    private int arguments;
+
+    /**
+     * Constructs a ProcedureCallEvent.
+     *
+     * @param procedure the name of the procedure called
+     * @param arguments the number of arguments passed
+     */
+    public ProcedureCallEvent(String procedure, int arguments)
+    {
+        this.procedure = procedure;
+        this.arguments = arguments;
+    }
+}
@@ -0,0 +1,231 @@
+package ir;
+import java.util.*;
+
+/**
+ * A BasicBlock is a straight run of instructions that control only enters at
+ * the top and leaves at the bottom. Its phis come first and its terminator
+ * last. For a BRANCH, the first successor is taken when the comparison holds.
+ * The operands of each phi line up with the block's predecessors.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class BasicBlock
+{
+    private int id;
+    private List<Inst> insts;
+    private List<BasicBlock> preds;
+    private List<BasicBlock> succs;
+
+    /**
+     * Constructs an empty BasicBlock; Function.newBlock numbers them.
+     *
+     * @param id the number of the block within its function
+     */
+    BasicBlock(int id)
+    {
+        this.id = id;
+        insts = new ArrayList<Inst>();
+        preds = new ArrayList<BasicBlock>();
+        succs = new ArrayList<BasicBlock>();
+    }
+
+    /**
+     * Returns the number of the block within its function.
+     *
+     * @return the id
+     */
+    public int getId()
+    {
+        return id;
+    }
+
+    /**
+     * Returns the name the block goes by in printed IR.
+     *
+     * @return "b" followed by the id
+     */
+    public String getName()
+    {
+        return "b" + id;
+    }
+
+    /**
+     * Returns the instructions of the block, phis first and terminator last.
+     *
+     * @return the instructions
+     */
+    public List<Inst> getInsts()
+    {
+        return Collections.unmodifiableList(insts);
+    }
+
+    /**
+     * Returns the phis at the top of the block.
+     *
+     * @return the phis
+     */
+    public List<Inst> getPhis()
+    {
+        int n = 0;
+        while (n < insts.size() && insts.get(n).getOp() == Op.PHI)
+        {
+            n++;
+        }
+        return new ArrayList<Inst>(insts.subList(0, n));
+    }
+
+    /**
+     * Returns the instruction that ends the block.
+     *
+     * @return the terminator, or null if the block is still being built
+     */
+    public Inst getTerminator()
+    {
+        if (insts.isEmpty() || !insts.get(insts.size() - 1).isTerminator())
+        {
+            return null;
+        }
+        return insts.get(insts.size() - 1);
+    }
+
+    /**
+     * Returns the blocks control can come from.
+     *
+     * @return the predecessors
+     */
+    public List<BasicBlock> getPredecessors()
+    {
+        return Collections.unmodifiableList(preds);
+    }
+
+    /**
+     * Returns the blocks control can go to.
+     *
+     * @return the successors
+     */
+    public List<BasicBlock> getSuccessors()
+    {
+        return Collections.unmodifiableList(succs);
+    }
+
+    /**
+     * Adds an instruction at the end of the block. A phi goes after the
+     * other phis instead.
+     *
+     * @param inst the instruction
+     */
+    public void add(Inst inst)
+    {
+        if (inst.getOp() == Op.PHI)
+        {
+            insts.add(getPhis().size(), inst);
+        }
+        else
+        {
+            insts.add(inst);
+        }
+        inst.setBlock(this);
+    }
+
+    /**
+     * Adds an instruction after the phis, at the top of the block.
+     *
+     * @param inst the instruction
+     */
+    public void addFirst(Inst inst)
+    {
+        insts.add(getPhis().size(), inst);
+        inst.setBlock(this);
+    }
+
+    /**
+     * Adds an instruction just before the terminator.
+     *
+     * @param inst the instruction
+     */
+    public void addBeforeTerminator(Inst inst)
+    {
+        int at = getTerminator() == null ? insts.size() : insts.size() - 1;
+        insts.add(at, inst);
+        inst.setBlock(this);
+    }
+
+    /**
+     * Removes an instruction from the block.
+     *
+     * @param inst the instruction
+     */
+    public void remove(Inst inst)
+    {
+        insts.remove(inst);
+        inst.setBlock(null);
+    }
+
+    /**
+     * Removes every instruction in a set.
+     *
+     * @param dead the instructions to remove
+     * @return true if anything was removed; otherwise, false
+     */
+    boolean removeAll(Set<Inst> dead)
+    {
+        boolean changed = false;
+        for (Iterator<Inst> it = insts.iterator(); it.hasNext(); )
+        {
+            Inst inst = it.next();
+            if (dead.contains(inst))
+            {
+                it.remove();
+                inst.setBlock(null);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Adds an edge from this block to another.
+     *
+     * @param succ the successor
+     */
+    public void addSuccessor(BasicBlock succ)
+    {
+        succs.add(succ);
+        succ.preds.add(this);
+    }
+
+    /**
+     * Removes the edge from this block to a successor, along with the
+     * matching operand of every phi in the successor.
+     *
+     * @param succ the successor
+     */
+    public void removeSuccessor(BasicBlock succ)
+    {
+        int index = succ.preds.indexOf(this);
+        succs.remove(succ);
+        succ.preds.remove(index);
+        for (Inst phi : succ.getPhis())
+        {
+            phi.getOperands().remove(index);
+        }
+    }
+
+    /**
+     * Puts a block on the edge from this block to a successor. The middle
+     * block takes the successor's place among this block's successors and
+     * this block's place among the successor's predecessors, so the phis of
+     * the successor still line up.
+     *
+     * @param succ the successor
+     * @param middle an empty block
+     */
+    void splitEdge(BasicBlock succ, BasicBlock middle)
+    {
+        succs.set(succs.indexOf(succ), middle);
+        middle.preds.add(this);
+        succ.preds.set(succ.preds.indexOf(this), middle);
+        middle.succs.add(succ);
+    }
+}
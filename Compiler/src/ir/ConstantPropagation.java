@@ -0,0 +1,325 @@
+package ir;
+import ast.BinOp;
+import ast.Condition;
+import java.util.*;
+
+/**
+ * ConstantPropagation is the sparse conditional constant propagation of
+ * Wegman and Zadeck. Each value starts unknown and can only move down to a
+ * constant and then to varying; only blocks reached along executable edges
+ * are looked at, and a branch whose comparison is constant makes only one of
+ * its edges executable. Afterwards constant values become CONST instructions,
+ * decided branches become jumps, and blocks that were never reached are removed.
+ * A division by a constant zero is left alone, so that it still fails at run time.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class ConstantPropagation implements Pass
+{
+    private static final int UNKNOWN = 0;
+    private static final int CONSTANT = 1;
+    private static final int VARYING = 2;
+
+    private int[] state;
+    private int[] constant;
+    private Set<BasicBlock> reached;
+    private Map<BasicBlock, boolean[]> executable;
+    private Map<Inst, List<Inst>> users;
+    private Deque<Inst> ssaWork;
+    private Deque<BasicBlock[]> flowWork;
+
+    /**
+     * Returns the name of the pass.
+     *
+     * @return "sccp"
+     */
+    public String getName()
+    {
+        return "sccp";
+    }
+
+    /**
+     * Propagates the constants of a function and folds its decided branches.
+     *
+     * @param f the function
+     * @return true if the function changed; otherwise, false
+     */
+    public boolean run(Function f)
+    {
+        state = new int[f.getInstCount()];
+        constant = new int[f.getInstCount()];
+        reached = new HashSet<BasicBlock>();
+        executable = new HashMap<BasicBlock, boolean[]>();
+        users = new HashMap<Inst, List<Inst>>();
+        ssaWork = new ArrayDeque<Inst>();
+        flowWork = new ArrayDeque<BasicBlock[]>();
+        for (BasicBlock block : f.getBlocks())
+        {
+            executable.put(block, new boolean[block.getPredecessors().size()]);
+            for (Inst inst : block.getInsts())
+            {
+                for (Inst operand : inst.getOperands())
+                {
+                    List<Inst> list = users.get(operand);
+                    if (list == null)
+                    {
+                        list = new ArrayList<Inst>();
+                        users.put(operand, list);
+                    }
+                    list.add(inst);
+                }
+            }
+        }
+        reach(f.getEntry());
+        while (!flowWork.isEmpty() || !ssaWork.isEmpty())
+        {
+            while (!flowWork.isEmpty())
+            {
+                BasicBlock[] edge = flowWork.pop();
+                BasicBlock to = edge[1];
+                boolean[] flags = executable.get(to);
+                List<BasicBlock> preds = to.getPredecessors();
+                boolean fresh = false;
+                for (int i = 0; i < preds.size(); i++)
+                {
+                    if (preds.get(i) == edge[0] && !flags[i])
+                    {
+                        flags[i] = true;
+                        fresh = true;
+                    }
+                }
+                if (!fresh)
+                {
+                    continue;
+                }
+                if (reached.contains(to))
+                {
+                    for (Inst phi : to.getPhis())
+                    {
+                        visit(phi);
+                    }
+                }
+                else
+                {
+                    reach(to);
+                }
+            }
+            while (!ssaWork.isEmpty())
+            {
+                Inst inst = ssaWork.pop();
+                if (inst.getBlock() != null && reached.contains(inst.getBlock()))
+                {
+                    visit(inst);
+                }
+            }
+        }
+        return rewrite(f);
+    }
+
+    /**
+     * Marks a block as reached and evaluates all of its instructions.
+     *
+     * @param block the block
+     */
+    private void reach(BasicBlock block)
+    {
+        reached.add(block);
+        for (Inst inst : block.getInsts())
+        {
+            visit(inst);
+        }
+    }
+
+    /**
+     * Evaluates one instruction over the lattice.
+     *
+     * @param inst the instruction
+     */
+    private void visit(Inst inst)
+    {
+        switch (inst.getOp())
+        {
+            case CONST:
+                lower(inst, CONSTANT, inst.getValue());
+                break;
+            case PHI:
+                boolean[] flags = executable.get(inst.getBlock());
+                int result = UNKNOWN;
+                int value = 0;
+                for (int i = 0; i < inst.getOperands().size(); i++)
+                {
+                    if (!flags[i])
+                    {
+                        continue;
+                    }
+                    Inst operand = inst.getOperand(i);
+                    int s = state[operand.getId()];
+                    if (s == VARYING || (s == CONSTANT && result == CONSTANT
+                            && constant[operand.getId()] != value))
+                    {
+                        result = VARYING;
+                        break;
+                    }
+                    if (s == CONSTANT)
+                    {
+                        result = CONSTANT;
+                        value = constant[operand.getId()];
+                    }
+                }
+                lower(inst, result, value);
+                break;
+            case BINOP:
+                Inst a = inst.getOperand(0);
+                Inst b = inst.getOperand(1);
+                int sa = state[a.getId()];
+                int sb = state[b.getId()];
+                if (sa == VARYING || sb == VARYING)
+                {
+                    lower(inst, VARYING, 0);
+                }
+                else if (sa == CONSTANT && sb == CONSTANT)
+                {
+                    String op = inst.getName();
+                    if ((op.equals("/") || op.equals("%")) && constant[b.getId()] == 0)
+                    {
+                        lower(inst, VARYING, 0);
+                    }
+                    else
+                    {
+                        lower(inst, CONSTANT,
+                                BinOp.evaluate(op, constant[a.getId()], constant[b.getId()]));
+                    }
+                }
+                break;
+            case PARAM:
+            case LOAD:
+            case CALL:
+            case COPY:
+                lower(inst, VARYING, 0);
+                break;
+            case JUMP:
+                flowWork.push(new BasicBlock[] {inst.getBlock(),
+                    inst.getBlock().getSuccessors().get(0)});
+                break;
+            case BRANCH:
+                Inst left = inst.getOperand(0);
+                Inst right = inst.getOperand(1);
+                int sl = state[left.getId()];
+                int sr = state[right.getId()];
+                List<BasicBlock> succs = inst.getBlock().getSuccessors();
+                if (sl == CONSTANT && sr == CONSTANT)
+                {
+                    boolean holds = Condition.evaluate(inst.getName(),
+                            constant[left.getId()], constant[right.getId()]) != 0;
+                    flowWork.push(new BasicBlock[] {inst.getBlock(), succs.get(holds ? 0 : 1)});
+                }
+                else if (sl == VARYING || sr == VARYING)
+                {
+                    flowWork.push(new BasicBlock[] {inst.getBlock(), succs.get(0)});
+                    flowWork.push(new BasicBlock[] {inst.getBlock(), succs.get(1)});
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Moves a value down the lattice, queueing its users if it moved.
+     *
+     * @param inst the value
+     * @param s its new lattice state
+     * @param value its constant, if the state is CONSTANT
+     */
+    private void lower(Inst inst, int s, int value)
+    {
+        int id = inst.getId();
+        if (s <= state[id])
+        {
+            return;
+        }
+        state[id] = s;
+        constant[id] = value;
+        List<Inst> list = users.get(inst);
+        if (list != null)
+        {
+            ssaWork.addAll(list);
+        }
+    }
+
+    /**
+     * Rewrites the function with what the analysis found.
+     *
+     * @param f the function
+     * @return true if the function changed; otherwise, false
+     */
+    private boolean rewrite(Function f)
+    {
+        boolean changed = false;
+        Map<Inst, Inst> replacements = new HashMap<Inst, Inst>();
+        for (BasicBlock block : f.getBlocks())
+        {
+            if (!reached.contains(block))
+            {
+                continue;
+            }
+            for (Inst inst : new ArrayList<Inst>(block.getInsts()))
+            {
+                if (state[inst.getId()] != CONSTANT || inst.isConstant() || !inst.hasValue())
+                {
+                    continue;
+                }
+                if (inst.getOp() == Op.PHI)
+                {
+                    Inst c = f.newInst(Op.CONST, null, constant[inst.getId()]);
+                    block.addFirst(c);
+                    replacements.put(inst, c);
+                }
+                else
+                {
+                    inst.becomeConstant(constant[inst.getId()]);
+                    changed = true;
+                }
+            }
+            Inst term = block.getTerminator();
+            if (term != null && term.getOp() == Op.BRANCH)
+            {
+                List<BasicBlock> succs = block.getSuccessors();
+                boolean thenTaken = taken(block, succs.get(0));
+                boolean elseTaken = taken(block, succs.get(1));
+                if (thenTaken != elseTaken && succs.get(0) != succs.get(1))
+                {
+                    block.removeSuccessor(succs.get(thenTaken ? 1 : 0));
+                    term.becomeJump();
+                    changed = true;
+                }
+            }
+        }
+        f.replaceAll(replacements);
+        changed |= !replacements.isEmpty();
+        changed |= f.removeUnreachableBlocks();
+        return changed;
+    }
+
+    /**
+     * Checks whether the edge between two blocks was found executable.
+     *
+     * @param from the source block
+     * @param to the target block
+     * @return true if control can flow along the edge; otherwise, false
+     */
+    private boolean taken(BasicBlock from, BasicBlock to)
+    {
+        boolean[] flags = executable.get(to);
+        List<BasicBlock> preds = to.getPredecessors();
+        for (int i = 0; i < preds.size(); i++)
+        {
+            if (preds.get(i) == from && flags[i])
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,92 @@
+package ir;
+import java.util.*;
+
+/**
+ * CopyPropagation replaces each COPY by its operand, and each trivial phi,
+ * one whose operands are all the same value apart from the phi itself, by
+ * that value. Removing one trivial phi can make another trivial, so it
+ * repeats until none is left.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class CopyPropagation implements Pass
+{
+    /**
+     * Returns the name of the pass.
+     *
+     * @return "copy-prop"
+     */
+    public String getName()
+    {
+        return "copy-prop";
+    }
+
+    /**
+     * Removes the copies and trivial phis of a function.
+     *
+     * @param f the function
+     * @return true if the function changed; otherwise, false
+     */
+    public boolean run(Function f)
+    {
+        Map<Inst, Inst> replacements = new HashMap<Inst, Inst>();
+        boolean progress = true;
+        while (progress)
+        {
+            progress = false;
+            for (BasicBlock block : f.getBlocks())
+            {
+                for (Inst inst : block.getInsts())
+                {
+                    if (replacements.containsKey(inst))
+                    {
+                        continue;
+                    }
+                    Inst same = null;
+                    if (inst.getOp() == Op.COPY)
+                    {
+                        same = Function.resolve(replacements, inst.getOperand(0));
+                    }
+                    else if (inst.getOp() == Op.PHI)
+                    {
+                        same = trivialValue(inst, replacements);
+                    }
+                    if (same != null && same != inst)
+                    {
+                        replacements.put(inst, same);
+                        progress = true;
+                    }
+                }
+            }
+        }
+        f.replaceAll(replacements);
+        return !replacements.isEmpty();
+    }
+
+    /**
+     * Returns the only value a phi can have, if it is trivial.
+     *
+     * @param phi the phi
+     * @param replacements the replacements found so far
+     * @return the value, or null if the phi merges different values
+     */
+    private static Inst trivialValue(Inst phi, Map<Inst, Inst> replacements)
+    {
+        Inst same = null;
+        for (Inst operand : phi.getOperands())
+        {
+            Inst value = Function.resolve(replacements, operand);
+            if (value == phi || value == same)
+            {
+                continue;
+            }
+            if (same != null)
+            {
+                return null;
+            }
+            same = value;
+        }
+        return same;
+    }
+}
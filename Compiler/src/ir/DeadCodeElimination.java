@@ -0,0 +1,74 @@
+package ir;
+import java.util.*;
+
+/**
+ * DeadCodeElimination removes the blocks control cannot reach and every
+ * instruction whose value is never needed. It marks the instructions with
+ * side effects as live, then everything they use, transitively; what is
+ * left unmarked is dead, even dead phi cycles in loops.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class DeadCodeElimination implements Pass
+{
+    /**
+     * Returns the name of the pass.
+     *
+     * @return "dce"
+     */
+    public String getName()
+    {
+        return "dce";
+    }
+
+    /**
+     * Removes the dead blocks and instructions of a function.
+     *
+     * @param f the function
+     * @return true if the function changed; otherwise, false
+     */
+    public boolean run(Function f)
+    {
+        boolean changed = f.removeUnreachableBlocks();
+        Set<Inst> live = new HashSet<Inst>();
+        Deque<Inst> work = new ArrayDeque<Inst>();
+        for (BasicBlock block : f.getBlocks())
+        {
+            for (Inst inst : block.getInsts())
+            {
+                if (inst.hasSideEffects())
+                {
+                    live.add(inst);
+                    work.push(inst);
+                }
+            }
+        }
+        while (!work.isEmpty())
+        {
+            for (Inst operand : work.pop().getOperands())
+            {
+                if (live.add(operand))
+                {
+                    work.push(operand);
+                }
+            }
+        }
+        Set<Inst> dead = new HashSet<Inst>();
+        for (BasicBlock block : f.getBlocks())
+        {
+            for (Inst inst : block.getInsts())
+            {
+                if (!live.contains(inst))
+                {
+                    dead.add(inst);
+                }
+            }
+        }
+        for (BasicBlock block : f.getBlocks())
+        {
+            changed |= block.removeAll(dead);
+        }
+        return changed;
+    }
+}
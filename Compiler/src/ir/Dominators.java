@@ -0,0 +1,152 @@
+package ir;
+import java.util.*;
+
+/**
+ * Dominators computes the dominator tree of a function with the iterative
+ * algorithm of Cooper, Harvey and Kennedy, "A Simple, Fast Dominance
+ * Algorithm". Only blocks reachable from the entry are in the tree.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class Dominators
+{
+    private List<BasicBlock> order;
+    private Map<BasicBlock, Integer> index;
+    private Map<BasicBlock, BasicBlock> idom;
+    private Map<BasicBlock, List<BasicBlock>> children;
+
+    /**
+     * Computes the dominator tree of a function.
+     *
+     * @param f the function
+     */
+    public Dominators(Function f)
+    {
+        order = f.reversePostorder();
+        index = new HashMap<BasicBlock, Integer>();
+        for (int i = 0; i < order.size(); i++)
+        {
+            index.put(order.get(i), i);
+        }
+        idom = new HashMap<BasicBlock, BasicBlock>();
+        BasicBlock entry = f.getEntry();
+        idom.put(entry, entry);
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            for (BasicBlock block : order)
+            {
+                if (block == entry)
+                {
+                    continue;
+                }
+                BasicBlock dom = null;
+                for (BasicBlock pred : block.getPredecessors())
+                {
+                    if (idom.containsKey(pred))
+                    {
+                        dom = dom == null ? pred : intersect(pred, dom);
+                    }
+                }
+                if (dom != idom.get(block))
+                {
+                    idom.put(block, dom);
+                    changed = true;
+                }
+            }
+        }
+        children = new HashMap<BasicBlock, List<BasicBlock>>();
+        for (BasicBlock block : order)
+        {
+            children.put(block, new ArrayList<BasicBlock>());
+        }
+        for (BasicBlock block : order)
+        {
+            if (block != entry)
+            {
+                children.get(idom.get(block)).add(block);
+            }
+        }
+    }
+
+    /**
+     * Finds the nearest common dominator of two blocks.
+     *
+     * @param a a block
+     * @param b another block
+     * @return the nearest block dominating both
+     */
+    private BasicBlock intersect(BasicBlock a, BasicBlock b)
+    {
+        while (a != b)
+        {
+            while (index.get(a) > index.get(b))
+            {
+                a = idom.get(a);
+            }
+            while (index.get(b) > index.get(a))
+            {
+                b = idom.get(b);
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Returns the reachable blocks in reverse postorder.
+     *
+     * @return the blocks
+     */
+    public List<BasicBlock> getOrder()
+    {
+        return order;
+    }
+
+    /**
+     * Returns the immediate dominator of a block.
+     *
+     * @param block a reachable block
+     * @return its immediate dominator; the entry is its own
+     */
+    public BasicBlock getImmediateDominator(BasicBlock block)
+    {
+        return idom.get(block);
+    }
+
+    /**
+     * Returns the blocks a block immediately dominates.
+     *
+     * @param block a reachable block
+     * @return its children in the dominator tree
+     */
+    public List<BasicBlock> getChildren(BasicBlock block)
+    {
+        return children.get(block);
+    }
+
+    /**
+     * Checks whether one block dominates another.
+     *
+     * @param a a reachable block
+     * @param b a reachable block
+     * @return true if every path from the entry to b goes through a; otherwise, false
+     */
+    public boolean dominates(BasicBlock a, BasicBlock b)
+    {
+        while (true)
+        {
+            if (a == b)
+            {
+                return true;
+            }
+            BasicBlock up = idom.get(b);
+            if (up == b)
+            {
+                return false;
+            }
+            b = up;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package ir;
+import java.util.*;
+
+/**
+ * A Function is the control-flow graph of the main program or of one
+ * procedure: its basic blocks, starting with the entry block, in SSA form.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class Function
+{
+    private String name;
+    private List<String> parameters;
+    private boolean main;
+    private List<BasicBlock> blocks;
+    private int nextInst;
+    private int nextBlock;
+
+    /**
+     * Constructs a Function with an empty entry block.
+     *
+     * @param name the name of the procedure, or "main"
+     * @param parameters the parameter names
+     * @param main whether this is the main program
+     */
+    public Function(String name, List<String> parameters, boolean main)
+    {
+        this.name = name;
+        this.parameters = new ArrayList<String>(parameters);
+        this.main = main;
+        blocks = new ArrayList<BasicBlock>();
+        newBlock();
+    }
+
+    /**
+     * Returns the name of the function.
+     *
+     * @return the procedure name, or "main"
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Returns the parameter names.
+     *
+     * @return the parameters
+     */
+    public List<String> getParameters()
+    {
+        return parameters;
+    }
+
+    /**
+     * Checks whether this is the main program.
+     *
+     * @return true for the main program; false for a procedure
+     */
+    public boolean isMain()
+    {
+        return main;
+    }
+
+    /**
+     * Returns the entry block.
+     *
+     * @return the first block
+     */
+    public BasicBlock getEntry()
+    {
+        return blocks.get(0);
+    }
+
+    /**
+     * Returns the blocks, entry first.
+     *
+     * @return the blocks
+     */
+    public List<BasicBlock> getBlocks()
+    {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    /**
+     * Adds a new empty block.
+     *
+     * @return the block
+     */
+    public BasicBlock newBlock()
+    {
+        BasicBlock block = new BasicBlock(nextBlock++);
+        blocks.add(block);
+        return block;
+    }
+
+    /**
+     * Creates an instruction that is not in any block yet.
+     *
+     * @param op the operation
+     * @param name the variable, procedure or operator it names, or null
+     * @param value the constant or parameter index
+     * @param operands the operands
+     * @return the instruction
+     */
+    public Inst newInst(Op op, String name, int value, Inst... operands)
+    {
+        return new Inst(nextInst++, op, name, value, Arrays.asList(operands));
+    }
+
+    /**
+     * Returns one more than the largest instruction id, so that ids can
+     * index arrays.
+     *
+     * @return the instruction id bound
+     */
+    public int getInstCount()
+    {
+        return nextInst;
+    }
+
+    /**
+     * Makes every use of one value use another instead.
+     *
+     * @param old the replaced value
+     * @param replacement the value to use instead
+     */
+    public void replaceAllUses(Inst old, Inst replacement)
+    {
+        for (BasicBlock block : blocks)
+        {
+            for (Inst inst : block.getInsts())
+            {
+                List<Inst> operands = inst.getOperands();
+                for (int i = 0; i < operands.size(); i++)
+                {
+                    if (operands.get(i) == old)
+                    {
+                        operands.set(i, replacement);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces many values at once. Every operand that is a key of the map
+     * becomes its replacement, following chains of replacements, and the
+     * replaced instructions are removed.
+     *
+     * @param replacements a map from each replaced value to its replacement
+     */
+    public void replaceAll(Map<Inst, Inst> replacements)
+    {
+        if (replacements.isEmpty())
+        {
+            return;
+        }
+        for (BasicBlock block : blocks)
+        {
+            for (Inst inst : block.getInsts())
+            {
+                List<Inst> operands = inst.getOperands();
+                for (int i = 0; i < operands.size(); i++)
+                {
+                    operands.set(i, resolve(replacements, operands.get(i)));
+                }
+            }
+        }
+        for (BasicBlock block : blocks)
+        {
+            block.removeAll(replacements.keySet());
+        }
+    }
+
+    /**
+     * Follows a chain of replacements to its end.
+     *
+     * @param replacements a map from each replaced value to its replacement
+     * @param value a value
+     * @return the value that finally replaces it, or the value itself
+     */
+    public static Inst resolve(Map<Inst, Inst> replacements, Inst value)
+    {
+        Inst next = replacements.get(value);
+        while (next != null)
+        {
+            value = next;
+            next = replacements.get(value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the blocks in reverse postorder from the entry, so every block
+     * comes before its successors except along loop back edges. Successors are
+     * searched last to first, so the first successor of a block, such as the
+     * body of a loop, tends to come right after it. Unreachable blocks are
+     * left out.
+     *
+     * @return the reachable blocks in reverse postorder
+     */
+    public List<BasicBlock> reversePostorder()
+    {
+        List<BasicBlock> order = new ArrayList<BasicBlock>();
+        Set<BasicBlock> seen = new HashSet<BasicBlock>();
+        Deque<BasicBlock> stack = new ArrayDeque<BasicBlock>();
+        Deque<Integer> next = new ArrayDeque<Integer>();
+        stack.push(getEntry());
+        next.push(0);
+        seen.add(getEntry());
+        while (!stack.isEmpty())
+        {
+            BasicBlock block = stack.peek();
+            int i = next.pop();
+            if (i < block.getSuccessors().size())
+            {
+                next.push(i + 1);
+                List<BasicBlock> succs = block.getSuccessors();
+                BasicBlock succ = succs.get(succs.size() - 1 - i);
+                if (seen.add(succ))
+                {
+                    stack.push(succ);
+                    next.push(0);
+                }
+            }
+            else
+            {
+                stack.pop();
+                order.add(block);
+            }
+        }
+        Collections.reverse(order);
+        return order;
+    }
+
+    /**
+     * Deletes the blocks control can no longer reach, with their edges.
+     *
+     * @return true if any block was deleted; otherwise, false
+     */
+    public boolean removeUnreachableBlocks()
+    {
+        Set<BasicBlock> reachable = new HashSet<BasicBlock>(reversePostorder());
+        boolean changed = false;
+        for (Iterator<BasicBlock> it = blocks.iterator(); it.hasNext(); )
+        {
+            BasicBlock block = it.next();
+            if (!reachable.contains(block))
+            {
+                for (BasicBlock succ : new ArrayList<BasicBlock>(block.getSuccessors()))
+                {
+                    block.removeSuccessor(succ);
+                }
+                it.remove();
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Puts an empty block on every edge that leaves a block with several
+     * successors and enters a block with phis, so that the copies for the
+     * phis have a place of their own.
+     */
+    public void splitCriticalEdges()
+    {
+        for (BasicBlock block : new ArrayList<BasicBlock>(blocks))
+        {
+            if (block.getSuccessors().size() < 2)
+            {
+                continue;
+            }
+            for (BasicBlock succ : new ArrayList<BasicBlock>(block.getSuccessors()))
+            {
+                if (!succ.getPhis().isEmpty())
+                {
+                    BasicBlock middle = newBlock();
+                    block.splitEdge(succ, middle);
+                    middle.add(newInst(Op.JUMP, null, 0));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the function as printed IR, one block after another.
+     *
+     * @return the function as text
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("function ").append(name).append(parameters).append('\n');
+        for (BasicBlock block : blocks)
+        {
+            sb.append(block.getName()).append(':');
+            for (BasicBlock pred : block.getPredecessors())
+            {
+                sb.append(' ').append(pred.getName());
+            }
+            sb.append('\n');
+            for (Inst inst : block.getInsts())
+            {
+                sb.append("    ").append(inst).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,119 @@
+package ir;
+import java.util.*;
+
+/**
+ * GlobalValueNumbering removes redundant computations with the dominator-tree
+ * value numbering of Briggs, Cooper and Simpson. Walking the dominator tree,
+ * it keeps a scoped table from each pure computation (operator and operand
+ * value numbers) to the instruction that first computed it; a later
+ * instruction with the same key in a dominated block is replaced by that one.
+ * Commutative operands are put in a fixed order, and phis of one block that
+ * merge the same values are merged too. Loads are not numbered, since a store
+ * or a call can change memory between them.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class GlobalValueNumbering implements Pass
+{
+    /**
+     * Returns the name of the pass.
+     *
+     * @return "gvn"
+     */
+    public String getName()
+    {
+        return "gvn";
+    }
+
+    /**
+     * Replaces the redundant computations of a function.
+     *
+     * @param f the function
+     * @return true if the function changed; otherwise, false
+     */
+    public boolean run(Function f)
+    {
+        Dominators dom = new Dominators(f);
+        Map<Inst, Inst> replacements = new HashMap<Inst, Inst>();
+        Map<String, Inst> table = new HashMap<String, Inst>();
+        Deque<Object> work = new ArrayDeque<Object>();
+        work.push(f.getEntry());
+        while (!work.isEmpty())
+        {
+            Object next = work.pop();
+            if (next instanceof List)
+            {
+                for (Object key : (List<?>) next)
+                {
+                    table.remove(key);
+                }
+                continue;
+            }
+            BasicBlock block = (BasicBlock) next;
+            List<String> scope = new ArrayList<String>();
+            for (Inst inst : block.getInsts())
+            {
+                String key = key(inst, replacements);
+                if (key == null)
+                {
+                    continue;
+                }
+                Inst existing = table.get(key);
+                if (existing != null)
+                {
+                    replacements.put(inst, existing);
+                }
+                else
+                {
+                    table.put(key, inst);
+                    scope.add(key);
+                }
+            }
+            work.push(scope);
+            for (BasicBlock child : dom.getChildren(block))
+            {
+                work.push(child);
+            }
+        }
+        f.replaceAll(replacements);
+        return !replacements.isEmpty();
+    }
+
+    /**
+     * Returns the value-numbering key of a pure computation.
+     *
+     * @param inst the instruction
+     * @param replacements the replacements found so far
+     * @return the key, or null if the instruction is not numbered
+     */
+    private static String key(Inst inst, Map<Inst, Inst> replacements)
+    {
+        switch (inst.getOp())
+        {
+            case CONST:
+                return "const " + inst.getValue();
+            case BINOP:
+                int a = Function.resolve(replacements, inst.getOperand(0)).getId();
+                int b = Function.resolve(replacements, inst.getOperand(1)).getId();
+                String op = inst.getName();
+                if ((op.equals("+") || op.equals("*")) && a > b)
+                {
+                    int t = a;
+                    a = b;
+                    b = t;
+                }
+                return op + " " + a + " " + b;
+            case PHI:
+                StringBuilder sb = new StringBuilder("phi ");
+                sb.append(inst.getBlock().getId());
+                for (Inst operand : inst.getOperands())
+                {
+                    sb.append(' ').append(Function.resolve(replacements, operand).getId());
+                }
+                return sb.toString();
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package ir;
+import ast.*;
+import ast.Number;
+import optimizer.ProcedureAnalysis;
+import java.util.*;
+
+/**
+ * The IRBuilder translates a Program into a Module in SSA form. It follows
+ * Braun et al., "Simple and Efficient Construction of Static Single Assignment
+ * Form": the current definition of each variable is tracked per block, and a
+ * read that has to look into the predecessors of a join point places a phi
+ * there. A loop header is sealed once its back edge is known; phis created
+ * before that are completed then. Phis that turn out to be trivial are left
+ * for CopyPropagation to remove.
+ *
+ * Within a function, variables are SSA values. A global variable that some
+ * procedure reads or writes is also kept in memory: every assignment to it is
+ * stored, a procedure loads it on entry, and it is reloaded after each call
+ * that may change it. The main program starts with every variable at 0, as
+ * the .word declarations do; a procedure starts its result variable and
+ * other locals at 0, as its frame does.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class IRBuilder
+{
+    private Module module;
+    private Set<String> globals;
+    private Set<String> shared;
+    private Map<String, Set<String>> writes;
+
+    private Function f;
+    private BasicBlock current;
+    private Set<String> locals;
+    private Map<String, Map<BasicBlock, Inst>> defs;
+    private Set<BasicBlock> sealed;
+    private Map<BasicBlock, Map<String, Inst>> incomplete;
+
+    /**
+     * Constructs an IRBuilder for a program.
+     *
+     * @param program the program
+     */
+    private IRBuilder(Program program)
+    {
+        module = new Module(program.getVariableNames());
+        globals = new HashSet<String>(program.getVariableNames());
+        writes = ProcedureAnalysis.globalWrites(program.getProcedures());
+        shared = new HashSet<String>();
+        for (ProcedureDeclaration pd : program.getProcedures())
+        {
+            Set<String> used = new HashSet<String>();
+            ProcedureAnalysis.readIn(pd.getBody(), used);
+            ProcedureAnalysis.assignedIn(pd.getBody(), null, used);
+            used.removeAll(pd.getParameters());
+            used.remove(pd.getName());
+            used.retainAll(globals);
+            shared.addAll(used);
+        }
+    }
+
+    /**
+     * Translates a program into IR.
+     *
+     * @param program the program
+     * @return the module, with main first and the procedures in declaration order
+     */
+    public static Module build(Program program)
+    {
+        IRBuilder builder = new IRBuilder(program);
+        builder.module.add(builder.function("main", new ArrayList<String>(),
+                true, program.getStatement()));
+        for (ProcedureDeclaration pd : program.getProcedures())
+        {
+            builder.module.add(builder.function(pd.getName(), pd.getParameters(),
+                    false, pd.getBody()));
+        }
+        return builder.module;
+    }
+
+    /**
+     * Translates the main program or one procedure.
+     *
+     * @param name the procedure name, or "main"
+     * @param parameters the parameter names
+     * @param main whether this is the main program
+     * @param body the statement to translate
+     * @return the function
+     */
+    private Function function(String name, List<String> parameters, boolean main,
+                              Statement body)
+    {
+        f = new Function(name, parameters, main);
+        current = f.getEntry();
+        defs = new HashMap<String, Map<BasicBlock, Inst>>();
+        sealed = new HashSet<BasicBlock>();
+        incomplete = new HashMap<BasicBlock, Map<String, Inst>>();
+        locals = new HashSet<String>();
+        seal(current);
+        if (!main)
+        {
+            locals.add(name);
+            locals.addAll(parameters);
+            Set<String> assigned = new HashSet<String>();
+            ProcedureAnalysis.assignedIn(body, null, assigned);
+            assigned.removeAll(globals);
+            locals.addAll(assigned);
+            for (int i = 0; i < parameters.size(); i++)
+            {
+                write(parameters.get(i), current, append(Op.PARAM, null, i));
+            }
+        }
+        statement(body);
+        if (main)
+        {
+            append(Op.RETURN, null, 0);
+        }
+        else
+        {
+            append(Op.RETURN, null, 0, read(name, current));
+        }
+        return f;
+    }
+
+    /**
+     * Translates a statement into the current block, moving on to new
+     * blocks where control flow splits or joins.
+     *
+     * @param s the statement
+     */
+    private void statement(Statement s)
+    {
+        if (s instanceof Block)
+        {
+            for (Statement child : ((Block) s).getStatements())
+            {
+                statement(child);
+            }
+        }
+        else if (s instanceof Assignment)
+        {
+            Assignment a = (Assignment) s;
+            Inst value = expression(a.getExpression());
+            write(a.getVariable(), current, value);
+            if (!locals.contains(a.getVariable()) && shared.contains(a.getVariable()))
+            {
+                append(Op.STORE, a.getVariable(), 0, value);
+            }
+        }
+        else if (s instanceof Writeln)
+        {
+            append(Op.PRINT, null, 0, expression(((Writeln) s).getExpression()));
+        }
+        else if (s instanceof If)
+        {
+            If i = (If) s;
+            BasicBlock then = f.newBlock();
+            BasicBlock join = f.newBlock();
+            BasicBlock otherwise = i.getElse() == null ? join : f.newBlock();
+            branch(i.getCondition(), then, otherwise);
+            seal(then);
+            current = then;
+            statement(i.getThen());
+            jump(join);
+            if (i.getElse() != null)
+            {
+                seal(otherwise);
+                current = otherwise;
+                statement(i.getElse());
+                jump(join);
+            }
+            seal(join);
+            current = join;
+        }
+        else if (s instanceof While)
+        {
+            While w = (While) s;
+            BasicBlock header = f.newBlock();
+            BasicBlock body = f.newBlock();
+            BasicBlock exit = f.newBlock();
+            jump(header);
+            current = header;
+            branch(w.getCondition(), body, exit);
+            seal(body);
+            current = body;
+            statement(w.getBody());
+            jump(header);
+            seal(header);
+            seal(exit);
+            current = exit;
+        }
+        else if (!(s instanceof ProcedureDeclaration))
+        {
+            throw new IllegalArgumentException("Cannot translate " + s.getClass().getName());
+        }
+    }
+
+    /**
+     * Translates an expression into instructions in the current block.
+     *
+     * @param e the expression
+     * @return the instruction holding its value
+     */
+    private Inst expression(Expression e)
+    {
+        if (e instanceof Number)
+        {
+            return append(Op.CONST, null, ((Number) e).getValue());
+        }
+        if (e instanceof Variable)
+        {
+            return read(((Variable) e).getName(), current);
+        }
+        if (e instanceof BinOp)
+        {
+            BinOp b = (BinOp) e;
+            Inst left = expression(b.getLeft());
+            Inst right = expression(b.getRight());
+            return append(Op.BINOP, b.getOperator(), 0, left, right);
+        }
+        if (e instanceof ProcedureCall)
+        {
+            ProcedureCall call = (ProcedureCall) e;
+            List<Inst> args = new ArrayList<Inst>();
+            for (Expression arg : call.getArguments())
+            {
+                args.add(expression(arg));
+            }
+            Inst result = append(Op.CALL, call.getName(), 0, args.toArray(new Inst[0]));
+            Set<String> changed = writes.get(call.getName());
+            if (changed != null)
+            {
+                for (String var : changed)
+                {
+                    if (globals.contains(var) && !locals.contains(var))
+                    {
+                        write(var, current, append(Op.LOAD, var, 0));
+                    }
+                }
+            }
+            return result;
+        }
+        throw new IllegalArgumentException("Cannot translate " + e.getClass().getName());
+    }
+
+    /**
+     * Ends the current block with a branch on a condition.
+     *
+     * @param c the condition
+     * @param then the block to go to when the condition holds
+     * @param otherwise the block to go to when it does not
+     */
+    private void branch(Condition c, BasicBlock then, BasicBlock otherwise)
+    {
+        Inst left = expression(c.getLeft());
+        Inst right = expression(c.getRight());
+        String op = c.getOperator().equals("==") ? "=" : c.getOperator();
+        append(Op.BRANCH, op, 0, left, right);
+        current.addSuccessor(then);
+        current.addSuccessor(otherwise);
+    }
+
+    /**
+     * Ends the current block with a jump.
+     *
+     * @param target the block to go to
+     */
+    private void jump(BasicBlock target)
+    {
+        append(Op.JUMP, null, 0);
+        current.addSuccessor(target);
+    }
+
+    /**
+     * Adds an instruction to the end of the current block.
+     *
+     * @param op the operation
+     * @param name the name it refers to, or null
+     * @param value the constant or parameter index
+     * @param operands the operands
+     * @return the instruction
+     */
+    private Inst append(Op op, String name, int value, Inst... operands)
+    {
+        Inst inst = f.newInst(op, name, value, operands);
+        current.add(inst);
+        return inst;
+    }
+
+    /**
+     * Records the value a variable has at the end of a block so far.
+     *
+     * @param var the variable
+     * @param block the block
+     * @param value its value
+     */
+    private void write(String var, BasicBlock block, Inst value)
+    {
+        Map<BasicBlock, Inst> map = defs.get(var);
+        if (map == null)
+        {
+            map = new HashMap<BasicBlock, Inst>();
+            defs.put(var, map);
+        }
+        map.put(block, value);
+    }
+
+    /**
+     * Returns the value a variable has at the current end of a block.
+     *
+     * @param var the variable
+     * @param block the block
+     * @return its value
+     */
+    private Inst read(String var, BasicBlock block)
+    {
+        Map<BasicBlock, Inst> map = defs.get(var);
+        if (map != null && map.containsKey(block))
+        {
+            return map.get(block);
+        }
+        Inst value;
+        if (!sealed.contains(block))
+        {
+            value = f.newInst(Op.PHI, var, 0);
+            block.add(value);
+            Map<String, Inst> pending = incomplete.get(block);
+            if (pending == null)
+            {
+                pending = new HashMap<String, Inst>();
+                incomplete.put(block, pending);
+            }
+            pending.put(var, value);
+        }
+        else if (block.getPredecessors().isEmpty())
+        {
+            value = initial(var);
+        }
+        else if (block.getPredecessors().size() == 1)
+        {
+            value = read(var, block.getPredecessors().get(0));
+        }
+        else
+        {
+            value = f.newInst(Op.PHI, var, 0);
+            block.add(value);
+            write(var, block, value);
+            addPhiOperands(var, value);
+        }
+        write(var, block, value);
+        return value;
+    }
+
+    /**
+     * Creates the value a variable has when the function starts, at the
+     * top of the entry block.
+     *
+     * @param var the variable
+     * @return its starting value
+     */
+    private Inst initial(String var)
+    {
+        Inst value;
+        if (!f.isMain() && !locals.contains(var) && globals.contains(var))
+        {
+            value = f.newInst(Op.LOAD, var, 0);
+        }
+        else
+        {
+            value = f.newInst(Op.CONST, null, 0);
+        }
+        f.getEntry().addFirst(value);
+        return value;
+    }
+
+    /**
+     * Gives a phi the variable's value from each predecessor of its block.
+     *
+     * @param var the variable
+     * @param phi the phi
+     */
+    private void addPhiOperands(String var, Inst phi)
+    {
+        for (BasicBlock pred : phi.getBlock().getPredecessors())
+        {
+            phi.getOperands().add(read(var, pred));
+        }
+    }
+
+    /**
+     * Marks a block as having all its predecessors and completes the phis
+     * placed in it before then.
+     *
+     * @param block the block
+     */
+    private void seal(BasicBlock block)
+    {
+        Map<String, Inst> pending = incomplete.remove(block);
+        sealed.add(block);
+        if (pending != null)
+        {
+            for (Map.Entry<String, Inst> entry : pending.entrySet())
+            {
+                addPhiOperands(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+}
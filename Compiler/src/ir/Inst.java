@@ -0,0 +1,237 @@
+package ir;
+import java.util.*;
+
+/**
+ * An Inst is one instruction of the IR. Instructions that produce a value
+ * are that value: an operand is simply the instruction that defined it, so
+ * every value has exactly one definition, as SSA form requires.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class Inst
+{
+    private int id;
+    private Op op;
+    private String name;
+    private int value;
+    private List<Inst> operands;
+    private BasicBlock block;
+
+    /**
+     * Constructs an Inst; Function.newInst numbers them.
+     *
+     * @param id the number of the instruction within its function
+     * @param op the operation
+     * @param name the variable, procedure or operator named by the instruction, or null
+     * @param value the constant or parameter index
+     * @param operands the operands
+     */
+    Inst(int id, Op op, String name, int value, List<Inst> operands)
+    {
+        this.id = id;
+        this.op = op;
+        this.name = name;
+        this.value = value;
+        this.operands = new ArrayList<Inst>(operands);
+    }
+
+    /**
+     * Returns the number of the instruction within its function.
+     *
+     * @return the id
+     */
+    public int getId()
+    {
+        return id;
+    }
+
+    /**
+     * Returns the operation.
+     *
+     * @return the opcode
+     */
+    public Op getOp()
+    {
+        return op;
+    }
+
+    /**
+     * Returns the variable, procedure or operator the instruction names.
+     *
+     * @return the name, or null
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Returns the constant of a CONST or the index of a PARAM.
+     *
+     * @return the value
+     */
+    public int getValue()
+    {
+        return value;
+    }
+
+    /**
+     * Returns the operands.
+     *
+     * @return the operands, which may be changed in place
+     */
+    public List<Inst> getOperands()
+    {
+        return operands;
+    }
+
+    /**
+     * Returns one operand.
+     *
+     * @param i the index of the operand
+     * @return the operand
+     */
+    public Inst getOperand(int i)
+    {
+        return operands.get(i);
+    }
+
+    /**
+     * Returns the block holding the instruction.
+     *
+     * @return the block, or null if the instruction was removed
+     */
+    public BasicBlock getBlock()
+    {
+        return block;
+    }
+
+    /**
+     * Records the block holding the instruction.
+     *
+     * @param block the block, or null
+     */
+    void setBlock(BasicBlock block)
+    {
+        this.block = block;
+    }
+
+    /**
+     * Turns the instruction into a constant in place, keeping its uses.
+     *
+     * @param constant the constant value
+     */
+    public void becomeConstant(int constant)
+    {
+        op = Op.CONST;
+        name = null;
+        value = constant;
+        operands.clear();
+    }
+
+    /**
+     * Turns a BRANCH into a JUMP in place.
+     */
+    public void becomeJump()
+    {
+        op = Op.JUMP;
+        name = null;
+        operands.clear();
+    }
+
+    /**
+     * Checks whether the instruction is a constant.
+     *
+     * @return true for CONST; otherwise, false
+     */
+    public boolean isConstant()
+    {
+        return op == Op.CONST;
+    }
+
+    /**
+     * Checks whether the instruction ends its block.
+     *
+     * @return true for JUMP, BRANCH and RETURN; otherwise, false
+     */
+    public boolean isTerminator()
+    {
+        return op == Op.JUMP || op == Op.BRANCH || op == Op.RETURN;
+    }
+
+    /**
+     * Checks whether the instruction produces a value.
+     *
+     * @return true if other instructions can use it as an operand; otherwise, false
+     */
+    public boolean hasValue()
+    {
+        return op == Op.CONST || op == Op.PARAM || op == Op.LOAD || op == Op.BINOP
+                || op == Op.CALL || op == Op.COPY || op == Op.PHI;
+    }
+
+    /**
+     * Checks whether the instruction does something besides producing its
+     * value, so it must stay even if nothing uses it. A division counts,
+     * unless its divisor is a non-zero constant, since it can fail.
+     *
+     * @return true if the instruction must be kept; otherwise, false
+     */
+    public boolean hasSideEffects()
+    {
+        if (op == Op.BINOP && (name.equals("/") || name.equals("%")))
+        {
+            Inst divisor = operands.get(1);
+            return !divisor.isConstant() || divisor.getValue() == 0;
+        }
+        return op == Op.STORE || op == Op.CALL || op == Op.PRINT || isTerminator();
+    }
+
+    /**
+     * Returns the name the instruction's value goes by in printed IR.
+     *
+     * @return "v" followed by the id
+     */
+    public String ref()
+    {
+        return "v" + id;
+    }
+
+    /**
+     * Returns the instruction as a line of printed IR, such as
+     * "v7 = binop + v3, v5".
+     *
+     * @return the instruction as text
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        if (hasValue())
+        {
+            sb.append(ref()).append(" = ");
+        }
+        sb.append(op.name().toLowerCase());
+        if (op == Op.CONST || op == Op.PARAM)
+        {
+            sb.append(' ').append(value);
+        }
+        if (name != null)
+        {
+            sb.append(' ').append(name);
+        }
+        for (int i = 0; i < operands.size(); i++)
+        {
+            sb.append(i == 0 ? " " : ", ").append(operands.get(i).ref());
+        }
+        if (block != null && (op == Op.JUMP || op == Op.BRANCH))
+        {
+            for (BasicBlock succ : block.getSuccessors())
+            {
+                sb.append(" -> ").append(succ.getName());
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,336 @@
+package ir;
+import java.util.*;
+
+/**
+ * LinearScan assigns registers to the values of a function with the linear scan
+ * allocator of Poletto and Sarkar. The blocks are numbered in their layout
+ * order; each instruction reads its operands at an even position and writes its
+ * value at the next odd one, and the phis of a block are written where the block
+ * starts. Liveness is solved over the control-flow graph, a phi's operands being
+ * live at the end of the matching predecessor, and each value gets one interval
+ * from the first to the last position it is live at.
+ *
+ * Values that are live across a call may only take saved registers, since the
+ * callee is free to overwrite the temporaries. When no register is left, the
+ * value whose interval ends last is spilled to a stack slot. Constants get no
+ * register; they are loaded where they are used.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class LinearScan
+{
+    private Function f;
+    private List<BasicBlock> layout;
+    private String[] temporaries;
+    private String[] saved;
+
+    private int[] start;
+    private int[] end;
+    private Map<Integer, Inst> values;
+    private List<Integer> calls;
+
+    private Map<Inst, String> registers;
+    private Map<Inst, Integer> slots;
+    private Set<String> usedSaved;
+
+    /**
+     * Constructs a LinearScan and allocates the registers of a function.
+     *
+     * @param f the function, with its critical edges split
+     * @param layout the blocks of the function in the order they are emitted
+     * @param temporaries the registers a call may overwrite
+     * @param saved the registers a call preserves
+     */
+    public LinearScan(Function f, List<BasicBlock> layout, String[] temporaries,
+                      String[] saved)
+    {
+        this.f = f;
+        this.layout = layout;
+        this.temporaries = temporaries;
+        this.saved = saved;
+        registers = new HashMap<Inst, String>();
+        slots = new HashMap<Inst, Integer>();
+        usedSaved = new TreeSet<String>();
+        buildIntervals();
+        allocate();
+    }
+
+    /**
+     * Returns the register a value was given.
+     *
+     * @param value the value
+     * @return the register, or null if the value is a constant or was spilled
+     */
+    public String getRegister(Inst value)
+    {
+        return registers.get(value);
+    }
+
+    /**
+     * Returns the stack slot a value was spilled to.
+     *
+     * @param value the value
+     * @return the index of its slot, or -1 if it was not spilled
+     */
+    public int getSlot(Inst value)
+    {
+        Integer slot = slots.get(value);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Returns the number of stack slots spilled values need.
+     *
+     * @return the number of slots
+     */
+    public int getSlotCount()
+    {
+        return slots.size();
+    }
+
+    /**
+     * Returns the saved registers some value was given, which the function
+     * must preserve for its caller.
+     *
+     * @return the saved registers in use, in order
+     */
+    public List<String> getUsedSavedRegisters()
+    {
+        return new ArrayList<String>(usedSaved);
+    }
+
+    /**
+     * Numbers the instructions, solves liveness and builds one interval per value.
+     */
+    private void buildIntervals()
+    {
+        int n = f.getInstCount();
+        start = new int[n];
+        end = new int[n];
+        Arrays.fill(start, Integer.MAX_VALUE);
+        Arrays.fill(end, -1);
+        values = new TreeMap<Integer, Inst>();
+        calls = new ArrayList<Integer>();
+
+        Map<BasicBlock, Set<Inst>> liveIn = new HashMap<BasicBlock, Set<Inst>>();
+        Map<BasicBlock, Set<Inst>> liveOut = new HashMap<BasicBlock, Set<Inst>>();
+        for (BasicBlock block : layout)
+        {
+            liveIn.put(block, new HashSet<Inst>());
+            liveOut.put(block, new HashSet<Inst>());
+        }
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            for (int b = layout.size() - 1; b >= 0; b--)
+            {
+                BasicBlock block = layout.get(b);
+                Set<Inst> out = new HashSet<Inst>();
+                for (BasicBlock succ : block.getSuccessors())
+                {
+                    out.addAll(liveIn.get(succ));
+                    int index = succ.getPredecessors().indexOf(block);
+                    for (Inst phi : succ.getPhis())
+                    {
+                        addLive(out, phi.getOperand(index));
+                    }
+                }
+                Set<Inst> in = new HashSet<Inst>(out);
+                List<Inst> insts = block.getInsts();
+                for (int i = insts.size() - 1; i >= 0; i--)
+                {
+                    Inst inst = insts.get(i);
+                    in.remove(inst);
+                    if (inst.getOp() != Op.PHI)
+                    {
+                        for (Inst operand : inst.getOperands())
+                        {
+                            addLive(in, operand);
+                        }
+                    }
+                }
+                if (!out.equals(liveOut.get(block)) || !in.equals(liveIn.get(block)))
+                {
+                    liveOut.put(block, out);
+                    liveIn.put(block, in);
+                    changed = true;
+                }
+            }
+        }
+
+        int position = 0;
+        for (BasicBlock block : layout)
+        {
+            int blockStart = position;
+            position += 2;
+            for (Inst value : liveIn.get(block))
+            {
+                cover(value, blockStart);
+            }
+            for (Inst inst : block.getInsts())
+            {
+                if (inst.getOp() == Op.PHI)
+                {
+                    cover(inst, blockStart);
+                    continue;
+                }
+                for (Inst operand : inst.getOperands())
+                {
+                    if (!operand.isConstant())
+                    {
+                        cover(operand, position);
+                    }
+                }
+                if (inst.getOp() == Op.CALL)
+                {
+                    calls.add(position);
+                }
+                if (inst.hasValue() && !inst.isConstant())
+                {
+                    cover(inst, position + 1);
+                }
+                position += 2;
+            }
+            for (Inst value : liveOut.get(block))
+            {
+                cover(value, position - 1);
+            }
+        }
+    }
+
+    /**
+     * Adds a value to a live set unless it is a constant.
+     *
+     * @param live the live set
+     * @param value the value
+     */
+    private static void addLive(Set<Inst> live, Inst value)
+    {
+        if (!value.isConstant())
+        {
+            live.add(value);
+        }
+    }
+
+    /**
+     * Widens the interval of a value to include a position.
+     *
+     * @param value the value
+     * @param position the position
+     */
+    private void cover(Inst value, int position)
+    {
+        int id = value.getId();
+        start[id] = Math.min(start[id], position);
+        end[id] = Math.max(end[id], position);
+        values.put(id, value);
+    }
+
+    /**
+     * Checks whether a call happens while a value is live and is needed
+     * again afterwards.
+     *
+     * @param id the id of the value
+     * @return true if the value must survive a call; otherwise, false
+     */
+    private boolean crossesCall(int id)
+    {
+        for (int call : calls)
+        {
+            if (start[id] < call && end[id] > call + 1)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Walks the intervals in order of their starts, handing out registers and
+     * spilling when they run out.
+     */
+    private void allocate()
+    {
+        List<Inst> order = new ArrayList<Inst>(values.values());
+        Collections.sort(order, new Comparator<Inst>()
+        {
+            public int compare(Inst a, Inst b)
+            {
+                return Integer.compare(start[a.getId()], start[b.getId()]);
+            }
+        });
+        List<Inst> active = new ArrayList<Inst>();
+        Deque<String> freeTemporaries = new ArrayDeque<String>(Arrays.asList(temporaries));
+        Deque<String> freeSaved = new ArrayDeque<String>(Arrays.asList(saved));
+        for (Inst value : order)
+        {
+            int id = value.getId();
+            for (Iterator<Inst> it = active.iterator(); it.hasNext(); )
+            {
+                Inst other = it.next();
+                if (end[other.getId()] < start[id])
+                {
+                    it.remove();
+                    String reg = registers.get(other);
+                    if (isSaved(reg))
+                    {
+                        freeSaved.addFirst(reg);
+                    }
+                    else
+                    {
+                        freeTemporaries.addFirst(reg);
+                    }
+                }
+            }
+            boolean acrossCall = crossesCall(id);
+            String reg = null;
+            if (!acrossCall && !freeTemporaries.isEmpty())
+            {
+                reg = freeTemporaries.removeFirst();
+            }
+            else if (!freeSaved.isEmpty())
+            {
+                reg = freeSaved.removeFirst();
+            }
+            if (reg == null)
+            {
+                Inst victim = null;
+                for (Inst other : active)
+                {
+                    if ((!acrossCall || isSaved(registers.get(other)))
+                            && (victim == null || end[other.getId()] > end[victim.getId()]))
+                    {
+                        victim = other;
+                    }
+                }
+                if (victim == null || end[victim.getId()] <= end[id])
+                {
+                    slots.put(value, slots.size());
+                    continue;
+                }
+                reg = registers.remove(victim);
+                active.remove(victim);
+                slots.put(victim, slots.size());
+            }
+            registers.put(value, reg);
+            active.add(value);
+            if (isSaved(reg))
+            {
+                usedSaved.add(reg);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a register is one of the saved registers.
+     *
+     * @param reg the register
+     * @return true if a call preserves the register; otherwise, false
+     */
+    private boolean isSaved(String reg)
+    {
+        return Arrays.asList(saved).contains(reg);
+    }
+}
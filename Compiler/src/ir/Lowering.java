@@ -0,0 +1,689 @@
+package ir;
+import ast.BinOp;
+import ast.Emitter;
+import ast.ProcedureDeclaration;
+import ast.Program;
+import java.util.*;
+
+/**
+ * Lowering turns an optimized Module into assembly through an Emitter. Blocks
+ * are laid out in reverse postorder, so a branch can usually fall through to
+ * one of its successors and a jump to the next block is left out. Registers
+ * come from LinearScan over the target's temporaries and saved registers;
+ * $v0 and $v1 are kept free as scratch registers for spilled values,
+ * constants and the copies that phis turn into.
+ *
+ * Procedures keep the calling convention of ProcedureDeclaration: the first
+ * four arguments in $a0-$a3 and the rest above the frame pointer, the result in
+ * $v0, and a frame of $ra and the old $fp. Below the frame pointer a procedure
+ * keeps the saved registers it uses and then its spilled values.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class Lowering
+{
+    private static final String SCRATCH = "$v0";
+    private static final String SCRATCH2 = "$v1";
+
+    private Emitter e;
+    private Function f;
+    private String prefix;
+    private LinearScan registers;
+    private List<String> savedRegisters;
+    private BasicBlock next;
+
+    /**
+     * Constructs a Lowering that emits through the given Emitter.
+     *
+     * @param e the emitter
+     */
+    private Lowering(Emitter e)
+    {
+        this.e = e;
+    }
+
+    /**
+     * Compiles a program through the IR: builds the module, runs the standard
+     * passes over it, lowers every function and closes the emitter.
+     *
+     * @param program the program
+     * @param e the emitter that receives the code
+     */
+    public static void compile(Program program, Emitter e)
+    {
+        Module module = IRBuilder.build(program);
+        PassManager.standard().run(module);
+        lower(module, e);
+        e.close();
+    }
+
+    /**
+     * Emits the code of a module: the data segment with its globals, then
+     * main, then the procedures.
+     *
+     * @param module the module
+     * @param e the emitter that receives the code
+     */
+    public static void lower(Module module, Emitter e)
+    {
+        e.emit(".data");
+        e.emit("nL:    .asciiz    \"\\n\"");
+        for (String v : module.getGlobals())
+        {
+            e.emit("var" + v + ":\t .word \t 0");
+        }
+        e.setGlobals(module.getGlobals());
+        e.emit(".text");
+        e.emit(".globl main");
+        Lowering lowering = new Lowering(e);
+        List<Function> functions = module.getFunctions();
+        for (int i = 0; i < functions.size(); i++)
+        {
+            lowering.function(functions.get(i), "L" + i + "_");
+        }
+    }
+
+    /**
+     * Emits one function: allocates its registers, then emits the prologue
+     * and every block in layout order.
+     *
+     * @param function the function
+     * @param labelPrefix the prefix that keeps the function's block labels unique
+     */
+    private void function(Function function, String labelPrefix)
+    {
+        f = function;
+        prefix = labelPrefix;
+        f.splitCriticalEdges();
+        List<BasicBlock> layout = f.reversePostorder();
+        registers = new LinearScan(f, layout, e.getTarget().getTemporaries(),
+                e.getTarget().getSavedRegisters());
+        savedRegisters = f.isMain() ? new ArrayList<String>()
+                : registers.getUsedSavedRegisters();
+        int frameSize = 4 * (savedRegisters.size() + registers.getSlotCount());
+
+        if (f.isMain())
+        {
+            e.emitLabel("main");
+            e.emit("move", "$fp", "$sp");
+        }
+        else
+        {
+            e.emitLabel("proc" + f.getName());
+            e.emit("subu", "$sp", "$sp", "8");
+            e.emit("sw", "$ra", "4($sp)");
+            e.emit("sw", "$fp", "($sp)");
+            e.emit("move", "$fp", "$sp");
+        }
+        if (frameSize > 0)
+        {
+            e.emit("subu", "$sp", "$sp", String.valueOf(frameSize));
+        }
+        for (int i = 0; i < savedRegisters.size(); i++)
+        {
+            e.emit("sw", savedRegisters.get(i), (-4 * (i + 1)) + "($fp)");
+        }
+        for (int b = 0; b < layout.size(); b++)
+        {
+            BasicBlock block = layout.get(b);
+            next = b + 1 < layout.size() ? layout.get(b + 1) : null;
+            if (b > 0)
+            {
+                e.emitLabel(label(block));
+            }
+            for (Inst inst : block.getInsts())
+            {
+                instruction(block, inst);
+            }
+        }
+    }
+
+    /**
+     * Emits the code for one instruction.
+     *
+     * @param block the block holding it
+     * @param inst the instruction
+     */
+    private void instruction(BasicBlock block, Inst inst)
+    {
+        switch (inst.getOp())
+        {
+            case CONST:
+            case PHI:
+                break;
+            case PARAM:
+                int index = inst.getValue();
+                if (index < ProcedureDeclaration.ARGUMENT_REGISTERS)
+                {
+                    define(inst, "$a" + index);
+                }
+                else
+                {
+                    String reg = target(inst);
+                    e.emit("lw", reg, (8 + 4 * (index
+                            - ProcedureDeclaration.ARGUMENT_REGISTERS)) + "($fp)");
+                    store(inst, reg);
+                }
+                break;
+            case COPY:
+                define(inst, use(inst.getOperand(0), SCRATCH));
+                break;
+            case LOAD:
+                String loaded = target(inst);
+                e.emit("lw", loaded, "var" + inst.getName());
+                store(inst, loaded);
+                break;
+            case STORE:
+                e.emit("sw", use(inst.getOperand(0), SCRATCH), "var" + inst.getName());
+                break;
+            case BINOP:
+                binop(inst);
+                break;
+            case CALL:
+                call(inst);
+                break;
+            case PRINT:
+                move("$a0", inst.getOperand(0));
+                e.emit("li", "$v0", "1");
+                e.emit("syscall");
+                e.emit("la", "$a0", "nL");
+                e.emit("li", "$v0", "4");
+                e.emit("syscall");
+                break;
+            case JUMP:
+                phiCopies(block, block.getSuccessors().get(0));
+                jump(block.getSuccessors().get(0));
+                break;
+            case BRANCH:
+                branch(block, inst);
+                break;
+            case RETURN:
+                ret(inst);
+                break;
+            default:
+                throw new IllegalArgumentException("Cannot lower " + inst);
+        }
+    }
+
+    /**
+     * Emits an arithmetic instruction.
+     *
+     * @param inst the BINOP
+     */
+    private void binop(Inst inst)
+    {
+        String op = inst.getName();
+        Inst left = inst.getOperand(0);
+        Inst right = inst.getOperand(1);
+        if (left.isConstant() && !right.isConstant() && (op.equals("+") || op.equals("*")))
+        {
+            left = right;
+            right = inst.getOperand(0);
+        }
+        if (right.isConstant() && binopConstant(inst, op, left, right.getValue()))
+        {
+            return;
+        }
+        String a = use(inst.getOperand(0), SCRATCH);
+        String b = use(inst.getOperand(1), SCRATCH2);
+        String d = target(inst);
+        if (op.equals("+"))
+        {
+            e.emit("addu", d, a, b);
+        }
+        else if (op.equals("-"))
+        {
+            e.emit("subu", d, a, b);
+        }
+        else if (op.equals("*"))
+        {
+            e.emit("mult", a, b);
+            e.emit("mflo", d);
+        }
+        else if (op.equals("/"))
+        {
+            e.emit("div", a, b);
+            e.emit("mflo", d);
+        }
+        else
+        {
+            e.emit("div", a, b);
+            e.emit("mfhi", d);
+        }
+        store(inst, d);
+    }
+
+    /**
+     * Emits cheaper code for an arithmetic instruction with a constant
+     * operand, as BinOp does from the AST: an immediate for a sum or
+     * difference, and shifts or a magic multiplication for a product,
+     * quotient or mod.
+     *
+     * @param inst the BINOP
+     * @param op its operator
+     * @param left the operand that is not the constant
+     * @param c the constant, right of the operator
+     * @return true if code was emitted; false if the general code is needed,
+     *         as for dividing by zero
+     */
+    private boolean binopConstant(Inst inst, String op, Inst left, int c)
+    {
+        if ((op.equals("+") || op.equals("-")) && !BinOp.fitsImmediate(op.equals("+") ? c : -c))
+        {
+            return false;
+        }
+        if (!op.equals("+") && !op.equals("-") && !op.equals("*")
+                && (c == 0 || c == Integer.MIN_VALUE))
+        {
+            return false;
+        }
+        String d = target(inst);
+        boolean mod = !op.equals("+") && !op.equals("-") && !op.equals("*") && !op.equals("/");
+        if (mod && Math.abs(c) != 1 && d.equals(SCRATCH))
+        {
+            return false;
+        }
+        String a = use(left, SCRATCH);
+        if (op.equals("+") || op.equals("-"))
+        {
+            e.emit("addiu", d, a, String.valueOf(op.equals("+") ? c : -c));
+        }
+        else if (op.equals("*"))
+        {
+            copy(d, a);
+            BinOp.multiply(e, d, c);
+        }
+        else if (op.equals("/"))
+        {
+            copy(d, a);
+            BinOp.divide(e, d, Math.abs(c));
+            if (c < 0)
+            {
+                e.emit("subu", d, "$zero", d);
+            }
+        }
+        else if (Math.abs(c) == 1)
+        {
+            e.emit("li", d, "0");
+        }
+        else
+        {
+            copy(d, a);
+            copy(SCRATCH, d);
+            BinOp.divide(e, SCRATCH, Math.abs(c));
+            BinOp.multiply(e, SCRATCH, Math.abs(c));
+            e.emit("subu", d, d, SCRATCH);
+        }
+        store(inst, d);
+        return true;
+    }
+
+    /**
+     * Emits a procedure call: the arguments go to $a0-$a3 and the overflow
+     * area, and the result comes back in $v0. Values live across the call are
+     * in saved registers or stack slots, so nothing needs saving around it.
+     *
+     * @param inst the CALL
+     */
+    private void call(Inst inst)
+    {
+        List<Inst> args = inst.getOperands();
+        int overflow = Math.max(0, args.size() - ProcedureDeclaration.ARGUMENT_REGISTERS);
+        if (overflow > 0)
+        {
+            e.emit("subu", "$sp", "$sp", String.valueOf(4 * overflow));
+            for (int i = ProcedureDeclaration.ARGUMENT_REGISTERS; i < args.size(); i++)
+            {
+                e.emit("sw", use(args.get(i), SCRATCH),
+                        (4 * (i - ProcedureDeclaration.ARGUMENT_REGISTERS)) + "($sp)");
+            }
+        }
+        for (int i = 0; i < args.size() && i < ProcedureDeclaration.ARGUMENT_REGISTERS; i++)
+        {
+            move("$a" + i, args.get(i));
+        }
+        e.emit("jal", "proc" + inst.getName());
+        if (overflow > 0)
+        {
+            e.emit("addu", "$sp", "$sp", String.valueOf(4 * overflow));
+        }
+        define(inst, "$v0");
+    }
+
+    /**
+     * Emits a conditional branch, falling through to whichever successor
+     * comes next in the layout.
+     *
+     * @param block the block the branch ends
+     * @param inst the BRANCH
+     */
+    private void branch(BasicBlock block, Inst inst)
+    {
+        String a = use(inst.getOperand(0), SCRATCH);
+        String b = use(inst.getOperand(1), SCRATCH2);
+        BasicBlock then = block.getSuccessors().get(0);
+        BasicBlock otherwise = block.getSuccessors().get(1);
+        if (then == next)
+        {
+            e.emit(opcode(inverse(inst.getName())), a, b, label(otherwise));
+        }
+        else
+        {
+            e.emit(opcode(inst.getName()), a, b, label(then));
+            jump(otherwise);
+        }
+    }
+
+    /**
+     * Emits the return from a function: the exit syscall for main, and the
+     * epilogue for a procedure.
+     *
+     * @param inst the RETURN
+     */
+    private void ret(Inst inst)
+    {
+        if (f.isMain())
+        {
+            e.emit("li", "$v0", "10");
+            e.emit("syscall");
+            return;
+        }
+        move("$v0", inst.getOperand(0));
+        for (int i = 0; i < savedRegisters.size(); i++)
+        {
+            e.emit("lw", savedRegisters.get(i), (-4 * (i + 1)) + "($fp)");
+        }
+        e.emit("move", "$sp", "$fp");
+        e.emit("lw", "$fp", "($sp)");
+        e.emit("lw", "$ra", "4($sp)");
+        e.emit("addu", "$sp", "$sp", "8");
+        e.emit("jr", "$ra");
+    }
+
+    /**
+     * Emits a jump to a block unless it comes next in the layout.
+     *
+     * @param target the block
+     */
+    private void jump(BasicBlock target)
+    {
+        if (target != next)
+        {
+            e.emit("j", label(target));
+        }
+    }
+
+    /**
+     * Emits the copies into the phis of a successor as one parallel move: a
+     * copy is only made once nothing else still needs the value it overwrites,
+     * and a cycle of copies is broken by saving one value in $v1.
+     *
+     * @param block the predecessor, which ends with a jump to the successor
+     * @param succ the successor
+     */
+    private void phiCopies(BasicBlock block, BasicBlock succ)
+    {
+        int index = succ.getPredecessors().indexOf(block);
+        List<String> dests = new ArrayList<String>();
+        List<Object> sources = new ArrayList<Object>();
+        for (Inst phi : succ.getPhis())
+        {
+            Inst source = phi.getOperand(index);
+            String dest = location(phi);
+            if (source.isConstant() || !location(source).equals(dest))
+            {
+                dests.add(dest);
+                sources.add(source.isConstant() ? (Object) source : location(source));
+            }
+        }
+        while (!dests.isEmpty())
+        {
+            int ready = -1;
+            for (int i = 0; i < dests.size() && ready < 0; i++)
+            {
+                if (!sources.contains(dests.get(i)))
+                {
+                    ready = i;
+                }
+            }
+            if (ready < 0)
+            {
+                String blocked = dests.get(0);
+                copy(SCRATCH2, blocked);
+                for (int i = 0; i < sources.size(); i++)
+                {
+                    if (blocked.equals(sources.get(i)))
+                    {
+                        sources.set(i, SCRATCH2);
+                    }
+                }
+                continue;
+            }
+            Object source = sources.remove(ready);
+            String dest = dests.remove(ready);
+            if (source instanceof Inst)
+            {
+                String reg = isRegister(dest) ? dest : SCRATCH;
+                e.emit("li", reg, String.valueOf(((Inst) source).getValue()));
+                copy(dest, reg);
+            }
+            else
+            {
+                copy(dest, (String) source);
+            }
+        }
+    }
+
+    /**
+     * Copies between two locations, each a register or a stack slot, going
+     * through $v0 when both are slots.
+     *
+     * @param dest the location written
+     * @param source the location read
+     */
+    private void copy(String dest, String source)
+    {
+        if (dest.equals(source))
+        {
+            return;
+        }
+        if (isRegister(dest) && isRegister(source))
+        {
+            e.emit("move", dest, source);
+        }
+        else if (isRegister(dest))
+        {
+            e.emit("lw", dest, source);
+        }
+        else if (isRegister(source))
+        {
+            e.emit("sw", source, dest);
+        }
+        else
+        {
+            e.emit("lw", SCRATCH, source);
+            e.emit("sw", SCRATCH, dest);
+        }
+    }
+
+    /**
+     * Puts the value of an operand into a given register.
+     *
+     * @param reg the register
+     * @param value the operand
+     */
+    private void move(String reg, Inst value)
+    {
+        if (value.isConstant())
+        {
+            e.emit("li", reg, String.valueOf(value.getValue()));
+        }
+        else
+        {
+            copy(reg, location(value));
+        }
+    }
+
+    /**
+     * Returns a register holding an operand, loading it into a scratch
+     * register if it is a constant or was spilled.
+     *
+     * @param value the operand
+     * @param scratch the scratch register to use if needed
+     * @return the register
+     */
+    private String use(Inst value, String scratch)
+    {
+        String reg = value.isConstant() ? null : registers.getRegister(value);
+        if (reg != null)
+        {
+            return reg;
+        }
+        move(scratch, value);
+        return scratch;
+    }
+
+    /**
+     * Returns the register an instruction should write its value to: its
+     * own, or $v0 if it was spilled.
+     *
+     * @param inst the instruction
+     * @return the register
+     */
+    private String target(Inst inst)
+    {
+        String reg = registers.getRegister(inst);
+        return reg == null ? SCRATCH : reg;
+    }
+
+    /**
+     * Stores a value computed into $v0 to its slot if it was spilled.
+     *
+     * @param inst the instruction
+     * @param reg the register that holds its value
+     */
+    private void store(Inst inst, String reg)
+    {
+        if (registers.getRegister(inst) == null && registers.getSlot(inst) >= 0)
+        {
+            e.emit("sw", reg, location(inst));
+        }
+    }
+
+    /**
+     * Gives an instruction the value of a register, if the value is used.
+     *
+     * @param inst the instruction
+     * @param reg the register
+     */
+    private void define(Inst inst, String reg)
+    {
+        if (registers.getRegister(inst) != null || registers.getSlot(inst) >= 0)
+        {
+            copy(location(inst), reg);
+        }
+    }
+
+    /**
+     * Returns where a value lives: its register, or its stack slot below
+     * the saved registers.
+     *
+     * @param value the value
+     * @return the register or address
+     */
+    private String location(Inst value)
+    {
+        String reg = registers.getRegister(value);
+        if (reg != null)
+        {
+            return reg;
+        }
+        int slot = registers.getSlot(value);
+        return (-4 * (savedRegisters.size() + slot + 1)) + "($fp)";
+    }
+
+    /**
+     * Checks whether a location is a register rather than a stack slot.
+     *
+     * @param location a register or address
+     * @return true if it is a register; otherwise, false
+     */
+    private static boolean isRegister(String location)
+    {
+        return location.startsWith("$");
+    }
+
+    /**
+     * Returns the label of a block.
+     *
+     * @param block the block
+     * @return its label
+     */
+    private String label(BasicBlock block)
+    {
+        return prefix + block.getId();
+    }
+
+    /**
+     * Returns the branch instruction that jumps when a comparison holds.
+     *
+     * @param op the relative operator
+     * @return the opcode
+     */
+    private static String opcode(String op)
+    {
+        if (op.equals("="))
+        {
+            return "beq";
+        }
+        if (op.equals("<>"))
+        {
+            return "bne";
+        }
+        if (op.equals("<"))
+        {
+            return "blt";
+        }
+        if (op.equals(">"))
+        {
+            return "bgt";
+        }
+        if (op.equals("<="))
+        {
+            return "ble";
+        }
+        return "bge";
+    }
+
+    /**
+     * Returns the relative operator that holds exactly when another does not.
+     *
+     * @param op the relative operator
+     * @return its negation
+     */
+    private static String inverse(String op)
+    {
+        if (op.equals("="))
+        {
+            return "<>";
+        }
+        if (op.equals("<>"))
+        {
+            return "=";
+        }
+        if (op.equals("<"))
+        {
+            return ">=";
+        }
+        if (op.equals(">"))
+        {
+            return "<=";
+        }
+        if (op.equals("<="))
+        {
+            return ">";
+        }
+        return "<";
+    }
+}
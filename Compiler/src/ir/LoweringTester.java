@@ -0,0 +1,179 @@
+package ir;
+import ast.Program;
+import bench.ProgramGenerator;
+import environment.Environment;
+import mips.Simulator;
+import parser.Parser;
+import scanner.Scanner;
+import scanner.ScanErrorException;
+import target.Target;
+import java.io.*;
+
+/**
+ * Tests the IR back end against the interpreter. Each program is interpreted,
+ * then compiled to MIPS both through the IR and straight from the AST, and
+ * the two assembly files are run in the Simulator; everything must print what
+ * the interpreter printed. The programs are a few written out below and
+ * programs made by the ProgramGenerator from a range of seeds, half of them
+ * with recursion. The cycles each back end took are totalled at the end, and
+ * the test fails if the IR back end took more than the AST back end.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class LoweringTester
+{
+    private static final long STEP_LIMIT = 200000000L;
+
+    private static final String[] PROGRAMS = {
+        "VAR r;\n"
+            + "PROCEDURE fact(n);\n"
+            + "BEGIN\n"
+            + "   fact := 1;\n"
+            + "   IF n > 1 THEN fact := n * fact(n - 1);\n"
+            + "END;\n"
+            + "BEGIN\n"
+            + "   r := fact(10);\n"
+            + "   WRITELN(r);\n"
+            + "END;\n.\n",
+        "VAR i, j, t;\n"
+            + "PROCEDURE mix(a, b, c, d, e, f);\n"
+            + "BEGIN\n"
+            + "   mix := a - b + c * d - e / f;\n"
+            + "END;\n"
+            + "BEGIN\n"
+            + "   i := 0;\n"
+            + "   t := 0;\n"
+            + "   WHILE i < 40 DO\n"
+            + "   BEGIN\n"
+            + "      j := i;\n"
+            + "      WHILE j > 0 DO\n"
+            + "      BEGIN\n"
+            + "         IF j / 3 * 3 = j THEN t := t + mix(i, j, 2, 3, 10, j);\n"
+            + "         j := j - 1;\n"
+            + "      END;\n"
+            + "      i := i + 1;\n"
+            + "   END;\n"
+            + "   WRITELN(t);\n"
+            + "END;\n.\n",
+    };
+
+    private static long irCycles;
+    private static long astCycles;
+
+    /**
+     * Runs every test, prints each one that fails and the cycle totals, and
+     * fails if the IR back end took more cycles in total than the AST back end.
+     *
+     * @param args optionally, the number of generated programs to test
+     * @throws IOException if a temporary file cannot be made
+     * @throws ScanErrorException if a program cannot be scanned
+     */
+    public static void main(String[] args) throws IOException, ScanErrorException
+    {
+        int seeds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int failed = 0;
+        for (int i = 0; i < PROGRAMS.length; i++)
+        {
+            failed += test("program " + (i + 1), PROGRAMS[i]);
+        }
+        for (int seed = 1; seed <= seeds; seed++)
+        {
+            String source = new ProgramGenerator(4096, 4, 3, 10, seed % 2 == 0 ? 0 : 20,
+                    seed).generate();
+            failed += test("seed " + seed, source);
+        }
+        int total = PROGRAMS.length + seeds;
+        System.out.println((total - failed) + " of " + total + " passed");
+        System.out.println("cycles: ir " + irCycles + ", ast " + astCycles);
+        if (irCycles > astCycles)
+        {
+            System.out.println("FAIL the IR back end took more cycles than the AST back end");
+            failed++;
+        }
+        if (failed > 0)
+        {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Interprets one program and compares both compiled versions with it.
+     *
+     * @param name what to call the program in messages
+     * @param source the program
+     * @return 0 if all three printed the same; otherwise, 1
+     * @throws IOException if a temporary file cannot be made
+     * @throws ScanErrorException if the program cannot be scanned
+     */
+    private static int test(String name, String source) throws IOException, ScanErrorException
+    {
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        Environment env = new Environment();
+        env.setOutput(new PrintStream(printed, true));
+        Program program = new Parser(new Scanner(source)).parseProgram();
+        try
+        {
+            program.exec(env);
+        }
+        catch (RuntimeException | StackOverflowError ex)
+        {
+            System.out.println("skipped " + name + ": the interpreter failed: " + ex);
+            return 0;
+        }
+        String expected = printed.toString();
+        File ir = File.createTempFile("lowered", ".asm");
+        File ast = File.createTempFile("generated", ".asm");
+        try
+        {
+            new Parser(new Scanner(source)).parseProgram().compileThroughIR(ir.getPath(),
+                    Target.forName("mips"));
+            new Parser(new Scanner(source)).parseProgram().compile(ast.getPath(),
+                    Target.forName("mips"), null);
+            Simulator irRun = Simulator.load(ir.getPath());
+            Simulator astRun = Simulator.load(ast.getPath());
+            String irOutput = simulate(irRun);
+            String astOutput = simulate(astRun);
+            irCycles += irRun.getCycleCount();
+            astCycles += astRun.getCycleCount();
+            int failed = 0;
+            if (!expected.equals(irOutput))
+            {
+                System.out.println("FAIL " + name + " through the IR\nexpected:\n" + expected
+                        + "actual:\n" + irOutput);
+                failed = 1;
+            }
+            if (!expected.equals(astOutput))
+            {
+                System.out.println("FAIL " + name + " from the AST\nexpected:\n" + expected
+                        + "actual:\n" + astOutput);
+                failed = 1;
+            }
+            return failed;
+        }
+        finally
+        {
+            ir.delete();
+            ast.delete();
+        }
+    }
+
+    /**
+     * Runs a compiled program in the Simulator.
+     *
+     * @param simulator the simulator holding the program
+     * @return what the program printed, or how it failed
+     */
+    private static String simulate(Simulator simulator)
+    {
+        simulator.setStepLimit(STEP_LIMIT);
+        try
+        {
+            return simulator.run();
+        }
+        catch (RuntimeException ex)
+        {
+            return "failed: " + ex + "\n";
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ir;
+import java.util.*;
+
+/**
+ * A Module is a whole program in IR form: its global variables, the main
+ * function and a function for every procedure.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class Module
+{
+    private List<String> globals;
+    private List<Function> functions;
+
+    /**
+     * Constructs a Module with no functions yet.
+     *
+     * @param globals the names of the global variables
+     */
+    public Module(List<String> globals)
+    {
+        this.globals = new ArrayList<String>(globals);
+        functions = new ArrayList<Function>();
+    }
+
+    /**
+     * Returns the global variable names.
+     *
+     * @return the globals
+     */
+    public List<String> getGlobals()
+    {
+        return globals;
+    }
+
+    /**
+     * Returns the functions, main first.
+     *
+     * @return the functions
+     */
+    public List<Function> getFunctions()
+    {
+        return functions;
+    }
+
+    /**
+     * Adds a function.
+     *
+     * @param f the function
+     */
+    public void add(Function f)
+    {
+        functions.add(f);
+    }
+
+    /**
+     * Returns the module as printed IR.
+     *
+     * @return the module as text
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("globals ").append(globals).append('\n');
+        for (Function f : functions)
+        {
+            sb.append(f);
+        }
+        return sb.toString();
+    }
+}
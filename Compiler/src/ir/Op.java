@@ -0,0 +1,36 @@
+package ir;
+
+/**
+ * The operations of the IR. Every instruction has one of these opcodes.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public enum Op
+{
+    /** An integer constant, held in the instruction's value. */
+    CONST,
+    /** The procedure argument whose index is the instruction's value. */
+    PARAM,
+    /** Reads the global variable named by the instruction. */
+    LOAD,
+    /** Writes its operand to the global variable named by the instruction. */
+    STORE,
+    /** Applies the arithmetic operator named by the instruction to its operands. */
+    BINOP,
+    /** Calls the named procedure with its operands as arguments. */
+    CALL,
+    /** Prints its operand on a line of its own. */
+    PRINT,
+    /** Has the value of its operand. */
+    COPY,
+    /** Picks the operand belonging to the predecessor control came from. */
+    PHI,
+    /** Ends a block by going to its only successor. */
+    JUMP,
+    /** Ends a block by comparing its operands with the named relational
+        operator and going to the first successor if it holds, else the second. */
+    BRANCH,
+    /** Ends a procedure, returning its operand if it has one. */
+    RETURN
+}
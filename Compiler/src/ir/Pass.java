@@ -0,0 +1,25 @@
+package ir;
+
+/**
+ * A Pass transforms one function of the IR, keeping it in SSA form.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public interface Pass
+{
+    /**
+     * Returns the name the pass's changes are reported under.
+     *
+     * @return the name of the pass
+     */
+    String getName();
+
+    /**
+     * Runs the pass over a function.
+     *
+     * @param f the function
+     * @return true if the function changed; otherwise, false
+     */
+    boolean run(Function f);
+}
@@ -0,0 +1,98 @@
+package ir;
+import java.util.*;
+
+/**
+ * The PassManager runs a pipeline of Passes over every function of a module,
+ * repeating the pipeline until a round changes nothing or MAX_ROUNDS is
+ * reached, and counts how often each pass changed something.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class PassManager
+{
+    /**
+     * The most times the pipeline runs over one function.
+     */
+    public static final int MAX_ROUNDS = 4;
+
+    private List<Pass> passes;
+    private Map<String, Integer> changes;
+
+    /**
+     * Constructs a PassManager running the given passes in order.
+     *
+     * @param passes the pipeline
+     */
+    public PassManager(List<Pass> passes)
+    {
+        this.passes = new ArrayList<Pass>(passes);
+        changes = new LinkedHashMap<String, Integer>();
+        for (Pass pass : passes)
+        {
+            changes.put(pass.getName(), 0);
+        }
+    }
+
+    /**
+     * Returns a PassManager with the standard scalar pipeline: copy
+     * propagation, sparse conditional constant propagation, global value
+     * numbering and dead code elimination.
+     *
+     * @return the pass manager
+     */
+    public static PassManager standard()
+    {
+        return new PassManager(Arrays.<Pass>asList(new CopyPropagation(),
+                new ConstantPropagation(), new GlobalValueNumbering(),
+                new DeadCodeElimination()));
+    }
+
+    /**
+     * Runs the pipeline over every function of a module.
+     *
+     * @param module the module
+     */
+    public void run(Module module)
+    {
+        for (Function f : module.getFunctions())
+        {
+            run(f);
+        }
+    }
+
+    /**
+     * Runs the pipeline over one function.
+     *
+     * @param f the function
+     */
+    public void run(Function f)
+    {
+        for (int round = 0; round < MAX_ROUNDS; round++)
+        {
+            boolean changed = false;
+            for (Pass pass : passes)
+            {
+                if (pass.run(f))
+                {
+                    changes.put(pass.getName(), changes.get(pass.getName()) + 1);
+                    changed = true;
+                }
+            }
+            if (!changed)
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns how many times each pass changed a function, in pipeline order.
+     *
+     * @return a map from pass name to change count
+     */
+    public Map<String, Integer> getChangeCounts()
+    {
+        return Collections.unmodifiableMap(changes);
+    }
+}
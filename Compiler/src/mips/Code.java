@@ -0,0 +1,201 @@
+package mips;
+import java.util.*;
+
+/**
+ * Code is the buffer of MIPS instructions a peephole pass works on. Removed lines
+ * are left as gaps until the pass ends, so the positions of labels stay valid
+ * while rules rewrite the code around them.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class Code
+{
+    private static final int MAX_LIVENESS_STEPS = 256;
+
+    private List<Instruction> lines;
+    private Map<String, Integer> labels;
+
+    /**
+     * Constructs a Code buffer over the given instructions.
+     *
+     * @param lines the instructions, labels and directives
+     */
+    public Code(List<Instruction> lines)
+    {
+        this.lines = new ArrayList<Instruction>(lines);
+        labels = new HashMap<String, Integer>();
+        for (int i = 0; i < this.lines.size(); i++)
+        {
+            if (this.lines.get(i).isLabel())
+            {
+                labels.put(this.lines.get(i).getLabel(), i);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of positions in the buffer, including gaps.
+     *
+     * @return the number of positions
+     */
+    public int size()
+    {
+        return lines.size();
+    }
+
+    /**
+     * Returns the line at a position.
+     *
+     * @param i the position
+     * @return the line, or null if it was removed
+     */
+    public Instruction get(int i)
+    {
+        return lines.get(i);
+    }
+
+    /**
+     * Replaces the line at a position.
+     *
+     * @param i the position
+     * @param line the new line
+     */
+    public void set(int i, Instruction line)
+    {
+        lines.set(i, line);
+    }
+
+    /**
+     * Removes the line at a position, leaving a gap.
+     *
+     * @param i the position
+     */
+    public void remove(int i)
+    {
+        lines.set(i, null);
+    }
+
+    /**
+     * Returns the position of the first line after i that was not removed.
+     *
+     * @param i a position
+     * @return the next position, or -1 at the end of the code
+     */
+    public int next(int i)
+    {
+        for (int j = i + 1; j < lines.size(); j++)
+        {
+            if (lines.get(j) != null)
+            {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether an instruction is at a position.
+     *
+     * @param i a position, or -1
+     * @return true if the position holds an instruction; otherwise, false
+     */
+    public boolean isInstruction(int i)
+    {
+        return i >= 0 && lines.get(i) != null && lines.get(i).isInstruction();
+    }
+
+    /**
+     * Checks whether the value a register holds after the line at position i
+     * is never read, following every branch and jump from there. Anything
+     * that cannot be followed within a fixed number of steps counts as a read.
+     *
+     * @param i a position
+     * @param reg the register
+     * @return true if the value is dead; otherwise, false
+     */
+    public boolean isDeadAfter(int i, String reg)
+    {
+        Deque<Integer> work = new ArrayDeque<Integer>();
+        Set<Integer> seen = new HashSet<Integer>();
+        work.push(i + 1);
+        int steps = 0;
+        while (!work.isEmpty())
+        {
+            int j = work.pop();
+            while (j < lines.size() && seen.add(j))
+            {
+                if (++steps > MAX_LIVENESS_STEPS)
+                {
+                    return false;
+                }
+                Instruction line = lines.get(j);
+                if (line == null || !line.isInstruction())
+                {
+                    if (line != null && !line.isLabel())
+                    {
+                        return false;
+                    }
+                    j++;
+                    continue;
+                }
+                List<String> uses = line.uses();
+                if (uses == null || uses.contains(reg))
+                {
+                    return false;
+                }
+                if (line.is("jr"))
+                {
+                    if (!reg.startsWith("$t") && !reg.startsWith("$a")
+                            && !reg.equals("hi") && !reg.equals("lo"))
+                    {
+                        return false;
+                    }
+                    break;
+                }
+                if (line.defs().contains(reg))
+                {
+                    break;
+                }
+                String target = line.getTarget();
+                if (target != null)
+                {
+                    Integer to = labels.get(target);
+                    if (to == null)
+                    {
+                        return false;
+                    }
+                    if (line.isConditional())
+                    {
+                        work.push(to);
+                    }
+                    else
+                    {
+                        j = to;
+                        continue;
+                    }
+                }
+                j++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the remaining instructions, without the gaps.
+     *
+     * @return the instructions
+     */
+    public List<Instruction> toList()
+    {
+        List<Instruction> result = new ArrayList<Instruction>();
+        for (Instruction line : lines)
+        {
+            if (line != null)
+            {
+                result.add(line);
+            }
+        }
+        return result;
+    }
+}
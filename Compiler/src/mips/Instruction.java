@@ -0,0 +1,361 @@
+package mips;
+import java.util.*;
+
+/**
+ * An Instruction is one line of the MIPS program the Emitter builds: a label,
+ * an instruction made of an opcode and its operands, or a directive such as
+ * .data or a variable declaration, which is kept as text. Instructions also
+ * know which registers they read and write, so passes over the code can reason
+ * about it without parsing text. The hi and lo registers are named "hi" and "lo".
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class Instruction
+{
+    private static final Set<String> DEST_FIRST = new HashSet<String>(Arrays.asList(
+            "li", "la", "lw", "move", "addu", "subu", "add", "sub", "addiu", "addi",
+            "mflo", "mfhi", "sll", "srl", "sra", "sllv", "srlv", "srav", "slt", "slti",
+            "sltu", "sltiu", "and", "or", "xor", "nor", "andi", "ori", "xori", "mul",
+            "negu", "neg", "not", "lui", "seq", "sne", "sge", "sgt", "sle"));
+    private static final Set<String> BRANCHES = new HashSet<String>(Arrays.asList(
+            "beq", "bne", "blt", "bgt", "ble", "bge", "beqz", "bnez", "bltz", "bgtz",
+            "blez", "bgez"));
+    private static final Set<String> NO_DEST = new HashSet<String>(Arrays.asList(
+            "sw", "mult", "div", "multu", "divu", "j", "b", "jr", "nop"));
+    private static final List<String> CALL_USES = Arrays.asList(
+            "$a0", "$a1", "$a2", "$a3", "$sp", "$fp", "$gp",
+            "$s0", "$s1", "$s2", "$s3", "$s4", "$s5", "$s6", "$s7");
+    private static final List<String> CALL_DEFS = Arrays.asList(
+            "$ra", "$v0", "$v1", "$a0", "$a1", "$a2", "$a3", "hi", "lo",
+            "$t0", "$t1", "$t2", "$t3", "$t4", "$t5", "$t6", "$t7", "$t8", "$t9");
+    private static final String[] NONE = new String[0];
+
+    private String label;
+    private String opcode;
+    private String[] operands;
+    private String text;
+
+    /**
+     * Constructs an Instruction; use the static factory methods instead.
+     *
+     * @param label the label name, or null
+     * @param opcode the opcode, or null
+     * @param operands the operands
+     * @param text the directive text, or null
+     */
+    private Instruction(String label, String opcode, String[] operands, String text)
+    {
+        this.label = label;
+        this.opcode = opcode;
+        this.operands = operands;
+        this.text = text;
+    }
+
+    /**
+     * Returns an instruction with the given opcode and operands.
+     *
+     * @param opcode the opcode
+     * @param operands the operands
+     * @return the instruction
+     */
+    public static Instruction of(String opcode, String... operands)
+    {
+        return new Instruction(null, opcode, operands, null);
+    }
+
+    /**
+     * Returns a label.
+     *
+     * @param name the name of the label, without its colon
+     * @return the label
+     */
+    public static Instruction label(String name)
+    {
+        return new Instruction(name, null, NONE, null);
+    }
+
+    /**
+     * Returns a directive or data declaration kept as text.
+     *
+     * @param text the line
+     * @return the directive
+     */
+    public static Instruction directive(String text)
+    {
+        return new Instruction(null, null, NONE, text);
+    }
+
+    /**
+     * Reads one line of MIPS code. A line ending in its only colon is a label,
+     * a line starting with a dot or holding a colon elsewhere is a directive,
+     * and anything else is an instruction whose operands are separated by
+     * spaces or commas.
+     *
+     * @param line the line
+     * @return the parsed line
+     */
+    public static Instruction parse(String line)
+    {
+        String trimmed = line.trim();
+        int colon = trimmed.indexOf(':');
+        if (colon >= 0 && colon == trimmed.length() - 1)
+        {
+            return label(trimmed.substring(0, colon));
+        }
+        if (trimmed.startsWith(".") || colon >= 0)
+        {
+            return directive(trimmed);
+        }
+        String[] tokens = trimmed.replace(",", " ").split("\\s+");
+        return of(tokens[0], Arrays.copyOfRange(tokens, 1, tokens.length));
+    }
+
+    /**
+     * Checks whether this is a label.
+     *
+     * @return true if this is a label; otherwise, false
+     */
+    public boolean isLabel()
+    {
+        return label != null;
+    }
+
+    /**
+     * Checks whether this is an instruction.
+     *
+     * @return true if this is an instruction; otherwise, false
+     */
+    public boolean isInstruction()
+    {
+        return opcode != null;
+    }
+
+    /**
+     * Checks whether this is a directive or data declaration.
+     *
+     * @return true if this is a directive; otherwise, false
+     */
+    public boolean isDirective()
+    {
+        return text != null;
+    }
+
+    /**
+     * Returns the text of this directive.
+     *
+     * @return the directive text, or null if this is not a directive
+     */
+    public String getText()
+    {
+        return text;
+    }
+
+    /**
+     * Returns the name of this label.
+     *
+     * @return the label name, or null if this is not a label
+     */
+    public String getLabel()
+    {
+        return label;
+    }
+
+    /**
+     * Returns the opcode of this instruction.
+     *
+     * @return the opcode, or null if this is not an instruction
+     */
+    public String getOpcode()
+    {
+        return opcode;
+    }
+
+    /**
+     * Returns the number of operands.
+     *
+     * @return the number of operands
+     */
+    public int getOperandCount()
+    {
+        return operands.length;
+    }
+
+    /**
+     * Returns one operand.
+     *
+     * @param i the index of the operand
+     * @return the operand
+     */
+    public String getOperand(int i)
+    {
+        return operands[i];
+    }
+
+    /**
+     * Checks whether this instruction has the given opcode.
+     *
+     * @param op an opcode
+     * @return true if this is an instruction with that opcode; otherwise, false
+     */
+    public boolean is(String op)
+    {
+        return op.equals(opcode);
+    }
+
+    /**
+     * Checks whether this instruction may transfer control somewhere other
+     * than the next line.
+     *
+     * @return true for branches, jumps and calls; otherwise, false
+     */
+    public boolean isControl()
+    {
+        return opcode != null && (BRANCHES.contains(opcode) || opcode.equals("j")
+                || opcode.equals("b") || opcode.equals("jal") || opcode.equals("jr"));
+    }
+
+    /**
+     * Checks whether this instruction only falls through to the next line when
+     * its branch is not taken.
+     *
+     * @return true for conditional branches; otherwise, false
+     */
+    public boolean isConditional()
+    {
+        return opcode != null && BRANCHES.contains(opcode);
+    }
+
+    /**
+     * Returns the label a branch or jump goes to.
+     *
+     * @return the target label, or null if the instruction has none
+     */
+    public String getTarget()
+    {
+        if (isConditional() || is("j") || is("b"))
+        {
+            return operands[operands.length - 1];
+        }
+        return null;
+    }
+
+    /**
+     * Returns the registers this instruction writes.
+     *
+     * @return the written registers
+     */
+    public List<String> defs()
+    {
+        if (opcode == null)
+        {
+            return Collections.emptyList();
+        }
+        if (DEST_FIRST.contains(opcode))
+        {
+            return Collections.singletonList(operands[0]);
+        }
+        if (is("mult") || is("div") || is("multu") || is("divu"))
+        {
+            return Arrays.asList("hi", "lo");
+        }
+        if (is("jal"))
+        {
+            return CALL_DEFS;
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the registers this instruction reads, or null if it is not
+     * known what it reads.
+     *
+     * @return the read registers, or null
+     */
+    public List<String> uses()
+    {
+        if (opcode == null)
+        {
+            return Collections.emptyList();
+        }
+        List<String> uses = new ArrayList<String>();
+        if (is("mflo"))
+        {
+            uses.add("lo");
+        }
+        else if (is("mfhi"))
+        {
+            uses.add("hi");
+        }
+        else if (is("syscall"))
+        {
+            uses.addAll(Arrays.asList("$v0", "$a0", "$a1"));
+        }
+        else if (is("jal"))
+        {
+            uses.addAll(CALL_USES);
+        }
+        else if (!DEST_FIRST.contains(opcode) && !BRANCHES.contains(opcode)
+                && !NO_DEST.contains(opcode))
+        {
+            return null;
+        }
+        int first = DEST_FIRST.contains(opcode) ? 1 : 0;
+        for (int i = first; i < operands.length; i++)
+        {
+            String reg = register(operands[i]);
+            if (reg != null)
+            {
+                uses.add(reg);
+            }
+        }
+        return uses;
+    }
+
+    /**
+     * Returns the register named by an operand, including the base register
+     * of an address such as 4($sp).
+     *
+     * @param operand an operand
+     * @return the register, or null if the operand names none
+     */
+    public static String register(String operand)
+    {
+        int open = operand.indexOf('(');
+        if (open >= 0)
+        {
+            return operand.substring(open + 1, operand.indexOf(')'));
+        }
+        if (operand.startsWith("$"))
+        {
+            return operand;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the line of assembly for this instruction, with everything
+     * but labels indented by a tab.
+     *
+     * @return the line
+     */
+    @Override
+    public String toString()
+    {
+        if (label != null)
+        {
+            return label + ":";
+        }
+        if (text != null)
+        {
+            return "\t" + text;
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append('\t').append(opcode);
+        for (String operand : operands)
+        {
+            sb.append(' ').append(operand);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,47 @@
+package mips;
+
+/**
+ * Removes a jump to a label that directly follows it, such as the
+ * j endif3 emitted by an If without an else part.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class JumpToNextRule implements PeepholeRule
+{
+    /**
+     * Returns the name of the rule.
+     *
+     * @return "jump-to-next"
+     */
+    public String getName()
+    {
+        return "jump-to-next";
+    }
+
+    /**
+     * Removes the jump at i if it only skips over labels.
+     *
+     * @param code the code being optimized
+     * @param i the position of an instruction
+     * @return true if the code was rewritten; otherwise, false
+     */
+    public boolean apply(Code code, int i)
+    {
+        Instruction jump = code.get(i);
+        if (!jump.is("j") && !jump.is("b"))
+        {
+            return false;
+        }
+        String target = jump.getTarget();
+        for (int j = code.next(i); j >= 0 && code.get(j).isLabel(); j = code.next(j))
+        {
+            if (code.get(j).getLabel().equals(target))
+            {
+                code.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+}
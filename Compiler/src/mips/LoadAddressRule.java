@@ -0,0 +1,62 @@
+package mips;
+
+/**
+ * Folds an address load into the memory access that uses it,
+ *
+ *     la R varX               la R varX
+ *     lw S (R)                sw S (R)
+ *
+ * becoming lw S varX or sw S varX, as long as nothing reads the address
+ * left in R afterwards.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class LoadAddressRule implements PeepholeRule
+{
+    /**
+     * Returns the name of the rule.
+     *
+     * @return "la-fold"
+     */
+    public String getName()
+    {
+        return "la-fold";
+    }
+
+    /**
+     * Folds la into the following lw or sw.
+     *
+     * @param code the code being optimized
+     * @param i the position of an instruction
+     * @return true if the code was rewritten; otherwise, false
+     */
+    public boolean apply(Code code, int i)
+    {
+        Instruction la = code.get(i);
+        if (!la.is("la"))
+        {
+            return false;
+        }
+        int j = code.next(i);
+        if (!code.isInstruction(j))
+        {
+            return false;
+        }
+        Instruction access = code.get(j);
+        String reg = la.getOperand(0);
+        if (!(access.is("lw") || access.is("sw")) || !access.getOperand(1).equals("(" + reg + ")"))
+        {
+            return false;
+        }
+        String value = access.getOperand(0);
+        boolean overwritten = access.is("lw") && value.equals(reg);
+        if (!overwritten && (value.equals(reg) || !code.isDeadAfter(j, reg)))
+        {
+            return false;
+        }
+        code.remove(i);
+        code.set(j, Instruction.of(access.getOpcode(), value, la.getOperand(1)));
+        return true;
+    }
+}
@@ -0,0 +1,95 @@
+package mips;
+import java.util.*;
+
+/**
+ * The PeepholeOptimizer runs a set of PeepholeRules over MIPS code until none
+ * of them matches any more, counting how often each rule fired. Several
+ * threads may optimize separate pieces of code with one optimizer at once;
+ * the rules keep no state, and the counts are merged when each piece is done.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class PeepholeOptimizer
+{
+    private List<PeepholeRule> rules;
+    private Map<String, Integer> hits;
+
+    /**
+     * Constructs a PeepholeOptimizer with the given rules, tried in order.
+     *
+     * @param rules the rules to run
+     */
+    public PeepholeOptimizer(List<PeepholeRule> rules)
+    {
+        this.rules = new ArrayList<PeepholeRule>(rules);
+        hits = new LinkedHashMap<String, Integer>();
+        for (PeepholeRule rule : rules)
+        {
+            hits.put(rule.getName(), 0);
+        }
+    }
+
+    /**
+     * Returns a PeepholeOptimizer with every standard rule.
+     *
+     * @return the optimizer
+     */
+    public static PeepholeOptimizer standard()
+    {
+        return new PeepholeOptimizer(Arrays.asList(new PushPopRule(),
+                new LoadAddressRule(), new StoreLoadRule(), new JumpToNextRule(),
+                new SelfMoveRule()));
+    }
+
+    /**
+     * Optimizes the given code.
+     *
+     * @param lines the instructions, labels and directives
+     * @return the optimized code
+     */
+    public List<Instruction> optimize(List<Instruction> lines)
+    {
+        int[] fired = new int[rules.size()];
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            Code code = new Code(lines);
+            for (int i = 0; i < code.size(); i++)
+            {
+                for (int r = 0; r < rules.size(); r++)
+                {
+                    if (code.isInstruction(i) && rules.get(r).apply(code, i))
+                    {
+                        fired[r]++;
+                        changed = true;
+                    }
+                }
+            }
+            lines = code.toList();
+        }
+        synchronized (hits)
+        {
+            for (int r = 0; r < rules.size(); r++)
+            {
+                String name = rules.get(r).getName();
+                hits.put(name, hits.get(name) + fired[r]);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Returns how many times each rule has fired, in the order the rules run.
+     *
+     * @return a map from rule name to hit count
+     */
+    public Map<String, Integer> getHitCounts()
+    {
+        synchronized (hits)
+        {
+            return Collections.unmodifiableMap(new LinkedHashMap<String, Integer>(hits));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package mips;
+
+/**
+ * A PeepholeRule looks at a small window of MIPS code starting at one
+ * position and rewrites it when it matches a wasteful pattern.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public interface PeepholeRule
+{
+    /**
+     * Returns the name the rule's hits are reported under.
+     *
+     * @return the name of the rule
+     */
+    String getName();
+
+    /**
+     * Tries to rewrite the code starting at the given position.
+     *
+     * @param code the code being optimized
+     * @param i the position of an instruction
+     * @return true if the code was rewritten; otherwise, false
+     */
+    boolean apply(Code code, int i);
+}
@@ -0,0 +1,84 @@
+package mips;
+
+/**
+ * Replaces a push that is popped right away,
+ *
+ *     subu $sp $sp 4
+ *     sw R ($sp)
+ *     lw S ($sp)
+ *     addu $sp $sp 4
+ *
+ * with move S R, or with nothing when S is R.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class PushPopRule implements PeepholeRule
+{
+    /**
+     * Returns the name of the rule.
+     *
+     * @return "push-pop"
+     */
+    public String getName()
+    {
+        return "push-pop";
+    }
+
+    /**
+     * Rewrites a push followed by a pop.
+     *
+     * @param code the code being optimized
+     * @param i the position of an instruction
+     * @return true if the code was rewritten; otherwise, false
+     */
+    public boolean apply(Code code, int i)
+    {
+        int[] at = new int[4];
+        at[0] = i;
+        for (int k = 1; k < 4; k++)
+        {
+            at[k] = code.next(at[k - 1]);
+            if (!code.isInstruction(at[k]))
+            {
+                return false;
+            }
+        }
+        if (!isStackAdjust(code.get(at[0]), "subu") || !isStackAdjust(code.get(at[3]), "addu"))
+        {
+            return false;
+        }
+        Instruction push = code.get(at[1]);
+        Instruction pop = code.get(at[2]);
+        if (!push.is("sw") || !push.getOperand(1).equals("($sp)")
+                || !pop.is("lw") || !pop.getOperand(1).equals("($sp)"))
+        {
+            return false;
+        }
+        code.remove(at[0]);
+        code.remove(at[1]);
+        code.remove(at[3]);
+        if (push.getOperand(0).equals(pop.getOperand(0)))
+        {
+            code.remove(at[2]);
+        }
+        else
+        {
+            code.set(at[2], Instruction.of("move", pop.getOperand(0), push.getOperand(0)));
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether an instruction moves the stack pointer by one word.
+     *
+     * @param in an instruction
+     * @param op "subu" or "addu"
+     * @return true if in is op $sp $sp 4; otherwise, false
+     */
+    private static boolean isStackAdjust(Instruction in, String op)
+    {
+        return in.is(op) && in.getOperandCount() == 3 && in.getOperand(0).equals("$sp")
+                && in.getOperand(1).equals("$sp") && in.getOperand(2).equals("4");
+    }
+}
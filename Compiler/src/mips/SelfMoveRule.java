@@ -0,0 +1,38 @@
+package mips;
+
+/**
+ * Removes a move of a register into itself.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class SelfMoveRule implements PeepholeRule
+{
+    /**
+     * Returns the name of the rule.
+     *
+     * @return "self-move"
+     */
+    public String getName()
+    {
+        return "self-move";
+    }
+
+    /**
+     * Removes move R R.
+     *
+     * @param code the code being optimized
+     * @param i the position of an instruction
+     * @return true if the code was rewritten; otherwise, false
+     */
+    public boolean apply(Code code, int i)
+    {
+        Instruction line = code.get(i);
+        if (line.is("move") && line.getOperand(0).equals(line.getOperand(1)))
+        {
+            code.remove(i);
+            return true;
+        }
+        return false;
+    }
+}
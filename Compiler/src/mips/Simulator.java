@@ -0,0 +1,682 @@
+package mips;
+import java.io.*;
+import java.util.*;
+
+/**
+ * The Simulator runs the MIPS code the Emitter produces and counts what it
+ * did: the instructions executed, the loads and stores, and an estimate of
+ * the cycles spent. It covers the subset the compiler uses: loads and stores,
+ * integer arithmetic, mult and div with mflo and mfhi, shifts and set-less-than,
+ * branches, jumps, calls, and the print int, print string, print char and
+ * exit syscalls.
+ *
+ * The cycle estimate charges one cycle per instruction, plus LOAD_PENALTY for
+ * a load, MULT_PENALTY for mult, DIV_PENALTY for div and TAKEN_PENALTY for a
+ * taken branch or a jump, roughly the costs of a simple in-order pipeline.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class Simulator
+{
+    /**
+     * The extra cycles a load costs.
+     */
+    public static final int LOAD_PENALTY = 1;
+
+    /**
+     * The extra cycles a mult costs.
+     */
+    public static final int MULT_PENALTY = 4;
+
+    /**
+     * The extra cycles a div costs.
+     */
+    public static final int DIV_PENALTY = 34;
+
+    /**
+     * The extra cycles a taken branch or a jump costs.
+     */
+    public static final int TAKEN_PENALTY = 1;
+
+    private static final int DATA_BASE = 0x10010000;
+    private static final int STACK_TOP = 0x7fffeffc;
+    private static final int STACK_WORDS = 1 << 20;
+    private static final int HI = 32;
+    private static final int LO = 33;
+    private static final String[] REGISTER_NAMES = {"zero", "at", "v0", "v1", "a0", "a1",
+        "a2", "a3", "t0", "t1", "t2", "t3", "t4", "t5", "t6", "t7", "s0", "s1", "s2", "s3",
+        "s4", "s5", "s6", "s7", "t8", "t9", "k0", "k1", "gp", "sp", "fp", "ra"};
+
+    private static final int LI = 0, LA = 1, LW = 2, SW = 3, MOVE = 4, ADD = 5, SUB = 6,
+        MUL = 7, MULT = 8, DIV = 9, MFLO = 10, MFHI = 11, SLL = 12, SRA = 13, SRL = 14,
+        SLT = 15, AND = 16, OR = 17, XOR = 18, NEG = 19, BEQ = 20, BNE = 21, BLT = 22,
+        BGT = 23, BLE = 24, BGE = 25, J = 26, JAL = 27, JR = 28, NOP = 29, SYSCALL = 30;
+    private static final Map<String, Integer> OPCODES = new HashMap<String, Integer>();
+
+    static
+    {
+        Object[][] opcodes = {{"li", LI}, {"la", LA}, {"lw", LW}, {"sw", SW}, {"move", MOVE},
+            {"addu", ADD}, {"add", ADD}, {"addiu", ADD}, {"addi", ADD}, {"subu", SUB},
+            {"sub", SUB}, {"mul", MUL}, {"mult", MULT}, {"div", DIV}, {"mflo", MFLO},
+            {"mfhi", MFHI}, {"sll", SLL}, {"sra", SRA}, {"srl", SRL}, {"slt", SLT},
+            {"slti", SLT}, {"and", AND}, {"andi", AND}, {"or", OR}, {"ori", OR},
+            {"xor", XOR}, {"xori", XOR}, {"negu", NEG}, {"neg", NEG}, {"beq", BEQ},
+            {"bne", BNE}, {"blt", BLT}, {"bgt", BGT}, {"ble", BLE}, {"bge", BGE},
+            {"beqz", BEQ}, {"bnez", BNE}, {"bltz", BLT}, {"bgtz", BGT}, {"blez", BLE},
+            {"bgez", BGE}, {"j", J}, {"b", J}, {"jal", JAL}, {"jr", JR}, {"nop", NOP},
+            {"syscall", SYSCALL}};
+        for (Object[] pair : opcodes)
+        {
+            OPCODES.put((String) pair[0], (Integer) pair[1]);
+        }
+    }
+
+    private int[] op;
+    private int[] dest;
+    private int[] first;
+    private int[] second;
+    private boolean[] immediate;
+    private int[] value;
+    private Instruction[] source;
+    private int entry;
+
+    private int[] data;
+    private Map<Integer, String> strings;
+    private int[] stack;
+    private int[] regs;
+    private long stepLimit;
+
+    private long instructions;
+    private long memoryAccesses;
+    private long cycles;
+
+    /**
+     * Constructs a Simulator for the given code, which starts at the label
+     * main, or at its first instruction if there is none.
+     *
+     * @param code the instructions, labels and directives of a program
+     * @throws IllegalArgumentException if the code uses an instruction or
+     *         operand the simulator does not support
+     */
+    public Simulator(List<Instruction> code)
+    {
+        Map<String, Integer> labels = new HashMap<String, Integer>();
+        List<Instruction> text = new ArrayList<Instruction>();
+        List<Integer> words = new ArrayList<Integer>();
+        strings = new HashMap<Integer, String>();
+        for (Instruction in : code)
+        {
+            if (in.isLabel())
+            {
+                labels.put(in.getLabel(), text.size());
+            }
+            else if (in.isInstruction())
+            {
+                text.add(in);
+            }
+            else
+            {
+                declare(in.getText(), labels, words);
+            }
+        }
+        data = new int[words.size()];
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = words.get(i);
+        }
+        Integer main = labels.get("main");
+        entry = main == null ? 0 : main;
+        decode(text, labels);
+        stepLimit = Long.MAX_VALUE;
+    }
+
+    /**
+     * Reads a MIPS assembly file into a Simulator. A label sharing a line
+     * with an instruction is split off, and comments are dropped.
+     *
+     * @param fileName the name of the file
+     * @return the simulator
+     * @throws RuntimeException if the file cannot be read
+     */
+    public static Simulator load(String fileName)
+    {
+        List<Instruction> code = new ArrayList<Instruction>();
+        try (BufferedReader in = new BufferedReader(new FileReader(fileName)))
+        {
+            String line;
+            while ((line = in.readLine()) != null)
+            {
+                int comment = line.indexOf('#');
+                if (comment >= 0 && line.lastIndexOf('"', comment) < 0)
+                {
+                    line = line.substring(0, comment);
+                }
+                line = line.trim();
+                int colon = line.indexOf(':');
+                if (colon > 0 && colon < line.length() - 1
+                        && !line.substring(colon + 1).trim().startsWith("."))
+                {
+                    code.add(Instruction.label(line.substring(0, colon).trim()));
+                    line = line.substring(colon + 1).trim();
+                }
+                if (!line.isEmpty())
+                {
+                    code.add(Instruction.parse(line));
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+        return new Simulator(code);
+    }
+
+    /**
+     * Sets the most instructions run may execute before giving up.
+     *
+     * @param limit the step limit
+     */
+    public void setStepLimit(long limit)
+    {
+        stepLimit = limit;
+    }
+
+    /**
+     * Runs the program from the start until it exits or runs off the end
+     * of its code.
+     *
+     * @return everything the program printed
+     * @throws ArithmeticException if the program divides by zero
+     * @throws IllegalStateException if the program runs past the step limit
+     *         or accesses memory outside its data and stack
+     */
+    public String run()
+    {
+        StringBuilder out = new StringBuilder();
+        regs = new int[34];
+        regs[29] = STACK_TOP;
+        stack = new int[STACK_WORDS];
+        instructions = 0;
+        memoryAccesses = 0;
+        cycles = 0;
+        int pc = entry;
+        while (pc >= 0 && pc < op.length)
+        {
+            if (++instructions > stepLimit)
+            {
+                throw new IllegalStateException("Step limit exceeded");
+            }
+            cycles++;
+            int i = pc++;
+            int b = immediate[i] ? value[i] : regs[second[i]];
+            int jump = -1;
+            switch (op[i])
+            {
+                case LI:
+                case LA:
+                    set(dest[i], value[i]);
+                    break;
+                case LW:
+                    memoryAccesses++;
+                    cycles += LOAD_PENALTY;
+                    set(dest[i], load(regs[first[i]] + value[i]));
+                    break;
+                case SW:
+                    memoryAccesses++;
+                    store(regs[first[i]] + value[i], regs[dest[i]]);
+                    break;
+                case MOVE:
+                    set(dest[i], regs[first[i]]);
+                    break;
+                case ADD:
+                    set(dest[i], regs[first[i]] + b);
+                    break;
+                case SUB:
+                    set(dest[i], regs[first[i]] - b);
+                    break;
+                case MUL:
+                    cycles += MULT_PENALTY;
+                    set(dest[i], regs[first[i]] * b);
+                    break;
+                case MULT:
+                    cycles += MULT_PENALTY;
+                    long product = (long) regs[first[i]] * b;
+                    regs[LO] = (int) product;
+                    regs[HI] = (int) (product >> 32);
+                    break;
+                case DIV:
+                    cycles += DIV_PENALTY;
+                    if (b == 0)
+                    {
+                        throw new ArithmeticException("Division by zero at " + source[i]);
+                    }
+                    regs[LO] = regs[first[i]] / b;
+                    regs[HI] = regs[first[i]] % b;
+                    break;
+                case MFLO:
+                    set(dest[i], regs[LO]);
+                    break;
+                case MFHI:
+                    set(dest[i], regs[HI]);
+                    break;
+                case SLL:
+                    set(dest[i], regs[first[i]] << b);
+                    break;
+                case SRA:
+                    set(dest[i], regs[first[i]] >> b);
+                    break;
+                case SRL:
+                    set(dest[i], regs[first[i]] >>> b);
+                    break;
+                case SLT:
+                    set(dest[i], regs[first[i]] < b ? 1 : 0);
+                    break;
+                case AND:
+                    set(dest[i], regs[first[i]] & b);
+                    break;
+                case OR:
+                    set(dest[i], regs[first[i]] | b);
+                    break;
+                case XOR:
+                    set(dest[i], regs[first[i]] ^ b);
+                    break;
+                case NEG:
+                    set(dest[i], -regs[first[i]]);
+                    break;
+                case BEQ:
+                    jump = regs[first[i]] == b ? dest[i] : -1;
+                    break;
+                case BNE:
+                    jump = regs[first[i]] != b ? dest[i] : -1;
+                    break;
+                case BLT:
+                    jump = regs[first[i]] < b ? dest[i] : -1;
+                    break;
+                case BGT:
+                    jump = regs[first[i]] > b ? dest[i] : -1;
+                    break;
+                case BLE:
+                    jump = regs[first[i]] <= b ? dest[i] : -1;
+                    break;
+                case BGE:
+                    jump = regs[first[i]] >= b ? dest[i] : -1;
+                    break;
+                case J:
+                    jump = dest[i];
+                    break;
+                case JAL:
+                    regs[31] = pc;
+                    jump = dest[i];
+                    break;
+                case JR:
+                    jump = regs[first[i]];
+                    break;
+                case NOP:
+                    break;
+                default:
+                    if (!syscall(out))
+                    {
+                        return out.toString();
+                    }
+            }
+            if (jump >= 0)
+            {
+                cycles += TAKEN_PENALTY;
+                pc = jump;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Returns the number of instructions the last run executed.
+     *
+     * @return the dynamic instruction count
+     */
+    public long getInstructionCount()
+    {
+        return instructions;
+    }
+
+    /**
+     * Returns the number of loads and stores the last run executed.
+     *
+     * @return the memory access count
+     */
+    public long getMemoryAccessCount()
+    {
+        return memoryAccesses;
+    }
+
+    /**
+     * Returns the estimated number of cycles the last run took.
+     *
+     * @return the cycle estimate
+     */
+    public long getCycleCount()
+    {
+        return cycles;
+    }
+
+    /**
+     * Runs the syscall selected by $v0.
+     *
+     * @param out receives what is printed
+     * @return false if the program exits; otherwise, true
+     * @throws IllegalArgumentException for an unsupported syscall
+     */
+    private boolean syscall(StringBuilder out)
+    {
+        switch (regs[2])
+        {
+            case 1:
+                out.append(regs[4]);
+                return true;
+            case 4:
+                String s = strings.get(regs[4]);
+                if (s == null)
+                {
+                    throw new IllegalStateException("No string at " + regs[4]);
+                }
+                out.append(s);
+                return true;
+            case 11:
+                out.append((char) regs[4]);
+                return true;
+            case 10:
+                return false;
+            default:
+                throw new IllegalArgumentException("Unsupported syscall " + regs[2]);
+        }
+    }
+
+    /**
+     * Writes a register, keeping $zero at zero.
+     *
+     * @param reg the register number
+     * @param v the value
+     */
+    private void set(int reg, int v)
+    {
+        if (reg != 0)
+        {
+            regs[reg] = v;
+        }
+    }
+
+    /**
+     * Reads the word at an address.
+     *
+     * @param address a word-aligned address in the data or the stack
+     * @return the word
+     */
+    private int load(int address)
+    {
+        if (address >= DATA_BASE && address < DATA_BASE + 4 * data.length)
+        {
+            return data[(address - DATA_BASE) >> 2];
+        }
+        return stack[stackIndex(address)];
+    }
+
+    /**
+     * Writes the word at an address.
+     *
+     * @param address a word-aligned address in the data or the stack
+     * @param v the word
+     */
+    private void store(int address, int v)
+    {
+        if (address >= DATA_BASE && address < DATA_BASE + 4 * data.length)
+        {
+            data[(address - DATA_BASE) >> 2] = v;
+        }
+        else
+        {
+            stack[stackIndex(address)] = v;
+        }
+    }
+
+    /**
+     * Returns where a stack address is kept.
+     *
+     * @param address an address in the stack
+     * @return the index into the stack array
+     * @throws IllegalStateException if the address is outside the stack
+     */
+    private int stackIndex(int address)
+    {
+        int index = (STACK_TOP - address) >> 2;
+        if (index < 0 || index >= STACK_WORDS || (address & 3) != 0)
+        {
+            throw new IllegalStateException("Bad memory access at " + address);
+        }
+        return index;
+    }
+
+    /**
+     * Lays out one data declaration, such as "x: .word 0" or
+     * "nL: .asciiz "\n"". Section directives are ignored.
+     *
+     * @param text the directive
+     * @param labels receives the address of a declared label
+     * @param words the data words laid out so far
+     */
+    private void declare(String text, Map<String, Integer> labels, List<Integer> words)
+    {
+        int colon = text.indexOf(':');
+        if (colon < 0)
+        {
+            return;
+        }
+        int address = DATA_BASE + 4 * words.size();
+        labels.put(text.substring(0, colon).trim(), address);
+        String rest = text.substring(colon + 1).trim();
+        if (rest.startsWith(".word"))
+        {
+            for (String v : rest.substring(5).replace(",", " ").trim().split("\\s+"))
+            {
+                words.add(Integer.parseInt(v));
+            }
+        }
+        else if (rest.startsWith(".space"))
+        {
+            int bytes = Integer.parseInt(rest.substring(6).trim());
+            for (int i = 0; i < (bytes + 3) / 4; i++)
+            {
+                words.add(0);
+            }
+        }
+        else if (rest.startsWith(".asciiz"))
+        {
+            String quoted = rest.substring(rest.indexOf('"') + 1, rest.lastIndexOf('"'));
+            String s = quoted.replace("\\n", "\n").replace("\\t", "\t")
+                    .replace("\\\"", "\"").replace("\\\\", "\\");
+            strings.put(address, s);
+            for (int i = 0; i < s.length() / 4 + 1; i++)
+            {
+                words.add(0);
+            }
+        }
+    }
+
+    /**
+     * Turns the instructions into the arrays run works from.
+     *
+     * @param text the instructions
+     * @param labels the code position or data address of every label
+     * @throws IllegalArgumentException for an unsupported instruction
+     */
+    private void decode(List<Instruction> text, Map<String, Integer> labels)
+    {
+        int n = text.size();
+        op = new int[n];
+        dest = new int[n];
+        first = new int[n];
+        second = new int[n];
+        immediate = new boolean[n];
+        value = new int[n];
+        source = text.toArray(new Instruction[n]);
+        for (int i = 0; i < n; i++)
+        {
+            Instruction in = text.get(i);
+            Integer code = OPCODES.get(in.getOpcode());
+            if (code == null)
+            {
+                throw new IllegalArgumentException("Unsupported instruction " + in);
+            }
+            op[i] = code;
+            switch (code)
+            {
+                case LI:
+                    dest[i] = register(in.getOperand(0));
+                    value[i] = Integer.parseInt(in.getOperand(1));
+                    break;
+                case LA:
+                    dest[i] = register(in.getOperand(0));
+                    value[i] = label(in.getOperand(1), labels);
+                    break;
+                case LW:
+                case SW:
+                    dest[i] = register(in.getOperand(0));
+                    String address = in.getOperand(1);
+                    int open = address.indexOf('(');
+                    if (open < 0)
+                    {
+                        value[i] = label(address, labels);
+                    }
+                    else
+                    {
+                        first[i] = register(address.substring(open + 1, address.indexOf(')')));
+                        value[i] = open == 0 ? 0 : Integer.parseInt(address.substring(0, open));
+                    }
+                    break;
+                case MOVE:
+                case NEG:
+                case MFLO:
+                case MFHI:
+                    dest[i] = register(in.getOperand(0));
+                    if (code == MOVE || code == NEG)
+                    {
+                        first[i] = register(in.getOperand(1));
+                    }
+                    break;
+                case MULT:
+                case DIV:
+                    first[i] = register(in.getOperand(0));
+                    operand(in.getOperand(1), i);
+                    break;
+                case BEQ:
+                case BNE:
+                case BLT:
+                case BGT:
+                case BLE:
+                case BGE:
+                    first[i] = register(in.getOperand(0));
+                    if (in.getOperandCount() == 2)
+                    {
+                        immediate[i] = true;
+                    }
+                    else
+                    {
+                        operand(in.getOperand(1), i);
+                    }
+                    dest[i] = label(in.getOperand(in.getOperandCount() - 1), labels);
+                    break;
+                case J:
+                case JAL:
+                    dest[i] = label(in.getOperand(0), labels);
+                    break;
+                case JR:
+                    first[i] = register(in.getOperand(0));
+                    break;
+                case NOP:
+                case SYSCALL:
+                    break;
+                default:
+                    dest[i] = register(in.getOperand(0));
+                    first[i] = register(in.getOperand(1));
+                    operand(in.getOperand(2), i);
+            }
+        }
+    }
+
+    /**
+     * Decodes a second source operand, which is a register or a number.
+     *
+     * @param operand the operand
+     * @param i the position of the instruction
+     */
+    private void operand(String operand, int i)
+    {
+        if (operand.startsWith("$"))
+        {
+            second[i] = register(operand);
+        }
+        else
+        {
+            immediate[i] = true;
+            value[i] = Integer.parseInt(operand);
+        }
+    }
+
+    /**
+     * Returns the number of a register.
+     *
+     * @param name a register name such as $t0 or $8
+     * @return the register number
+     * @throws IllegalArgumentException if there is no such register
+     */
+    private static int register(String name)
+    {
+        String bare = name.substring(1);
+        for (int r = 0; r < REGISTER_NAMES.length; r++)
+        {
+            if (REGISTER_NAMES[r].equals(bare))
+            {
+                return r;
+            }
+        }
+        try
+        {
+            return Integer.parseInt(bare);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException("Unknown register " + name);
+        }
+    }
+
+    /**
+     * Returns the position or address of a label.
+     *
+     * @param name the label
+     * @param labels the labels of the program
+     * @return its position or address
+     * @throws IllegalArgumentException if the label is not defined
+     */
+    private static int label(String name, Map<String, Integer> labels)
+    {
+        Integer at = labels.get(name);
+        if (at == null)
+        {
+            throw new IllegalArgumentException("Undefined label " + name);
+        }
+        return at;
+    }
+
+    /**
+     * Runs a MIPS assembly file, printing its output and then its counts.
+     *
+     * @param args the name of the file
+     */
+    public static void main(String[] args)
+    {
+        Simulator sim = load(args[0]);
+        System.out.print(sim.run());
+        System.err.println("instructions " + sim.getInstructionCount() + ", memory accesses "
+                + sim.getMemoryAccessCount() + ", cycles " + sim.getCycleCount());
+    }
+}
@@ -0,0 +1,75 @@
+package mips;
+
+/**
+ * Replaces the reload of a variable that was just stored,
+ *
+ *     sw R varX
+ *     ...
+ *     lw S varX
+ *
+ * with move S R, or with nothing when S is R. The lines in between must not
+ * change R, store to memory, call, or be jumped to.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class StoreLoadRule implements PeepholeRule
+{
+    private static final int WINDOW = 8;
+
+    /**
+     * Returns the name of the rule.
+     *
+     * @return "store-load"
+     */
+    public String getName()
+    {
+        return "store-load";
+    }
+
+    /**
+     * Forwards a stored value to a later load of the same variable.
+     *
+     * @param code the code being optimized
+     * @param i the position of an instruction
+     * @return true if the code was rewritten; otherwise, false
+     */
+    public boolean apply(Code code, int i)
+    {
+        Instruction store = code.get(i);
+        if (!store.is("sw") || Instruction.register(store.getOperand(1)) != null)
+        {
+            return false;
+        }
+        int j = i;
+        for (int k = 0; k < WINDOW; k++)
+        {
+            j = code.next(j);
+            if (!code.isInstruction(j))
+            {
+                return false;
+            }
+            Instruction line = code.get(j);
+            String value = store.getOperand(0);
+            if (line.is("lw") && line.getOperand(1).equals(store.getOperand(1)))
+            {
+                String dest = line.getOperand(0);
+                if (dest.equals(value))
+                {
+                    code.remove(j);
+                }
+                else
+                {
+                    code.set(j, Instruction.of("move", dest, value));
+                }
+                return true;
+            }
+            if (line.is("sw") || line.is("syscall") || line.isControl()
+                    || line.uses() == null || line.defs().contains(value))
+            {
+                return false;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,213 @@
+package optimizer;
+import ast.*;
+import ast.Number;
+import java.util.*;
+
+/**
+ * InductionVariables finds the candidates for induction-variable strength
+ * reduction in a While loop. A basic induction variable is one that the loop
+ * only ever changes by adding or subtracting a literal. A product of such a
+ * variable and a literal can then be kept in a register of its own that is
+ * set once before the loop and bumped by a constant next to every change of
+ * the variable, instead of being multiplied out on every iteration.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class InductionVariables
+{
+    /**
+     * Finds the products of a basic induction variable and a literal that a
+     * loop computes. Products the code generator can form with a single
+     * shift are left out, since they are no dearer than reading a register.
+     *
+     * @param loop the loop
+     * @return a map from each induction variable to the literals it is
+     *         multiplied by in the loop
+     */
+    public static Map<String, Set<Integer>> find(While loop)
+    {
+        Map<String, Boolean> basic = new HashMap<String, Boolean>();
+        classify(loop.getBody(), basic);
+        Map<String, Set<Integer>> products = new TreeMap<String, Set<Integer>>();
+        products(loop.getCondition(), basic, products);
+        products(loop.getBody(), basic, products);
+        return products;
+    }
+
+    /**
+     * Returns the literal an assignment adds to its own variable.
+     *
+     * @param a the assignment
+     * @return the amount added, negative for a subtraction, or null if the
+     *         assignment is not of the form v := v + k, v := k + v or v := v - k
+     */
+    public static Integer increment(Assignment a)
+    {
+        if (!(a.getExpression() instanceof BinOp))
+        {
+            return null;
+        }
+        BinOp b = (BinOp) a.getExpression();
+        String v = a.getVariable();
+        if (b.getOperator().equals("+"))
+        {
+            if (isVariable(b.getLeft(), v) && b.getRight() instanceof Number)
+            {
+                return ((Number) b.getRight()).getValue();
+            }
+            if (isVariable(b.getRight(), v) && b.getLeft() instanceof Number)
+            {
+                return ((Number) b.getLeft()).getValue();
+            }
+        }
+        else if (b.getOperator().equals("-") && isVariable(b.getLeft(), v)
+                && b.getRight() instanceof Number)
+        {
+            return -((Number) b.getRight()).getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the variable of a product of a variable and a literal.
+     *
+     * @param b a BinOp
+     * @return the variable's name, or null if b is not such a product
+     */
+    public static String productVariable(BinOp b)
+    {
+        if (!b.getOperator().equals("*"))
+        {
+            return null;
+        }
+        if (b.getLeft() instanceof Variable && b.getRight() instanceof Number)
+        {
+            return ((Variable) b.getLeft()).getName();
+        }
+        if (b.getRight() instanceof Variable && b.getLeft() instanceof Number)
+        {
+            return ((Variable) b.getRight()).getName();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the literal of a product of a variable and a literal.
+     *
+     * @param b a BinOp for which productVariable is not null
+     * @return the literal
+     */
+    public static int productFactor(BinOp b)
+    {
+        if (b.getRight() instanceof Number)
+        {
+            return ((Number) b.getRight()).getValue();
+        }
+        return ((Number) b.getLeft()).getValue();
+    }
+
+    /**
+     * Records for every variable assigned in a statement whether all of its
+     * assignments so far are increments by a literal.
+     *
+     * @param s the statement to search
+     * @param basic maps each assigned name to whether it is still a basic
+     *              induction variable
+     */
+    private static void classify(Statement s, Map<String, Boolean> basic)
+    {
+        if (s instanceof Assignment)
+        {
+            Assignment a = (Assignment) s;
+            Boolean before = basic.get(a.getVariable());
+            basic.put(a.getVariable(), (before == null || before) && increment(a) != null);
+        }
+        for (Statement child : ProcedureAnalysis.children(s))
+        {
+            classify(child, basic);
+        }
+    }
+
+    /**
+     * Collects the worthwhile products of induction variables and literals
+     * in the expressions of a statement.
+     *
+     * @param s the statement to search
+     * @param basic the result of classify
+     * @param products receives the products
+     */
+    private static void products(Statement s, Map<String, Boolean> basic,
+                                 Map<String, Set<Integer>> products)
+    {
+        for (Expression e : ProcedureAnalysis.expressions(s))
+        {
+            products(e, basic, products);
+        }
+        for (Statement child : ProcedureAnalysis.children(s))
+        {
+            products(child, basic, products);
+        }
+    }
+
+    /**
+     * Collects the worthwhile products of induction variables and literals
+     * in an expression.
+     *
+     * @param e the expression to search
+     * @param basic the result of classify
+     * @param products receives the products
+     */
+    private static void products(Expression e, Map<String, Boolean> basic,
+                                 Map<String, Set<Integer>> products)
+    {
+        if (e instanceof BinOp)
+        {
+            BinOp b = (BinOp) e;
+            String v = productVariable(b);
+            if (v != null)
+            {
+                int factor = productFactor(b);
+                int magnitude = Math.abs(factor);
+                if (Boolean.TRUE.equals(basic.get(v))
+                        && magnitude > 1 && (magnitude & (magnitude - 1)) != 0)
+                {
+                    Set<Integer> factors = products.get(v);
+                    if (factors == null)
+                    {
+                        factors = new TreeSet<Integer>();
+                        products.put(v, factors);
+                    }
+                    factors.add(factor);
+                }
+                return;
+            }
+            products(b.getLeft(), basic, products);
+            products(b.getRight(), basic, products);
+        }
+        else if (e instanceof Condition)
+        {
+            products(((Condition) e).getLeft(), basic, products);
+            products(((Condition) e).getRight(), basic, products);
+        }
+        else if (e instanceof ProcedureCall)
+        {
+            for (Expression arg : ((ProcedureCall) e).getArguments())
+            {
+                products(arg, basic, products);
+            }
+        }
+    }
+
+    /**
+     * Checks whether an expression reads the given variable and nothing else.
+     *
+     * @param e an expression
+     * @param name a variable name
+     * @return true if e is that variable; otherwise, false
+     */
+    private static boolean isVariable(Expression e, String name)
+    {
+        return e instanceof Variable && ((Variable) e).getName().equals(name);
+    }
+}
@@ -0,0 +1,820 @@
+package optimizer;
+import ast.*;
+import environment.Environment;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The LoopParallelizer runs counted WHILE loops whose iterations do not depend
+ * on each other on a fork-join pool. A loop qualifies when
+ *
+ * 1. its condition compares a counter with an expression the body never changes,
+ * 2. its body ends with the counter update (i := i + c or i := i - c),
+ * 3. every other variable it assigns is either assigned before it is read in
+ *    the same iteration (a private) or only updated as a reduction such as
+ *    sum := sum + f(i) or prod := prod * f(i),
+ * 4. it has no WRITELN and only calls procedures that are pure: they assign
+ *    nothing but their parameters and result, print nothing, call only pure
+ *    procedures and read no variable the loop assigns.
+ *
+ * The iterations are split into chunks, each run in its own environment whose
+ * parent is the loop's environment, so nothing is written back until every
+ * chunk is done. Reductions are then combined in iteration order, which gives
+ * exactly the sequential result because int addition and multiplication wrap
+ * and are associative. If any chunk fails the loop is simply run sequentially
+ * from the start, which raises the same error at the same iteration. Loops
+ * reached from inside a chunk always run sequentially.
+ *
+ * The analysis of a loop, whether it found the loop independent or not, is
+ * kept on the While node with the procedures it looked up, and used as long as
+ * the loop's environment still has those same procedures. A live reload that
+ * swaps in a new version of one of them makes only the loops that call it, and
+ * only in the program that was reloaded, be analyzed again.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class LoopParallelizer
+{
+    private static final int MIN_PARALLEL_TRIPS = 16;
+    private static final int MAX_TRIPS = 1 << 24;
+    private static final Plan SEQUENTIAL = sequential();
+
+    private static volatile boolean enabled = true;
+
+    /**
+     * Turns parallel execution of independent loops on or off.
+     *
+     * @param on true to run independent loops in parallel
+     */
+    public static void setEnabled(boolean on)
+    {
+        enabled = on;
+    }
+
+    /**
+     * Makes the plan of a loop that runs sequentially whatever procedures it
+     * calls.
+     *
+     * @return the plan
+     */
+    private static Plan sequential()
+    {
+        Plan plan = new Plan();
+        plan.sequential = true;
+        return plan;
+    }
+
+    /**
+     * Runs the loop in parallel if it is independent and long enough, and
+     * its run is not being recorded.
+     *
+     * @param loop the loop to run
+     * @param env the environment the loop runs in
+     * @return true if the loop was run; false if it still has to be run sequentially
+     */
+    public static boolean tryParallel(While loop, Environment env)
+    {
+        if (!enabled || env.getRecorder() != null || ForkJoinTask.inForkJoinPool())
+        {
+            return false;
+        }
+        Plan plan = loop.getPlan();
+        if (plan == null || !isCurrent(plan, env))
+        {
+            plan = analyze(loop, env);
+            loop.setPlan(plan);
+        }
+        if (plan.sequential)
+        {
+            return false;
+        }
+        return run(plan, loop, env);
+    }
+
+    /**
+     * Checks whether a plan was made with the procedures an environment has
+     * now.
+     *
+     * @param plan the plan
+     * @param env the environment the loop runs in
+     * @return true if every procedure the analysis looked up is unchanged;
+     *         otherwise, false
+     */
+    private static boolean isCurrent(Plan plan, Environment env)
+    {
+        for (Map.Entry<String, ProcedureDeclaration> callee : plan.callees.entrySet())
+        {
+            if (env.getProcedure(callee.getKey()) != callee.getValue())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Works out whether the iterations of a loop are independent.
+     *
+     * @param loop the loop to analyze
+     * @param env the environment holding the procedures it may call
+     * @return the plan for running the loop in parallel, or one that says it
+     *         runs sequentially
+     */
+    private static Plan analyze(While loop, Environment env)
+    {
+        Plan plan = new Plan();
+        if (!(loop.getBody() instanceof Block))
+        {
+            return SEQUENTIAL;
+        }
+        List<Statement> body = ((Block) loop.getBody()).getStatements();
+        if (body.isEmpty() || !(body.get(body.size() - 1) instanceof Assignment))
+        {
+            return SEQUENTIAL;
+        }
+        Assignment update = (Assignment) body.get(body.size() - 1);
+        plan.counter = update.getVariable();
+        Integer step = step(update);
+        if (step == null || step == 0)
+        {
+            return SEQUENTIAL;
+        }
+        plan.step = step;
+
+        Condition cond = loop.getCondition();
+        if (isVariable(cond.getLeft(), plan.counter))
+        {
+            plan.op = cond.getOperator();
+            plan.bound = cond.getRight();
+        }
+        else if (isVariable(cond.getRight(), plan.counter))
+        {
+            plan.op = flip(cond.getOperator());
+            plan.bound = cond.getLeft();
+        }
+        else
+        {
+            return SEQUENTIAL;
+        }
+        if (plan.op == null)
+        {
+            return SEQUENTIAL;
+        }
+
+        Set<String> assigned = new HashSet<String>();
+        ProcedureAnalysis.assignedIn(loop.getBody(), null, assigned);
+        for (int i = 0; i < body.size() - 1; i++)
+        {
+            if (!classify(body.get(i), plan))
+            {
+                return SEQUENTIAL;
+            }
+        }
+        plan.privates.addAll(assigned);
+        plan.privates.remove(plan.counter);
+        plan.privates.removeAll(plan.reductions.keySet());
+
+        if (readsAny(plan.bound, assigned))
+        {
+            return SEQUENTIAL;
+        }
+        Checker checker = new Checker(plan, assigned, env);
+        Set<String> defined = new HashSet<String>();
+        for (int i = 0; i < body.size() - 1; i++)
+        {
+            if (!checker.statement(body.get(i), defined, false))
+            {
+                plan.sequential = true;
+                return plan;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Records the reductions among the assignments of a statement and rejects
+     * statements that update the counter or mix reduction operators.
+     *
+     * @param s the statement to classify
+     * @param plan the plan being built
+     * @return true if the statement may appear in an independent loop; otherwise, false
+     */
+    private static boolean classify(Statement s, Plan plan)
+    {
+        if (s instanceof Assignment)
+        {
+            Assignment a = (Assignment) s;
+            if (a.getVariable().equals(plan.counter))
+            {
+                return false;
+            }
+            String op = reductionOperator(a);
+            String previous = plan.reductions.get(a.getVariable());
+            if (plan.nonReductions.contains(a.getVariable()))
+            {
+                return true;
+            }
+            if (op == null || (previous != null && !previous.equals(op)))
+            {
+                plan.reductions.remove(a.getVariable());
+                plan.nonReductions.add(a.getVariable());
+            }
+            else
+            {
+                plan.reductions.put(a.getVariable(), op);
+            }
+            return true;
+        }
+        for (Statement child : ProcedureAnalysis.children(s))
+        {
+            if (!classify(child, plan))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks the reads, writes and calls of a loop body against its plan.
+     */
+    private static class Checker
+    {
+        private Plan plan;
+        private Set<String> assigned;
+        private Environment env;
+        private Map<ProcedureDeclaration, Boolean> pure;
+
+        /**
+         * Constructs a Checker.
+         *
+         * @param plan the plan being checked
+         * @param assigned every variable the loop body assigns
+         * @param env the environment holding the procedures
+         */
+        Checker(Plan plan, Set<String> assigned, Environment env)
+        {
+            this.plan = plan;
+            this.assigned = assigned;
+            this.env = env;
+            pure = new HashMap<ProcedureDeclaration, Boolean>();
+        }
+
+        /**
+         * Checks one statement of the body.
+         *
+         * @param s the statement
+         * @param defined the privates already assigned in this iteration
+         * @param conditional true inside an If or nested While
+         * @return true if the statement keeps iterations independent; otherwise, false
+         */
+        boolean statement(Statement s, Set<String> defined, boolean conditional)
+        {
+            if (s instanceof Assignment)
+            {
+                Assignment a = (Assignment) s;
+                String name = a.getVariable();
+                if (plan.reductions.containsKey(name))
+                {
+                    return expression(reductionOperand(a), defined);
+                }
+                if (!expression(a.getExpression(), defined))
+                {
+                    return false;
+                }
+                if (conditional && !defined.contains(name))
+                {
+                    return false;
+                }
+                defined.add(name);
+                return true;
+            }
+            if (s instanceof Block)
+            {
+                for (Statement stat : ((Block) s).getStatements())
+                {
+                    if (!statement(stat, defined, conditional))
+                    {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            if (s instanceof If || s instanceof While)
+            {
+                Condition c = s instanceof If ? ((If) s).getCondition()
+                        : ((While) s).getCondition();
+                if (!expression(c, defined))
+                {
+                    return false;
+                }
+                Set<String> inner = new HashSet<String>(defined);
+                for (Statement child : ProcedureAnalysis.children(s))
+                {
+                    if (!statement(child, inner, true))
+                    {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Checks an expression given the privates assigned so far.
+         *
+         * @param e the expression
+         * @param defined the privates already assigned in this iteration
+         * @return true if the expression keeps iterations independent; otherwise, false
+         */
+        boolean expression(Expression e, Set<String> defined)
+        {
+            if (e instanceof Variable)
+            {
+                String name = ((Variable) e).getName();
+                return name.equals(plan.counter) || !assigned.contains(name)
+                        || defined.contains(name);
+            }
+            if (e instanceof BinOp)
+            {
+                return expression(((BinOp) e).getLeft(), defined)
+                        && expression(((BinOp) e).getRight(), defined);
+            }
+            if (e instanceof Condition)
+            {
+                return expression(((Condition) e).getLeft(), defined)
+                        && expression(((Condition) e).getRight(), defined);
+            }
+            if (e instanceof ProcedureCall)
+            {
+                ProcedureCall c = (ProcedureCall) e;
+                for (Expression arg : c.getArguments())
+                {
+                    if (!expression(arg, defined))
+                    {
+                        return false;
+                    }
+                }
+                ProcedureDeclaration pd = lookUp(c.getName());
+                return pd != null && isPure(pd);
+            }
+            return e instanceof ast.Number;
+        }
+
+        /**
+         * Finds a procedure and records it in the plan, so that the plan is
+         * made again if the procedure is replaced.
+         *
+         * @param name the name of the procedure
+         * @return the procedure, or null if there is none
+         */
+        private ProcedureDeclaration lookUp(String name)
+        {
+            ProcedureDeclaration pd = env.getProcedure(name);
+            plan.callees.put(name, pd);
+            return pd;
+        }
+
+        /**
+         * Checks whether a procedure is pure and reads nothing the loop assigns.
+         *
+         * @param pd the procedure
+         * @return true if calls to it keep iterations independent; otherwise, false
+         */
+        boolean isPure(ProcedureDeclaration pd)
+        {
+            Boolean known = pure.get(pd);
+            if (known != null)
+            {
+                return known;
+            }
+            pure.put(pd, true);
+            Set<String> locals = new HashSet<String>(pd.getParameters());
+            locals.add(pd.getName());
+            boolean result = pureStatement(pd.getBody(), locals);
+            pure.put(pd, result);
+            return result;
+        }
+
+        /**
+         * Checks a statement of a procedure body for purity.
+         *
+         * @param s the statement
+         * @param locals the parameters and result variable of the procedure
+         * @return true if the statement is pure; otherwise, false
+         */
+        private boolean pureStatement(Statement s, Set<String> locals)
+        {
+            if (s == null)
+            {
+                return true;
+            }
+            if (s instanceof Writeln)
+            {
+                return false;
+            }
+            if (s instanceof Assignment && !locals.contains(((Assignment) s).getVariable()))
+            {
+                return false;
+            }
+            if (!(s instanceof Assignment || s instanceof Block || s instanceof If
+                    || s instanceof While))
+            {
+                return false;
+            }
+            for (Expression e : ProcedureAnalysis.expressions(s))
+            {
+                if (!pureExpression(e, locals))
+                {
+                    return false;
+                }
+            }
+            for (Statement child : ProcedureAnalysis.children(s))
+            {
+                if (!pureStatement(child, locals))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Checks an expression of a procedure body for purity.
+         *
+         * @param e the expression
+         * @param locals the parameters and result variable of the procedure
+         * @return true if the expression is pure; otherwise, false
+         */
+        private boolean pureExpression(Expression e, Set<String> locals)
+        {
+            if (e instanceof Variable)
+            {
+                String name = ((Variable) e).getName();
+                return locals.contains(name)
+                        || (!assigned.contains(name) && !name.equals(plan.counter));
+            }
+            if (e instanceof BinOp)
+            {
+                return pureExpression(((BinOp) e).getLeft(), locals)
+                        && pureExpression(((BinOp) e).getRight(), locals);
+            }
+            if (e instanceof Condition)
+            {
+                return pureExpression(((Condition) e).getLeft(), locals)
+                        && pureExpression(((Condition) e).getRight(), locals);
+            }
+            if (e instanceof ProcedureCall)
+            {
+                for (Expression arg : ((ProcedureCall) e).getArguments())
+                {
+                    if (!pureExpression(arg, locals))
+                    {
+                        return false;
+                    }
+                }
+                ProcedureDeclaration pd = lookUp(((ProcedureCall) e).getName());
+                return pd != null && isPure(pd);
+            }
+            return e instanceof ast.Number;
+        }
+    }
+
+    /**
+     * Runs a loop according to its plan.
+     *
+     * @param plan the plan of the loop
+     * @param loop the loop
+     * @param env the environment the loop runs in
+     * @return true if the loop was run; false if it has to be run sequentially
+     */
+    private static boolean run(Plan plan, While loop, Environment env)
+    {
+        int[] values;
+        int last;
+        int[] initial = new int[plan.reductions.size()];
+        try
+        {
+            int bound = plan.bound.eval(env);
+            int v = env.getVariable(plan.counter);
+            int trips = 0;
+            int[] buffer = new int[MIN_PARALLEL_TRIPS];
+            while (Condition.evaluate(plan.op, v, bound) == 1)
+            {
+                if (trips == MAX_TRIPS)
+                {
+                    return false;
+                }
+                if (trips == buffer.length)
+                {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                buffer[trips] = v;
+                trips++;
+                v += plan.step;
+            }
+            if (trips < MIN_PARALLEL_TRIPS)
+            {
+                return false;
+            }
+            values = Arrays.copyOf(buffer, trips);
+            last = v;
+            int i = 0;
+            for (String name : plan.reductions.keySet())
+            {
+                initial[i] = env.getVariable(name);
+                i++;
+            }
+        }
+        catch (RuntimeException ex)
+        {
+            return false;
+        }
+
+        int chunks = Math.min(values.length, ForkJoinPool.getCommonPoolParallelism() * 4);
+        List<Chunk> tasks = new ArrayList<Chunk>();
+        for (int c = 0; c < chunks; c++)
+        {
+            int from = (int) ((long) values.length * c / chunks);
+            int to = (int) ((long) values.length * (c + 1) / chunks);
+            tasks.add(new Chunk(plan, loop.getBody(), env, values, from, to));
+        }
+        List<Environment> results = new ArrayList<Environment>();
+        try
+        {
+            for (Chunk task : RecursiveTask.invokeAll(tasks))
+            {
+                results.add(task.join());
+            }
+        }
+        catch (RuntimeException | StackOverflowError ex)
+        {
+            return false;
+        }
+
+        int i = 0;
+        for (Map.Entry<String, String> reduction : plan.reductions.entrySet())
+        {
+            int total = initial[i];
+            for (Environment partial : results)
+            {
+                int value = partial.getVariable(reduction.getKey());
+                total = reduction.getValue().equals("*") ? total * value : total + value;
+            }
+            env.setVariable(reduction.getKey(), total);
+            i++;
+        }
+        Environment lastChunk = results.get(results.size() - 1);
+        for (String name : plan.privates)
+        {
+            env.setVariable(name, lastChunk.getVariable(name));
+        }
+        env.setVariable(plan.counter, last);
+        return true;
+    }
+
+    /**
+     * Runs a range of iterations in an environment of its own.
+     */
+    private static class Chunk extends RecursiveTask<Environment>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private Plan plan;
+        private Statement body;
+        private Environment env;
+        private int[] values;
+        private int from;
+        private int to;
+
+        /**
+         * Constructs a Chunk.
+         *
+         * @param plan the plan of the loop
+         * @param body the loop body
+         * @param env the environment of the loop
+         * @param values the counter value of every iteration
+         * @param from the first iteration of the chunk
+         * @param to one past the last iteration of the chunk
+         */
+        Chunk(Plan plan, Statement body, Environment env, int[] values, int from, int to)
+        {
+            this.plan = plan;
+            this.body = body;
+            this.env = env;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Runs the iterations and returns the environment holding the partial
+         * reductions and the privates of the last iteration.
+         *
+         * @return the chunk's environment
+         */
+        @Override
+        protected Environment compute()
+        {
+            Environment local = new Environment(env);
+            for (Map.Entry<String, String> reduction : plan.reductions.entrySet())
+            {
+                local.declareVariable(reduction.getKey(),
+                        reduction.getValue().equals("*") ? 1 : 0);
+            }
+            for (String name : plan.privates)
+            {
+                local.declareVariable(name, 0);
+            }
+            for (int k = from; k < to; k++)
+            {
+                local.declareVariable(plan.counter, values[k]);
+                body.exec(local);
+            }
+            return local;
+        }
+    }
+
+    /**
+     * Returns the constant step of a counter update.
+     *
+     * @param update the last assignment of the loop body
+     * @return the step, or null if the update is not i := i + c or i := i - c
+     */
+    private static Integer step(Assignment update)
+    {
+        if (!(update.getExpression() instanceof BinOp))
+        {
+            return null;
+        }
+        BinOp b = (BinOp) update.getExpression();
+        String counter = update.getVariable();
+        if (isVariable(b.getLeft(), counter) && b.getRight() instanceof ast.Number)
+        {
+            int c = ((ast.Number) b.getRight()).getValue();
+            if (b.getOperator().equals("+"))
+            {
+                return c;
+            }
+            if (b.getOperator().equals("-"))
+            {
+                return -c;
+            }
+        }
+        if (isVariable(b.getRight(), counter) && b.getLeft() instanceof ast.Number
+                && b.getOperator().equals("+"))
+        {
+            return ((ast.Number) b.getLeft()).getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the operator of an assignment of the form x := x + e, x := e + x,
+     * x := x - e, x := x * e or x := e * x where e does not read x. Subtraction
+     * is recorded as "+" because the partial results are combined by adding them.
+     *
+     * @param a the assignment
+     * @return "+" or "*", or null if the assignment is not a reduction
+     */
+    private static String reductionOperator(Assignment a)
+    {
+        Expression operand = reductionOperand(a);
+        if (operand == null || reads(operand, a.getVariable()))
+        {
+            return null;
+        }
+        return ((BinOp) a.getExpression()).getOperator().equals("*") ? "*" : "+";
+    }
+
+    /**
+     * Returns the operand of a reduction that is not the reduction variable.
+     *
+     * @param a the assignment
+     * @return the other operand, or null if the assignment is not a reduction
+     */
+    private static Expression reductionOperand(Assignment a)
+    {
+        if (!(a.getExpression() instanceof BinOp))
+        {
+            return null;
+        }
+        BinOp b = (BinOp) a.getExpression();
+        String op = b.getOperator();
+        String name = a.getVariable();
+        if (isVariable(b.getLeft(), name)
+                && (op.equals("+") || op.equals("-") || op.equals("*")))
+        {
+            return b.getRight();
+        }
+        if (isVariable(b.getRight(), name) && (op.equals("+") || op.equals("*")))
+        {
+            return b.getLeft();
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether an expression reads the named variable.
+     *
+     * @param e the expression
+     * @param name the variable name
+     * @return true if e reads the variable; otherwise, false
+     */
+    private static boolean reads(Expression e, String name)
+    {
+        return readsAny(e, Collections.singleton(name));
+    }
+
+    /**
+     * Checks whether an expression reads any of the given variables.
+     *
+     * @param e the expression
+     * @param names the variable names
+     * @return true if e reads one of them; otherwise, false
+     */
+    private static boolean readsAny(Expression e, Set<String> names)
+    {
+        if (e instanceof Variable)
+        {
+            return names.contains(((Variable) e).getName());
+        }
+        if (e instanceof BinOp)
+        {
+            return readsAny(((BinOp) e).getLeft(), names)
+                    || readsAny(((BinOp) e).getRight(), names);
+        }
+        if (e instanceof Condition)
+        {
+            return readsAny(((Condition) e).getLeft(), names)
+                    || readsAny(((Condition) e).getRight(), names);
+        }
+        if (e instanceof ProcedureCall)
+        {
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether an expression is the named variable.
+     *
+     * @param e the expression
+     * @param name the variable name
+     * @return true if e is a Variable with that name; otherwise, false
+     */
+    private static boolean isVariable(Expression e, String name)
+    {
+        return e instanceof Variable && ((Variable) e).getName().equals(name);
+    }
+
+    /**
+     * Returns the operator that compares the same way with its sides swapped.
+     *
+     * @param op a relative operator
+     * @return the swapped operator
+     */
+    private static String flip(String op)
+    {
+        if (op.equals("<"))
+        {
+            return ">";
+        }
+        if (op.equals(">"))
+        {
+            return "<";
+        }
+        if (op.equals("<="))
+        {
+            return ">=";
+        }
+        if (op.equals(">="))
+        {
+            return "<=";
+        }
+        return op;
+    }
+
+    /**
+     * How an independent loop is run: its counter, bound and step, and the
+     * reductions and privates of its body; or that the loop runs sequentially.
+     * Either way, the procedures the analysis looked up, by name.
+     */
+    public static class Plan
+    {
+        private boolean sequential;
+        private Map<String, ProcedureDeclaration> callees =
+            new HashMap<String, ProcedureDeclaration>();
+        private String counter;
+        private int step;
+        private String op;
+        private Expression bound;
+        private Map<String, String> reductions = new LinkedHashMap<String, String>();
+        private Set<String> nonReductions = new HashSet<String>();
+        private Set<String> privates = new LinkedHashSet<String>();
+    }
+}
@@ -0,0 +1,737 @@
+package optimizer;
+import ast.*;
+import java.util.*;
+
+/**
+ * The PartialEvaluator specializes a Program for variables whose values are
+ * fixed before it runs. It walks the AST with a store of the values it knows,
+ * folds expressions and Conditions, drops branches that can never run, unrolls
+ * WHILE loops whose trip count it can work out (within a size limit), and makes
+ * specialized copies of procedures called with constant arguments. What is left
+ * is a residual Program that prints the same output and leaves the same
+ * variables behind, whether it is interpreted or compiled.
+ *
+ * Known values are only written back to memory (flushed) when something that
+ * cannot be decided statically needs them: a loop or branch whose condition is
+ * dynamic, a call that stays in the residual program, or the end of the program.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class PartialEvaluator
+{
+    /**
+     * The default limit on the number of statements one unrolled loop may add
+     */
+    public static final int DEFAULT_UNROLL_LIMIT = 256;
+
+    private static final int MAX_STATIC_ITERATIONS = 100000;
+    private static final int MAX_SPECIALIZATION_DEPTH = 32;
+    private static final int MAX_SPECIALIZATIONS = 256;
+
+    private Map<String, Integer> fixed;
+    private int unrollLimit;
+    private Map<String, ProcedureDeclaration> procedures;
+    private Map<String, Set<String>> writes;
+    private Map<String, Integer> constants;
+    private Map<String, Object> specializations;
+    private List<ProcedureDeclaration> specialized;
+    private Set<String> specializedNames;
+    private int serial;
+    private int depth;
+
+    /**
+     * Constructs a PartialEvaluator for the given fixed variable values
+     * using the default unroll limit.
+     *
+     * @param fixed the variables whose values are known before the program runs
+     */
+    public PartialEvaluator(Map<String, Integer> fixed)
+    {
+        this(fixed, DEFAULT_UNROLL_LIMIT);
+    }
+
+    /**
+     * Constructs a PartialEvaluator for the given fixed variable values.
+     *
+     * @param fixed the variables whose values are known before the program runs
+     * @param unrollLimit the most statements one unrolled loop may add to the
+     *                    residual program before it is kept as a loop instead
+     */
+    public PartialEvaluator(Map<String, Integer> fixed, int unrollLimit)
+    {
+        this.fixed = new LinkedHashMap<String, Integer>(fixed);
+        this.unrollLimit = unrollLimit;
+    }
+
+    /**
+     * Produces the residual program of the given program. The residual program
+     * starts from an empty environment, so it also writes the fixed values that
+     * are still needed at run time.
+     *
+     * @param program the program to specialize
+     * @return the residual program
+     */
+    public Program specialize(Program program)
+    {
+        procedures = new HashMap<String, ProcedureDeclaration>();
+        for (ProcedureDeclaration pd : program.getProcedures())
+        {
+            procedures.put(pd.getName(), pd);
+        }
+        writes = ProcedureAnalysis.globalWrites(program.getProcedures());
+        constants = constants(program);
+        specializations = new HashMap<String, Object>();
+        specialized = new ArrayList<ProcedureDeclaration>();
+        specializedNames = new HashSet<String>();
+        serial = 0;
+        depth = 0;
+
+        State st = new State(null, null);
+        for (Map.Entry<String, Integer> entry : fixed.entrySet())
+        {
+            st.known.put(entry.getKey(), entry.getValue());
+            st.pending.add(entry.getKey());
+        }
+        ArrayList<Statement> out = new ArrayList<Statement>();
+        statement(program.getStatement(), st, out);
+        flush(st, st.pending, out);
+        Block main = new Block(out);
+
+        List<ProcedureDeclaration> all = new ArrayList<ProcedureDeclaration>(
+                program.getProcedures());
+        all.addAll(specialized);
+        return new Program(program.getVariableNames(),
+                ProcedureAnalysis.reachable(all, main), main);
+    }
+
+    /**
+     * Finds the fixed variables that nothing in the program assigns and that no
+     * procedure shadows with a parameter. Their values hold everywhere, so they
+     * are also known inside specialized procedure bodies.
+     *
+     * @param program the program being specialized
+     * @return the fixed values that never change
+     */
+    private Map<String, Integer> constants(Program program)
+    {
+        Set<String> assigned = new HashSet<String>();
+        ProcedureAnalysis.assignedIn(program.getStatement(), null, assigned);
+        for (ProcedureDeclaration pd : program.getProcedures())
+        {
+            ProcedureAnalysis.assignedIn(pd.getBody(), null, assigned);
+            assigned.addAll(pd.getParameters());
+            assigned.add(pd.getName());
+        }
+        Map<String, Integer> result = new HashMap<String, Integer>(fixed);
+        result.keySet().removeAll(assigned);
+        return result;
+    }
+
+    /**
+     * Partially evaluates one statement, appending its residual statements to out.
+     *
+     * @param s the statement to evaluate
+     * @param st the store of known values, updated in place
+     * @param out the residual statements produced so far
+     */
+    private void statement(Statement s, State st, ArrayList<Statement> out)
+    {
+        if (s == null)
+        {
+            return;
+        }
+        if (s instanceof Block)
+        {
+            for (Statement stat : ((Block) s).getStatements())
+            {
+                statement(stat, st, out);
+            }
+        }
+        else if (s instanceof Assignment)
+        {
+            Assignment a = (Assignment) s;
+            String name = st.rename(a.getVariable());
+            Expression value = expression(a.getExpression(), st, out);
+            if (value instanceof ast.Number)
+            {
+                st.known.put(name, ((ast.Number) value).getValue());
+                st.pending.add(name);
+            }
+            else
+            {
+                st.known.remove(name);
+                st.pending.remove(name);
+                out.add(new Assignment(name, value));
+            }
+        }
+        else if (s instanceof Writeln)
+        {
+            out.add(new Writeln(expression(((Writeln) s).getExpression(), st, out)));
+        }
+        else if (s instanceof If)
+        {
+            ifStatement((If) s, st, out);
+        }
+        else if (s instanceof While)
+        {
+            whileStatement((While) s, st, out);
+        }
+        else
+        {
+            flush(st, st.pending, out);
+            st.forgetAll();
+            out.add(s);
+        }
+    }
+
+    /**
+     * Partially evaluates an If. A decided condition keeps only the branch that
+     * runs; otherwise both branches are specialized and their stores merged.
+     *
+     * @param s the If to evaluate
+     * @param st the store of known values, updated in place
+     * @param out the residual statements produced so far
+     */
+    private void ifStatement(If s, State st, ArrayList<Statement> out)
+    {
+        Expression cond = condition(s.getCondition(), st, out);
+        if (cond instanceof ast.Number)
+        {
+            if (((ast.Number) cond).getValue() == 1)
+            {
+                statement(s.getThen(), st, out);
+            }
+            else
+            {
+                statement(s.getElse(), st, out);
+            }
+            return;
+        }
+        State thenState = st.copy();
+        State elseState = st.copy();
+        ArrayList<Statement> thenOut = new ArrayList<Statement>();
+        ArrayList<Statement> elseOut = new ArrayList<Statement>();
+        statement(s.getThen(), thenState, thenOut);
+        statement(s.getElse(), elseState, elseOut);
+
+        Set<String> names = new TreeSet<String>(thenState.known.keySet());
+        names.addAll(elseState.known.keySet());
+        st.known.clear();
+        st.pending.clear();
+        for (String name : names)
+        {
+            Integer thenValue = thenState.known.get(name);
+            Integer elseValue = elseState.known.get(name);
+            if (thenValue != null && thenValue.equals(elseValue))
+            {
+                st.known.put(name, thenValue);
+                if (thenState.pending.contains(name) || elseState.pending.contains(name))
+                {
+                    st.pending.add(name);
+                }
+            }
+            else
+            {
+                flush(thenState, Collections.singleton(name), thenOut);
+                flush(elseState, Collections.singleton(name), elseOut);
+            }
+        }
+        if (thenOut.isEmpty() && elseOut.isEmpty()
+                && !ProcedureAnalysis.containsCall(s.getCondition()))
+        {
+            return;
+        }
+        if (elseOut.isEmpty())
+        {
+            out.add(new If((Condition) cond, new Block(thenOut)));
+        }
+        else
+        {
+            out.add(new If((Condition) cond, new Block(thenOut), new Block(elseOut)));
+        }
+    }
+
+    /**
+     * Partially evaluates a While. The loop is unrolled when its condition can be
+     * decided on every iteration and the unrolled code stays within the limit;
+     * otherwise it is kept as a loop whose body is specialized for the values
+     * that do not change inside it.
+     *
+     * @param s the While to evaluate
+     * @param st the store of known values, updated in place
+     * @param out the residual statements produced so far
+     */
+    private void whileStatement(While s, State st, ArrayList<Statement> out)
+    {
+        State trial = st.copy();
+        ArrayList<Statement> unrolled = new ArrayList<Statement>();
+        if (unroll(s, trial, unrolled))
+        {
+            out.addAll(unrolled);
+            st.replace(trial);
+            return;
+        }
+
+        Set<String> assigned = new HashSet<String>();
+        ProcedureAnalysis.assignedIn(s, writes, assigned);
+        Set<String> loopVariant = new HashSet<String>();
+        for (String name : assigned)
+        {
+            loopVariant.add(st.rename(name));
+        }
+        flush(st, loopVariant, out);
+        st.forget(loopVariant);
+
+        Expression cond = condition(s.getCondition(), st, out);
+        if (cond instanceof ast.Number)
+        {
+            if (((ast.Number) cond).getValue() == 0)
+            {
+                return;
+            }
+            cond = new Condition("=", new ast.Number(0), new ast.Number(0));
+        }
+        State bodyState = st.copy();
+        ArrayList<Statement> body = new ArrayList<Statement>();
+        statement(s.getBody(), bodyState, body);
+        flush(bodyState, loopVariant, body);
+        out.add(new While((Condition) cond, new Block(body)));
+    }
+
+    /**
+     * Tries to unroll a While completely.
+     *
+     * @param s the While to unroll
+     * @param st a copy of the store, updated in place
+     * @param out receives the unrolled statements
+     * @return true if the loop was unrolled within the limits; otherwise, false
+     */
+    private boolean unroll(While s, State st, ArrayList<Statement> out)
+    {
+        for (int i = 0; i < MAX_STATIC_ITERATIONS; i++)
+        {
+            Expression cond = condition(s.getCondition(), st, out);
+            if (!(cond instanceof ast.Number))
+            {
+                return false;
+            }
+            if (((ast.Number) cond).getValue() == 0)
+            {
+                return true;
+            }
+            statement(s.getBody(), st, out);
+            if (ProcedureAnalysis.size(out) > unrollLimit)
+            {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Partially evaluates a Condition.
+     *
+     * @param c the condition to evaluate
+     * @param st the store of known values
+     * @param out the residual statements produced so far
+     * @return a Number holding 0 or 1 if the condition was decided; otherwise,
+     *         the residual Condition
+     */
+    private Expression condition(Condition c, State st, ArrayList<Statement> out)
+    {
+        Expression left = expression(c.getLeft(), st, out);
+        Expression right = expression(c.getRight(), st, out);
+        if (left instanceof ast.Number && right instanceof ast.Number)
+        {
+            return new ast.Number(Condition.evaluate(c.getOperator(),
+                    ((ast.Number) left).getValue(), ((ast.Number) right).getValue()));
+        }
+        return new Condition(c.getOperator(), left, right);
+    }
+
+    /**
+     * Partially evaluates an expression, folding everything that is known.
+     *
+     * @param e the expression to evaluate
+     * @param st the store of known values
+     * @param out the residual statements produced so far
+     * @return a Number if the value is known; otherwise, the residual expression
+     */
+    private Expression expression(Expression e, State st, ArrayList<Statement> out)
+    {
+        if (e instanceof Variable)
+        {
+            String name = st.rename(((Variable) e).getName());
+            Integer value = st.known.get(name);
+            if (value != null)
+            {
+                return new ast.Number(value);
+            }
+            return new Variable(name);
+        }
+        if (e instanceof BinOp)
+        {
+            BinOp b = (BinOp) e;
+            return binOp(b.getOperator(), expression(b.getLeft(), st, out),
+                    expression(b.getRight(), st, out));
+        }
+        if (e instanceof Condition)
+        {
+            return condition((Condition) e, st, out);
+        }
+        if (e instanceof ProcedureCall)
+        {
+            return call((ProcedureCall) e, st, out);
+        }
+        return e;
+    }
+
+    /**
+     * Builds a residual BinOp, folding it when both sides are known and
+     * dropping operands that cannot change the result.
+     *
+     * @param op the arithmetic operator
+     * @param left the residual left expression
+     * @param right the residual right expression
+     * @return the folded or residual expression
+     */
+    private Expression binOp(String op, Expression left, Expression right)
+    {
+        boolean leftKnown = left instanceof ast.Number;
+        boolean rightKnown = right instanceof ast.Number;
+        int leftValue = leftKnown ? ((ast.Number) left).getValue() : 0;
+        int rightValue = rightKnown ? ((ast.Number) right).getValue() : 0;
+        if (leftKnown && rightKnown)
+        {
+            try
+            {
+                return new ast.Number(BinOp.evaluate(op, leftValue, rightValue));
+            }
+            catch (ArithmeticException ex)
+            {
+                return new BinOp(op, left, right);
+            }
+        }
+        if (rightKnown && rightValue == 0 && (op.equals("+") || op.equals("-")))
+        {
+            return left;
+        }
+        if (rightKnown && rightValue == 1 && (op.equals("*") || op.equals("/")))
+        {
+            return left;
+        }
+        if (leftKnown && leftValue == 0 && op.equals("+"))
+        {
+            return right;
+        }
+        if (leftKnown && leftValue == 1 && op.equals("*"))
+        {
+            return right;
+        }
+        return new BinOp(op, left, right);
+    }
+
+    /**
+     * Partially evaluates a procedure call. Arguments that are known are bound
+     * into a specialized copy of the procedure; if that copy reduces to a
+     * constant result the call is replaced by it.
+     *
+     * @param c the call to evaluate
+     * @param st the store of known values
+     * @param out the residual statements produced so far
+     * @return a Number if the result is known; otherwise, the residual call
+     */
+    private Expression call(ProcedureCall c, State st, ArrayList<Statement> out)
+    {
+        ArrayList<Expression> args = new ArrayList<Expression>();
+        for (Expression arg : c.getArguments())
+        {
+            args.add(expression(arg, st, out));
+        }
+        ProcedureDeclaration pd = procedures.get(c.getName());
+        String name = c.getName();
+        if (pd != null && pd.getParameters().size() == args.size())
+        {
+            Set<String> assigned = new HashSet<String>();
+            ProcedureAnalysis.assignedIn(pd.getBody(), null, assigned);
+            StringBuilder key = new StringBuilder(name);
+            boolean anyKnown = false;
+            for (int i = 0; i < args.size(); i++)
+            {
+                key.append(',');
+                if (args.get(i) instanceof ast.Number)
+                {
+                    key.append(((ast.Number) args.get(i)).getValue());
+                    anyKnown = true;
+                }
+                else
+                {
+                    key.append('?');
+                }
+            }
+            Object spec = anyKnown ? specialization(pd, args, key.toString(), assigned) : null;
+            if (spec instanceof Integer)
+            {
+                return new ast.Number((Integer) spec);
+            }
+            if (spec instanceof ProcedureDeclaration)
+            {
+                ProcedureDeclaration sp = (ProcedureDeclaration) spec;
+                ArrayList<Expression> kept = new ArrayList<Expression>();
+                for (int i = 0; i < args.size(); i++)
+                {
+                    if (!(args.get(i) instanceof ast.Number)
+                            || assigned.contains(pd.getParameters().get(i)))
+                    {
+                        kept.add(args.get(i));
+                    }
+                }
+                name = sp.getName();
+                args = kept;
+            }
+        }
+        flush(st, st.pending, out);
+        Set<String> written = writes.get(c.getName());
+        if (written == null || pd == null)
+        {
+            st.forgetAll();
+        }
+        else
+        {
+            st.forget(written);
+        }
+        return new ProcedureCall(name, args);
+    }
+
+    /**
+     * Returns the specialization of a procedure for the known arguments of a
+     * call, building it the first time it is needed.
+     *
+     * @param pd the called procedure
+     * @param args the residual arguments of the call
+     * @param key identifies the procedure and its known arguments
+     * @param assigned the names assigned inside the procedure body
+     * @return the constant result as an Integer, the specialized
+     *         ProcedureDeclaration, or null if the call should not be specialized
+     */
+    private Object specialization(ProcedureDeclaration pd, ArrayList<Expression> args,
+                                  String key, Set<String> assigned)
+    {
+        if (specializations.containsKey(key))
+        {
+            return specializations.get(key);
+        }
+        if (depth >= MAX_SPECIALIZATION_DEPTH || serial >= MAX_SPECIALIZATIONS)
+        {
+            return null;
+        }
+        String specName = newName(pd.getName());
+        State st = new State(pd.getName(), specName);
+        st.known.putAll(constants);
+        st.known.put(specName, 0);
+        ArrayList<String> params = new ArrayList<String>();
+        for (int i = 0; i < args.size(); i++)
+        {
+            String param = pd.getParameters().get(i);
+            if (args.get(i) instanceof ast.Number)
+            {
+                st.known.put(param, ((ast.Number) args.get(i)).getValue());
+                if (assigned.contains(param))
+                {
+                    params.add(param);
+                }
+                else
+                {
+                    st.locals.add(param);
+                }
+            }
+            else
+            {
+                params.add(param);
+            }
+        }
+        ArrayList<Statement> body = new ArrayList<Statement>();
+        ProcedureDeclaration sp = new ProcedureDeclaration(specName, new Block(body), params);
+        specializations.put(key, sp);
+        depth++;
+        statement(pd.getBody(), st, body);
+        depth--;
+
+        Set<String> globals = new LinkedHashSet<String>(st.pending);
+        globals.removeAll(pd.getParameters());
+        globals.remove(specName);
+        if (body.isEmpty() && globals.isEmpty() && st.known.containsKey(specName)
+                && !usesSpecialization(sp))
+        {
+            specializations.put(key, st.known.get(specName));
+            return st.known.get(specName);
+        }
+        globals.add(specName);
+        flush(st, globals, body);
+        specialized.add(sp);
+        return sp;
+    }
+
+    /**
+     * Reserves the name of a new specialization of a procedure. The number in
+     * it only ever goes up, so specializations begun inside the body of one
+     * still being built cannot get its name, and it is checked against both
+     * the program's procedures and the specializations made so far.
+     *
+     * @param base the name of the procedure being specialized
+     * @return the name, which no other procedure has
+     */
+    private String newName(String base)
+    {
+        String name;
+        do
+        {
+            serial++;
+            name = base + "S" + serial;
+        }
+        while (procedures.containsKey(name) || specializedNames.contains(name));
+        specializedNames.add(name);
+        return name;
+    }
+
+    /**
+     * Checks whether a specialization was referenced while it was being built,
+     * in which case it cannot be replaced by a constant.
+     *
+     * @param sp the specialization
+     * @return true if a residual call to it exists; otherwise, false
+     */
+    private boolean usesSpecialization(ProcedureDeclaration sp)
+    {
+        for (ProcedureDeclaration other : specialized)
+        {
+            if (ProcedureAnalysis.calls(other.getBody(), sp.getName()))
+            {
+                return true;
+            }
+        }
+        return ProcedureAnalysis.calls(sp.getBody(), sp.getName());
+    }
+
+    /**
+     * Writes back the known values of the given variables that are not yet in
+     * memory, leaving them known.
+     *
+     * @param st the store of known values
+     * @param names the variables to write back
+     * @param out receives the assignments
+     */
+    private void flush(State st, Collection<String> names, ArrayList<Statement> out)
+    {
+        for (String name : new ArrayList<String>(st.pending))
+        {
+            if (names.contains(name))
+            {
+                if (st.known.containsKey(name))
+                {
+                    out.add(new Assignment(name, new ast.Number(st.known.get(name))));
+                }
+                st.pending.remove(name);
+            }
+        }
+    }
+
+    /**
+     * The store of values known at one point of the partial evaluation, with the
+     * variables whose known value has not yet been written to memory. Inside a
+     * specialization, the parameters dropped from its parameter list are locals:
+     * nothing in the residual program holds them, so their values must stay
+     * known even when a call or loop may write a global of the same name.
+     */
+    private static class State
+    {
+        private HashMap<String, Integer> known;
+        private LinkedHashSet<String> pending;
+        private HashSet<String> locals;
+        private String from;
+        private String to;
+
+        /**
+         * Constructs an empty store.
+         *
+         * @param from the name of the procedure being specialized, or null
+         * @param to the name of its specialization, or null
+         */
+        State(String from, String to)
+        {
+            known = new HashMap<String, Integer>();
+            pending = new LinkedHashSet<String>();
+            locals = new HashSet<String>();
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Maps the result variable of a procedure to that of its specialization.
+         *
+         * @param name a variable name
+         * @return the name to use in the residual program
+         */
+        String rename(String name)
+        {
+            if (from != null && from.equals(name))
+            {
+                return to;
+            }
+            return name;
+        }
+
+        /**
+         * Returns an independent copy of this store.
+         *
+         * @return the copy
+         */
+        State copy()
+        {
+            State st = new State(from, to);
+            st.known.putAll(known);
+            st.pending.addAll(pending);
+            st.locals.addAll(locals);
+            return st;
+        }
+
+        /**
+         * Forgets the values of variables that may have been changed behind
+         * the evaluator's back, except those of locals.
+         *
+         * @param names the variables that may have changed
+         */
+        void forget(Collection<String> names)
+        {
+            for (String name : names)
+            {
+                if (!locals.contains(name))
+                {
+                    known.remove(name);
+                }
+            }
+        }
+
+        /**
+         * Forgets the values of all variables except those of locals, for when
+         * anything may have been changed.
+         */
+        void forgetAll()
+        {
+            known.keySet().retainAll(locals);
+        }
+
+        /**
+         * Replaces the contents of this store with those of another.
+         *
+         * @param other the store to copy from
+         */
+        void replace(State other)
+        {
+            known = other.known;
+            pending = other.pending;
+            locals = other.locals;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package optimizer;
+import ast.Program;
+import bench.ProgramGenerator;
+import environment.Environment;
+import parser.Parser;
+import scanner.Scanner;
+import scanner.ScanErrorException;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Tests the PartialEvaluator by running programs and their residual
+ * programs in the interpreter and comparing what they print and the final
+ * values of their globals. The programs are a few written out below, among
+ * them recursive procedures called with constants, and programs made by the
+ * ProgramGenerator from a range of seeds, half of them with recursion.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class PartialEvaluatorTester
+{
+    private static final String[] PROGRAMS = {
+        "VAR r;\n"
+            + "PROCEDURE rec(n);\n"
+            + "BEGIN\n"
+            + "   rec := 0;\n"
+            + "   IF n > 0 THEN rec := rec(n - 1) + 2;\n"
+            + "END;\n"
+            + "BEGIN\n"
+            + "   r := rec(5);\n"
+            + "   WRITELN(r);\n"
+            + "END;\n.\n",
+        "VAR r, s;\n"
+            + "PROCEDURE rec(a, b);\n"
+            + "BEGIN\n"
+            + "   rec := b;\n"
+            + "   IF a > 0 THEN rec := rec + rec(a - 1, 25);\n"
+            + "END;\n"
+            + "BEGIN\n"
+            + "   s := 3;\n"
+            + "   r := rec(6, s) + rec(6, 4);\n"
+            + "   WRITELN(r);\n"
+            + "END;\n.\n",
+        "VAR i, t, k;\n"
+            + "PROCEDURE f(x);\n"
+            + "BEGIN\n"
+            + "   f := x * k;\n"
+            + "END;\n"
+            + "BEGIN\n"
+            + "   i := 0;\n"
+            + "   t := 0;\n"
+            + "   WHILE i < 500 DO\n"
+            + "   BEGIN\n"
+            + "      t := t + f(i);\n"
+            + "      i := i + 1;\n"
+            + "   END;\n"
+            + "   WRITELN(t);\n"
+            + "END;\n.\n",
+        "VAR n, r;\n"
+            + "PROCEDURE g(x);\n"
+            + "BEGIN\n"
+            + "   n := x;\n"
+            + "   g := 0;\n"
+            + "END;\n"
+            + "PROCEDURE f(n);\n"
+            + "BEGIN\n"
+            + "   f := g(7);\n"
+            + "   f := f + n;\n"
+            + "END;\n"
+            + "BEGIN\n"
+            + "   n := 1;\n"
+            + "   r := f(3);\n"
+            + "   WRITELN(r);\n"
+            + "   WRITELN(n);\n"
+            + "END;\n.\n",
+        "VAR n, i, t;\n"
+            + "PROCEDURE g(x);\n"
+            + "BEGIN\n"
+            + "   n := n + x;\n"
+            + "   g := n;\n"
+            + "END;\n"
+            + "PROCEDURE f(n, m);\n"
+            + "BEGIN\n"
+            + "   f := 0;\n"
+            + "   WHILE m > 0 DO\n"
+            + "   BEGIN\n"
+            + "      f := f + g(1) + n;\n"
+            + "      m := m - 1;\n"
+            + "   END;\n"
+            + "END;\n"
+            + "BEGIN\n"
+            + "   n := 0;\n"
+            + "   i := 0;\n"
+            + "   WHILE i < 3 DO\n"
+            + "   BEGIN\n"
+            + "      t := f(100, i);\n"
+            + "      WRITELN(t);\n"
+            + "      i := i + 1;\n"
+            + "   END;\n"
+            + "   WRITELN(n);\n"
+            + "END;\n.\n",
+    };
+
+    /**
+     * Runs every test and prints each one that fails.
+     *
+     * @param args optionally, the number of generated programs to test
+     * @throws ScanErrorException if a program cannot be scanned
+     */
+    public static void main(String[] args) throws ScanErrorException
+    {
+        int seeds = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        int failed = 0;
+        int k = 3;
+        for (int i = 0; i < PROGRAMS.length; i++)
+        {
+            Map<String, Integer> fixed = new HashMap<String, Integer>();
+            failed += test("program " + (i + 1), PROGRAMS[i], fixed);
+            fixed.put("k", k);
+            failed += test("program " + (i + 1) + " with k = " + k, PROGRAMS[i], fixed);
+        }
+        for (int seed = 1; seed <= seeds; seed++)
+        {
+            String source = new ProgramGenerator(4096, 4, 3, 10, seed % 2 == 0 ? 0 : 20,
+                    seed).generate();
+            failed += test("seed " + seed, source, new HashMap<String, Integer>());
+        }
+        int total = 2 * PROGRAMS.length + seeds;
+        System.out.println((total - failed) + " of " + total + " passed");
+        if (failed > 0)
+        {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Specializes one program and compares the residual program with it.
+     *
+     * @param name what to call the program in messages
+     * @param source the program
+     * @param fixed the inputs to specialize for
+     * @return 0 if the two behaved the same; otherwise, 1
+     * @throws ScanErrorException if the program cannot be scanned
+     */
+    private static int test(String name, String source, Map<String, Integer> fixed)
+        throws ScanErrorException
+    {
+        Program original = new Parser(new Scanner(source)).parseProgram();
+        Program residual = new PartialEvaluator(fixed)
+            .specialize(new Parser(new Scanner(source)).parseProgram());
+        String expected = run(original, original, fixed);
+        String actual = run(residual, original, new HashMap<String, Integer>());
+        if (!expected.equals(actual))
+        {
+            System.out.println("FAIL " + name + "\nexpected:\n" + expected + "actual:\n" + actual);
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Runs a program and describes what it did.
+     *
+     * @param program the program to run
+     * @param original the program whose globals are reported
+     * @param inputs values given to variables before the run
+     * @return what the program printed, how it failed if it did, and the
+     *         final values of the original program's globals
+     */
+    private static String run(Program program, Program original, Map<String, Integer> inputs)
+    {
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        Environment env = new Environment();
+        env.setOutput(new PrintStream(printed, true));
+        for (Map.Entry<String, Integer> input : inputs.entrySet())
+        {
+            env.declareVariable(input.getKey(), input.getValue());
+        }
+        StringBuilder sb = new StringBuilder();
+        try
+        {
+            program.exec(env);
+        }
+        catch (RuntimeException | StackOverflowError ex)
+        {
+            sb.append("failed: ").append(ex).append('\n');
+        }
+        sb.insert(0, printed.toString());
+        for (String name : original.getVariableNames())
+        {
+            if (env.hasVariable(name))
+            {
+                sb.append(name).append(" = ").append(env.getVariable(name)).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
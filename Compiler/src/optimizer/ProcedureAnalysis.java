@@ -0,0 +1,419 @@
+package optimizer;
+import ast.*;
+import java.util.*;
+
+/**
+ * ProcedureAnalysis collects facts about the AST that the optimizer passes
+ * share: which variables a statement or procedure may assign, which
+ * procedures a piece of code calls, and how big a list of statements is.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class ProcedureAnalysis
+{
+    /**
+     * Finds the variables each procedure may assign outside its own frame,
+     * including through the procedures it calls. A procedure's parameters and
+     * its result variable are declared in its own environment, so they are
+     * left out.
+     *
+     * @param prodecs the procedure declarations of a program
+     * @return a map from each procedure name to the names it may assign
+     */
+    public static Map<String, Set<String>> globalWrites(List<ProcedureDeclaration> prodecs)
+    {
+        Map<String, Set<String>> writes = new HashMap<String, Set<String>>();
+        for (ProcedureDeclaration pd : prodecs)
+        {
+            Set<String> assigned = new HashSet<String>();
+            assignedIn(pd.getBody(), null, assigned);
+            assigned.removeAll(pd.getParameters());
+            assigned.remove(pd.getName());
+            writes.put(pd.getName(), assigned);
+        }
+        return throughCalls(prodecs, writes);
+    }
+
+    /**
+     * Finds the variables each procedure may read or assign outside its own
+     * frame, including through the procedures it calls.
+     *
+     * @param prodecs the procedure declarations of a program
+     * @return a map from each procedure name to the names it may read or assign
+     */
+    public static Map<String, Set<String>> globalAccesses(List<ProcedureDeclaration> prodecs)
+    {
+        Map<String, Set<String>> accesses = new HashMap<String, Set<String>>();
+        for (ProcedureDeclaration pd : prodecs)
+        {
+            Set<String> used = new HashSet<String>();
+            assignedIn(pd.getBody(), null, used);
+            readIn(pd.getBody(), used);
+            used.removeAll(pd.getParameters());
+            used.remove(pd.getName());
+            accesses.put(pd.getName(), used);
+        }
+        return throughCalls(prodecs, accesses);
+    }
+
+    /**
+     * Adds to the names each procedure uses itself the names used by the
+     * procedures it calls, transitively.
+     *
+     * @param prodecs the procedure declarations of a program
+     * @param own a map from each procedure name to the names it uses itself;
+     *            the sets are extended in place
+     * @return the map
+     */
+    private static Map<String, Set<String>> throughCalls(List<ProcedureDeclaration> prodecs,
+                                                         Map<String, Set<String>> own)
+    {
+        Map<String, Set<String>> callees = new HashMap<String, Set<String>>();
+        for (ProcedureDeclaration pd : prodecs)
+        {
+            Set<String> called = new HashSet<String>();
+            calledIn(pd.getBody(), called);
+            callees.put(pd.getName(), called);
+        }
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            for (ProcedureDeclaration pd : prodecs)
+            {
+                Set<String> names = own.get(pd.getName());
+                for (String callee : callees.get(pd.getName()))
+                {
+                    Set<String> other = own.get(callee);
+                    if (other != null && names.addAll(other))
+                    {
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return own;
+    }
+
+    /**
+     * Adds the variables a statement may assign to the given set.
+     *
+     * @param s the statement to search
+     * @param writes the result of globalWrites, used to include what the
+     *               procedures called by the statement assign; null to
+     *               include only the statement's own assignments
+     * @param assigned receives the assigned names
+     */
+    public static void assignedIn(Statement s, Map<String, Set<String>> writes,
+                                  Set<String> assigned)
+    {
+        if (s instanceof Assignment)
+        {
+            assigned.add(((Assignment) s).getVariable());
+        }
+        if (writes != null)
+        {
+            Set<String> called = new HashSet<String>();
+            calledIn(s, called);
+            for (String name : called)
+            {
+                Set<String> other = writes.get(name);
+                if (other != null)
+                {
+                    assigned.addAll(other);
+                }
+            }
+        }
+        for (Statement child : children(s))
+        {
+            assignedIn(child, null, assigned);
+        }
+    }
+
+    /**
+     * Adds the names of the procedures a statement calls to the given set.
+     *
+     * @param s the statement to search
+     * @param called receives the procedure names
+     */
+    public static void calledIn(Statement s, Set<String> called)
+    {
+        for (Expression e : expressions(s))
+        {
+            calledIn(e, called);
+        }
+        for (Statement child : children(s))
+        {
+            calledIn(child, called);
+        }
+    }
+
+    /**
+     * Adds the names of the procedures an expression calls to the given set.
+     *
+     * @param e the expression to search
+     * @param called receives the procedure names
+     */
+    public static void calledIn(Expression e, Set<String> called)
+    {
+        if (e instanceof ProcedureCall)
+        {
+            called.add(((ProcedureCall) e).getName());
+            for (Expression arg : ((ProcedureCall) e).getArguments())
+            {
+                calledIn(arg, called);
+            }
+        }
+        else if (e instanceof BinOp)
+        {
+            calledIn(((BinOp) e).getLeft(), called);
+            calledIn(((BinOp) e).getRight(), called);
+        }
+        else if (e instanceof Condition)
+        {
+            calledIn(((Condition) e).getLeft(), called);
+            calledIn(((Condition) e).getRight(), called);
+        }
+    }
+
+    /**
+     * Adds the variables a statement reads to the given set.
+     *
+     * @param s the statement to search
+     * @param read receives the names of the variables read
+     */
+    public static void readIn(Statement s, Set<String> read)
+    {
+        for (Expression e : expressions(s))
+        {
+            readIn(e, read);
+        }
+        for (Statement child : children(s))
+        {
+            readIn(child, read);
+        }
+    }
+
+    /**
+     * Adds the variables an expression reads to the given set.
+     *
+     * @param e the expression to search
+     * @param read receives the names of the variables read
+     */
+    public static void readIn(Expression e, Set<String> read)
+    {
+        if (e instanceof Variable)
+        {
+            read.add(((Variable) e).getName());
+        }
+        else if (e instanceof ProcedureCall)
+        {
+            for (Expression arg : ((ProcedureCall) e).getArguments())
+            {
+                readIn(arg, read);
+            }
+        }
+        else if (e instanceof BinOp)
+        {
+            readIn(((BinOp) e).getLeft(), read);
+            readIn(((BinOp) e).getRight(), read);
+        }
+        else if (e instanceof Condition)
+        {
+            readIn(((Condition) e).getLeft(), read);
+            readIn(((Condition) e).getRight(), read);
+        }
+    }
+
+    /**
+     * Checks whether an expression contains a procedure call.
+     *
+     * @param e the expression to search
+     * @return true if e calls a procedure; otherwise, false
+     */
+    public static boolean containsCall(Expression e)
+    {
+        Set<String> called = new HashSet<String>();
+        calledIn(e, called);
+        return !called.isEmpty();
+    }
+
+    /**
+     * Checks whether a statement calls the named procedure.
+     *
+     * @param s the statement to search
+     * @param name the procedure name
+     * @return true if s calls the procedure; otherwise, false
+     */
+    public static boolean calls(Statement s, String name)
+    {
+        Set<String> called = new HashSet<String>();
+        calledIn(s, called);
+        return called.contains(name);
+    }
+
+    /**
+     * Returns the procedures that the main statement can reach through
+     * calls, in the order they are declared.
+     *
+     * @param prodecs the candidate procedure declarations
+     * @param main the main statement of the program
+     * @return the reachable procedure declarations
+     */
+    public static List<ProcedureDeclaration> reachable(List<ProcedureDeclaration> prodecs,
+                                                       Statement main)
+    {
+        Map<String, ProcedureDeclaration> byName = new HashMap<String, ProcedureDeclaration>();
+        for (ProcedureDeclaration pd : prodecs)
+        {
+            byName.put(pd.getName(), pd);
+        }
+        Set<String> seen = new HashSet<String>();
+        Deque<String> work = new ArrayDeque<String>();
+        Set<String> called = new HashSet<String>();
+        calledIn(main, called);
+        work.addAll(called);
+        while (!work.isEmpty())
+        {
+            String name = work.pop();
+            ProcedureDeclaration pd = byName.get(name);
+            if (pd != null && seen.add(name))
+            {
+                called = new HashSet<String>();
+                calledIn(pd.getBody(), called);
+                work.addAll(called);
+            }
+        }
+        List<ProcedureDeclaration> result = new ArrayList<ProcedureDeclaration>();
+        for (ProcedureDeclaration pd : prodecs)
+        {
+            if (seen.contains(pd.getName()))
+            {
+                result.add(pd);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the statements in a list, including nested ones.
+     *
+     * @param statements the statements to count
+     * @return the number of statements
+     */
+    public static int size(List<Statement> statements)
+    {
+        int count = 0;
+        for (Statement s : statements)
+        {
+            count += 1 + size(children(s));
+        }
+        return count;
+    }
+
+    /**
+     * Counts the AST nodes of a statement: itself, the statements nested in
+     * it and all their expressions.
+     *
+     * @param s the statement
+     * @return the number of nodes
+     */
+    public static int nodes(Statement s)
+    {
+        int count = 1;
+        for (Expression e : expressions(s))
+        {
+            count += nodes(e);
+        }
+        for (Statement child : children(s))
+        {
+            count += nodes(child);
+        }
+        return count;
+    }
+
+    /**
+     * Counts the AST nodes of an expression.
+     *
+     * @param e the expression
+     * @return the number of nodes
+     */
+    public static int nodes(Expression e)
+    {
+        int count = 1;
+        if (e instanceof ProcedureCall)
+        {
+            for (Expression arg : ((ProcedureCall) e).getArguments())
+            {
+                count += nodes(arg);
+            }
+        }
+        else if (e instanceof BinOp)
+        {
+            count += nodes(((BinOp) e).getLeft()) + nodes(((BinOp) e).getRight());
+        }
+        else if (e instanceof Condition)
+        {
+            count += nodes(((Condition) e).getLeft()) + nodes(((Condition) e).getRight());
+        }
+        return count;
+    }
+
+    /**
+     * Returns the statements nested directly inside a statement.
+     *
+     * @param s the statement
+     * @return its child statements
+     */
+    public static List<Statement> children(Statement s)
+    {
+        List<Statement> list = new ArrayList<Statement>();
+        if (s instanceof Block)
+        {
+            list.addAll(((Block) s).getStatements());
+        }
+        else if (s instanceof If)
+        {
+            list.add(((If) s).getThen());
+            if (((If) s).getElse() != null)
+            {
+                list.add(((If) s).getElse());
+            }
+        }
+        else if (s instanceof While)
+        {
+            list.add(((While) s).getBody());
+        }
+        list.removeAll(Collections.singleton(null));
+        return list;
+    }
+
+    /**
+     * Returns the expressions that belong directly to a statement.
+     *
+     * @param s the statement
+     * @return its expressions
+     */
+    public static List<Expression> expressions(Statement s)
+    {
+        List<Expression> list = new ArrayList<Expression>();
+        if (s instanceof Assignment)
+        {
+            list.add(((Assignment) s).getExpression());
+        }
+        else if (s instanceof Writeln)
+        {
+            list.add(((Writeln) s).getExpression());
+        }
+        else if (s instanceof If)
+        {
+            list.add(((If) s).getCondition());
+        }
+        else if (s instanceof While)
+        {
+            list.add(((While) s).getCondition());
+        }
+        return list;
+    }
+}
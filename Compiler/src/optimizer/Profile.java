@@ -0,0 +1,521 @@
+package optimizer;
+import ast.*;
+import environment.Recorder;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Profile records how a program behaves in the interpreter and carries that
+ * into the code generator. A Profile is the Recorder of one run: given to the
+ * run's Environment, it counts the true and false outcomes of each Condition
+ * and the calls made at each ProcedureCall; for the condition of a While, the
+ * true outcomes are the loop's trips and the false ones the times it was left.
+ * The counts are kept in the Profile rather than on the nodes, so other runs of
+ * the same program, on other threads, neither count nor disturb them. save
+ * writes the counts to a text file and load puts them on a freshly parsed copy
+ * of the same program, where If, While and ProcedureCall consult them through
+ * the tests below: a then statement that rarely runs is moved out of line, a
+ * hot call to a small leaf procedure is inlined, a hot loop is unrolled once,
+ * and register promotion weighs each variable by how often its uses actually
+ * ran.
+ *
+ * The file has one section for the main statement and one for each
+ * procedure, headed by a checksum of its text, so that the counts of a part
+ * that has been edited since the profile was taken are left out instead of
+ * being applied to the wrong nodes. Within a section each If, While and
+ * ProcedureCall is named by its position in a preorder walk:
+ *
+ *     main 1f3a09c2
+ *     loop 0 1 2000
+ *     branch 1 20 1980
+ *     procedure square 0b77d1e4
+ *     call 2 2000
+ *
+ * lists the entries and trips of a loop, the true and false outcomes of an
+ * If, and the number of times a call was made.
+ *
+ * Counting is not synchronized, so the LoopParallelizer runs no loop of a
+ * recorded run in parallel.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class Profile implements Recorder
+{
+    /**
+     * How often an If must have been reached before its then statement can
+     * be judged cold.
+     */
+    public static final long MIN_SAMPLES = 100;
+
+    /**
+     * The largest share of the time, in percent, that the then statement of
+     * a cold If runs.
+     */
+    public static final int COLD_PERCENT = 10;
+
+    /**
+     * How often a call must have been made to be inlined.
+     */
+    public static final long HOT_CALLS = 1000;
+
+    /**
+     * The largest body, in AST nodes, that is inlined.
+     */
+    public static final int INLINE_NODES = 40;
+
+    /**
+     * How many trips a loop must have made in all to be unrolled.
+     */
+    public static final long HOT_TRIPS = 1000;
+
+    /**
+     * How many trips a loop must make on average each time it is reached to
+     * be unrolled, so that the second copy of the body is usually run.
+     */
+    public static final int UNROLL_TRIPS = 4;
+
+    /**
+     * The largest loop body, in AST nodes, that is unrolled.
+     */
+    public static final int UNROLL_NODES = 40;
+
+    private Map<Condition, long[]> outcomes = new IdentityHashMap<Condition, long[]>();
+    private Map<ProcedureCall, long[]> calls = new IdentityHashMap<ProcedureCall, long[]>();
+
+    /**
+     * Counts the outcome of a condition.
+     *
+     * @param c the condition
+     * @param result 1 if it held; otherwise, 0
+     */
+    public void condition(Condition c, int result)
+    {
+        long[] counts = outcomes.get(c);
+        if (counts == null)
+        {
+            counts = new long[2];
+            outcomes.put(c, counts);
+        }
+        counts[result == 1 ? 0 : 1]++;
+    }
+
+    /**
+     * Counts a call.
+     *
+     * @param call the call
+     */
+    public void call(ProcedureCall call)
+    {
+        long[] count = calls.get(call);
+        if (count == null)
+        {
+            count = new long[1];
+            calls.put(call, count);
+        }
+        count[0]++;
+    }
+
+    /**
+     * Returns how often a condition came out true and false in this run.
+     *
+     * @param c the condition
+     * @return the true and the false outcomes
+     */
+    private long[] counts(Condition c)
+    {
+        long[] counts = outcomes.get(c);
+        return counts != null ? counts : new long[2];
+    }
+
+    /**
+     * Returns how often a call was made in this run.
+     *
+     * @param call the call
+     * @return the number of calls
+     */
+    private long count(ProcedureCall call)
+    {
+        long[] count = calls.get(call);
+        return count != null ? count[0] : 0;
+    }
+
+    /**
+     * Checks whether the then statement of an If is cold: the If was reached
+     * often enough to tell, and its condition seldom held.
+     *
+     * @param c the condition of the If
+     * @return true if the then statement should be moved out of line
+     */
+    public static boolean isCold(Condition c)
+    {
+        long total = c.getTrueCount() + c.getFalseCount();
+        return total >= MIN_SAMPLES && c.getTrueCount() * 100 <= total * COLD_PERCENT;
+    }
+
+    /**
+     * Checks whether a call should be replaced by the body of the procedure:
+     * the call is hot, the body is small, and it calls no procedure, so that
+     * inlining cannot recurse.
+     *
+     * @param call the call
+     * @param callee the procedure it calls
+     * @return true if the body should be emitted in place of the call
+     */
+    public static boolean shouldInline(ProcedureCall call, ProcedureDeclaration callee)
+    {
+        if (call.getCount() < HOT_CALLS)
+        {
+            return false;
+        }
+        Statement body = callee.getBody();
+        Set<String> called = new HashSet<String>();
+        ProcedureAnalysis.calledIn(body, called);
+        return called.isEmpty() && ProcedureAnalysis.nodes(body) <= INLINE_NODES;
+    }
+
+    /**
+     * Checks whether a loop should be unrolled: it made many trips in all,
+     * several each time it was reached, and its body is small.
+     *
+     * @param loop the loop
+     * @return true if the body should be emitted twice
+     */
+    public static boolean shouldUnroll(While loop)
+    {
+        long trips = loop.getCondition().getTrueCount();
+        long entries = Math.max(1, loop.getCondition().getFalseCount());
+        return trips >= HOT_TRIPS && trips >= UNROLL_TRIPS * entries
+            && ProcedureAnalysis.nodes(loop.getBody()) <= UNROLL_NODES;
+    }
+
+    /**
+     * Returns how many times a loop's body is expected to run each time the
+     * loop is reached: the average from the profile, or 10 without one.
+     *
+     * @param c the condition of the loop
+     * @return the expected number of trips
+     */
+    public static double loopWeight(Condition c)
+    {
+        if (c.getTrueCount() + c.getFalseCount() == 0)
+        {
+            return 10;
+        }
+        return (double) c.getTrueCount() / Math.max(1, c.getFalseCount());
+    }
+
+    /**
+     * Returns the share of the times an If is reached that its then
+     * statement runs: the share from the profile, or 1 without one.
+     *
+     * @param c the condition of the If
+     * @return the share, from 0 to 1
+     */
+    public static double branchWeight(Condition c)
+    {
+        long total = c.getTrueCount() + c.getFalseCount();
+        if (total == 0)
+        {
+            return 1;
+        }
+        return (double) c.getTrueCount() / total;
+    }
+
+    /**
+     * Writes the counts of this run to a file.
+     *
+     * @param program the program that ran
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Program program, Path file) throws IOException
+    {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8))
+        {
+            write("main", FragmentCache.describe(program.getStatement()),
+                    sites(program.getStatement()), out);
+            for (ProcedureDeclaration pd : program.getProcedures())
+            {
+                write("procedure " + pd.getName(), FragmentCache.describe(pd),
+                        sites(pd.getBody()), out);
+            }
+        }
+    }
+
+    /**
+     * Reads the counts of a program from a file made by save and puts them on
+     * its nodes, in place of any counts they had, then marks the program as
+     * profiled. Sections whose checksum does not match the program's text
+     * are skipped.
+     *
+     * @param program the program, parsed from the same source as the profiled one
+     * @param file the file to read
+     * @return the parts skipped as stale, such as main or procedure f
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a profile of the program
+     */
+    public static List<String> load(Program program, Path file) throws IOException
+    {
+        Map<String, List<Object>> sites = new HashMap<String, List<Object>>();
+        Map<String, String> checksums = new HashMap<String, String>();
+        sites.put("main", sites(program.getStatement()));
+        checksums.put("main", checksum(FragmentCache.describe(program.getStatement())));
+        for (ProcedureDeclaration pd : program.getProcedures())
+        {
+            sites.put("procedure " + pd.getName(), sites(pd.getBody()));
+            checksums.put("procedure " + pd.getName(), checksum(FragmentCache.describe(pd)));
+        }
+        for (List<Object> list : sites.values())
+        {
+            for (Object site : list)
+            {
+                set(site, 0, 0);
+            }
+        }
+        List<String> stale = new ArrayList<String>();
+        List<Object> unit = null;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+        {
+            String[] words = line.trim().split("\\s+");
+            if (words[0].isEmpty())
+            {
+                continue;
+            }
+            if (words[0].equals("main") || words[0].equals("procedure"))
+            {
+                String name = words[0].equals("main") ? "main" : "procedure " + word(words, 1, line);
+                String checksum = word(words, words.length - 1, line);
+                unit = sites.get(name);
+                if (unit == null || !checksum.equals(checksums.get(name)))
+                {
+                    stale.add(name);
+                    unit = null;
+                }
+                continue;
+            }
+            if (unit == null)
+            {
+                continue;
+            }
+            int index = (int) number(words, 1, line);
+            if (index >= unit.size() || !kind(unit.get(index)).equals(words[0]))
+            {
+                throw new IllegalArgumentException("profile does not match the program: " + line);
+            }
+            if (words[0].equals("loop"))
+            {
+                set(unit.get(index), number(words, 3, line), number(words, 2, line));
+            }
+            else
+            {
+                set(unit.get(index), number(words, 2, line),
+                        words[0].equals("call") ? 0 : number(words, 3, line));
+            }
+        }
+        program.setProfiled(true);
+        return stale;
+    }
+
+    /**
+     * Writes one section of a profile file, leaving out the nodes that were
+     * never reached.
+     *
+     * @param header the first words of the section's header
+     * @param text the text of the part, which the checksum is taken of
+     * @param sites the part's If, While and ProcedureCall nodes in preorder
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    private void write(String header, String text, List<Object> sites, Writer out)
+        throws IOException
+    {
+        out.write(header + " " + checksum(text) + "\n");
+        for (int i = 0; i < sites.size(); i++)
+        {
+            Object site = sites.get(i);
+            if (site instanceof ProcedureCall)
+            {
+                long made = count((ProcedureCall) site);
+                if (made > 0)
+                {
+                    out.write("call " + i + " " + made + "\n");
+                }
+                continue;
+            }
+            long[] counts = counts(site instanceof If ? ((If) site).getCondition()
+                : ((While) site).getCondition());
+            if (counts[0] + counts[1] == 0)
+            {
+                continue;
+            }
+            if (site instanceof If)
+            {
+                out.write("branch " + i + " " + counts[0] + " " + counts[1] + "\n");
+            }
+            else
+            {
+                out.write("loop " + i + " " + counts[1] + " " + counts[0] + "\n");
+            }
+        }
+    }
+
+    /**
+     * Returns the If, While and ProcedureCall nodes of a statement in preorder.
+     *
+     * @param s the statement
+     * @return the nodes
+     */
+    private static List<Object> sites(Statement s)
+    {
+        List<Object> sites = new ArrayList<Object>();
+        collect(s, sites);
+        return sites;
+    }
+
+    /**
+     * Adds the If, While and ProcedureCall nodes of a statement to a list in
+     * preorder.
+     *
+     * @param s the statement
+     * @param sites receives the nodes
+     */
+    private static void collect(Statement s, List<Object> sites)
+    {
+        if (s instanceof If || s instanceof While)
+        {
+            sites.add(s);
+        }
+        for (Expression exp : ProcedureAnalysis.expressions(s))
+        {
+            collect(exp, sites);
+        }
+        for (Statement child : ProcedureAnalysis.children(s))
+        {
+            collect(child, sites);
+        }
+    }
+
+    /**
+     * Adds the ProcedureCall nodes of an expression to a list in preorder.
+     *
+     * @param exp the expression
+     * @param sites receives the nodes
+     */
+    private static void collect(Expression exp, List<Object> sites)
+    {
+        if (exp instanceof BinOp)
+        {
+            collect(((BinOp) exp).getLeft(), sites);
+            collect(((BinOp) exp).getRight(), sites);
+        }
+        else if (exp instanceof Condition)
+        {
+            collect(((Condition) exp).getLeft(), sites);
+            collect(((Condition) exp).getRight(), sites);
+        }
+        else if (exp instanceof ProcedureCall)
+        {
+            sites.add(exp);
+            for (Expression arg : ((ProcedureCall) exp).getArguments())
+            {
+                collect(arg, sites);
+            }
+        }
+    }
+
+    /**
+     * Returns the word a profile file uses for a kind of node.
+     *
+     * @param site an If, While or ProcedureCall
+     * @return branch, loop or call
+     */
+    private static String kind(Object site)
+    {
+        if (site instanceof If)
+        {
+            return "branch";
+        }
+        return site instanceof While ? "loop" : "call";
+    }
+
+    /**
+     * Sets the counts of a node.
+     *
+     * @param site an If, While or ProcedureCall
+     * @param first the true outcomes of its condition, or its number of calls
+     * @param second the false outcomes of its condition; ignored for a call
+     */
+    private static void set(Object site, long first, long second)
+    {
+        if (site instanceof ProcedureCall)
+        {
+            ((ProcedureCall) site).setCount(first);
+        }
+        else if (site instanceof If)
+        {
+            ((If) site).getCondition().setCounts(first, second);
+        }
+        else
+        {
+            ((While) site).getCondition().setCounts(first, second);
+        }
+    }
+
+    /**
+     * Returns a checksum of the text of a part of a program.
+     *
+     * @param text the text, from FragmentCache.describe
+     * @return the checksum, eight hexadecimal digits
+     */
+    private static String checksum(String text)
+    {
+        return String.format("%08x", text.hashCode());
+    }
+
+    /**
+     * Returns one word of a line of a profile file.
+     *
+     * @param words the words of the line
+     * @param i the index of the word
+     * @param line the line, for the error message
+     * @return the word
+     * @throws IllegalArgumentException if the line is too short
+     */
+    private static String word(String[] words, int i, String line)
+    {
+        if (i < 1 || i >= words.length)
+        {
+            throw new IllegalArgumentException("bad profile line: " + line);
+        }
+        return words[i];
+    }
+
+    /**
+     * Returns one word of a line of a profile file as a count.
+     *
+     * @param words the words of the line
+     * @param i the index of the word
+     * @param line the line, for the error message
+     * @return the count
+     * @throws IllegalArgumentException if the word is missing or not a count
+     */
+    private static long number(String[] words, int i, String line)
+    {
+        try
+        {
+            long n = Long.parseLong(word(words, i, line));
+            if (n < 0)
+            {
+                throw new NumberFormatException();
+            }
+            return n;
+        }
+        catch (NumberFormatException ex)
+        {
+            throw new IllegalArgumentException("bad profile line: " + line);
+        }
+    }
+}
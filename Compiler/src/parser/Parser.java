@@ -1,9 +1,12 @@
 package parser;
 import ast.*;
+import events.Phase;
+import optimizer.ProcedureAnalysis;
 import scanner.Scanner;
 import scanner.ScannerTester;
 import scanner.ScanErrorException;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
 import java.util.Map;
 import java.util.HashMap;
 /**
@@ -19,6 +22,7 @@ public class Parser
     private String currentToken;
 
     private Map<String, Integer> map;
+    private boolean lazy;
 
 
     /**
@@ -34,6 +38,21 @@ public class Parser
 
     }
 
+    /**
+     * Constructs a parser based on the given scanner that can leave the
+     * BEGIN ... END bodies of procedures unparsed until they are first called.
+     * Lazy parsing needs the source text, so it only applies to scanners
+     * constructed from a String; other scanners are parsed eagerly.
+     *
+     * @param scanner the given scanner
+     * @param lazy true to skip procedure bodies in parseProgram
+     */
+    public Parser(Scanner scanner, boolean lazy) throws ScanErrorException
+    {
+        this(scanner);
+        this.lazy = lazy && scanner.getSource() != null;
+    }
+
     /**
      * Consumes the next token after checking if the current token matches the next
      * 
@@ -296,11 +315,97 @@ public class Parser
      * given in the body of text after a "PROCEDURE" token and VAR token. Continues parsing
      * tokens as long as the current token is "PROCEDURE" or VAR. Returns
      * a Program object made with the list of VARs, ProcedureDeclarations, and
-     * parsed statement.
+     * parsed statement. In lazy mode the BEGIN ... END body of each procedure
+     * is only skipped over and stored as a range of the source.
+     * Commits a scan and a parse phase event when they are being recorded.
      *
      * @return the created Program object
      */
     public Program parseProgram() throws ScanErrorException
+    {
+        Phase scan = Phase.start(Phase.SCAN, null);
+        Phase parse = Phase.start(Phase.PARSE, null);
+        boolean timed = parse.isRecorded() || scan.isRecorded();
+        scanner.setTimed(timed);
+        Program program = parseProgramBody();
+        scanner.setTimed(false);
+        if (timed)
+        {
+            long nodes = 1 + ProcedureAnalysis.nodes(program.getStatement());
+            for (ProcedureDeclaration pd : program.getProcedures())
+            {
+                nodes += 1 + (pd.isParsed() ? ProcedureAnalysis.nodes(pd.getBody()) : 0);
+            }
+            parse.setTokens(scanner.getTokenCount());
+            parse.setNodes(nodes);
+            parse.exclude(scanner.getScanTime(), scanner.getScanAllocated());
+            parse.finish();
+            scan.setTokens(scanner.getTokenCount());
+            scan.finish(scanner.getScanTime(), scanner.getScanAllocated());
+        }
+        return program;
+    }
+
+    /**
+     * Parses a whole program for parseProgram.
+     *
+     * @return the created Program object
+     */
+    private Program parseProgramBody() throws ScanErrorException
+    {
+        List<String> vars = parseVariables();
+        List<ProcedureDeclaration> pd = new ArrayList<ProcedureDeclaration>();
+        while(currentToken.equals("PROCEDURE"))
+        {
+            pd.add(parseProcedure());
+        }
+        Statement stmt = parseStatement();
+        return new Program(vars, pd, stmt);
+    }
+
+    /**
+     * Parses a program for a streaming interpreter, handing each piece to
+     * the queue as soon as it is parsed: first every procedure declaration,
+     * then the main statement, or each statement of it separately if it is a
+     * BEGIN ... END block. Since declarations come first, a consumer that
+     * executes the pieces in order has declared every procedure before any
+     * statement can call it. The VAR list is read and dropped, since the
+     * interpreter declares variables as they are assigned.
+     *
+     * @param out receives the procedure declarations and statements
+     * @throws InterruptedException if interrupted while waiting for room
+     *         in the queue
+     */
+    public void parseProgram(BlockingQueue<Statement> out)
+        throws ScanErrorException, InterruptedException
+    {
+        parseVariables();
+        while(currentToken.equals("PROCEDURE"))
+        {
+            out.put(parseProcedure());
+        }
+        if(currentToken.equals("BEGIN"))
+        {
+            eat("BEGIN");
+            while(!currentToken.equals("END"))
+            {
+                out.put(parseStatement());
+            }
+            eat("END");
+            eat(";");
+        }
+        else
+        {
+            out.put(parseStatement());
+        }
+    }
+
+    /**
+     * Parses the VAR lists at the start of a program.
+     *
+     * @return the variable names
+     */
+    private List<String> parseVariables() throws ScanErrorException
     {
         ArrayList<String> vars = new ArrayList<String>();
         while(currentToken.equals("VAR"))
@@ -317,29 +422,43 @@ public class Parser
             }
             eat(";");
         }
-        List<ProcedureDeclaration> pd = new ArrayList<ProcedureDeclaration>();
-        while(currentToken.equals("PROCEDURE"))
+        return vars;
+    }
+
+    /**
+     * Parses one procedure declaration, starting at its PROCEDURE token.
+     * In lazy mode its BEGIN ... END body is only skipped over.
+     *
+     * @return the procedure declaration
+     */
+    private ProcedureDeclaration parseProcedure() throws ScanErrorException
+    {
+        eat("PROCEDURE");
+        String name = currentToken;
+        eat(name);
+        eat("(");
+        ArrayList<String> params = new ArrayList();
+        while(!currentToken.equals(")"))
         {
-            eat("PROCEDURE");
-            String name = currentToken;
-            eat(name);
-            eat("(");
-            ArrayList<String> params = new ArrayList();
-            while(!currentToken.equals(")"))
+            String newparam = currentToken;
+            eat(newparam);
+            params.add(newparam);
+            if(currentToken.equals(","))
             {
-                String newparam = currentToken;
-                eat(newparam);
-                params.add(newparam);
-                if(currentToken.equals(","))
-                {
-                    eat(",");
-                }
+                eat(",");
             }
-            eat(")");
+        }
+        eat(")");
+        eat(";");
+        if(lazy && currentToken.equals("BEGIN"))
+        {
+            int start = scanner.getTokenStart();
+            scanner.skipBlock();
+            currentToken = scanner.nextToken();
+            int end = scanner.getPosition();
             eat(";");
-            pd.add(new ProcedureDeclaration(name, parseStatement(), params));
+            return new ProcedureDeclaration(name, params, scanner.getSource(), start, end);
         }
-        Statement stmt = parseStatement();
-        return new Program(vars, pd, stmt);
+        return new ProcedureDeclaration(name, parseStatement(), params);
     }
 }
@@ -1,4 +1,5 @@
 package scanner;
+import events.Phase;
 import java.io.*;
 
 /**
@@ -20,6 +21,13 @@ public class Scanner
     private BufferedReader in;
     private char currentChar;
     private boolean eof;
+    private String source;
+    private int charsRead;
+    private int tokenStart;
+    private int tokens;
+    private boolean timed;
+    private long scanTime;
+    private long scanAllocated;
     /**
      * Scanner constructor for construction of a scanner that 
      * uses an InputStream object for input.  
@@ -40,6 +48,7 @@ public class Scanner
      * Scanner constructor for constructing a scanner that
      * scans a given input string.  It sets the end-of-file flag an then reads
      * the first character of the input string into the instance field currentChar.
+     * The string is kept so that parts of it can be scanned again later.
      * Usage: Scanner lex = new Scanner(input_string);
      *
      * @param inString the string to scan
@@ -47,6 +56,7 @@ public class Scanner
     public Scanner(String inString)
     {
         in = new BufferedReader(new StringReader(inString));
+        source = inString;
         eof = false;
         getNextChar();
     }
@@ -63,7 +73,10 @@ public class Scanner
             if(inp == -1)
                 eof = true;
             else
+            {
                 currentChar = (char) inp;
+                charsRead++;
+            }
         }
         catch (IOException e)
         {
@@ -99,6 +112,78 @@ public class Scanner
         return !eof;
     }
 
+    /**
+     * Returns the string this scanner was constructed with.
+     *
+     * @return the scanned string, or null if the scanner reads an InputStream
+     */
+    public String getSource()
+    {
+        return source;
+    }
+
+    /**
+     * Returns the offset of currentChar in the input, which is the offset
+     * just past the last token returned.
+     *
+     * @return the number of characters before currentChar
+     */
+    public int getPosition()
+    {
+        if (eof)
+            return charsRead;
+        return charsRead - 1;
+    }
+
+    /**
+     * Returns the offset in the input of the first character of the last
+     * token returned by nextToken.
+     *
+     * @return the start offset of the last token
+     */
+    public int getTokenStart()
+    {
+        return tokenStart;
+    }
+
+    /**
+     * Method: skipBlock
+     * Skips the rest of a BEGIN ... END block without building tokens, right
+     * after nextToken has returned its BEGIN. Only runs of letters are looked
+     * at, counting nested BEGINs against ENDs, so the input is passed over one
+     * character at a time. Stops just after the END that closes the block.
+     *
+     * @throws ScanErrorException if the input ends before the block is closed
+     */
+    public void skipBlock() throws ScanErrorException
+    {
+        int depth = 1;
+        while (depth > 0)
+        {
+            if (eof)
+                throw new ScanErrorException("END was expected before the end of the input");
+            if (isLetter(currentChar))
+            {
+                int length = 0;
+                boolean begin = true;
+                boolean end = true;
+                while (!eof && isLetter(currentChar))
+                {
+                    begin = begin && length < 5 && "BEGIN".charAt(length) == currentChar;
+                    end = end && length < 3 && "END".charAt(length) == currentChar;
+                    length++;
+                    getNextChar();
+                }
+                if (begin && length == 5)
+                    depth++;
+                else if (end && length == 3)
+                    depth--;
+            }
+            else
+                getNextChar();
+        }
+    }
+
     /**
      * Removes white spaces from the input until the end of the file or
      * the next non-whitespace character is reached, whichever comes first.
@@ -127,11 +212,81 @@ public class Scanner
      * the language used in this lab
      */
     public String nextToken() throws ScanErrorException
+    {
+        tokens++;
+        if (!timed)
+        {
+            return scanToken();
+        }
+        long time = System.nanoTime();
+        long allocated = Phase.allocatedBytes();
+        try
+        {
+            return scanToken();
+        }
+        finally
+        {
+            scanTime += System.nanoTime() - time;
+            scanAllocated += Phase.allocatedBytes() - allocated;
+        }
+    }
+
+    /**
+     * Sets whether nextToken measures the time it takes and the bytes it
+     * allocates, for the scan phase event. Measuring costs about as much as
+     * scanning, so it is only turned on while the event is being recorded.
+     *
+     * @param timed true to measure from now on
+     */
+    public void setTimed(boolean timed)
+    {
+        this.timed = timed;
+    }
+
+    /**
+     * Returns the number of tokens returned so far.
+     *
+     * @return the number of tokens
+     */
+    public int getTokenCount()
+    {
+        return tokens;
+    }
+
+    /**
+     * Returns the time nextToken has taken while timed.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getScanTime()
+    {
+        return scanTime;
+    }
+
+    /**
+     * Returns the bytes nextToken has allocated while timed.
+     *
+     * @return the bytes allocated
+     */
+    public long getScanAllocated()
+    {
+        return scanAllocated;
+    }
+
+    /**
+     * Scans the next token for nextToken.
+     *
+     * @return the next token as a String
+     * @throws ScanErrorException if the next token is not defined over
+     * the language used in this lab
+     */
+    private String scanToken() throws ScanErrorException
     {
         try
         {
             if(!removeWhiteSpace())
                 return "EOF";
+            tokenStart = getPosition();
 /**
             // remove single-line comments
             while (currentChar == '/')
@@ -0,0 +1,160 @@
+package script;
+import ast.Program;
+import environment.Environment;
+import java.io.*;
+import java.util.*;
+import javax.script.*;
+
+/**
+ * A CompiledProgram is a script that a ProgramEngine has parsed, ready to be
+ * evaluated any number of times, on any number of threads. Each evaluation
+ * runs in an Environment of its own, while the parsed procedures and the loop
+ * analyses of the interpreter are kept and shared between evaluations.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class CompiledProgram extends CompiledScript
+{
+    private ProgramEngine engine;
+    private Program program;
+
+    /**
+     * Passes the bytes WRITELN prints on to a Writer. WRITELN only prints
+     * digits, minus signs and line separators, so each byte is a character.
+     */
+    private static class WriterOutputStream extends OutputStream
+    {
+        private Writer writer;
+
+        /**
+         * Constructs a WriterOutputStream.
+         *
+         * @param writer the writer to pass the output to
+         */
+        WriterOutputStream(Writer writer)
+        {
+            this.writer = writer;
+        }
+
+        /**
+         * Writes one byte as a character.
+         *
+         * @param b the byte
+         * @throws IOException if the writer fails
+         */
+        @Override
+        public void write(int b) throws IOException
+        {
+            writer.write(b & 0xff);
+        }
+
+        /**
+         * Flushes the writer.
+         *
+         * @throws IOException if the writer fails
+         */
+        @Override
+        public void flush() throws IOException
+        {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Constructs a CompiledProgram.
+     *
+     * @param engine the engine that compiled it
+     * @param program the parsed program
+     */
+    CompiledProgram(ProgramEngine engine, Program program)
+    {
+        this.engine = engine;
+        this.program = program;
+    }
+
+    /**
+     * Runs the program. Numbers bound in the context's global and engine
+     * scopes, the engine scope winning, are assigned to variables of the same
+     * name first; afterwards the values of the VAR variables and of the bound
+     * variables are put into the engine scope as Integers.
+     *
+     * @param context the bindings and writer to use
+     * @return null, since programs have no value
+     * @throws ScriptException if the program fails
+     */
+    public Object eval(ScriptContext context) throws ScriptException
+    {
+        Environment env = new Environment();
+        Set<String> bound = new LinkedHashSet<String>();
+        bind(context.getBindings(ScriptContext.GLOBAL_SCOPE), env, bound);
+        bind(context.getBindings(ScriptContext.ENGINE_SCOPE), env, bound);
+        PrintStream out = new PrintStream(new WriterOutputStream(context.getWriter()), true);
+        env.setOutput(out);
+        try
+        {
+            program.exec(env);
+        }
+        catch (RuntimeException | StackOverflowError ex)
+        {
+            throw new ScriptException(ex.getMessage() != null ? ex.getMessage()
+                    : ex.toString());
+        }
+        finally
+        {
+            out.flush();
+        }
+        Bindings results = context.getBindings(ScriptContext.ENGINE_SCOPE);
+        Set<String> names = new LinkedHashSet<String>(program.getVariableNames());
+        names.addAll(bound);
+        for (String name : names)
+        {
+            if (env.hasVariable(name))
+            {
+                results.put(name, env.getVariable(name));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Assigns the numbers in some bindings to variables. True and false are
+     * taken as 1 and 0, the way conditions evaluate; other values are left
+     * out.
+     *
+     * @param bindings the bindings, or null
+     * @param env the environment to assign the variables in
+     * @param bound receives the names of the variables assigned
+     */
+    private static void bind(Bindings bindings, Environment env, Set<String> bound)
+    {
+        if (bindings == null)
+        {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : bindings.entrySet())
+        {
+            Object value = entry.getValue();
+            if (value instanceof java.lang.Number)
+            {
+                env.declareVariable(entry.getKey(), ((java.lang.Number) value).intValue());
+                bound.add(entry.getKey());
+            }
+            else if (value instanceof Boolean)
+            {
+                env.declareVariable(entry.getKey(), (Boolean) value ? 1 : 0);
+                bound.add(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Returns the engine that compiled this script.
+     *
+     * @return the engine
+     */
+    public ScriptEngine getEngine()
+    {
+        return engine;
+    }
+}
@@ -0,0 +1,154 @@
+package script;
+import ast.Program;
+import parser.Parser;
+import scanner.ScanErrorException;
+import scanner.Scanner;
+import java.io.*;
+import javax.script.*;
+
+/**
+ * The ProgramEngine runs programs through javax.script, so that a service
+ * can embed the interpreter without wiring up the Scanner, Parser and
+ * Environment itself. It is Compilable: compile scans and parses a script
+ * once into a CompiledProgram that can be evaluated any number of times, and
+ * eval compiles and then evaluates. Compiled scripts are kept in the cache of
+ * the ProgramEngineFactory, so compiling a script seen before costs only a
+ * lookup.
+ *
+ * Numbers in the engine and global bindings become the values of variables
+ * of the same name before the script runs, and the script's VAR variables and
+ * bound variables are put back into the engine bindings when it finishes.
+ * WRITELN prints to the context's writer.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class ProgramEngine extends AbstractScriptEngine implements Compilable
+{
+    private ProgramEngineFactory factory;
+
+    /**
+     * Constructs a ProgramEngine with a cache of its own.
+     */
+    public ProgramEngine()
+    {
+        this(new ProgramEngineFactory());
+    }
+
+    /**
+     * Constructs a ProgramEngine.
+     *
+     * @param factory the factory that made it, whose cache it uses
+     */
+    public ProgramEngine(ProgramEngineFactory factory)
+    {
+        this.factory = factory;
+    }
+
+    /**
+     * Compiles a script, or takes it from the cache. The parsed program is
+     * kept as it is, not partially evaluated, so that it runs exactly as the
+     * interpreter would run it.
+     *
+     * @param script the text of the script
+     * @return the compiled script
+     * @throws ScriptException if the script cannot be scanned or parsed
+     */
+    public CompiledScript compile(String script) throws ScriptException
+    {
+        Program program = factory.lookUp(script);
+        if (program == null)
+        {
+            try
+            {
+                program = new Parser(new Scanner(script)).parseProgram();
+            }
+            catch (ScanErrorException | RuntimeException ex)
+            {
+                throw new ScriptException(ex.getMessage() != null ? ex.getMessage()
+                        : ex.toString());
+            }
+            factory.store(script, program);
+        }
+        return new CompiledProgram(this, program);
+    }
+
+    /**
+     * Reads a script and compiles it.
+     *
+     * @param script the reader of the script
+     * @return the compiled script
+     * @throws ScriptException if the script cannot be read, scanned or parsed
+     */
+    public CompiledScript compile(Reader script) throws ScriptException
+    {
+        return compile(read(script));
+    }
+
+    /**
+     * Compiles a script and evaluates it.
+     *
+     * @param script the text of the script
+     * @param context the bindings and writer to use
+     * @return null, since programs have no value; results are in the bindings
+     * @throws ScriptException if the script cannot be compiled or fails
+     */
+    public Object eval(String script, ScriptContext context) throws ScriptException
+    {
+        return compile(script).eval(context);
+    }
+
+    /**
+     * Reads a script, compiles it and evaluates it.
+     *
+     * @param reader the reader of the script
+     * @param context the bindings and writer to use
+     * @return null, since programs have no value; results are in the bindings
+     * @throws ScriptException if the script cannot be read or compiled, or fails
+     */
+    public Object eval(Reader reader, ScriptContext context) throws ScriptException
+    {
+        return eval(read(reader), context);
+    }
+
+    /**
+     * Returns new, empty bindings.
+     *
+     * @return the bindings
+     */
+    public Bindings createBindings()
+    {
+        return new SimpleBindings();
+    }
+
+    /**
+     * Returns the factory that made this engine.
+     *
+     * @return the factory
+     */
+    public ScriptEngineFactory getFactory()
+    {
+        return factory;
+    }
+
+    /**
+     * Reads the whole of a script.
+     *
+     * @param reader the reader of the script
+     * @return the text
+     * @throws ScriptException if reading fails
+     */
+    private static String read(Reader reader) throws ScriptException
+    {
+        StringWriter text = new StringWriter();
+        try
+        {
+            reader.transferTo(text);
+        }
+        catch (IOException ex)
+        {
+            throw new ScriptException(ex);
+        }
+        return text.toString();
+    }
+}
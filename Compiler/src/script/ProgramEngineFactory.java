@@ -0,0 +1,266 @@
+package script;
+import ast.Program;
+import java.util.*;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+
+/**
+ * The ProgramEngineFactory makes the ProgramEngines that javax.script finds
+ * under the names pascal-lab and pascallab, or the extension txt. Its engines
+ * share a cache of compiled scripts, so a script that several engines run
+ * again and again is only scanned and parsed once. The cache is keyed by the
+ * source text and drops the least recently used script past a fixed number.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class ProgramEngineFactory implements ScriptEngineFactory
+{
+    /**
+     * The number of compiled scripts kept by default.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final List<String> NAMES =
+        Collections.unmodifiableList(Arrays.asList("pascal-lab", "pascallab"));
+    private static final List<String> EXTENSIONS =
+        Collections.unmodifiableList(Arrays.asList("txt"));
+
+    private Map<String, Program> cache;
+    private int hits;
+    private int misses;
+
+    /**
+     * Constructs a ProgramEngineFactory with the default cache capacity.
+     * This is the constructor javax.script calls.
+     */
+    public ProgramEngineFactory()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a ProgramEngineFactory.
+     *
+     * @param capacity the number of compiled scripts kept, or 0 for none
+     */
+    public ProgramEngineFactory(final int capacity)
+    {
+        cache = new LinkedHashMap<String, Program>(16, 0.75f, true)
+        {
+            protected boolean removeEldestEntry(Map.Entry<String, Program> eldest)
+            {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the compiled program of a script, if it is in the cache.
+     *
+     * @param source the text of the script
+     * @return the program, or null if it has to be parsed
+     */
+    synchronized Program lookUp(String source)
+    {
+        Program program = cache.get(source);
+        if (program != null)
+        {
+            hits++;
+        }
+        else
+        {
+            misses++;
+        }
+        return program;
+    }
+
+    /**
+     * Adds the compiled program of a script to the cache.
+     *
+     * @param source the text of the script
+     * @param program the program
+     */
+    synchronized void store(String source, Program program)
+    {
+        cache.put(source, program);
+    }
+
+    /**
+     * Returns how many compiles found their script in the cache.
+     *
+     * @return the number of hits
+     */
+    public synchronized int getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * Returns how many compiles had to parse their script.
+     *
+     * @return the number of misses
+     */
+    public synchronized int getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * Returns the name of the engine.
+     *
+     * @return the name
+     */
+    public String getEngineName()
+    {
+        return "Pascal lab interpreter";
+    }
+
+    /**
+     * Returns the version of the engine.
+     *
+     * @return the version
+     */
+    public String getEngineVersion()
+    {
+        return "1.0";
+    }
+
+    /**
+     * Returns the file extensions of scripts.
+     *
+     * @return the extensions
+     */
+    public List<String> getExtensions()
+    {
+        return EXTENSIONS;
+    }
+
+    /**
+     * Returns the MIME types of scripts, of which there are none.
+     *
+     * @return an empty list
+     */
+    public List<String> getMimeTypes()
+    {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the names the engine can be looked up by.
+     *
+     * @return the names
+     */
+    public List<String> getNames()
+    {
+        return NAMES;
+    }
+
+    /**
+     * Returns the name of the language.
+     *
+     * @return the name
+     */
+    public String getLanguageName()
+    {
+        return "Pascal lab";
+    }
+
+    /**
+     * Returns the version of the language.
+     *
+     * @return the version
+     */
+    public String getLanguageVersion()
+    {
+        return "1.0";
+    }
+
+    /**
+     * Returns the value of one of the standard ScriptEngine keys. Scripts may
+     * run on several threads at once, since each evaluation has its own
+     * environment.
+     *
+     * @param key the key
+     * @return the value, or null for an unknown key
+     */
+    public Object getParameter(String key)
+    {
+        if (key.equals(ScriptEngine.ENGINE))
+        {
+            return getEngineName();
+        }
+        if (key.equals(ScriptEngine.ENGINE_VERSION))
+        {
+            return getEngineVersion();
+        }
+        if (key.equals(ScriptEngine.NAME))
+        {
+            return NAMES.get(0);
+        }
+        if (key.equals(ScriptEngine.LANGUAGE))
+        {
+            return getLanguageName();
+        }
+        if (key.equals(ScriptEngine.LANGUAGE_VERSION))
+        {
+            return getLanguageVersion();
+        }
+        if (key.equals("THREADING"))
+        {
+            return "MULTITHREADED";
+        }
+        return null;
+    }
+
+    /**
+     * Returns an expression that calls a procedure. The language has no
+     * objects, so the object is left out.
+     *
+     * @param obj the name of the object, which is ignored
+     * @param m the name of the procedure
+     * @param args the arguments
+     * @return the call
+     */
+    public String getMethodCallSyntax(String obj, String m, String... args)
+    {
+        return m + "(" + String.join(", ", args) + ")";
+    }
+
+    /**
+     * Returns a statement that prints an expression.
+     *
+     * @param toDisplay the expression
+     * @return the statement
+     */
+    public String getOutputStatement(String toDisplay)
+    {
+        return "WRITELN(" + toDisplay + ");";
+    }
+
+    /**
+     * Returns a program that runs the given statements in order.
+     *
+     * @param statements the statements, each ending in a semicolon
+     * @return the program
+     */
+    public String getProgram(String... statements)
+    {
+        StringBuilder sb = new StringBuilder("BEGIN\n");
+        for (String s : statements)
+        {
+            sb.append(s).append('\n');
+        }
+        return sb.append("END;\n.\n").toString();
+    }
+
+    /**
+     * Returns a new engine that shares this factory's cache.
+     *
+     * @return the engine
+     */
+    public ScriptEngine getScriptEngine()
+    {
+        return new ProgramEngine(this);
+    }
+}
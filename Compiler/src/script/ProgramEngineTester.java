@@ -0,0 +1,178 @@
+package script;
+import ast.Program;
+import bench.ProgramGenerator;
+import environment.Environment;
+import parser.Parser;
+import scanner.Scanner;
+import scanner.ScanErrorException;
+import java.io.*;
+import javax.script.*;
+
+/**
+ * Tests that the ProgramEngine runs programs exactly as the interpreter does.
+ * Each program is run in the interpreter and twice through the engine, the
+ * second time from its cache, and what it printed, whether it failed and the
+ * final values of its VAR variables must agree. The programs are a few written
+ * out below and programs made by the ProgramGenerator from a range of seeds,
+ * half of them with recursion.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class ProgramEngineTester
+{
+    private static final String[] PROGRAMS = {
+        "VAR n, r;\n"
+            + "PROCEDURE g(x);\n"
+            + "BEGIN\n"
+            + "   n := x;\n"
+            + "   g := 0;\n"
+            + "END;\n"
+            + "PROCEDURE f(n);\n"
+            + "BEGIN\n"
+            + "   f := g(7);\n"
+            + "   f := f + n;\n"
+            + "END;\n"
+            + "BEGIN\n"
+            + "   n := 1;\n"
+            + "   r := f(3);\n"
+            + "   WRITELN(r);\n"
+            + "   WRITELN(n);\n"
+            + "END;\n.\n",
+        "VAR r;\n"
+            + "PROCEDURE rec(n);\n"
+            + "BEGIN\n"
+            + "   rec := 0;\n"
+            + "   IF n > 0 THEN rec := rec(n - 1) + 2;\n"
+            + "END;\n"
+            + "BEGIN\n"
+            + "   r := rec(5);\n"
+            + "   WRITELN(r);\n"
+            + "END;\n.\n",
+    };
+
+    /**
+     * Runs every test and prints each one that fails.
+     *
+     * @param args optionally, the number of generated programs to test
+     * @throws ScanErrorException if a program cannot be scanned
+     */
+    public static void main(String[] args) throws ScanErrorException
+    {
+        int seeds = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        ScriptEngine engine = new ProgramEngineFactory().getScriptEngine();
+        int failed = 0;
+        for (int i = 0; i < PROGRAMS.length; i++)
+        {
+            failed += test("program " + (i + 1), PROGRAMS[i], engine);
+        }
+        for (int seed = 1; seed <= seeds; seed++)
+        {
+            String source = new ProgramGenerator(4096, 4, 3, 10, seed % 2 == 0 ? 0 : 20,
+                    seed).generate();
+            failed += test("seed " + seed, source, engine);
+        }
+        int total = PROGRAMS.length + seeds;
+        System.out.println((total - failed) + " of " + total + " passed");
+        if (failed > 0)
+        {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs one program in the interpreter and through the engine and compares
+     * the runs.
+     *
+     * @param name what to call the program in messages
+     * @param source the program
+     * @param engine the engine to run it through
+     * @return 0 if the runs agreed; otherwise, 1
+     * @throws ScanErrorException if the program cannot be scanned
+     */
+    private static int test(String name, String source, ScriptEngine engine)
+        throws ScanErrorException
+    {
+        Program program = new Parser(new Scanner(source)).parseProgram();
+        String expected = interpret(program);
+        for (int run = 1; run <= 2; run++)
+        {
+            String actual = evaluate(source, program, engine);
+            if (!expected.equals(actual))
+            {
+                System.out.println("FAIL " + name + " on run " + run + "\nexpected:\n"
+                        + expected + "actual:\n" + actual);
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Runs a program in the interpreter and describes what it did.
+     *
+     * @param program the program
+     * @return what the program printed, whether it failed and the final values
+     *         of its VAR variables
+     */
+    private static String interpret(Program program)
+    {
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        Environment env = new Environment();
+        env.setOutput(new PrintStream(printed, true));
+        String failure = "";
+        try
+        {
+            program.exec(env);
+        }
+        catch (RuntimeException | StackOverflowError ex)
+        {
+            failure = "failed\n";
+        }
+        StringBuilder sb = new StringBuilder(printed.toString()).append(failure);
+        for (String variable : program.getVariableNames())
+        {
+            if (env.hasVariable(variable))
+            {
+                sb.append(variable).append(" = ").append(env.getVariable(variable)).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Runs a program through the engine and describes what it did.
+     *
+     * @param source the program
+     * @param program the program as parsed, for the names of its VAR variables
+     * @param engine the engine
+     * @return what the program printed, whether it failed and the final values
+     *         of its VAR variables
+     */
+    private static String evaluate(String source, Program program, ScriptEngine engine)
+    {
+        StringWriter printed = new StringWriter();
+        ScriptContext context = new SimpleScriptContext();
+        context.setWriter(printed);
+        context.setBindings(engine.createBindings(), ScriptContext.ENGINE_SCOPE);
+        String failure = "";
+        try
+        {
+            engine.eval(source, context);
+        }
+        catch (ScriptException ex)
+        {
+            failure = "failed\n";
+        }
+        StringBuilder sb = new StringBuilder(printed.toString()).append(failure);
+        Bindings results = context.getBindings(ScriptContext.ENGINE_SCOPE);
+        for (String variable : program.getVariableNames())
+        {
+            if (results.containsKey(variable))
+            {
+                sb.append(variable).append(" = ").append(results.get(variable)).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,123 @@
+package server;
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * The CompileClient sends one Request to a running CompileServer and prints
+ * the response: what the program printed goes to standard output and an
+ * error to standard error. It does no work of its own, so it starts quickly.
+ *
+ * Usage: java server.CompileClient [-s socket] [-m mode] [-t target] [-O ast|ir]
+ * [-o output] file, where mode is compile (the default), interpret, both or
+ * shutdown, and a file of - sends standard input as the source text.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class CompileClient
+{
+    /**
+     * Sends a request over a socket and waits for the response.
+     *
+     * @param socket the path of the server's socket
+     * @param request the request
+     * @return the response
+     * @throws IOException if the server cannot be reached
+     */
+    public static Response send(String socket, Request request) throws IOException
+    {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX))
+        {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel)));
+            request.write(out);
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel)));
+            return Response.read(in);
+        }
+    }
+
+    /**
+     * Sends the request given on the command line and exits with status 1
+     * if it failed.
+     *
+     * @param args the options and the source file
+     * @throws IOException if the server cannot be reached or standard input
+     *         cannot be read
+     */
+    public static void main(String[] args) throws IOException
+    {
+        String socket = CompileServer.DEFAULT_SOCKET;
+        String mode = Request.COMPILE;
+        String target = "mips";
+        String backEnd = Request.AST;
+        String output = null;
+        String file = null;
+        for (int i = 0; i < args.length; i++)
+        {
+            if (args[i].equals("-s") && i + 1 < args.length)
+            {
+                socket = args[++i];
+            }
+            else if (args[i].equals("-m") && i + 1 < args.length)
+            {
+                mode = args[++i];
+            }
+            else if (args[i].equals("-t") && i + 1 < args.length)
+            {
+                target = args[++i];
+            }
+            else if (args[i].equals("-O") && i + 1 < args.length)
+            {
+                backEnd = args[++i];
+            }
+            else if (args[i].equals("-o") && i + 1 < args.length)
+            {
+                output = args[++i];
+            }
+            else
+            {
+                file = args[i];
+            }
+        }
+        if (file == null && !mode.equals(Request.SHUTDOWN))
+        {
+            System.err.println("usage: CompileClient [-s socket] [-m mode] [-t target]"
+                    + " [-O ast|ir] [-o output] file");
+            System.exit(2);
+        }
+        String path = "";
+        String source = null;
+        if ("-".equals(file))
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            System.in.transferTo(bytes);
+            source = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+        else if (file != null)
+        {
+            path = Paths.get(file).toAbsolutePath().toString();
+        }
+        if (output == null)
+        {
+            output = file == null || file.equals("-") ? "output.asm"
+                    : path.replaceFirst("\\.[^./\\\\]*$", "") + ".asm";
+        }
+        output = Paths.get(output).toAbsolutePath().toString();
+
+        Response response = send(socket, new Request(mode, target, backEnd, output, path, source));
+        System.out.write(response.getOutput());
+        System.out.flush();
+        if (!response.isOk())
+        {
+            System.err.println(response.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package server;
+import ast.FragmentCache;
+import ast.Program;
+import environment.Environment;
+import parser.Parser;
+import scanner.ScanErrorException;
+import scanner.Scanner;
+import target.Target;
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CompileServer is a long-running compiler and interpreter that takes
+ * Requests over a Unix domain socket, so that a build compiling many files
+ * pays for starting the virtual machine and warming up the JIT once instead
+ * of once per file. Each connection carries one Request and its Response and
+ * is handled by a fixed pool of worker threads. Compiles share one
+ * FragmentCache, so procedures that did not change since the last compile of
+ * a file are not generated again.
+ *
+ * Each request has a deadline; a program still running when it passes is
+ * stopped at its next statement and the request fails, so a program that never
+ * ends does not keep a worker. The socket file can only be opened by the user
+ * running the server, so no one else can send it programs or shut it down.
+ *
+ * Run it with java server.CompileServer [-s socket] [-j threads] [-c cachedir]
+ * [-d millis] and send it requests with CompileClient.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class CompileServer
+{
+    /**
+     * The socket the server listens on unless told otherwise.
+     */
+    public static final String DEFAULT_SOCKET =
+            System.getProperty("java.io.tmpdir") + File.separator + "compiler.sock";
+
+    /**
+     * How many times the warm-up program is compiled and run before the
+     * server takes requests.
+     */
+    public static final int WARM_UP_ROUNDS = 200;
+
+    /**
+     * How long a request may take unless told otherwise, in milliseconds.
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+
+    private static final String WARM_UP_PROGRAM =
+            "VAR i, j, s;\n"
+            + "PROCEDURE f(k);\n"
+            + "BEGIN\n"
+            + "f := k;\n"
+            + "IF k > 1 THEN f := f(k - 1) + f(k - 2);\n"
+            + "END;\n"
+            + "BEGIN\n"
+            + "s := 0;\n"
+            + "i := 0;\n"
+            + "WHILE i < 12 DO\n"
+            + "BEGIN\n"
+            + "j := i * 3 + i / 2;\n"
+            + "IF j > 10 THEN s := s + f(i);\n"
+            + "i := i + 1;\n"
+            + "END;\n"
+            + "WRITELN(s);\n"
+            + "END;\n"
+            + ".\n";
+
+    private Path socket;
+    private FragmentCache cache;
+    private ExecutorService workers;
+    private ScheduledExecutorService timer;
+    private long timeoutMillis;
+    private ServerSocketChannel channel;
+    private volatile boolean running;
+
+    /**
+     * Constructs a CompileServer whose requests have the default deadline.
+     *
+     * @param socket the path of the socket to listen on
+     * @param cache the cache compiles share, or null to generate all code
+     * @param threads the number of requests handled at once
+     */
+    public CompileServer(Path socket, FragmentCache cache, int threads)
+    {
+        this(socket, cache, threads, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Constructs a CompileServer.
+     *
+     * @param socket the path of the socket to listen on
+     * @param cache the cache compiles share, or null to generate all code
+     * @param threads the number of requests handled at once
+     * @param timeoutMillis how long a request may take, in milliseconds
+     */
+    public CompileServer(Path socket, FragmentCache cache, int threads, long timeoutMillis)
+    {
+        this.socket = socket;
+        this.cache = cache;
+        this.timeoutMillis = timeoutMillis;
+        workers = Executors.newFixedThreadPool(threads);
+        timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "compile-server-deadlines");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Compiles and runs a small program many times so that the scanner,
+     * parser, code generator and interpreter are compiled by the JIT before
+     * the first request comes in. Nothing is kept in the cache.
+     *
+     * @param rounds how many times to compile and run the program
+     * @throws IOException if the scratch file cannot be created
+     */
+    public void warmUp(int rounds) throws IOException
+    {
+        Path scratch = Files.createTempFile("warmup", ".asm");
+        try
+        {
+            for (int i = 0; i < rounds; i++)
+            {
+                execute(new Request(Request.BOTH, "mips", scratch.toString(), "",
+                        WARM_UP_PROGRAM), null);
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists(scratch);
+        }
+    }
+
+    /**
+     * Listens on the socket and hands each connection to a worker until a
+     * SHUTDOWN request comes in. A socket file left behind by an earlier
+     * server is replaced.
+     *
+     * @throws IOException if the socket cannot be opened
+     */
+    public void serve() throws IOException
+    {
+        Files.deleteIfExists(socket);
+        channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        bind();
+        running = true;
+        try
+        {
+            while (running)
+            {
+                final SocketChannel client;
+                try
+                {
+                    client = channel.accept();
+                }
+                catch (IOException ex)
+                {
+                    if (running)
+                    {
+                        throw ex;
+                    }
+                    break;
+                }
+                workers.execute(new Runnable()
+                {
+                    public void run()
+                    {
+                        handle(client);
+                    }
+                });
+            }
+        }
+        finally
+        {
+            workers.shutdown();
+            try
+            {
+                workers.awaitTermination(1, TimeUnit.MINUTES);
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+            }
+            timer.shutdownNow();
+            channel.close();
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    /**
+     * Binds the channel to the socket path so that only the owner can
+     * connect. Where the file system has POSIX permissions, the socket is
+     * bound in a directory only the owner can enter, made rw------- and only
+     * then moved into place, so no one else can connect even before the
+     * first accept.
+     *
+     * @throws IOException if the socket cannot be bound or moved
+     */
+    private void bind() throws IOException
+    {
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix"))
+        {
+            channel.bind(UnixDomainSocketAddress.of(socket));
+            return;
+        }
+        Path parent = socket.toAbsolutePath().getParent();
+        Path dir = Files.createTempDirectory(parent, "compiler",
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        Path bound = dir.resolve("socket");
+        try
+        {
+            channel.bind(UnixDomainSocketAddress.of(bound));
+            Files.setPosixFilePermissions(bound, PosixFilePermissions.fromString("rw-------"));
+            Files.move(bound, socket, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(bound);
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Stops accepting connections; requests already taken are finished.
+     */
+    public void shutdown()
+    {
+        running = false;
+        try
+        {
+            channel.close();
+        }
+        catch (IOException ex)
+        {
+            // the accept loop ends either way
+        }
+    }
+
+    /**
+     * Reads the request of one connection, carries it out and sends back
+     * the response. A program still running at the deadline is cancelled
+     * and the response says the request timed out.
+     *
+     * @param client the connection
+     */
+    private void handle(SocketChannel client)
+    {
+        try (SocketChannel open = client;
+             DataInputStream in = new DataInputStream(
+                     new BufferedInputStream(Channels.newInputStream(open)));
+             DataOutputStream out = new DataOutputStream(
+                     new BufferedOutputStream(Channels.newOutputStream(open))))
+        {
+            Request request = Request.read(in);
+            if (request.getMode().equals(Request.SHUTDOWN))
+            {
+                new Response(true, "shutting down", new byte[0]).write(out);
+                shutdown();
+                return;
+            }
+            final Environment env = new Environment();
+            ScheduledFuture<?> deadline = timer.schedule(new Runnable()
+            {
+                public void run()
+                {
+                    env.cancel();
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+            Response response;
+            try
+            {
+                response = execute(request, cache, env);
+            }
+            finally
+            {
+                deadline.cancel(false);
+            }
+            if (!response.isOk() && env.isCancelled())
+            {
+                response = new Response(false, "timed out after " + timeoutMillis + " ms",
+                        response.getOutput());
+            }
+            response.write(out);
+        }
+        catch (IOException ex)
+        {
+            // the client went away; there is no one left to tell
+        }
+    }
+
+    /**
+     * Carries out a compile or interpret request.
+     *
+     * @param request the request
+     * @param cache the cache to compile with, or null to generate all code
+     * @return the response, which holds the error if the program could not
+     *         be read, parsed, compiled or run
+     */
+    public static Response execute(Request request, FragmentCache cache)
+    {
+        return execute(request, cache, new Environment());
+    }
+
+    /**
+     * Carries out a compile or interpret request, interpreting in the given
+     * environment, which another thread may cancel to stop the program.
+     *
+     * @param request the request
+     * @param cache the cache to compile with, or null to generate all code
+     * @param env the empty environment to run the program in
+     * @return the response, which holds the error if the program could not
+     *         be read, parsed, compiled or run, or was cancelled
+     */
+    public static Response execute(Request request, FragmentCache cache, Environment env)
+    {
+        long start = System.nanoTime();
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        try
+        {
+            String mode = request.getMode();
+            boolean compile = mode.equals(Request.COMPILE) || mode.equals(Request.BOTH);
+            boolean interpret = mode.equals(Request.INTERPRET) || mode.equals(Request.BOTH);
+            if (!compile && !interpret)
+            {
+                throw new IllegalArgumentException("unknown mode " + mode);
+            }
+            String source = request.getSource();
+            if (source == null)
+            {
+                source = new String(Files.readAllBytes(Paths.get(request.getPath())),
+                        StandardCharsets.UTF_8);
+            }
+            Program program = new Parser(new Scanner(source), true).parseProgram();
+            if (compile && Request.IR.equals(request.getBackEnd()))
+            {
+                program.compileThroughIR(request.getOutput(), Target.forName(request.getTarget()));
+            }
+            else if (compile && Request.AST.equals(request.getBackEnd()))
+            {
+                program.compile(request.getOutput(), Target.forName(request.getTarget()), cache);
+            }
+            else if (compile)
+            {
+                throw new IllegalArgumentException("unknown back end " + request.getBackEnd());
+            }
+            if (interpret)
+            {
+                env.setOutput(new PrintStream(printed, false, "UTF-8"));
+                program.exec(env);
+                env.getOutput().flush();
+            }
+        }
+        catch (IOException | ScanErrorException | RuntimeException | StackOverflowError ex)
+        {
+            String message = ex.getMessage() != null ? ex.getMessage() : ex.toString();
+            return new Response(false, message, printed.toByteArray());
+        }
+        long micros = (System.nanoTime() - start) / 1000;
+        return new Response(true, micros + " us", printed.toByteArray());
+    }
+
+    /**
+     * Starts a server.
+     *
+     * @param args -s followed by the socket path, -j followed by the number of
+     *             worker threads, -c followed by a directory to keep the
+     *             fragment cache in, and -d followed by the deadline of a
+     *             request in milliseconds; all are optional
+     * @throws IOException if the socket cannot be opened
+     */
+    public static void main(String[] args) throws IOException
+    {
+        String socket = DEFAULT_SOCKET;
+        int threads = Runtime.getRuntime().availableProcessors();
+        FragmentCache cache = FragmentCache.shared();
+        long timeout = DEFAULT_TIMEOUT_MILLIS;
+        for (int i = 0; i + 1 < args.length; i += 2)
+        {
+            if (args[i].equals("-s"))
+            {
+                socket = args[i + 1];
+            }
+            else if (args[i].equals("-j"))
+            {
+                threads = Integer.parseInt(args[i + 1]);
+            }
+            else if (args[i].equals("-c"))
+            {
+                cache = new FragmentCache(new File(args[i + 1]), FragmentCache.DEFAULT_CAPACITY);
+            }
+            else if (args[i].equals("-d"))
+            {
+                timeout = Long.parseLong(args[i + 1]);
+            }
+        }
+        CompileServer server = new CompileServer(Paths.get(socket), cache, threads, timeout);
+        server.warmUp(WARM_UP_ROUNDS);
+        System.err.println("listening on " + socket);
+        server.serve();
+    }
+}
@@ -0,0 +1,159 @@
+package server;
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+
+/**
+ * Tests that the CompileServer stops programs that run past their deadline and
+ * keeps serving afterwards. A server with one worker and a one second deadline
+ * is sent a program that loops forever and one that recurses for far too long
+ * through a procedure whose body is a bare IF; each must fail as timed out well
+ * before the next deadline would pass, and the worker must then still run an
+ * ordinary program. The socket must only be open to its owner. A watchdog
+ * fails the test if it hangs.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class CompileServerTester
+{
+    private static final long TIMEOUT_MILLIS = 1000;
+    private static final long WATCHDOG_MILLIS = 30000;
+
+    private static final String LOOP =
+            "VAR i;\n"
+            + "BEGIN\n"
+            + "   i := 0;\n"
+            + "   WHILE 1 = 1 DO i := i + 1;\n"
+            + "END;\n.\n";
+
+    private static final String RECURSION =
+            "VAR r;\n"
+            + "PROCEDURE f(n);\n"
+            + "IF n > 0 THEN f := f(n - 1) + f(n - 1);\n"
+            + "BEGIN\n"
+            + "   r := f(40);\n"
+            + "   WRITELN(r);\n"
+            + "END;\n.\n";
+
+    private static final String ORDINARY =
+            "VAR i, t;\n"
+            + "BEGIN\n"
+            + "   i := 0;\n"
+            + "   t := 0;\n"
+            + "   WHILE i < 10 DO\n"
+            + "   BEGIN\n"
+            + "      t := t + i;\n"
+            + "      i := i + 1;\n"
+            + "   END;\n"
+            + "   WRITELN(t);\n"
+            + "END;\n.\n";
+
+    /**
+     * Runs every test and prints each one that fails.
+     *
+     * @param args not used
+     * @throws Exception if the server cannot be started or reached
+     */
+    public static void main(String[] args) throws Exception
+    {
+        Thread watchdog = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    Thread.sleep(WATCHDOG_MILLIS);
+                }
+                catch (InterruptedException ex)
+                {
+                    return;
+                }
+                System.out.println("FAIL the server did not answer in " + WATCHDOG_MILLIS
+                        + " ms");
+                System.exit(1);
+            }
+        }, "watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+        Path dir = Files.createTempDirectory("servertest");
+        final Path socket = dir.resolve("compiler.sock");
+        final CompileServer server = new CompileServer(socket, null, 1, TIMEOUT_MILLIS);
+        Thread serving = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    server.serve();
+                }
+                catch (IOException ex)
+                {
+                    ex.printStackTrace();
+                }
+            }
+        }, "compile-server");
+        serving.start();
+        for (int i = 0; i < 100 && !Files.exists(socket); i++)
+        {
+            Thread.sleep(50);
+        }
+        int failed = 0;
+        String permissions = PosixFilePermissions.toString(Files.getPosixFilePermissions(socket));
+        if (!permissions.equals("rw-------"))
+        {
+            System.out.println("FAIL the socket is " + permissions);
+            failed++;
+        }
+        failed += expectTimeout(socket, "an endless WHILE", LOOP);
+        failed += expectTimeout(socket, "endless recursion", RECURSION);
+        Response response = CompileClient.send(socket.toString(), new Request(Request.INTERPRET,
+                "mips", "", "", ORDINARY));
+        String printed = new String(response.getOutput()).trim();
+        if (!response.isOk() || !printed.equals("45"))
+        {
+            System.out.println("FAIL an ordinary program after the timeouts: "
+                    + response.getMessage() + ", printed " + printed);
+            failed++;
+        }
+        CompileClient.send(socket.toString(), new Request(Request.SHUTDOWN, "mips", "", "",
+                null));
+        serving.join();
+        Files.deleteIfExists(dir);
+        System.out.println((4 - failed) + " of 4 passed");
+        if (failed > 0)
+        {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Sends a program that never finishes and checks that it times out in
+     * time.
+     *
+     * @param socket the server's socket
+     * @param name what to call the program in messages
+     * @param source the program
+     * @return 0 if the request timed out in time; otherwise, 1
+     * @throws IOException if the server cannot be reached
+     */
+    private static int expectTimeout(Path socket, String name, String source)
+        throws IOException
+    {
+        long start = System.nanoTime();
+        Response response = CompileClient.send(socket.toString(), new Request(Request.INTERPRET,
+                "mips", "", "", source));
+        long millis = (System.nanoTime() - start) / 1000000;
+        if (response.isOk() || !response.getMessage().startsWith("timed out"))
+        {
+            System.out.println("FAIL " + name + ": " + response.getMessage());
+            return 1;
+        }
+        if (millis > 2 * TIMEOUT_MILLIS)
+        {
+            System.out.println("FAIL " + name + " took " + millis + " ms");
+            return 1;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,199 @@
+package server;
+import ast.FragmentCache;
+import ast.ProcedureDeclaration;
+import ast.Program;
+import environment.Environment;
+import parser.Parser;
+import scanner.ScanErrorException;
+import scanner.Scanner;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * The LiveReloader watches the source file of a program running in the
+ * interpreter and, whenever the file changes, parses it again and hands the
+ * procedures whose name, parameters or body changed to the program's
+ * Environment. The interpreter swaps them in at its next statement boundary,
+ * all at once, and keeps the values of the globals, so a long session does not
+ * have to start over when a procedure is fixed. Only procedures are reloaded;
+ * edits to the VAR list or the main statement take effect on the next run.
+ *
+ * A file that does not parse, as it may while an editor is still writing it,
+ * is reported on standard error and the running procedures are kept. A loop
+ * analyzed with an old procedure is analyzed again the next time it is
+ * reached after the new one is swapped in. Compiled code needs no such care:
+ * the FragmentCache keys code by the procedure's text and what its callees
+ * touch, so a changed procedure is never served the code of its old version.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class LiveReloader implements Closeable
+{
+    /**
+     * How long to wait after a change before reading the file, so that the
+     * several events one save makes lead to one reload.
+     */
+    public static final long SETTLE_MILLIS = 50;
+
+    private Path file;
+    private Environment env;
+    private Map<String, String> versions;
+    private WatchService watcher;
+    private Thread thread;
+    private boolean closed;
+
+    /**
+     * Constructs a LiveReloader.
+     *
+     * @param file the source file of the program
+     * @param env the environment the program runs in
+     * @param program the program as it was parsed from the file
+     */
+    public LiveReloader(Path file, Environment env, Program program)
+    {
+        this.file = file.toAbsolutePath();
+        this.env = env;
+        versions = new HashMap<String, String>();
+        for (ProcedureDeclaration pd : program.getProcedures())
+        {
+            versions.put(pd.getName(), FragmentCache.describe(pd));
+        }
+    }
+
+    /**
+     * Starts watching the file on a daemon thread.
+     *
+     * @throws IOException if the file's directory cannot be watched
+     */
+    public void start() throws IOException
+    {
+        watcher = file.getFileSystem().newWatchService();
+        file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                watch();
+            }
+        }, "live-reload " + file.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Parses the file again and queues the procedures that changed since
+     * the last reload for the interpreter to swap in. Once the reloader is
+     * closed, nothing is queued.
+     *
+     * @return the names of the procedures queued
+     * @throws IOException if the file cannot be read
+     * @throws ScanErrorException if the file cannot be scanned
+     * @throws RuntimeException if the file cannot be parsed
+     */
+    public synchronized List<String> reload() throws IOException, ScanErrorException
+    {
+        if (closed)
+        {
+            return Collections.emptyList();
+        }
+        String source = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        Program program = new Parser(new Scanner(source)).parseProgram();
+        List<ProcedureDeclaration> changed = new ArrayList<ProcedureDeclaration>();
+        List<String> names = new ArrayList<String>();
+        for (ProcedureDeclaration pd : program.getProcedures())
+        {
+            String version = FragmentCache.describe(pd);
+            if (!version.equals(versions.get(pd.getName())))
+            {
+                changed.add(pd);
+                names.add(pd.getName());
+            }
+        }
+        if (!changed.isEmpty())
+        {
+            env.reloadProcedures(changed);
+            for (ProcedureDeclaration pd : changed)
+            {
+                versions.put(pd.getName(), FragmentCache.describe(pd));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Waits for changes to the file and reloads it after each, until closed.
+     */
+    private void watch()
+    {
+        try
+        {
+            while (true)
+            {
+                WatchKey key = watcher.take();
+                Thread.sleep(SETTLE_MILLIS);
+                boolean ours = false;
+                for (WatchEvent<?> event : key.pollEvents())
+                {
+                    Object changed = event.context();
+                    if (changed instanceof Path && file.getFileName().equals(changed))
+                    {
+                        ours = true;
+                    }
+                }
+                key.reset();
+                if (ours)
+                {
+                    tryReload();
+                }
+            }
+        }
+        catch (ClosedWatchServiceException | InterruptedException ex)
+        {
+            // closed; stop watching
+        }
+    }
+
+    /**
+     * Reloads the file, reporting what was reloaded or why it could not be
+     * on standard error.
+     */
+    private void tryReload()
+    {
+        try
+        {
+            List<String> names = reload();
+            if (!names.isEmpty())
+            {
+                System.err.println("reloaded " + String.join(", ", names));
+            }
+        }
+        catch (IOException | ScanErrorException | RuntimeException ex)
+        {
+            String message = ex.getMessage() != null ? ex.getMessage() : ex.toString();
+            System.err.println("not reloaded, " + file.getFileName() + ": " + message);
+        }
+    }
+
+    /**
+     * Stops watching the file and drops the procedures queued that the
+     * program has not swapped in yet.
+     *
+     * @throws IOException if the watch service cannot be closed
+     */
+    public void close() throws IOException
+    {
+        if (watcher != null)
+        {
+            watcher.close();
+        }
+        synchronized (this)
+        {
+            closed = true;
+            env.discardReloads();
+        }
+    }
+}
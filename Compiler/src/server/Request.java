@@ -0,0 +1,205 @@
+package server;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A Request asks the CompileServer to compile a program, run it in the
+ * interpreter, or both. The program is given either as the path of a file the
+ * server can read or as its source text, and is compiled by one of two back
+ * ends: the code generator that works on the AST, or the one that lowers the
+ * SSA intermediate representation. On the wire a request is its mode,
+ * target, back end, output path and source path written as UTF strings, then
+ * the length of the source text, or -1 if there is none, and the text itself.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class Request
+{
+    /**
+     * Compiles the program to the output path.
+     */
+    public static final String COMPILE = "compile";
+
+    /**
+     * Runs the program in the interpreter and sends back what it prints.
+     */
+    public static final String INTERPRET = "interpret";
+
+    /**
+     * Compiles the program and then runs it in the interpreter.
+     */
+    public static final String BOTH = "both";
+
+    /**
+     * Stops the server once the requests it is working on are done.
+     */
+    public static final String SHUTDOWN = "shutdown";
+
+    /**
+     * Compiles with the code generator that works on the AST.
+     */
+    public static final String AST = "ast";
+
+    /**
+     * Compiles through the SSA intermediate representation.
+     */
+    public static final String IR = "ir";
+
+    private String mode;
+    private String target;
+    private String backEnd;
+    private String output;
+    private String path;
+    private String source;
+
+    /**
+     * Constructs a Request compiled by the AST back end.
+     *
+     * @param mode COMPILE, INTERPRET, BOTH or SHUTDOWN
+     * @param target the name of the target to compile for, such as "mips"
+     * @param output the path of the assembly file to write, or "" if the
+     *               program is not compiled
+     * @param path the absolute path of the source file, or "" if the source
+     *             text is sent along
+     * @param source the source text, or null if the server reads the file
+     */
+    public Request(String mode, String target, String output, String path, String source)
+    {
+        this(mode, target, AST, output, path, source);
+    }
+
+    /**
+     * Constructs a Request.
+     *
+     * @param mode COMPILE, INTERPRET, BOTH or SHUTDOWN
+     * @param target the name of the target to compile for, such as "mips"
+     * @param backEnd AST or IR
+     * @param output the path of the assembly file to write, or "" if the
+     *               program is not compiled
+     * @param path the absolute path of the source file, or "" if the source
+     *             text is sent along
+     * @param source the source text, or null if the server reads the file
+     */
+    public Request(String mode, String target, String backEnd, String output, String path,
+                   String source)
+    {
+        this.mode = mode;
+        this.target = target;
+        this.backEnd = backEnd;
+        this.output = output;
+        this.path = path;
+        this.source = source;
+    }
+
+    /**
+     * Returns what the server should do.
+     *
+     * @return COMPILE, INTERPRET, BOTH or SHUTDOWN
+     */
+    public String getMode()
+    {
+        return mode;
+    }
+
+    /**
+     * Returns the name of the target to compile for.
+     *
+     * @return the target name
+     */
+    public String getTarget()
+    {
+        return target;
+    }
+
+    /**
+     * Returns the back end to compile with.
+     *
+     * @return AST or IR
+     */
+    public String getBackEnd()
+    {
+        return backEnd;
+    }
+
+    /**
+     * Returns where the assembly goes.
+     *
+     * @return the output path, or ""
+     */
+    public String getOutput()
+    {
+        return output;
+    }
+
+    /**
+     * Returns the path of the source file.
+     *
+     * @return the path, or "" if the source text was sent
+     */
+    public String getPath()
+    {
+        return path;
+    }
+
+    /**
+     * Returns the source text that was sent.
+     *
+     * @return the source, or null if the server reads the file
+     */
+    public String getSource()
+    {
+        return source;
+    }
+
+    /**
+     * Writes the request to a stream.
+     *
+     * @param out the stream
+     * @throws IOException if the stream fails
+     */
+    public void write(DataOutputStream out) throws IOException
+    {
+        out.writeUTF(mode);
+        out.writeUTF(target);
+        out.writeUTF(backEnd);
+        out.writeUTF(output);
+        out.writeUTF(path);
+        if (source == null)
+        {
+            out.writeInt(-1);
+        }
+        else
+        {
+            byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a request from a stream.
+     *
+     * @param in the stream
+     * @return the request
+     * @throws IOException if the stream fails or ends early
+     */
+    public static Request read(DataInputStream in) throws IOException
+    {
+        String mode = in.readUTF();
+        String target = in.readUTF();
+        String backEnd = in.readUTF();
+        String output = in.readUTF();
+        String path = in.readUTF();
+        int length = in.readInt();
+        String source = null;
+        if (length >= 0)
+        {
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            source = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new Request(mode, target, backEnd, output, path, source);
+    }
+}
@@ -0,0 +1,93 @@
+package server;
+import java.io.*;
+
+/**
+ * A Response is the CompileServer's answer to a Request: whether it
+ * succeeded, a message, which is the error when it did not, and whatever the
+ * program printed while it ran in the interpreter. On the wire it is the flag,
+ * the message as a UTF string, and the length of the output and the output.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class Response
+{
+    private boolean ok;
+    private String message;
+    private byte[] output;
+
+    /**
+     * Constructs a Response.
+     *
+     * @param ok whether the request succeeded
+     * @param message the error, or a note such as the time taken
+     * @param output what the program printed
+     */
+    public Response(boolean ok, String message, byte[] output)
+    {
+        this.ok = ok;
+        this.message = message;
+        this.output = output;
+    }
+
+    /**
+     * Checks whether the request succeeded.
+     *
+     * @return true if it did; otherwise, false
+     */
+    public boolean isOk()
+    {
+        return ok;
+    }
+
+    /**
+     * Returns the message.
+     *
+     * @return the error, or a note
+     */
+    public String getMessage()
+    {
+        return message;
+    }
+
+    /**
+     * Returns what the program printed in the interpreter.
+     *
+     * @return the output
+     */
+    public byte[] getOutput()
+    {
+        return output;
+    }
+
+    /**
+     * Writes the response to a stream.
+     *
+     * @param out the stream
+     * @throws IOException if the stream fails
+     */
+    public void write(DataOutputStream out) throws IOException
+    {
+        out.writeBoolean(ok);
+        out.writeUTF(message);
+        out.writeInt(output.length);
+        out.write(output);
+        out.flush();
+    }
+
+    /**
+     * Reads a response from a stream.
+     *
+     * @param in the stream
+     * @return the response
+     * @throws IOException if the stream fails or ends early
+     */
+    public static Response read(DataInputStream in) throws IOException
+    {
+        boolean ok = in.readBoolean();
+        String message = in.readUTF();
+        byte[] output = new byte[in.readInt()];
+        in.readFully(output);
+        return new Response(ok, message, output);
+    }
+}
@@ -0,0 +1,115 @@
+package server;
+import ast.Block;
+import ast.Statement;
+import environment.Environment;
+import parser.Parser;
+import scanner.ScanErrorException;
+import scanner.Scanner;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The StreamingInterpreter runs a program while it is still being parsed.
+ * One thread reads and parses the source a statement at a time and queues
+ * each procedure declaration and each top-level statement of the main block;
+ * the calling thread takes them off the queue and executes them in order.
+ * The first WRITELN of a long script is thus printed as soon as the parser
+ * has reached it, however much of the file comes after.
+ *
+ * Executing a procedure declaration declares the procedure, and every
+ * declaration is queued before the first statement, so no statement can call
+ * a procedure that has not been declared yet. The queue is bounded, so a
+ * parser far ahead of a slow program waits instead of holding the whole AST.
+ * Unlike Program.exec, statements before a syntax error have already run when
+ * the error is reported.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class StreamingInterpreter
+{
+    /**
+     * How many parsed statements may wait for the interpreter.
+     */
+    public static final int QUEUE_CAPACITY = 1024;
+
+    private static final Statement END = new Block(new ArrayList<Statement>());
+
+    /**
+     * Parses and runs a program from a stream.
+     *
+     * @param source the program source, read as far as the final period
+     * @param env the environment to run the program in
+     * @throws ScanErrorException if the source cannot be scanned
+     * @throws InterruptedException if interrupted while waiting for the parser
+     * @throws RuntimeException if the source cannot be parsed or the program
+     *         fails
+     * @throws Error if the parser fails with one, such as a StackOverflowError
+     *         on deeply nested expressions
+     */
+    public static void run(InputStream source, Environment env)
+        throws ScanErrorException, InterruptedException
+    {
+        final BlockingQueue<Statement> queue = new ArrayBlockingQueue<Statement>(QUEUE_CAPACITY);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final Parser parser = new Parser(new Scanner(source));
+        Thread thread = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    parser.parseProgram(queue);
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                catch (Throwable ex)
+                {
+                    failure.set(ex);
+                }
+                finally
+                {
+                    try
+                    {
+                        queue.put(END);
+                    }
+                    catch (InterruptedException ex)
+                    {
+                        // the interpreter has stopped taking statements
+                    }
+                }
+            }
+        }, "streaming parser");
+        thread.setDaemon(true);
+        thread.start();
+        try
+        {
+            for (Statement s = queue.take(); s != END; s = queue.take())
+            {
+                s.exec(env);
+            }
+        }
+        finally
+        {
+            thread.interrupt();
+        }
+        Throwable ex = failure.get();
+        if (ex instanceof ScanErrorException)
+        {
+            throw (ScanErrorException) ex;
+        }
+        if (ex instanceof RuntimeException)
+        {
+            throw (RuntimeException) ex;
+        }
+        if (ex instanceof Error)
+        {
+            throw (Error) ex;
+        }
+    }
+}
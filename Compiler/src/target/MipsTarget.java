@@ -0,0 +1,64 @@
+package target;
+import java.util.List;
+import mips.Instruction;
+
+/**
+ * MipsTarget writes the code as MIPS assembly for SPIM or MARS, one
+ * instruction per line.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class MipsTarget implements Target
+{
+    private static final String[] TEMPORARIES =
+        {"$t0", "$t1", "$t2", "$t3", "$t4", "$t5", "$t6", "$t7", "$t8", "$t9"};
+    private static final String[] SAVED =
+        {"$s0", "$s1", "$s2", "$s3", "$s4", "$s5", "$s6", "$s7"};
+
+    /**
+     * Returns the name of the target.
+     *
+     * @return "mips"
+     */
+    public String getName()
+    {
+        return "mips";
+    }
+
+    /**
+     * Returns $t0-$t9.
+     *
+     * @return the temporary registers
+     */
+    public String[] getTemporaries()
+    {
+        return TEMPORARIES.clone();
+    }
+
+    /**
+     * Returns $s0-$s7.
+     *
+     * @return the saved registers
+     */
+    public String[] getSavedRegisters()
+    {
+        return SAVED.clone();
+    }
+
+    /**
+     * Writes each instruction on its own line.
+     *
+     * @param code the instructions, labels and directives of the program
+     * @return the assembly file
+     */
+    public String render(List<Instruction> code)
+    {
+        StringBuilder text = new StringBuilder(code.size() * 16);
+        for (Instruction in : code)
+        {
+            text.append(in).append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+}
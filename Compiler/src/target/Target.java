@@ -0,0 +1,68 @@
+package target;
+import java.util.List;
+import mips.Instruction;
+
+/**
+ * A Target is a machine the compiler can produce assembly for. The AST emits
+ * MIPS-style Instructions through the Emitter; a Target decides how many
+ * temporary registers the nodes may use and turns the finished list of
+ * Instructions into the text of an assembly file for its machine.
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public interface Target
+{
+    /**
+     * Returns the name of the target, such as "mips".
+     *
+     * @return the name of the target
+     */
+    String getName();
+
+    /**
+     * Returns the temporary registers the Emitter may hand out to
+     * expressions, as MIPS register names.
+     *
+     * @return the temporary registers, in allocation order
+     */
+    String[] getTemporaries();
+
+    /**
+     * Returns the registers a procedure must preserve for its caller, as
+     * MIPS register names, so values held in them survive calls.
+     *
+     * @return the saved registers, in allocation order; empty if the target has none
+     */
+    String[] getSavedRegisters();
+
+    /**
+     * Turns the finished code into the text of an assembly file.
+     *
+     * @param code the instructions, labels and directives of the program
+     * @return the assembly file
+     * @throws IllegalArgumentException if the code uses an instruction the
+     *         target cannot translate
+     */
+    String render(List<Instruction> code);
+
+    /**
+     * Returns the target with the given name.
+     *
+     * @param name "mips", or "x86-64" or its short form "x86"
+     * @return a new target
+     * @throws IllegalArgumentException if there is no such target
+     */
+    static Target forName(String name)
+    {
+        if (name.equals("mips"))
+        {
+            return new MipsTarget();
+        }
+        if (name.equals("x86-64") || name.equals("x86"))
+        {
+            return new X86Target();
+        }
+        throw new IllegalArgumentException("unknown target " + name);
+    }
+}
@@ -0,0 +1,545 @@
+package target;
+import java.util.*;
+import mips.Instruction;
+
+/**
+ * X86Target translates the emitted code into GNU as assembly for x86-64
+ * Linux. Each MIPS register the nodes use is kept in an x86 register, hi and
+ * lo live in %edx and %eax as they do after idivl, and the program runs on a
+ * stack in its own .bss so that every address fits in 32 bits and the MIPS
+ * frame layout carries over unchanged. A call pushes its return address, so
+ * each procedure pops it into the register standing in for $ra. Syscalls go
+ * to a small runtime that buffers the output and writes it on exit. The file
+ * needs no C library:
+ *
+ *     as prog.s -o prog.o && ld prog.o -o prog
+ *
+ * @author Vivek Nayyar
+ * @version October 19, 2026
+ */
+public class X86Target implements Target
+{
+    private static final String[] TEMPORARIES = {"$t0", "$t1", "$t2", "$t3", "$t4"};
+    private static final Map<String, String> REGISTERS = new HashMap<String, String>();
+    private static final Map<String, String> CONDITIONS = new HashMap<String, String>();
+    private static final Map<String, String> MIRRORED = new HashMap<String, String>();
+
+    static
+    {
+        String[][] registers = {{"$v0", "bx"}, {"$v1", "cx"}, {"$a0", "si"}, {"$a1", "di"},
+            {"$a2", "8"}, {"$a3", "9"}, {"$t0", "10"}, {"$t1", "11"}, {"$t2", "12"},
+            {"$t3", "13"}, {"$t4", "14"}, {"$ra", "15"}, {"$fp", "bp"}, {"$sp", "sp"}};
+        for (String[] pair : registers)
+        {
+            REGISTERS.put(pair[0], pair[1]);
+        }
+        String[][] conditions = {{"beq", "je", "je"}, {"bne", "jne", "jne"},
+            {"blt", "jl", "jg"}, {"bgt", "jg", "jl"}, {"ble", "jle", "jge"},
+            {"bge", "jge", "jle"}};
+        for (String[] c : conditions)
+        {
+            CONDITIONS.put(c[0], c[1]);
+            MIRRORED.put(c[0], c[2]);
+        }
+    }
+
+    private static final String[] RUNTIME = {
+        "\t.text",
+        "\t.globl _start",
+        "_start:",
+        "\tmovl $rt_stack_top, %esp",
+        "\tjmp main",
+        "rt_syscall:",
+        "\tpushq %rax",
+        "\tpushq %rcx",
+        "\tpushq %rdx",
+        "\tpushq %rsi",
+        "\tpushq %rdi",
+        "\tpushq %r8",
+        "\tpushq %r11",
+        "\tcmpl $1, %ebx",
+        "\tje rt_print_int",
+        "\tcmpl $4, %ebx",
+        "\tje rt_print_string",
+        "\tcmpl $11, %ebx",
+        "\tje rt_print_char",
+        "\tcmpl $10, %ebx",
+        "\tje rt_exit",
+        "rt_return:",
+        "\tpopq %r11",
+        "\tpopq %r8",
+        "\tpopq %rdi",
+        "\tpopq %rsi",
+        "\tpopq %rdx",
+        "\tpopq %rcx",
+        "\tpopq %rax",
+        "\tret",
+        "rt_print_int:",
+        "\tmovl %esi, %eax",
+        "\tmovl $rt_digits+16, %edi",
+        "\txorl %r8d, %r8d",
+        "\ttestl %eax, %eax",
+        "\tjns 1f",
+        "\tnegl %eax",
+        "\tmovl $1, %r8d",
+        "1:",
+        "\tmovl $10, %ecx",
+        "2:",
+        "\txorl %edx, %edx",
+        "\tdivl %ecx",
+        "\taddb $48, %dl",
+        "\tdecl %edi",
+        "\tmovb %dl, (%rdi)",
+        "\ttestl %eax, %eax",
+        "\tjnz 2b",
+        "\ttestl %r8d, %r8d",
+        "\tjz 3f",
+        "\tdecl %edi",
+        "\tmovb $45, (%rdi)",
+        "3:",
+        "\tmovl $rt_digits+16, %ecx",
+        "\tsubl %edi, %ecx",
+        "\tcall rt_append",
+        "\tjmp rt_return",
+        "rt_print_string:",
+        "\tmovl %esi, %edi",
+        "\txorl %ecx, %ecx",
+        "1:",
+        "\tcmpb $0, (%rdi,%rcx)",
+        "\tje 2f",
+        "\tincl %ecx",
+        "\tjmp 1b",
+        "2:",
+        "\tcall rt_append",
+        "\tjmp rt_return",
+        "rt_print_char:",
+        "\tmovl %esi, %eax",
+        "\tmovb %al, rt_digits",
+        "\tmovl $rt_digits, %edi",
+        "\tmovl $1, %ecx",
+        "\tcall rt_append",
+        "\tjmp rt_return",
+        "rt_exit:",
+        "\tcall rt_flush",
+        "\tmovl $60, %eax",
+        "\txorl %edi, %edi",
+        "\tsyscall",
+        "rt_append:",
+        "\tmovl rt_len, %eax",
+        "\taddl %ecx, %eax",
+        "\tcmpl $65536, %eax",
+        "\tjbe 1f",
+        "\tpushq %rdi",
+        "\tpushq %rcx",
+        "\tcall rt_flush",
+        "\tpopq %rcx",
+        "\tpopq %rdi",
+        "1:",
+        "\tmovl $rt_buf, %edx",
+        "\taddl rt_len, %edx",
+        "\taddl %ecx, rt_len",
+        "2:",
+        "\ttestl %ecx, %ecx",
+        "\tjz 3f",
+        "\tmovb (%rdi), %al",
+        "\tmovb %al, (%rdx)",
+        "\tincl %edi",
+        "\tincl %edx",
+        "\tdecl %ecx",
+        "\tjmp 2b",
+        "3:",
+        "\tret",
+        "rt_flush:",
+        "\tmovl $1, %eax",
+        "\tmovl $1, %edi",
+        "\tmovl $rt_buf, %esi",
+        "\tmovl rt_len, %edx",
+        "\tsyscall",
+        "\tmovl $0, rt_len",
+        "\tret",
+        "\t.bss",
+        "rt_len:",
+        "\t.zero 4",
+        "rt_scratch:",
+        "\t.zero 4",
+        "rt_digits:",
+        "\t.zero 16",
+        "rt_buf:",
+        "\t.zero 65536",
+        "\t.zero 8388608",
+        "rt_stack_top:",
+    };
+
+    /**
+     * Returns the name of the target.
+     *
+     * @return "x86-64"
+     */
+    public String getName()
+    {
+        return "x86-64";
+    }
+
+    /**
+     * Returns $t0-$t4, the temporaries that have an x86 register of their own.
+     *
+     * @return the temporary registers
+     */
+    public String[] getTemporaries()
+    {
+        return TEMPORARIES.clone();
+    }
+
+    /**
+     * Returns no registers: every x86 register left over is already taken
+     * by the runtime, so values that live across a call stay in memory.
+     *
+     * @return an empty array
+     */
+    public String[] getSavedRegisters()
+    {
+        return new String[0];
+    }
+
+    /**
+     * Translates the code, followed by the runtime.
+     *
+     * @param code the instructions, labels and directives of the program
+     * @return the assembly file
+     * @throws IllegalArgumentException if the code uses an instruction or
+     *         register this target cannot translate
+     */
+    public String render(List<Instruction> code)
+    {
+        Set<String> procedures = new HashSet<String>();
+        for (Instruction in : code)
+        {
+            if (in.is("jal"))
+            {
+                procedures.add(in.getOperand(0));
+            }
+        }
+        List<String> out = new ArrayList<String>(code.size() * 2);
+        for (Instruction in : code)
+        {
+            if (in.isLabel())
+            {
+                out.add(in.getLabel() + ":");
+                if (procedures.contains(in.getLabel()))
+                {
+                    out.add("\tpopq %r15");
+                }
+            }
+            else if (in.isDirective())
+            {
+                directive(in.getText(), out);
+            }
+            else
+            {
+                instruction(in, out);
+            }
+        }
+        out.addAll(Arrays.asList(RUNTIME));
+        StringBuilder text = new StringBuilder(out.size() * 20);
+        for (String line : out)
+        {
+            text.append(line).append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Translates a directive or data declaration.
+     *
+     * @param text the directive
+     * @param out receives the translated lines
+     */
+    private static void directive(String text, List<String> out)
+    {
+        if (text.startsWith(".globl"))
+        {
+            return;
+        }
+        out.add("\t" + text.replace(".asciiz", ".asciz").replace(".word", ".long"));
+    }
+
+    /**
+     * Translates one instruction.
+     *
+     * @param in the instruction
+     * @param out receives the translated lines
+     * @throws IllegalArgumentException if the instruction cannot be translated
+     */
+    private static void instruction(Instruction in, List<String> out)
+    {
+        String op = in.getOpcode();
+        if (op.equals("li") || op.equals("move"))
+        {
+            emit(out, "movl", value(in.getOperand(1)), reg(in.getOperand(0)));
+        }
+        else if (op.equals("la"))
+        {
+            emit(out, "movl", "$" + in.getOperand(1), reg(in.getOperand(0)));
+        }
+        else if (op.equals("lw"))
+        {
+            emit(out, "movl", address(in.getOperand(1)), reg(in.getOperand(0)));
+        }
+        else if (op.equals("sw"))
+        {
+            emit(out, "movl", value(in.getOperand(0)), address(in.getOperand(1)));
+        }
+        else if (op.equals("addu") || op.equals("add") || op.equals("addiu") || op.equals("addi"))
+        {
+            arithmetic("addl", true, in, out);
+        }
+        else if (op.equals("subu") || op.equals("sub"))
+        {
+            arithmetic("subl", false, in, out);
+        }
+        else if (op.equals("and") || op.equals("andi"))
+        {
+            arithmetic("andl", true, in, out);
+        }
+        else if (op.equals("or") || op.equals("ori"))
+        {
+            arithmetic("orl", true, in, out);
+        }
+        else if (op.equals("xor") || op.equals("xori"))
+        {
+            arithmetic("xorl", true, in, out);
+        }
+        else if (op.equals("sll") || op.equals("sra") || op.equals("srl"))
+        {
+            String shift = op.equals("sll") ? "shll" : op.equals("sra") ? "sarl" : "shrl";
+            String dest = reg(in.getOperand(0));
+            if (!in.getOperand(0).equals(in.getOperand(1)))
+            {
+                emit(out, "movl", value(in.getOperand(1)), dest);
+            }
+            emit(out, shift, "$" + in.getOperand(2), dest);
+        }
+        else if (op.equals("negu") || op.equals("neg"))
+        {
+            String dest = reg(in.getOperand(0));
+            if (!in.getOperand(0).equals(in.getOperand(1)))
+            {
+                emit(out, "movl", value(in.getOperand(1)), dest);
+            }
+            emit(out, "negl", dest);
+        }
+        else if (op.equals("mult"))
+        {
+            emit(out, "movl", value(in.getOperand(0)), "%eax");
+            String factor = value(in.getOperand(1));
+            if (factor.startsWith("$"))
+            {
+                emit(out, "movl", factor, "rt_scratch");
+                factor = "rt_scratch";
+            }
+            emit(out, "imull", factor);
+        }
+        else if (op.equals("mul"))
+        {
+            emit(out, "movl", value(in.getOperand(1)), "%eax");
+            emit(out, "imull", value(in.getOperand(2)), "%eax");
+            emit(out, "movl", "%eax", reg(in.getOperand(0)));
+        }
+        else if (op.equals("div"))
+        {
+            emit(out, "movl", value(in.getOperand(0)), "%eax");
+            emit(out, "cltd");
+            String divisor = value(in.getOperand(1));
+            if (divisor.startsWith("$"))
+            {
+                emit(out, "movl", divisor, "rt_scratch");
+                divisor = "rt_scratch";
+            }
+            emit(out, "idivl", divisor);
+        }
+        else if (op.equals("mflo"))
+        {
+            emit(out, "movl", "%eax", reg(in.getOperand(0)));
+        }
+        else if (op.equals("mfhi"))
+        {
+            emit(out, "movl", "%edx", reg(in.getOperand(0)));
+        }
+        else if (op.equals("slt") || op.equals("slti"))
+        {
+            compare(in.getOperand(1), in.getOperand(2), out);
+            emit(out, "setl", "%al");
+            emit(out, "movzbl", "%al", reg(in.getOperand(0)));
+        }
+        else if (CONDITIONS.containsKey(op))
+        {
+            boolean swapped = compare(in.getOperand(0), in.getOperand(1), out);
+            emit(out, (swapped ? MIRRORED : CONDITIONS).get(op), in.getOperand(2));
+        }
+        else if (op.equals("j") || op.equals("b"))
+        {
+            emit(out, "jmp", in.getOperand(0));
+        }
+        else if (op.equals("jal"))
+        {
+            emit(out, "call", in.getOperand(0));
+        }
+        else if (op.equals("jr"))
+        {
+            emit(out, "jmp", "*" + reg64(in.getOperand(0)));
+        }
+        else if (op.equals("syscall"))
+        {
+            emit(out, "call", "rt_syscall");
+        }
+        else if (op.equals("nop"))
+        {
+            emit(out, "nop");
+        }
+        else
+        {
+            throw new IllegalArgumentException("x86-64 cannot translate " + in.toString().trim());
+        }
+    }
+
+    /**
+     * Translates a three-operand MIPS arithmetic instruction into the
+     * two-operand x86 form.
+     *
+     * @param x86 the x86 opcode
+     * @param commutative whether the operands may be swapped
+     * @param in the instruction
+     * @param out receives the translated lines
+     */
+    private static void arithmetic(String x86, boolean commutative, Instruction in,
+                                   List<String> out)
+    {
+        String dest = in.getOperand(0);
+        String a = in.getOperand(1);
+        String b = in.getOperand(2);
+        if (dest.equals(a))
+        {
+            emit(out, x86, value(b), reg(dest));
+        }
+        else if (dest.equals(b) && commutative)
+        {
+            emit(out, x86, value(a), reg(dest));
+        }
+        else if (dest.equals(b))
+        {
+            emit(out, "negl", reg(dest));
+            emit(out, "addl", value(a), reg(dest));
+        }
+        else
+        {
+            emit(out, "movl", value(a), reg(dest));
+            emit(out, x86, value(b), reg(dest));
+        }
+    }
+
+    /**
+     * Emits a comparison of two operands, putting a register first when only
+     * one of them is a register.
+     *
+     * @param a the left operand
+     * @param b the right operand
+     * @param out receives the translated lines
+     * @return true if the operands were swapped; otherwise, false
+     */
+    private static boolean compare(String a, String b, List<String> out)
+    {
+        boolean swapped = !a.startsWith("$") || a.equals("$zero");
+        if (swapped)
+        {
+            String t = a;
+            a = b;
+            b = t;
+        }
+        emit(out, "cmpl", value(b), value(a));
+        return swapped;
+    }
+
+    /**
+     * Adds one x86 instruction to the output.
+     *
+     * @param out the output
+     * @param op the opcode
+     * @param operands the operands in AT&amp;T order
+     */
+    private static void emit(List<String> out, String op, String... operands)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append('\t').append(op);
+        for (int i = 0; i < operands.length; i++)
+        {
+            sb.append(i == 0 ? " " : ", ").append(operands[i]);
+        }
+        out.add(sb.toString());
+    }
+
+    /**
+     * Translates a register or an immediate value.
+     *
+     * @param operand a MIPS register or number
+     * @return the x86 operand
+     */
+    private static String value(String operand)
+    {
+        if (operand.equals("$zero"))
+        {
+            return "$0";
+        }
+        if (operand.startsWith("$"))
+        {
+            return reg(operand);
+        }
+        return "$" + operand;
+    }
+
+    /**
+     * Returns the 32-bit x86 register standing in for a MIPS register.
+     *
+     * @param mips the MIPS register
+     * @return the x86 register
+     * @throws IllegalArgumentException if the register has no x86 counterpart
+     */
+    private static String reg(String mips)
+    {
+        String name = REGISTERS.get(mips);
+        if (name == null)
+        {
+            throw new IllegalArgumentException("x86-64 has no register for " + mips);
+        }
+        return Character.isDigit(name.charAt(0)) ? "%r" + name + "d" : "%e" + name;
+    }
+
+    /**
+     * Returns the 64-bit x86 register standing in for a MIPS register,
+     * as needed in addresses.
+     *
+     * @param mips the MIPS register
+     * @return the x86 register
+     */
+    private static String reg64(String mips)
+    {
+        reg(mips);
+        return "%r" + REGISTERS.get(mips);
+    }
+
+    /**
+     * Translates a memory operand: a label, (reg) or offset(reg).
+     *
+     * @param operand the MIPS memory operand
+     * @return the x86 memory operand
+     */
+    private static String address(String operand)
+    {
+        int open = operand.indexOf('(');
+        if (open < 0)
+        {
+            return operand;
+        }
+        String base = operand.substring(open + 1, operand.indexOf(')'));
+        return operand.substring(0, open) + "(" + reg64(base) + ")";
+    }
+}